@@ -0,0 +1,253 @@
+package com.app.benchmarks;
+
+import com.app.domain.car.Car;
+import com.app.domain.car.CarColumnStore;
+import com.app.domain.car.CarQuery;
+import com.app.domain.car.CarStatistic;
+import com.app.domain.car.type.Color;
+import com.app.domain.car.type.ExecutionMode;
+import com.app.domain.car.type.SortingType;
+import com.app.domain.car.type.StatisticAttribute;
+import com.app.service.CarsService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of every public {@link CarsService} query on service which already answered it once, so lazily built
+ * indexes and aggregates are measured on their fast path. Costs of building them are measured by
+ * {@link CarsServiceColdBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx8g", "--add-modules=jdk.incubator.vector"})
+public class CarsServiceBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int size;
+
+    @Param({"50"})
+    public int models;
+
+    @Param({"30"})
+    public int components;
+
+    @Param({"4"})
+    public int colors;
+
+    @Param({"5"})
+    public int componentsPerCar;
+
+    @Param({"SEQUENTIAL"})
+    public ExecutionMode mode;
+
+    private FleetGenerator generator;
+    private CarsService service;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private double mileage;
+    private List<String> requiredComponents;
+    private List<String> anyComponents;
+    private CarQuery query;
+    private long[] ids;
+    private int nextId;
+    private Path snapshotFile;
+    private Path savedFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+
+        generator = new FleetGenerator(FleetGenerator.DEFAULT_SEED, models, components, colors, componentsPerCar);
+        service = new CarsService(generator.store(size), mode);
+
+        minPrice = BigDecimal.valueOf(5000000, CarColumnStore.PRICE_SCALE);
+        maxPrice = BigDecimal.valueOf(6000000, CarColumnStore.PRICE_SCALE);
+        mileage = 250000;
+        requiredComponents = List.of(generator.componentName(0), generator.componentName(1));
+        anyComponents = List.of(generator.componentName(2), generator.componentName(3));
+        query = CarQuery
+                .builder()
+                .model(generator.modelName(0))
+                .color(Color.BLACK)
+                .minMileage(10000.0)
+                .minPrice(minPrice)
+                .maxPrice(maxPrice)
+                .sortBy(SortingType.PRICE)
+                .limit(50)
+                .build();
+
+        var random = new SplittableRandom(FleetGenerator.DEFAULT_SEED);
+        ids = new long[1024];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = random.nextInt(size);
+        }
+
+        snapshotFile = Files.createTempFile("cars-benchmark", ".snapshot");
+        service.saveSnapshot(snapshotFile);
+        savedFile = Files.createTempFile("cars-benchmark", ".saved");
+
+        warmUpIndexes();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(snapshotFile);
+        Files.deleteIfExists(savedFile);
+    }
+
+    private void warmUpIndexes() {
+        for (var sortingType : SortingType.values()) {
+            service.sortingByGivenOrder(sortingType, false);
+        }
+        service.countWithGivenPriceRange(minPrice, maxPrice);
+        service.countWithMileageGreaterThan(mileage);
+        service.findAllWithAnyComponent(anyComponents);
+        service.returnAmountOfCarsForAllColors();
+    }
+
+    @Benchmark
+    public List<Car> sortingByModelDescending() {
+        return service.sortingByGivenOrder(SortingType.MODEL, true);
+    }
+
+    @Benchmark
+    public Car sortingByPriceLastCar() {
+        var sorted = service.sortingByGivenOrder(SortingType.PRICE, false);
+        return sorted.get(sorted.size() - 1);
+    }
+
+    @Benchmark
+    public List<Car> sortingByMileagePage() {
+        return List.copyOf(service.sortingByGivenOrder(SortingType.MILEAGE, false, size / 2, 100));
+    }
+
+    @Benchmark
+    public List<Car> getTenCheapestCars() {
+        return service.getTopCars(SortingType.PRICE, false, 10);
+    }
+
+    @Benchmark
+    public Map<String, List<Car>> getThreeMostExpensiveCarsForEveryModel() {
+        return service.getTopCarsForEveryModel(SortingType.PRICE, true, 3);
+    }
+
+    @Benchmark
+    public List<Car> findAllWithMileageGreaterThan() {
+        return service.findAllWithMileageGreaterThan(mileage);
+    }
+
+    @Benchmark
+    public int countWithMileageGreaterThan() {
+        return service.countWithMileageGreaterThan(mileage);
+    }
+
+    @Benchmark
+    public Map<Color, Long> returnAmountOfCarsForAllColors() {
+        return service.returnAmountOfCarsForAllColors();
+    }
+
+    @Benchmark
+    public Map<String, Car> returnMostExpensiveCarForEveryModel() {
+        return service.returnMostExpensiveCarForEveryModel();
+    }
+
+    @Benchmark
+    public CarStatistic priceStatistic() {
+        return service.getStatisticForGivenAttribute(StatisticAttribute.PRICE);
+    }
+
+    @Benchmark
+    public CarStatistic mileageStatistic() {
+        return service.getStatisticForGivenAttribute(StatisticAttribute.MILEAGE);
+    }
+
+    @Benchmark
+    public CarStatistic allAttributesStatistic() {
+        return service.getStatisticForAllAttributes();
+    }
+
+    @Benchmark
+    public Car getTheMostExpensiveCar() {
+        return service.getTheMostExpensiveCar();
+    }
+
+    @Benchmark
+    public List<Car> sortAlphabeticalComponentList() {
+        return service.sortAlphabeticalComponentList();
+    }
+
+    @Benchmark
+    public List<Car> getCarsWithGivenPriceRange() {
+        return service.getCarsWithGivenPriceRange(minPrice, maxPrice);
+    }
+
+    @Benchmark
+    public int countWithGivenPriceRange() {
+        return service.countWithGivenPriceRange(minPrice, maxPrice);
+    }
+
+    @Benchmark
+    public Map<String, List<Car>> groupByComponent() {
+        return service.groupByComponent();
+    }
+
+    @Benchmark
+    public List<Car> findAllWithAllComponents() {
+        return service.findAllWithAllComponents(requiredComponents);
+    }
+
+    @Benchmark
+    public List<Car> findAllWithAnyComponent() {
+        return service.findAllWithAnyComponent(anyComponents);
+    }
+
+    @Benchmark
+    public List<Car> findWithQuery() {
+        return service.find(query);
+    }
+
+    @Benchmark
+    public Optional<Car> streamFirstCarWithQuery() {
+        return service.stream(query).findFirst();
+    }
+
+    @Benchmark
+    public Optional<Car> findById() {
+        nextId = (nextId + 1) & (ids.length - 1);
+        return service.findById(ids[nextId]);
+    }
+
+    @Benchmark
+    public CarsService openSnapshot() {
+        return CarsService.openSnapshot(snapshotFile);
+    }
+
+    @Benchmark
+    public Path saveSnapshot() {
+        service.saveSnapshot(savedFile);
+        return savedFile;
+    }
+}
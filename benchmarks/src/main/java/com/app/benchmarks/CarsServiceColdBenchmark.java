@@ -0,0 +1,111 @@
+package com.app.benchmarks;
+
+import com.app.domain.car.Car;
+import com.app.domain.car.CarColumnStore;
+import com.app.domain.car.CarStatistic;
+import com.app.domain.car.type.ExecutionMode;
+import com.app.domain.car.type.SortingType;
+import com.app.domain.car.type.StatisticAttribute;
+import com.app.service.CarsService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of first calls on new service, they include building of sort permutations, range and component
+ * indexes and aggregates. Every measured call gets its own service, so it is measured as single shot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx8g", "--add-modules=jdk.incubator.vector"})
+public class CarsServiceColdBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int size;
+
+    @Param({"50"})
+    public int models;
+
+    @Param({"30"})
+    public int components;
+
+    @Param({"4"})
+    public int colors;
+
+    @Param({"5"})
+    public int componentsPerCar;
+
+    @Param({"SEQUENTIAL", "PARALLEL"})
+    public ExecutionMode mode;
+
+    private FleetGenerator generator;
+    private CarColumnStore store;
+    private CarsService service;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        generator = new FleetGenerator(FleetGenerator.DEFAULT_SEED, models, components, colors, componentsPerCar);
+        store = generator.store(size);
+    }
+
+    @Setup(Level.Iteration)
+    public void newService() {
+        service = new CarsService(store, mode);
+    }
+
+    @Benchmark
+    public CarColumnStore buildStore(ListOfCars listOfCars) {
+        return CarColumnStore.of(listOfCars.cars);
+    }
+
+    @Benchmark
+    public List<Car> firstSortingByPrice() {
+        return service.sortingByGivenOrder(SortingType.PRICE, true);
+    }
+
+    @Benchmark
+    public int firstCountWithGivenPriceRange() {
+        return service.countWithGivenPriceRange(BigDecimal.ZERO, BigDecimal.valueOf(100000));
+    }
+
+    @Benchmark
+    public CarStatistic firstMileageStatistic() {
+        return service.getStatisticForGivenAttribute(StatisticAttribute.MILEAGE);
+    }
+
+    @Benchmark
+    public Map<String, List<Car>> firstGroupByComponent() {
+        return service.groupByComponent();
+    }
+
+    /**
+     * Cars as list of objects are kept only by benchmark of building store, other benchmarks do not need them.
+     */
+    @State(Scope.Benchmark)
+    public static class ListOfCars {
+
+        private List<Car> cars;
+
+        @Setup(Level.Trial)
+        public void setUp(CarsServiceColdBenchmark benchmark) {
+            cars = benchmark.generator.cars(benchmark.size);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.app.benchmarks;
+
+import com.app.domain.car.Car;
+import com.app.domain.car.CarAggregates;
+import com.app.domain.car.CarColumnStore;
+import com.app.domain.car.CarQuery;
+import com.app.domain.car.CarScan;
+import com.app.domain.car.type.Color;
+import com.app.domain.car.type.StorageMode;
+import com.app.service.CarsService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scans of price and mileage columns with scalar and vector kernels, on columns in heap arrays and in direct
+ * buffers. Kernels are chosen when JVM starts, so scalar benchmarks run in fork with vector kernels switched off.
+ * Aggregates reduce minimum, maximum and sum of both columns, full scan checks price and mileage range of query
+ * which matches most cars, so no range index is cheaper than scan, and model and color only on rows in both ranges.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ColumnKernelsBenchmark {
+
+    private static final String VECTOR_MODULE = "--add-modules=jdk.incubator.vector";
+
+    @Param({"1000000", "10000000"})
+    public int size;
+
+    @Param({"HEAP", "OFF_HEAP"})
+    public StorageMode storage;
+
+    private CarColumnStore store;
+    private CarsService service;
+    private CarQuery fullScan;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+
+        var generator = new FleetGenerator(FleetGenerator.DEFAULT_SEED, 50, 30, 4, 5);
+        store = generator.store(size, storage);
+        service = new CarsService(store);
+
+        fullScan = CarQuery
+                .builder()
+                .minPrice(BigDecimal.valueOf(100, CarColumnStore.PRICE_SCALE))
+                .minMileage(10.0)
+                .model(generator.modelName(0))
+                .color(Color.BLACK)
+                .build();
+        service.find(fullScan);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx8g", VECTOR_MODULE, "-Dcars.vectorKernels=false"})
+    public CarAggregates scalarAggregates() {
+        return CarAggregates.of(store, CarScan.SEQUENTIAL);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx8g", VECTOR_MODULE})
+    public CarAggregates vectorAggregates() {
+        return CarAggregates.of(store, CarScan.SEQUENTIAL);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx8g", VECTOR_MODULE, "-Dcars.vectorKernels=false"})
+    public List<Car> scalarFullScan() {
+        return service.find(fullScan);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx8g", VECTOR_MODULE})
+    public List<Car> vectorFullScan() {
+        return service.find(fullScan);
+    }
+}
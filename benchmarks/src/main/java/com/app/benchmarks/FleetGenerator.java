@@ -0,0 +1,115 @@
+package com.app.benchmarks;
+
+import com.app.domain.car.Car;
+import com.app.domain.car.CarColumnStore;
+import com.app.domain.car.type.Color;
+import com.app.domain.car.type.StorageMode;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Generates synthetic fleet of cars. The same seed and cardinalities always give the same cars in the same order,
+ * so results of benchmarks run on different machines or versions are comparable.
+ */
+public class FleetGenerator {
+
+    public static final long DEFAULT_SEED = 20210401L;
+
+    private static final long MAX_PRICE_CENTS = 20_000_000L;
+    private static final int MAX_MILEAGE = 300_000;
+
+    private final long seed;
+    private final int modelCount;
+    private final int componentCount;
+    private final int colorCount;
+    private final int maxComponentsPerCar;
+
+    /**
+     * @param seed seed of random generator.
+     * @param modelCount amount of different models.
+     * @param componentCount amount of different components.
+     * @param colorCount amount of used colors, from 1 to amount of {@link Color} values.
+     * @param maxComponentsPerCar the highest amount of components of one car.
+     */
+    public FleetGenerator(long seed, int modelCount, int componentCount, int colorCount, int maxComponentsPerCar) {
+
+        if (modelCount < 1 || componentCount < 1) {
+            throw new IllegalArgumentException("Amount of models and components must be positive");
+        }
+        if (colorCount < 1 || colorCount > Color.values().length) {
+            throw new IllegalArgumentException("Amount of colors must be from 1 to " + Color.values().length);
+        }
+        if (maxComponentsPerCar < 0 || maxComponentsPerCar > componentCount) {
+            throw new IllegalArgumentException("Components per car must be from 0 to amount of components");
+        }
+
+        this.seed = seed;
+        this.modelCount = modelCount;
+        this.componentCount = componentCount;
+        this.colorCount = colorCount;
+        this.maxComponentsPerCar = maxComponentsPerCar;
+    }
+
+    /**
+     * Method generates cars straight into store, so fleet of millions of cars never exists as list of objects.
+     */
+    public CarColumnStore store(int size) {
+        return store(size, StorageMode.HEAP);
+    }
+
+    public CarColumnStore store(int size, StorageMode storage) {
+
+        var random = new SplittableRandom(seed);
+        var builder = CarColumnStore.builder(storage);
+        for (int i = 0; i < size; i++) {
+            builder.add(car(random));
+        }
+
+        return builder.build();
+    }
+
+    public List<Car> cars(int size) {
+
+        var random = new SplittableRandom(seed);
+        var cars = new ArrayList<Car>(size);
+        for (int i = 0; i < size; i++) {
+            cars.add(car(random));
+        }
+
+        return cars;
+    }
+
+    public String modelName(int model) {
+        return String.format("MODEL-%05d", model);
+    }
+
+    public String componentName(int component) {
+        return String.format("COMPONENT-%04d", component);
+    }
+
+    private Car car(SplittableRandom random) {
+
+        int components = random.nextInt(maxComponentsPerCar + 1);
+        var chosen = new ArrayList<String>(components);
+        int first = random.nextInt(componentCount);
+        int step = 1 + random.nextInt(componentCount);
+        for (int i = 0; chosen.size() < components && i < componentCount; i++) {
+            var component = componentName((int) ((first + (long) i * step) % componentCount));
+            if (!chosen.contains(component)) {
+                chosen.add(component);
+            }
+        }
+
+        return Car
+                .builder()
+                .model(modelName(random.nextInt(modelCount)))
+                .price(BigDecimal.valueOf(random.nextLong(MAX_PRICE_CENTS) + 1, CarColumnStore.PRICE_SCALE))
+                .color(Color.values()[random.nextInt(colorCount)])
+                .mileage(random.nextInt(MAX_MILEAGE * 10) / 10.0)
+                .components(chosen)
+                .build();
+    }
+}
@@ -2,28 +2,32 @@ package com.app.domain.car;
 
 
 import com.app.domain.car.type.Color;
-import lombok.AllArgsConstructor;
 import lombok.Builder;
-import lombok.Data;
-import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Objects;
-import java.util.stream.Collectors;
+import java.util.TreeSet;
 
-@AllArgsConstructor
-@NoArgsConstructor
-@Builder
+/**
+ * Immutable car. Components are canonical, sorted alphabetically without duplicates, so cars with the same
+ * components have equal component lists and nothing has to be sorted again after car is created.
+ */
 public class Car {
-    String model;
-    BigDecimal price;
-    Color color;
-    double mileage;
+    final String model;
+    final BigDecimal price;
+    final Color color;
+    final double mileage;
+    final List<String> components;
 
-    @Builder.Default
-    List<String> components = new ArrayList<>();
+    @Builder
+    public Car(String model, BigDecimal price, Color color, double mileage, List<String> components) {
+        this.model = model;
+        this.price = price;
+        this.color = color;
+        this.mileage = mileage;
+        this.components = canonical(components);
+    }
 
     public boolean hasMileageGreaterThan(double mileage) {
         return this.mileage > mileage;
@@ -33,19 +37,36 @@ public class Car {
         return this.price.compareTo(price) > 0;
     }
 
+    /**
+     * Components are sorted already when car is created, so car is returned as it is.
+     */
     public Car withSortedComponents(){
-        return Car
-                .builder()
-                .model(model)
-                .price(price)
-                .color(color)
-                .mileage(mileage)
-                .components(components.stream().sorted().collect(Collectors.toList()))
-                .build();
+        return this;
     }
 
     public boolean doesContainComponent(String component){
-        return this.components.contains(component);
+        return Collections.binarySearch(components, component) >= 0;
+    }
+
+    /**
+     * Method returns read only copy of components sorted alphabetically without duplicates, already canonical
+     * list is only copied without sorting.
+     */
+    private static List<String> canonical(List<String> components) {
+
+        if (components == null || components.isEmpty()) {
+            return List.of();
+        }
+
+        boolean canonical = true;
+        for (int i = 1; i < components.size() && canonical; i++) {
+            canonical = components.get(i - 1).compareTo(components.get(i)) < 0;
+        }
+        if (canonical) {
+            return List.copyOf(components);
+        }
+
+        return List.copyOf(new TreeSet<>(components));
     }
 
     @Override
@@ -0,0 +1,180 @@
+package com.app.domain.car;
+
+import com.app.domain.car.type.Color;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable values of aggregates for one version of cars, counted with one scan of store or taken from
+ * {@link CarAggregator} maintained while cars are changed.
+ */
+public class CarAggregates {
+
+    private final long count;
+    private final long[] colorCounts;
+    private final Map<String, Long> mostExpensiveByModel;
+    private final long minPrice;
+    private final long maxPrice;
+    private final BigDecimal priceSum;
+    private final double minMileage;
+    private final double maxMileage;
+    private final double mileageSum;
+
+    CarAggregates(long count, long[] colorCounts, Map<String, Long> mostExpensiveByModel, long minPrice,
+                  long maxPrice, BigDecimal priceSum, double minMileage, double maxMileage, double mileageSum) {
+        this.count = count;
+        this.colorCounts = colorCounts;
+        this.mostExpensiveByModel = mostExpensiveByModel;
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        this.priceSum = priceSum;
+        this.minMileage = minMileage;
+        this.maxMileage = maxMileage;
+        this.mileageSum = mileageSum;
+    }
+
+    /**
+     * Method counts all aggregates of given store in one scan.
+     * @param cars store with cars.
+     * @return aggregates of all cars of store.
+     */
+    public static CarAggregates of(CarColumnStore cars) {
+        return of(cars, CarScan.SEQUENTIAL);
+    }
+
+    /**
+     * Method counts aggregates of every chunk of rows and merges them from left to right, so parallel scan gives
+     * the same aggregates as sequential one.
+     * @param cars store with cars.
+     * @param scan decides how chunks are scanned.
+     * @return aggregates of all cars of store.
+     */
+    public static CarAggregates of(CarColumnStore cars, CarScan scan) {
+
+        var partial = scan.reduce(cars.size(), (from, to) -> Partial.of(cars, from, to), Partial::merge);
+
+        var mostExpensiveByModel = new HashMap<String, Long>();
+        for (int model = 0; model < partial.mostExpensiveRows.length; model++) {
+            if (partial.mostExpensiveRows[model] >= 0) {
+                mostExpensiveByModel.put(cars.modelName(model), cars.id(partial.mostExpensiveRows[model]));
+            }
+        }
+
+        return new CarAggregates(
+                cars.size(),
+                partial.colorCounts,
+                Collections.unmodifiableMap(mostExpensiveByModel),
+                cars.size() == 0 ? 0 : partial.prices.min,
+                cars.size() == 0 ? 0 : partial.prices.max,
+                new BigDecimal(partial.prices.sum.toBigInteger(), CarColumnStore.PRICE_SCALE),
+                partial.mileages.min,
+                partial.mileages.max,
+                partial.mileages.sum());
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public long colorCount(Color color) {
+        return colorCounts[color.ordinal()];
+    }
+
+    /**
+     * @return id of the most expensive car for every model, when prices are equal car with lower id is chosen.
+     */
+    public Map<String, Long> mostExpensiveByModel() {
+        return mostExpensiveByModel;
+    }
+
+    /**
+     * @return fixed-point minimal price, valid only when count is not zero.
+     */
+    public long minPrice() {
+        return minPrice;
+    }
+
+    public long maxPrice() {
+        return maxPrice;
+    }
+
+    /**
+     * @return exact sum of all prices.
+     */
+    public BigDecimal priceSum() {
+        return priceSum;
+    }
+
+    public double minMileage() {
+        return minMileage;
+    }
+
+    public double maxMileage() {
+        return maxMileage;
+    }
+
+    public double mileageSum() {
+        return mileageSum;
+    }
+
+    /**
+     * Aggregates of one chunk of rows, prices and mileages are summarized by {@link ColumnKernels}.
+     */
+    private static class Partial {
+
+        private final CarColumnStore cars;
+        private final long[] colorCounts = new long[Color.values().length];
+        private final int[] mostExpensiveRows;
+        private final ColumnKernels.LongSummary prices = new ColumnKernels.LongSummary();
+        private final ColumnKernels.DoubleSummary mileages = new ColumnKernels.DoubleSummary();
+
+        private Partial(CarColumnStore cars) {
+            this.cars = cars;
+            this.mostExpensiveRows = new int[cars.modelCount()];
+            Arrays.fill(mostExpensiveRows, -1);
+        }
+
+        private static Partial of(CarColumnStore cars, int from, int to) {
+
+            var partial = new Partial(cars);
+            for (int row = from; row < to; row++) {
+                partial.colorCounts[cars.colorOrdinal(row)]++;
+                partial.offerMostExpensive(cars.modelId(row), row);
+            }
+            var kernels = ColumnKernels.get();
+            cars.summarizePrices(kernels, from, to, partial.prices);
+            cars.summarizeMileages(kernels, from, to, partial.mileages);
+
+            return partial;
+        }
+
+        /**
+         * Car of this chunk is kept when prices are equal, rows of this chunk are before rows of next one.
+         */
+        private void offerMostExpensive(int model, int row) {
+            if (mostExpensiveRows[model] < 0 || cars.price(row) > cars.price(mostExpensiveRows[model])) {
+                mostExpensiveRows[model] = row;
+            }
+        }
+
+        private Partial merge(Partial next) {
+
+            for (int color = 0; color < colorCounts.length; color++) {
+                colorCounts[color] += next.colorCounts[color];
+            }
+            for (int model = 0; model < mostExpensiveRows.length; model++) {
+                if (next.mostExpensiveRows[model] >= 0) {
+                    offerMostExpensive(model, next.mostExpensiveRows[model]);
+                }
+            }
+            prices.merge(next.prices);
+            mileages.merge(next.mileages);
+
+            return this;
+        }
+    }
+}
@@ -0,0 +1,380 @@
+package com.app.domain.car;
+
+import com.app.domain.car.type.Color;
+import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
+import org.eclipse.collections.impl.map.mutable.primitive.LongIntHashMap;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Aggregates of cars maintained while cars are added and removed: amount of cars for every color, the most
+ * expensive car for every model and minimum, maximum and sum of prices and mileages. Price and mileage of every car
+ * are kept in primitive arrays by slot of car, and slots are ordered by binary heaps: one of prices for every model
+ * and global ones of minimal price and of minimal and maximal mileage, the maximal price is the highest price of
+ * models. Adding or removing car costs O(log n) and snapshot never scans store. Class is not thread safe, it is
+ * meant to be changed only by writer and read through immutable {@link #snapshot()}.
+ */
+public class CarAggregator {
+
+    private static final int MODEL_HEAP = 0;
+    private static final int MIN_PRICE_HEAP = 1;
+    private static final int MIN_MILEAGE_HEAP = 2;
+    private static final int MAX_MILEAGE_HEAP = 3;
+    private static final int HEAPS = 4;
+
+    private final long[] colorCounts = new long[Color.values().length];
+    private final LongSum priceSum = new LongSum();
+    private double mileageSum;
+    private double mileageCompensation;
+    private long count;
+
+    private final LongIntHashMap slots = new LongIntHashMap();
+    private final IntArrayList freeSlots = new IntArrayList();
+    private int slotCount;
+    private long[] ids;
+    private long[] prices;
+    private long[] mileages;
+    private int[] positions;
+
+    private final Map<String, Heap> modelPrices = new HashMap<>();
+    private final Heap minPrices = new Heap(MIN_PRICE_HEAP, false, true);
+    private final Heap minMileages = new Heap(MIN_MILEAGE_HEAP, true, true);
+    private final Heap maxMileages = new Heap(MAX_MILEAGE_HEAP, true, false);
+
+    private CarAggregator(int capacity) {
+        ids = new long[capacity];
+        prices = new long[capacity];
+        mileages = new long[capacity];
+        positions = new int[capacity * HEAPS];
+    }
+
+    public CarAggregator() {
+        this(16);
+    }
+
+    /**
+     * @return aggregator with all cars from given store.
+     */
+    public static CarAggregator of(CarColumnStore cars) {
+        return of(cars, CarScan.SEQUENTIAL);
+    }
+
+    /**
+     * Method reads store in one scan of chunks like {@link CarAggregates#of(CarColumnStore, CarScan)}: every chunk
+     * counts and sums its rows and writes them to slots equal to rows, chunks are merged from left to right. Heaps
+     * are then built from slots in linear time without reading store again.
+     * @return aggregator with all cars from given store.
+     */
+    public static CarAggregator of(CarColumnStore cars, CarScan scan) {
+
+        int size = cars.size();
+        var aggregator = new CarAggregator(Math.max(16, size));
+        var modelIds = new int[size];
+        var chunk = scan.reduce(size, (from, to) -> Chunk.of(cars, aggregator, modelIds, from, to), Chunk::merge);
+
+        aggregator.count = size;
+        aggregator.slotCount = size;
+        System.arraycopy(chunk.colorCounts, 0, aggregator.colorCounts, 0, chunk.colorCounts.length);
+        aggregator.priceSum.add(chunk.priceSum);
+        aggregator.mileageSum = chunk.mileageSum;
+        aggregator.mileageCompensation = chunk.mileageCompensation;
+        for (int slot = 0; slot < size; slot++) {
+            aggregator.slots.put(aggregator.ids[slot], slot);
+        }
+
+        var allSlots = new int[size];
+        Arrays.setAll(allSlots, slot -> slot);
+        aggregator.minPrices.heapify(allSlots.clone(), size);
+        aggregator.minMileages.heapify(allSlots.clone(), size);
+        aggregator.maxMileages.heapify(allSlots, size);
+
+        var modelSlots = new int[chunk.modelCounts.length][];
+        for (int model = 0; model < modelSlots.length; model++) {
+            modelSlots[model] = new int[chunk.modelCounts[model]];
+        }
+        var next = new int[modelSlots.length];
+        for (int slot = 0; slot < size; slot++) {
+            modelSlots[modelIds[slot]][next[modelIds[slot]]++] = slot;
+        }
+        for (int model = 0; model < modelSlots.length; model++) {
+            if (modelSlots[model].length > 0) {
+                var heap = aggregator.new Heap(MODEL_HEAP, false, false);
+                heap.heapify(modelSlots[model], modelSlots[model].length);
+                aggregator.modelPrices.put(cars.modelName(model), heap);
+            }
+        }
+
+        return aggregator;
+    }
+
+    public void add(long id, String model, long price, Color color, double mileage) {
+
+        int slot = freeSlots.isEmpty() ? nextSlot() : freeSlots.removeAtIndex(freeSlots.size() - 1);
+        slots.put(id, slot);
+        ids[slot] = id;
+        prices[slot] = price;
+        mileages[slot] = sortable(mileage);
+
+        modelPrices.computeIfAbsent(model, key -> new Heap(MODEL_HEAP, false, false)).add(slot);
+        minPrices.add(slot);
+        minMileages.add(slot);
+        maxMileages.add(slot);
+
+        count++;
+        colorCounts[color.ordinal()]++;
+        priceSum.add(price);
+        addMileage(mileage);
+    }
+
+    /**
+     * Method removes car, given values must be the same as values car was added with.
+     */
+    public void remove(long id, String model, long price, Color color, double mileage) {
+
+        int slot = slots.removeKeyIfAbsent(id, -1);
+        if (slot < 0) {
+            throw new IllegalArgumentException("Car with id " + id + " wasn't added");
+        }
+        var modelHeap = modelPrices.get(model);
+        modelHeap.remove(slot);
+        if (modelHeap.size == 0) {
+            modelPrices.remove(model);
+        }
+        minPrices.remove(slot);
+        minMileages.remove(slot);
+        maxMileages.remove(slot);
+        freeSlots.add(slot);
+
+        count--;
+        colorCounts[color.ordinal()]--;
+        priceSum.subtract(price);
+        addMileage(-mileage);
+    }
+
+    /**
+     * Extremes are read from tops of heaps, so snapshot costs amount of models.
+     */
+    public CarAggregates snapshot() {
+
+        var mostExpensive = new HashMap<String, Long>();
+        long maxPrice = Long.MIN_VALUE;
+        for (var entry : modelPrices.entrySet()) {
+            int top = entry.getValue().top();
+            mostExpensive.put(entry.getKey(), ids[top]);
+            maxPrice = Math.max(maxPrice, prices[top]);
+        }
+
+        return new CarAggregates(
+                count,
+                colorCounts.clone(),
+                Collections.unmodifiableMap(mostExpensive),
+                count == 0 ? 0 : prices[minPrices.top()],
+                count == 0 ? 0 : maxPrice,
+                new BigDecimal(priceSum.toBigInteger(), CarColumnStore.PRICE_SCALE),
+                count == 0 ? Double.POSITIVE_INFINITY : fromSortable(mileages[minMileages.top()]),
+                count == 0 ? Double.NEGATIVE_INFINITY : fromSortable(mileages[maxMileages.top()]),
+                count == 0 ? 0 : mileageSum - mileageCompensation);
+    }
+
+    /**
+     * Kahan summation, so adding and later removing the same mileages doesn't accumulate rounding errors.
+     */
+    private void addMileage(double mileage) {
+        double corrected = mileage - mileageCompensation;
+        double sum = mileageSum + corrected;
+        mileageCompensation = (sum - mileageSum) - corrected;
+        mileageSum = sum;
+    }
+
+    private int nextSlot() {
+        if (slotCount == ids.length) {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            prices = Arrays.copyOf(prices, capacity);
+            mileages = Arrays.copyOf(mileages, capacity);
+            positions = Arrays.copyOf(positions, capacity * HEAPS);
+        }
+        return slotCount++;
+    }
+
+    /**
+     * @return long ordered the same way as mileages by {@link Double#compare(double, double)}.
+     */
+    private static long sortable(double mileage) {
+        long bits = Double.doubleToLongBits(mileage);
+        return bits ^ ((bits >> (Long.SIZE - 1)) & Long.MAX_VALUE);
+    }
+
+    private static double fromSortable(long value) {
+        return Double.longBitsToDouble(value ^ ((value >> (Long.SIZE - 1)) & Long.MAX_VALUE));
+    }
+
+    /**
+     * Binary heap of slots with the highest price or sortable mileage on top, minimum is kept as maximum of inverted
+     * bits of values. When values are equal slot of car with lower id is on top, so the most expensive car of model
+     * is the same as counted by {@link CarAggregates}. Position of every slot in heap is kept in positions of
+     * aggregator, every slot is in one model heap, so all model heaps share the same positions.
+     */
+    private final class Heap {
+
+        private final int kind;
+        private final boolean mileage;
+        private final boolean inverted;
+        private int[] heap = new int[4];
+        private int size;
+
+        private Heap(int kind, boolean mileage, boolean inverted) {
+            this.kind = kind;
+            this.mileage = mileage;
+            this.inverted = inverted;
+        }
+
+        private int top() {
+            return heap[0];
+        }
+
+        /**
+         * Method takes given slots as heap and sifts them down from the last parent, so it costs O(n).
+         */
+        private void heapify(int[] slots, int size) {
+            this.heap = slots.length == 0 ? new int[4] : slots;
+            this.size = size;
+            for (int position = 0; position < size; position++) {
+                positions[heap[position] * HEAPS + kind] = position;
+            }
+            for (int position = size / 2 - 1; position >= 0; position--) {
+                siftDown(position);
+            }
+        }
+
+        private void add(int slot) {
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, size * 2);
+            }
+            place(slot, size++);
+            siftUp(size - 1);
+        }
+
+        private void remove(int slot) {
+            int position = positions[slot * HEAPS + kind];
+            int last = heap[--size];
+            if (position == size) {
+                return;
+            }
+            place(last, position);
+            if (position > 0 && isAbove(last, heap[(position - 1) >>> 1])) {
+                siftUp(position);
+            } else {
+                siftDown(position);
+            }
+        }
+
+        private void siftUp(int position) {
+            int slot = heap[position];
+            while (position > 0) {
+                int parent = (position - 1) >>> 1;
+                if (!isAbove(slot, heap[parent])) {
+                    break;
+                }
+                place(heap[parent], position);
+                position = parent;
+            }
+            place(slot, position);
+        }
+
+        private void siftDown(int position) {
+            int slot = heap[position];
+            while (true) {
+                int child = 2 * position + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && isAbove(heap[child + 1], heap[child])) {
+                    child++;
+                }
+                if (!isAbove(heap[child], slot)) {
+                    break;
+                }
+                place(heap[child], position);
+                position = child;
+            }
+            place(slot, position);
+        }
+
+        private void place(int slot, int position) {
+            heap[position] = slot;
+            positions[slot * HEAPS + kind] = position;
+        }
+
+        private boolean isAbove(int slot, int other) {
+            long value = value(slot);
+            long otherValue = value(other);
+            return value > otherValue || (value == otherValue && ids[slot] < ids[other]);
+        }
+
+        private long value(int slot) {
+            long value = mileage ? mileages[slot] : prices[slot];
+            return inverted ? ~value : value;
+        }
+    }
+
+    /**
+     * Counts and sums of one chunk of rows. Chunk writes ids, prices and mileages of its rows to slots of the same
+     * numbers and model ids of rows to given array, chunks write different slots, so they don't need any lock.
+     */
+    private static final class Chunk {
+
+        private final long[] colorCounts = new long[Color.values().length];
+        private final int[] modelCounts;
+        private final LongSum priceSum = new LongSum();
+        private double mileageSum;
+        private double mileageCompensation;
+
+        private Chunk(int modelCount) {
+            this.modelCounts = new int[modelCount];
+        }
+
+        private static Chunk of(CarColumnStore cars, CarAggregator aggregator, int[] modelIds, int from, int to) {
+
+            var chunk = new Chunk(cars.modelCount());
+            for (int row = from; row < to; row++) {
+                long price = cars.price(row);
+                double mileage = cars.mileage(row);
+                aggregator.ids[row] = cars.id(row);
+                aggregator.prices[row] = price;
+                aggregator.mileages[row] = sortable(mileage);
+                modelIds[row] = cars.modelId(row);
+                chunk.modelCounts[modelIds[row]]++;
+                chunk.colorCounts[cars.colorOrdinal(row)]++;
+                chunk.priceSum.add(price);
+                chunk.addMileage(mileage);
+            }
+
+            return chunk;
+        }
+
+        private Chunk merge(Chunk next) {
+            for (int color = 0; color < colorCounts.length; color++) {
+                colorCounts[color] += next.colorCounts[color];
+            }
+            for (int model = 0; model < modelCounts.length; model++) {
+                modelCounts[model] += next.modelCounts[model];
+            }
+            priceSum.add(next.priceSum);
+            addMileage(next.mileageSum);
+            addMileage(-next.mileageCompensation);
+            return this;
+        }
+
+        private void addMileage(double mileage) {
+            double corrected = mileage - mileageCompensation;
+            double sum = mileageSum + corrected;
+            mileageCompensation = (sum - mileageSum) - corrected;
+            mileageSum = sum;
+        }
+    }
+}
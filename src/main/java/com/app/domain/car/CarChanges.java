@@ -0,0 +1,120 @@
+package com.app.domain.car;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Rows changed by {@link CarColumnStore.Builder} in store it was created from, used to patch indexes of store
+ * instead of building them again. Rows are numbered as in builder: rows of old store first, then added rows, and
+ * removed rows are still counted. Row of built store is builder row minus amount of removed rows before it.
+ */
+public final class CarChanges {
+
+    private final int oldSize;
+    private final int rows;
+    private final BitSet removedRows;
+    private final BitSet changedRows;
+    private final BitSet replacedRows;
+    private final int[] removed;
+
+    CarChanges(int oldSize, int rows, BitSet removedRows, BitSet changedRows, BitSet replacedRows) {
+        this.oldSize = oldSize;
+        this.rows = rows;
+        this.removedRows = (BitSet) removedRows.clone();
+        this.changedRows = (BitSet) changedRows.clone();
+        this.replacedRows = (BitSet) replacedRows.clone();
+        this.removed = removedRows.stream().toArray();
+    }
+
+    /**
+     * @return amount of rows of store builder was created from.
+     */
+    int oldSize() {
+        return oldSize;
+    }
+
+    boolean isRemoved(int row) {
+        return removedRows.get(row);
+    }
+
+    /**
+     * @return true when any value of old row was changed, its position in sorted permutations can differ.
+     */
+    boolean isChanged(int row) {
+        return changedRows.get(row);
+    }
+
+    /**
+     * @return true when old row was replaced by other car, its components can differ.
+     */
+    boolean isReplaced(int row) {
+        return replacedRows.get(row);
+    }
+
+    /**
+     * @return the first removed row of builder or -1 when no row was removed, rows after it get lower numbers.
+     */
+    int firstRemoved() {
+        return removed.length == 0 ? -1 : removed[0];
+    }
+
+    /**
+     * @return ascending rows of store builder was created from which were removed or changed, they leave their
+     * places in sorted permutations.
+     */
+    int[] removedOrChangedRows() {
+        return oldRows(changedRows);
+    }
+
+    /**
+     * @return ascending rows of store builder was created from which were removed or replaced, they leave postings
+     * of their components.
+     */
+    int[] removedOrReplacedRows() {
+        return oldRows(replacedRows);
+    }
+
+    /**
+     * @return row of built store for row of builder which wasn't removed.
+     */
+    int newRow(int row) {
+        int before = Arrays.binarySearch(removed, row);
+        return row - (before >= 0 ? before : -before - 1);
+    }
+
+    /**
+     * @return ascending rows of built store with changed values, including added rows.
+     */
+    int[] changedRows() {
+        return newRows(changedRows);
+    }
+
+    /**
+     * @return ascending rows of built store which were replaced or added, only their components can be new.
+     */
+    int[] replacedRows() {
+        return newRows(replacedRows);
+    }
+
+    private int[] oldRows(BitSet leftRows) {
+        var rows = (BitSet) leftRows.clone();
+        rows.or(removedRows);
+        return rows.stream().takeWhile(row -> row < oldSize).toArray();
+    }
+
+    private int[] newRows(BitSet oldRows) {
+        var result = new int[oldRows.cardinality() + rows - oldSize];
+        int count = 0;
+        for (int row = oldRows.nextSetBit(0); row >= 0 && row < oldSize; row = oldRows.nextSetBit(row + 1)) {
+            if (!removedRows.get(row)) {
+                result[count++] = newRow(row);
+            }
+        }
+        for (int row = oldSize; row < rows; row++) {
+            if (!removedRows.get(row)) {
+                result[count++] = newRow(row);
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+}
@@ -0,0 +1,1111 @@
+package com.app.domain.car;
+
+import com.app.domain.car.type.CarField;
+import com.app.domain.car.type.Color;
+import com.app.domain.car.type.SortingType;
+import com.app.domain.car.type.StorageMode;
+import lombok.AllArgsConstructor;
+import org.eclipse.collections.impl.map.mutable.primitive.ObjectIntHashMap;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Columnar representation of collection of Cars. Every attribute is kept in its own primitive buffer so queries
+ * can walk one column at a time instead of one object graph per car:
+ * mileage as double, price as fixed-point long with {@link #PRICE_SCALE} decimal places, color as ordinal,
+ * model and components as ids in shared dictionaries. Car objects are only created when they are returned.
+ * Buffers wrap heap arrays when store is built in memory, are direct buffers outside of Java heap when store is
+ * built with {@link StorageMode#OFF_HEAP} or are views of file opened with {@link CarSnapshot}. Dictionaries of
+ * models and components stay on heap, their size depends on amount of distinct names, not on amount of cars.
+ * Columns are split into immutable segments of {@link #SEGMENT_ROWS} rows, store changed with {@link Builder}
+ * shares all segments without changed rows with store it was built from.
+ */
+public class CarColumnStore {
+
+    public static final int PRICE_SCALE = 2;
+
+    /**
+     * Amount of rows of every segment except the last one, which can be shorter.
+     */
+    public static final int SEGMENT_ROWS = 1 << 14;
+
+    private static final int SEGMENT_SHIFT = Integer.numberOfTrailingZeros(SEGMENT_ROWS);
+    private static final int SEGMENT_MASK = SEGMENT_ROWS - 1;
+
+    private static final long PRICE_UNIT = (long) Math.pow(10, PRICE_SCALE);
+    private static final long MAX_WHOLE_PRICE = Long.MAX_VALUE / PRICE_UNIT;
+
+    private static final Color[] COLORS = Color.values();
+
+    private final int size;
+    private final Segment[] segments;
+    private final boolean offHeap;
+    private final String[] modelDictionary;
+    private final int[] modelRanks;
+    private final String[] componentDictionary;
+    private final ObjectIntHashMap<String> modelIds;
+    private final ObjectIntHashMap<String> componentIds;
+
+    /**
+     * Creates store over given columns, columns may be wrapped arrays or views of memory mapped file. Segments are
+     * views of columns, nothing is copied.
+     */
+    CarColumnStore(Columns columns) {
+        this(columns.size, segmentsOf(columns), columns.prices.isDirect(), columns.modelDictionary,
+                columns.componentDictionary);
+    }
+
+    private CarColumnStore(int size, Segment[] segments, boolean offHeap, String[] modelDictionary,
+                           String[] componentDictionary) {
+        this.size = size;
+        this.segments = segments;
+        this.offHeap = offHeap;
+        this.modelDictionary = modelDictionary;
+        this.modelRanks = ranksOf(modelDictionary);
+        this.componentDictionary = componentDictionary;
+        this.modelIds = idsOf(modelDictionary);
+        this.componentIds = idsOf(componentDictionary);
+    }
+
+    /**
+     * @return store with given cars or IllegalArgumentException when any car has no model, price or color or its
+     * price has more than {@link #PRICE_SCALE} decimal places.
+     */
+    public static CarColumnStore of(List<Car> cars) {
+        var builder = builder();
+        cars.forEach(builder::add);
+        return builder.build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @param storage memory in which columns of built store are kept.
+     * @return builder adding cars straight to columns in given memory, off heap builder uses no heap memory per car.
+     */
+    public static Appender builder(StorageMode storage) {
+        return storage == StorageMode.OFF_HEAP ? new OffHeapBuilder() : new Builder();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return true when columns are kept outside of Java heap, in direct buffers or mapped file.
+     */
+    public boolean isOffHeap() {
+        return offHeap;
+    }
+
+    /**
+     * @return stable id of car in given row, ids are growing with rows so row of id can be found with binary search.
+     */
+    public long id(int row) {
+        var ids = segments[row >>> SEGMENT_SHIFT].ids;
+        return ids == null ? row : ids.get(row & SEGMENT_MASK);
+    }
+
+    /**
+     * @return row of car with given id or -1 when there is no such car.
+     */
+    public int rowOf(long id) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long middleId = id(middle);
+            if (middleId < id) {
+                low = middle + 1;
+            } else if (middleId > id) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    public double mileage(int row) {
+        return segments[row >>> SEGMENT_SHIFT].mileages.get(row & SEGMENT_MASK);
+    }
+
+    public long price(int row) {
+        return segments[row >>> SEGMENT_SHIFT].prices.get(row & SEGMENT_MASK);
+    }
+
+    public int colorOrdinal(int row) {
+        return segments[row >>> SEGMENT_SHIFT].colors.get(row & SEGMENT_MASK);
+    }
+
+    public Color color(int row) {
+        return COLORS[colorOrdinal(row)];
+    }
+
+    public int modelId(int row) {
+        return segments[row >>> SEGMENT_SHIFT].models.get(row & SEGMENT_MASK);
+    }
+
+    /**
+     * @return position of car model in alphabetical order of all models, comparing ranks gives the same
+     * result as comparing model names.
+     */
+    public int modelRank(int row) {
+        return modelRanks[modelId(row)];
+    }
+
+    public String model(int row) {
+        return modelDictionary[modelId(row)];
+    }
+
+    public int modelCount() {
+        return modelDictionary.length;
+    }
+
+    public String modelName(int modelId) {
+        return modelDictionary[modelId];
+    }
+
+    /**
+     * @return id of given model in dictionary or -1 when there is no car with this model.
+     */
+    public int modelId(String model) {
+        return modelIds.getIfAbsent(model, -1);
+    }
+
+    public int componentCount() {
+        return componentDictionary.length;
+    }
+
+    public String componentName(int componentId) {
+        return componentDictionary[componentId];
+    }
+
+    /**
+     * @return id of given component in dictionary or -1 when there is no car with this component.
+     */
+    public int componentId(String component) {
+        return componentIds.getIfAbsent(component, -1);
+    }
+
+    /**
+     * @return position of the first component of car in given row, positions are valid only for the same row.
+     */
+    public int componentsStart(int row) {
+        return segments[row >>> SEGMENT_SHIFT].componentOffsets.get(row & SEGMENT_MASK);
+    }
+
+    public int componentsEnd(int row) {
+        return segments[row >>> SEGMENT_SHIFT].componentOffsets.get((row & SEGMENT_MASK) + 1);
+    }
+
+    /**
+     * @return id of component of car in given row at position between {@link #componentsStart(int)} and
+     * {@link #componentsEnd(int)} of this row.
+     */
+    public int componentAt(int row, int position) {
+        return segments[row >>> SEGMENT_SHIFT].components.get(position);
+    }
+
+    /**
+     * Method compares dictionary ids of components of given row, no component name is read.
+     * @return true when car in given row has component with given id.
+     */
+    public boolean hasComponent(int row, int componentId) {
+        var segment = segments[row >>> SEGMENT_SHIFT];
+        int local = row & SEGMENT_MASK;
+        int end = segment.componentOffsets.get(local + 1);
+        for (int position = segment.componentOffsets.get(local); position < end; position++) {
+            if (segment.components.get(position) == componentId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Method creates Car object from values stored in given row.
+     * @param row index of car in store.
+     * @return new Car with values of given row.
+     */
+    public Car car(int row) {
+        return Car
+                .builder()
+                .model(model(row))
+                .price(toPrice(price(row)))
+                .color(color(row))
+                .mileage(mileage(row))
+                .components(componentNames(row))
+                .build();
+    }
+
+    /**
+     * Method creates Car object with only given fields filled, other fields are left empty.
+     * @param row index of car in store.
+     * @param fields fields to read, all fields are read when it is empty.
+     * @return new Car with chosen values of given row.
+     */
+    public Car car(int row, Set<CarField> fields) {
+
+        if (fields.isEmpty() || fields.size() == CarField.values().length) {
+            return car(row);
+        }
+
+        var car = Car.builder();
+        if (fields.contains(CarField.MODEL)) {
+            car.model(model(row));
+        }
+        if (fields.contains(CarField.PRICE)) {
+            car.price(toPrice(price(row)));
+        }
+        if (fields.contains(CarField.COLOR)) {
+            car.color(color(row));
+        }
+        if (fields.contains(CarField.MILEAGE)) {
+            car.mileage(mileage(row));
+        }
+        if (fields.contains(CarField.COMPONENTS)) {
+            car.components(componentNames(row));
+        }
+
+        return car.build();
+    }
+
+    /**
+     * Method returns read only view of cars in given rows, car is created from store only when it is accessed.
+     * @param rows array with row indexes, it must not be modified later.
+     * @param length amount of rows from beginning of array.
+     * @return view of cars in order of rows.
+     */
+    public CarRowList cars(int[] rows, int length) {
+        return new CarRowList(this, rows, 0, length, false);
+    }
+
+    public CarRowList cars(BitSet rows) {
+        var rowIndexes = rows.stream().toArray();
+        return cars(rowIndexes, rowIndexes.length);
+    }
+
+    /**
+     * @return view of all cars in order of rows.
+     */
+    public CarRowList cars() {
+        return new CarRowList(this, null, 0, size, false);
+    }
+
+    /**
+     * @return comparator of rows giving the same order as comparing Car objects by given sorting type.
+     */
+    public RowComparator comparing(SortingType sortingType) {
+        return switch (sortingType) {
+            case MODEL -> (first, second) -> Integer.compare(modelRank(first), modelRank(second));
+            case COLOR -> (first, second) -> Integer.compare(colorOrdinal(first), colorOrdinal(second));
+            case PRICE -> (first, second) -> Long.compare(price(first), price(second));
+            case MILEAGE -> (first, second) -> Double.compare(mileage(first), mileage(second));
+        };
+    }
+
+    /**
+     * Method sorts indexes of all rows with given comparator, sorting is stable so rows considered equal keep
+     * their original order.
+     * @param comparator compares two rows of this store.
+     * @return array of row indexes in sorted order.
+     */
+    public int[] sortedRows(RowComparator comparator) {
+        return sortedRows(comparator, CarScan.SEQUENTIAL);
+    }
+
+    public int[] sortedRows(RowComparator comparator, CarScan scan) {
+        var rows = new int[size];
+        for (int row = 0; row < size; row++) {
+            rows[row] = row;
+        }
+        scan.sort(rows, size, comparator);
+        return rows;
+    }
+
+    /**
+     * Stable merge sort of first length elements of rows array.
+     */
+    public static void sortRows(int[] rows, int length, RowComparator comparator) {
+        var buffer = Arrays.copyOf(rows, length);
+        mergeSort(buffer, rows, 0, length, comparator);
+    }
+
+    private static void mergeSort(int[] source, int[] target, int from, int to, RowComparator comparator) {
+
+        if (to - from < 16) {
+            for (int i = from + 1; i < to; i++) {
+                int row = target[i];
+                int j = i - 1;
+                while (j >= from && comparator.compare(target[j], row) > 0) {
+                    target[j + 1] = target[j];
+                    j--;
+                }
+                target[j + 1] = row;
+            }
+            return;
+        }
+
+        int middle = (from + to) >>> 1;
+        mergeSort(target, source, from, middle, comparator);
+        mergeSort(target, source, middle, to, comparator);
+
+        int left = from;
+        int right = middle;
+        for (int i = from; i < to; i++) {
+            if (right >= to || (left < middle && comparator.compare(source[left], source[right]) <= 0)) {
+                target[i] = source[left++];
+            } else {
+                target[i] = source[right++];
+            }
+        }
+    }
+
+    /**
+     * Method summarizes prices of rows from inclusive start to exclusive end with kernels, once for every segment
+     * the rows are in.
+     */
+    void summarizePrices(ColumnKernels kernels, int from, int to, ColumnKernels.LongSummary summary) {
+        for (int start = from; start < to; start = segmentEnd(start, to)) {
+            int offset = start & ~SEGMENT_MASK;
+            kernels.summarize(segments[start >>> SEGMENT_SHIFT].prices, start - offset, segmentEnd(start, to) - offset,
+                    summary);
+        }
+    }
+
+    void summarizeMileages(ColumnKernels kernels, int from, int to, ColumnKernels.DoubleSummary summary) {
+        for (int start = from; start < to; start = segmentEnd(start, to)) {
+            int offset = start & ~SEGMENT_MASK;
+            kernels.summarize(segments[start >>> SEGMENT_SHIFT].mileages, start - offset,
+                    segmentEnd(start, to) - offset, summary);
+        }
+    }
+
+    /**
+     * Method clears bits of rows with price outside of range, bit of row is bit {@code row - from} of selection.
+     * Rows of segment starting inside of range are checked on selection of their own, which is then applied on
+     * given one, so kernels always get selection starting at their first row.
+     */
+    void retainPriceRange(ColumnKernels kernels, int from, int to, long lowerBound, long upperBound,
+                          long[] selection) {
+        for (int start = from; start < to; start = segmentEnd(start, to)) {
+            int offset = start & ~SEGMENT_MASK;
+            int end = segmentEnd(start, to);
+            var segmentSelection = start == from ? selection : ColumnKernels.selectAll(end - start);
+            kernels.retainRange(segments[start >>> SEGMENT_SHIFT].prices, start - offset, end - offset, lowerBound,
+                    upperBound, segmentSelection);
+            if (start != from) {
+                retainSelected(selection, start - from, segmentSelection, end - start);
+            }
+        }
+    }
+
+    void retainMileageRange(ColumnKernels kernels, int from, int to, double lowerBound, double upperBound,
+                            long[] selection) {
+        for (int start = from; start < to; start = segmentEnd(start, to)) {
+            int offset = start & ~SEGMENT_MASK;
+            int end = segmentEnd(start, to);
+            var segmentSelection = start == from ? selection : ColumnKernels.selectAll(end - start);
+            kernels.retainRange(segments[start >>> SEGMENT_SHIFT].mileages, start - offset, end - offset,
+                    lowerBound, upperBound, segmentSelection);
+            if (start != from) {
+                retainSelected(selection, start - from, segmentSelection, end - start);
+            }
+        }
+    }
+
+    /**
+     * Converts price to fixed-point value with {@link #PRICE_SCALE} decimal places.
+     * @param price BigDecimal price of car.
+     * @return price as amount of minor units or IllegalArgumentException when price has more decimal places than
+     * store can keep or is too big.
+     */
+    public static long toFixedPoint(BigDecimal price) {
+        if (isWholePrice(price)) {
+            return price.longValue() * PRICE_UNIT;
+        }
+        try {
+            return price.setScale(PRICE_SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Price " + price + " can't be stored with scale " + PRICE_SCALE);
+        }
+    }
+
+    /**
+     * Converts bound of price range to fixed-point value rounding down, for prices with {@link #PRICE_SCALE}
+     * decimal places comparison with rounded bound gives the same result as with original one.
+     */
+    public static long toFixedPointFloor(BigDecimal price) {
+        if (isWholePrice(price)) {
+            return price.longValue() * PRICE_UNIT;
+        }
+        var unscaled = price.setScale(PRICE_SCALE, RoundingMode.FLOOR).unscaledValue();
+        if (unscaled.bitLength() > 63) {
+            return unscaled.signum() > 0 ? Long.MAX_VALUE : Long.MIN_VALUE;
+        }
+        return unscaled.longValue();
+    }
+
+    /**
+     * Converts bound of price range to fixed-point value rounding up.
+     */
+    public static long toFixedPointCeil(BigDecimal price) {
+        if (isWholePrice(price)) {
+            return price.longValue() * PRICE_UNIT;
+        }
+        var unscaled = price.setScale(PRICE_SCALE, RoundingMode.CEILING).unscaledValue();
+        if (unscaled.bitLength() > 63) {
+            return unscaled.signum() > 0 ? Long.MAX_VALUE : Long.MIN_VALUE;
+        }
+        return unscaled.longValue();
+    }
+
+    /**
+     * Converts fixed-point price back to BigDecimal without trailing zeros in fraction part. Zeros are stripped on
+     * long value, so only returned BigDecimal is allocated. Scale of price given when car was stored is not kept,
+     * only its value, so prices should be compared with {@link BigDecimal#compareTo(BigDecimal)}.
+     */
+    public static BigDecimal toPrice(long price) {
+        long unscaled = price;
+        int scale = PRICE_SCALE;
+        while (scale > 0 && unscaled % 10 == 0) {
+            unscaled /= 10;
+            scale--;
+        }
+        return BigDecimal.valueOf(unscaled, scale);
+    }
+
+    /**
+     * Prices without fraction part which fit in fixed-point long are converted with long arithmetic, without
+     * allocating rescaled BigDecimal and its unscaled BigInteger.
+     */
+    private static boolean isWholePrice(BigDecimal price) {
+        return price.scale() == 0 && price.precision() < 19 && Math.abs(price.longValue()) <= MAX_WHOLE_PRICE;
+    }
+
+    String[] modelDictionary() {
+        return modelDictionary;
+    }
+
+    String[] componentDictionary() {
+        return componentDictionary;
+    }
+
+    private List<String> componentNames(int row) {
+        var segment = segments[row >>> SEGMENT_SHIFT];
+        int local = row & SEGMENT_MASK;
+        int start = segment.componentOffsets.get(local);
+        int end = segment.componentOffsets.get(local + 1);
+        var names = new ArrayList<String>(end - start);
+        for (int position = start; position < end; position++) {
+            names.add(componentDictionary[segment.components.get(position)]);
+        }
+        return names;
+    }
+
+    /**
+     * @return end of segment of given row or given end when it is before.
+     */
+    private static int segmentEnd(int row, int to) {
+        return (int) Math.min(to, ((long) (row >>> SEGMENT_SHIFT) + 1) << SEGMENT_SHIFT);
+    }
+
+    /**
+     * Method clears bits of selection starting at given bit which are cleared in part selection.
+     */
+    private static void retainSelected(long[] selection, int bit, long[] part, int length) {
+        for (int word = 0; word < part.length; word++) {
+            int bits = Math.min(Long.SIZE, length - word * Long.SIZE);
+            long cleared = ~part[word] & (-1L >>> (Long.SIZE - bits));
+            if (cleared == 0) {
+                continue;
+            }
+            int target = bit + word * Long.SIZE;
+            selection[target >>> 6] &= ~(cleared << target);
+            int shift = target & (Long.SIZE - 1);
+            if (shift != 0 && (target >>> 6) + 1 < selection.length) {
+                selection[(target >>> 6) + 1] &= ~(cleared >>> (Long.SIZE - shift));
+            }
+        }
+    }
+
+    private static Segment[] segmentsOf(Columns columns) {
+        var segments = new Segment[(columns.size + SEGMENT_MASK) >>> SEGMENT_SHIFT];
+        for (int segment = 0; segment < segments.length; segment++) {
+            int start = segment << SEGMENT_SHIFT;
+            int rows = Math.min(SEGMENT_ROWS, columns.size - start);
+            segments[segment] = new Segment(
+                    columns.ids == null ? null : columns.ids.slice(start, rows),
+                    columns.mileages.slice(start, rows),
+                    columns.prices.slice(start, rows),
+                    columns.colors.slice(start, rows),
+                    columns.models.slice(start, rows),
+                    columns.componentOffsets.slice(start, rows + 1),
+                    columns.components.duplicate());
+        }
+        return segments;
+    }
+
+    private static ObjectIntHashMap<String> idsOf(String[] dictionary) {
+        var ids = new ObjectIntHashMap<String>(dictionary.length);
+        for (int id = 0; id < dictionary.length; id++) {
+            ids.put(dictionary[id], id);
+        }
+        return ids;
+    }
+
+    private static int[] ranksOf(String[] dictionary) {
+        var ids = new Integer[dictionary.length];
+        for (int id = 0; id < ids.length; id++) {
+            ids[id] = id;
+        }
+        Arrays.sort(ids, (first, second) -> dictionary[first].compareTo(dictionary[second]));
+
+        var ranks = new int[dictionary.length];
+        for (int rank = 0; rank < ids.length; rank++) {
+            ranks[ids[rank]] = rank;
+        }
+        return ranks;
+    }
+
+    /**
+     * All columns of store in one piece, used to create store from mapped file or off heap buffers.
+     */
+    @AllArgsConstructor
+    static class Columns {
+        final int size;
+        final LongBuffer ids;
+        final DoubleBuffer mileages;
+        final LongBuffer prices;
+        final ByteBuffer colors;
+        final IntBuffer models;
+        final IntBuffer componentOffsets;
+        final IntBuffer components;
+        final String[] modelDictionary;
+        final String[] componentDictionary;
+    }
+
+    /**
+     * Columns of one segment of rows, never changed after store is built. Component offsets have one more value
+     * than rows and point to positions in components, which can be shared by all segments. Ids are null when
+     * ids are equal to rows.
+     */
+    @AllArgsConstructor
+    private static final class Segment {
+        private final LongBuffer ids;
+        private final DoubleBuffer mileages;
+        private final LongBuffer prices;
+        private final ByteBuffer colors;
+        private final IntBuffer models;
+        private final IntBuffer componentOffsets;
+        private final IntBuffer components;
+
+        private int size() {
+            return prices.limit();
+        }
+    }
+
+    @FunctionalInterface
+    public interface RowComparator {
+        int compare(int firstRow, int secondRow);
+    }
+
+    /**
+     * Adds cars one by one at the end of new store.
+     */
+    public interface Appender {
+
+        /**
+         * @param car Car with filled model, price and color.
+         * @return this appender or IllegalArgumentException when car can't be stored.
+         */
+        Appender add(Car car);
+
+        CarColumnStore build();
+    }
+
+    /**
+     * Collects cars one by one into segments, used when number of cars is not known upfront. Builder created
+     * {@link #from(CarColumnStore)} existing store also allows to change and remove its rows, rows keep their order
+     * and ids so changed store can be built without sorting anything. Segment is copied only when its row is
+     * changed or car is added to it, removed rows are dropped by writing again segments from the first removed row
+     * to the end, all other segments are shared with existing store. Store built from off heap store is kept off
+     * heap again, only changed segments are held on heap while they are changed. Builder can't be used after store
+     * is built, because built store wraps its arrays.
+     */
+    public static class Builder implements Appender {
+
+        private final Segment[] base;
+        private final int baseSize;
+        private final List<String> modelDictionary;
+        private final ObjectIntHashMap<String> modelIds;
+        private final List<String> componentDictionary;
+        private final ObjectIntHashMap<String> componentIds;
+        private final BitSet removedRows = new BitSet();
+        private final BitSet changedRows = new BitSet();
+        private final BitSet replacedRows = new BitSet();
+        private final boolean offHeap;
+        private MutableSegment[] changed;
+        private int size;
+        private long nextId;
+        private boolean built;
+
+        private Builder() {
+            this.base = new Segment[0];
+            this.baseSize = 0;
+            this.offHeap = false;
+            this.modelDictionary = new ArrayList<>();
+            this.modelIds = new ObjectIntHashMap<>();
+            this.componentDictionary = new ArrayList<>();
+            this.componentIds = new ObjectIntHashMap<>();
+            this.changed = new MutableSegment[1];
+        }
+
+        private Builder(CarColumnStore store) {
+            this.base = store.segments;
+            this.baseSize = store.size;
+            this.offHeap = store.isOffHeap();
+            this.modelDictionary = new ArrayList<>(List.of(store.modelDictionary));
+            this.modelIds = new ObjectIntHashMap<>(store.modelIds);
+            this.componentDictionary = new ArrayList<>(List.of(store.componentDictionary));
+            this.componentIds = new ObjectIntHashMap<>(store.componentIds);
+            this.changed = new MutableSegment[Math.max(1, base.length)];
+            this.size = store.size;
+            this.nextId = store.size == 0 ? 0 : store.id(store.size - 1) + 1;
+        }
+
+        /**
+         * @return builder sharing all rows of given store, nothing is copied until rows are changed.
+         */
+        public static Builder from(CarColumnStore store) {
+            return new Builder(store);
+        }
+
+        /**
+         * Method adds car at the end of store with next free id.
+         * @param car Car with filled model, price and color.
+         * @return this builder or IllegalArgumentException when car can't be stored.
+         */
+        @Override
+        public Builder add(Car car) {
+
+            validate(car);
+            var price = toFixedPoint(car.price);
+
+            int row = size;
+            var segment = mutable(row);
+            segment.add(nextId++, car.mileage, price, (byte) car.color.ordinal(),
+                    idOf(car.model, modelDictionary, modelIds), componentIdsOf(car));
+            size++;
+
+            return this;
+        }
+
+        /**
+         * @return id which will be given to next added car.
+         */
+        public long nextId() {
+            return nextId;
+        }
+
+        /**
+         * @return row of car with given id or -1 when there is no such car or it was removed.
+         */
+        public int rowOf(long id) {
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                long middleId = id(middle);
+                if (middleId < id) {
+                    low = middle + 1;
+                } else if (middleId > id) {
+                    high = middle - 1;
+                } else {
+                    return removedRows.get(middle) ? -1 : middle;
+                }
+            }
+            return -1;
+        }
+
+        public long id(int row) {
+            var segment = changed(row);
+            if (segment != null) {
+                return segment.ids[row & SEGMENT_MASK];
+            }
+            var ids = base[row >>> SEGMENT_SHIFT].ids;
+            return ids == null ? row : ids.get(row & SEGMENT_MASK);
+        }
+
+        public String model(int row) {
+            var segment = changed(row);
+            return modelDictionary.get(segment != null
+                    ? segment.models[row & SEGMENT_MASK]
+                    : base[row >>> SEGMENT_SHIFT].models.get(row & SEGMENT_MASK));
+        }
+
+        public long price(int row) {
+            var segment = changed(row);
+            return segment != null
+                    ? segment.prices[row & SEGMENT_MASK]
+                    : base[row >>> SEGMENT_SHIFT].prices.get(row & SEGMENT_MASK);
+        }
+
+        public Color color(int row) {
+            var segment = changed(row);
+            return COLORS[segment != null
+                    ? segment.colors[row & SEGMENT_MASK]
+                    : base[row >>> SEGMENT_SHIFT].colors.get(row & SEGMENT_MASK)];
+        }
+
+        public double mileage(int row) {
+            var segment = changed(row);
+            return segment != null
+                    ? segment.mileages[row & SEGMENT_MASK]
+                    : base[row >>> SEGMENT_SHIFT].mileages.get(row & SEGMENT_MASK);
+        }
+
+        public List<String> components(int row) {
+            return Arrays.stream(componentIdsOf(row)).mapToObj(componentDictionary::get).toList();
+        }
+
+        public Builder set(int row, Car car) {
+
+            validate(car);
+            var price = toFixedPoint(car.price);
+            checkRow(row);
+
+            var segment = mutable(row);
+            int local = row & SEGMENT_MASK;
+            segment.mileages[local] = car.mileage;
+            segment.prices[local] = price;
+            segment.colors[local] = (byte) car.color.ordinal();
+            segment.models[local] = idOf(car.model, modelDictionary, modelIds);
+            segment.components[local] = componentIdsOf(car);
+            changedRows.set(row);
+            replacedRows.set(row);
+
+            return this;
+        }
+
+        public Builder setPrice(int row, BigDecimal price) {
+            var fixedPointPrice = toFixedPoint(Objects.requireNonNull(price, "Price can't be null"));
+            checkRow(row);
+            mutable(row).prices[row & SEGMENT_MASK] = fixedPointPrice;
+            changedRows.set(row);
+            return this;
+        }
+
+        public Builder setMileage(int row, double mileage) {
+            checkRow(row);
+            mutable(row).mileages[row & SEGMENT_MASK] = mileage;
+            changedRows.set(row);
+            return this;
+        }
+
+        public Builder remove(int row) {
+            checkRow(row);
+            removedRows.set(row);
+            return this;
+        }
+
+        /**
+         * @return changes made by this builder in rows of store it was created from, rows are numbered as before
+         * removed rows were dropped.
+         */
+        public CarChanges changes() {
+            return new CarChanges(baseSize, size, removedRows, changedRows, replacedRows);
+        }
+
+        @Override
+        public CarColumnStore build() {
+
+            built = true;
+            int firstRemoved = removedRows.nextSetBit(0);
+            int kept = firstRemoved < 0 ? (size + SEGMENT_MASK) >>> SEGMENT_SHIFT : firstRemoved >>> SEGMENT_SHIFT;
+
+            var segments = new ArrayList<Segment>(kept + 1);
+            for (int segment = 0; segment < kept; segment++) {
+                segments.add(segment < changed.length && changed[segment] != null
+                        ? changed[segment].toSegment(offHeap)
+                        : base[segment]);
+            }
+
+            if (firstRemoved >= 0) {
+                var target = new MutableSegment(SEGMENT_ROWS);
+                for (int row = kept << SEGMENT_SHIFT; row < size; row++) {
+                    if (removedRows.get(row)) {
+                        continue;
+                    }
+                    target.add(id(row), mileage(row), price(row), (byte) color(row).ordinal(), modelIdOf(row),
+                            componentIdsOf(row));
+                    if (target.size == SEGMENT_ROWS) {
+                        segments.add(target.toSegment(offHeap));
+                        target = new MutableSegment(SEGMENT_ROWS);
+                    }
+                }
+                if (target.size > 0) {
+                    segments.add(target.toSegment(offHeap));
+                }
+            }
+
+            return new CarColumnStore(size - removedRows.cardinality(), segments.toArray(Segment[]::new), offHeap,
+                    modelDictionary.toArray(String[]::new), componentDictionary.toArray(String[]::new));
+        }
+
+        /**
+         * @return copy of segment of given row which can be changed, segment is copied on first change.
+         */
+        private MutableSegment mutable(int row) {
+
+            if (built) {
+                throw new IllegalStateException("Builder can't be used after store is built");
+            }
+
+            int segment = row >>> SEGMENT_SHIFT;
+            if (segment >= changed.length) {
+                changed = Arrays.copyOf(changed, Math.max(segment + 1, changed.length * 2));
+            }
+            if (changed[segment] == null) {
+                changed[segment] = segment < base.length
+                        ? MutableSegment.of(base[segment], segment << SEGMENT_SHIFT)
+                        : new MutableSegment(Math.min(SEGMENT_ROWS, 16));
+            }
+            return changed[segment];
+        }
+
+        private MutableSegment changed(int row) {
+            int segment = row >>> SEGMENT_SHIFT;
+            return segment < changed.length ? changed[segment] : null;
+        }
+
+        private int modelIdOf(int row) {
+            var segment = changed(row);
+            return segment != null
+                    ? segment.models[row & SEGMENT_MASK]
+                    : base[row >>> SEGMENT_SHIFT].models.get(row & SEGMENT_MASK);
+        }
+
+        private int[] componentIdsOf(int row) {
+            var segment = changed(row);
+            if (segment != null) {
+                return segment.components[row & SEGMENT_MASK];
+            }
+            return MutableSegment.componentIdsOf(base[row >>> SEGMENT_SHIFT], row & SEGMENT_MASK);
+        }
+
+        private int[] componentIdsOf(Car car) {
+            var carComponents = Objects.isNull(car.components) ? List.<String>of() : car.components;
+            return carComponents
+                    .stream()
+                    .mapToInt(component -> idOf(component, componentDictionary, componentIds))
+                    .toArray();
+        }
+
+        private void checkRow(int row) {
+            if (row < 0 || row >= size || removedRows.get(row)) {
+                throw new IllegalArgumentException("There is no car in row " + row);
+            }
+        }
+
+        private static void validate(Car car) {
+
+            if (Objects.isNull(car)) {
+                throw new IllegalArgumentException("Car can't be null");
+            }
+            if (Objects.isNull(car.model) || Objects.isNull(car.price) || Objects.isNull(car.color)) {
+                throw new IllegalArgumentException("Car must have model, price and color: " + car);
+            }
+        }
+
+        private static int idOf(String value, List<String> dictionary, ObjectIntHashMap<String> ids) {
+            return ids.getIfAbsentPut(value, () -> {
+                dictionary.add(value);
+                return dictionary.size() - 1;
+            });
+        }
+    }
+
+    /**
+     * Rows of one segment in arrays growing twice up to {@link #SEGMENT_ROWS}, components of every row are kept in
+     * their own array so they can be replaced.
+     */
+    private static final class MutableSegment {
+
+        private long[] ids;
+        private double[] mileages;
+        private long[] prices;
+        private byte[] colors;
+        private int[] models;
+        private int[][] components;
+        private int size;
+
+        private MutableSegment(int capacity) {
+            this.ids = new long[capacity];
+            this.mileages = new double[capacity];
+            this.prices = new long[capacity];
+            this.colors = new byte[capacity];
+            this.models = new int[capacity];
+            this.components = new int[capacity][];
+        }
+
+        /**
+         * @param start the first row of segment.
+         */
+        private static MutableSegment of(Segment segment, int start) {
+            int size = segment.size();
+            var copy = new MutableSegment(size == SEGMENT_ROWS ? size : Math.min(SEGMENT_ROWS, Math.max(16, size * 2)));
+            for (int local = 0; local < size; local++) {
+                copy.ids[local] = segment.ids == null ? start + local : segment.ids.get(local);
+                copy.components[local] = componentIdsOf(segment, local);
+            }
+            segment.mileages.get(0, copy.mileages, 0, size);
+            segment.prices.get(0, copy.prices, 0, size);
+            segment.colors.get(0, copy.colors, 0, size);
+            segment.models.get(0, copy.models, 0, size);
+            copy.size = size;
+            return copy;
+        }
+
+        private static int[] componentIdsOf(Segment segment, int local) {
+            int start = segment.componentOffsets.get(local);
+            var ids = new int[segment.componentOffsets.get(local + 1) - start];
+            segment.components.get(start, ids);
+            return ids;
+        }
+
+        private void add(long id, double mileage, long price, byte color, int model, int[] carComponents) {
+            if (size == prices.length) {
+                int capacity = Math.min(SEGMENT_ROWS, size * 2);
+                ids = Arrays.copyOf(ids, capacity);
+                mileages = Arrays.copyOf(mileages, capacity);
+                prices = Arrays.copyOf(prices, capacity);
+                colors = Arrays.copyOf(colors, capacity);
+                models = Arrays.copyOf(models, capacity);
+                components = Arrays.copyOf(components, capacity);
+            }
+            ids[size] = id;
+            mileages[size] = mileage;
+            prices[size] = price;
+            colors[size] = color;
+            models[size] = model;
+            components[size] = carComponents;
+            size++;
+        }
+
+        /**
+         * Heap segment wraps arrays of this segment, off heap segment copies them to direct buffers.
+         */
+        private Segment toSegment(boolean offHeap) {
+
+            var offsets = new int[size + 1];
+            for (int local = 0; local < size; local++) {
+                offsets[local + 1] = offsets[local] + components[local].length;
+            }
+            var flat = new int[offsets[size]];
+            for (int local = 0; local < size; local++) {
+                System.arraycopy(components[local], 0, flat, offsets[local], components[local].length);
+            }
+
+            if (offHeap) {
+                return new Segment(
+                        DirectColumns.of(Arrays.copyOf(ids, size)).asLongBuffer(),
+                        DirectColumns.of(Arrays.copyOf(mileages, size)).asDoubleBuffer(),
+                        DirectColumns.of(Arrays.copyOf(prices, size)).asLongBuffer(),
+                        DirectColumns.of(Arrays.copyOf(colors, size)),
+                        DirectColumns.of(Arrays.copyOf(models, size)).asIntBuffer(),
+                        DirectColumns.of(offsets).asIntBuffer(),
+                        DirectColumns.of(flat).asIntBuffer());
+            }
+
+            return new Segment(
+                    LongBuffer.wrap(ids, 0, size).slice(),
+                    DoubleBuffer.wrap(mileages, 0, size).slice(),
+                    LongBuffer.wrap(prices, 0, size).slice(),
+                    ByteBuffer.wrap(colors, 0, size).slice(),
+                    IntBuffer.wrap(models, 0, size).slice(),
+                    IntBuffer.wrap(offsets),
+                    IntBuffer.wrap(flat));
+        }
+    }
+
+    /**
+     * Collects cars one by one straight into direct buffers outside of Java heap, every column grows twice when it
+     * is full. Heap holds only dictionaries, so store of any amount of cars adds no objects for garbage collector to
+     * trace. Cars of new store get ids equal to their rows, so no column of ids is kept. Column can have at most
+     * {@link Integer#MAX_VALUE} bytes, which limits store to about 268 million cars.
+     */
+    public static class OffHeapBuilder implements Appender {
+
+        private static final int INITIAL_ROWS = 1024;
+
+        private final List<String> modelDictionary = new ArrayList<>();
+        private final ObjectIntHashMap<String> modelIds = new ObjectIntHashMap<>();
+        private final List<String> componentDictionary = new ArrayList<>();
+        private final ObjectIntHashMap<String> componentIds = new ObjectIntHashMap<>();
+        private ByteBuffer mileages = DirectColumns.allocate(INITIAL_ROWS * Double.BYTES);
+        private ByteBuffer prices = DirectColumns.allocate(INITIAL_ROWS * Long.BYTES);
+        private ByteBuffer colors = DirectColumns.allocate(INITIAL_ROWS);
+        private ByteBuffer models = DirectColumns.allocate(INITIAL_ROWS * Integer.BYTES);
+        private ByteBuffer componentOffsets = DirectColumns.allocate((INITIAL_ROWS + 1) * Integer.BYTES).putInt(0);
+        private ByteBuffer components = DirectColumns.allocate(INITIAL_ROWS * Integer.BYTES);
+        private int size;
+
+        private OffHeapBuilder() {
+        }
+
+        @Override
+        public OffHeapBuilder add(Car car) {
+
+            Builder.validate(car);
+            var price = toFixedPoint(car.price);
+            var carComponents = Objects.isNull(car.components) ? List.<String>of() : car.components;
+
+            mileages = DirectColumns.ensure(mileages, Double.BYTES).putDouble(car.mileage);
+            prices = DirectColumns.ensure(prices, Long.BYTES).putLong(price);
+            colors = DirectColumns.ensure(colors, 1).put((byte) car.color.ordinal());
+            models = DirectColumns.ensure(models, Integer.BYTES)
+                    .putInt(Builder.idOf(car.model, modelDictionary, modelIds));
+            components = DirectColumns.ensure(components, carComponents.size() * Integer.BYTES);
+            carComponents.forEach(component ->
+                    components.putInt(Builder.idOf(component, componentDictionary, componentIds)));
+            componentOffsets = DirectColumns.ensure(componentOffsets, Integer.BYTES)
+                    .putInt(components.position() / Integer.BYTES);
+            size++;
+
+            return this;
+        }
+
+        /**
+         * Columns of store are views of filled part of buffers, builder can't be used after store is built.
+         */
+        @Override
+        public CarColumnStore build() {
+            return new CarColumnStore(new Columns(
+                    size,
+                    null,
+                    DirectColumns.filled(mileages).asDoubleBuffer(),
+                    DirectColumns.filled(prices).asLongBuffer(),
+                    DirectColumns.filled(colors),
+                    DirectColumns.filled(models).asIntBuffer(),
+                    DirectColumns.filled(componentOffsets).asIntBuffer(),
+                    DirectColumns.filled(components).asIntBuffer(),
+                    modelDictionary.toArray(String[]::new),
+                    componentDictionary.toArray(String[]::new)));
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package com.app.domain.car;
+
+import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
+import org.eclipse.collections.impl.map.mutable.primitive.IntObjectHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Inverted index from component to cars having it. Rows of cars containing every component are kept sorted in one
+ * array of that component, component id from store dictionary points to its array, so index takes one int for every
+ * component of every car and nothing for cars without component. Queries about components are answered by
+ * intersection or union of these postings instead of scanning component lists of all cars. Postings are immutable,
+ * so postings of components which weren't touched by changes are shared with index of next version.
+ */
+public class CarComponentIndex {
+
+    private static final int[] EMPTY = new int[0];
+
+    private final CarColumnStore cars;
+    private final int[][] postings;
+
+    private CarComponentIndex(CarColumnStore cars, int[][] postings) {
+        this.cars = cars;
+        this.postings = postings;
+    }
+
+    public static CarComponentIndex of(CarColumnStore cars) {
+        return of(cars, CarScan.SEQUENTIAL);
+    }
+
+    /**
+     * Method builds index in two scans with the same chunks. First counts components of every chunk, so every chunk
+     * knows where its rows of every component start, second writes rows of chunk to their places.
+     */
+    public static CarComponentIndex of(CarColumnStore cars, CarScan scan) {
+
+        int componentCount = cars.componentCount();
+        var chunks = scan.reduce(cars.size(), (from, to) -> Chunk.count(cars, from, to), (left, right) -> {
+            left.addAll(right);
+            return left;
+        });
+
+        var next = new int[componentCount];
+        for (var chunk : chunks) {
+            for (int component = 0; component < componentCount; component++) {
+                int count = chunk.positions[component];
+                chunk.positions[component] = next[component];
+                next[component] += count;
+            }
+        }
+
+        var postings = new int[componentCount][];
+        for (int component = 0; component < componentCount; component++) {
+            postings[component] = next[component] == 0 ? EMPTY : new int[next[component]];
+        }
+        var starts = chunks.stream().mapToInt(chunk -> chunk.from).toArray();
+        scan.forEachChunk(cars.size(), (from, to) -> {
+            var positions = chunks.get(Arrays.binarySearch(starts, from)).positions;
+            for (int row = from; row < to; row++) {
+                for (int position = cars.componentsStart(row); position < cars.componentsEnd(row); position++) {
+                    int component = cars.componentAt(row, position);
+                    postings[component][positions[component]++] = row;
+                }
+            }
+        });
+
+        return new CarComponentIndex(cars, postings);
+    }
+
+    /**
+     * Method creates index of store built with given changes from store of this index. Only postings of touched
+     * components are copied: components of removed and replaced cars read from old store, components of replaced
+     * and added cars, and components with rows after the first removed row, which get lower numbers. Copied
+     * postings keep renumbered rows of cars which weren't replaced or removed and merge in rows of replaced and added
+     * cars, other postings are shared, so edit costs postings it touched.
+     * @param cars store built from store of this index.
+     * @param changes changes made while store was built.
+     * @return index of given store.
+     */
+    public CarComponentIndex patch(CarColumnStore cars, CarChanges changes) {
+
+        int componentCount = cars.componentCount();
+        var touched = new BitSet(componentCount);
+        for (int row : changes.removedOrReplacedRows()) {
+            for (int position = this.cars.componentsStart(row); position < this.cars.componentsEnd(row); position++) {
+                touched.set(this.cars.componentAt(row, position));
+            }
+        }
+        int firstRemoved = changes.firstRemoved();
+        for (int component = 0; firstRemoved >= 0 && component < postings.length; component++) {
+            var rows = postings[component];
+            if (rows.length > 0 && rows[rows.length - 1] > firstRemoved) {
+                touched.set(component);
+            }
+        }
+
+        var moved = new IntObjectHashMap<IntArrayList>();
+        for (int row : changes.replacedRows()) {
+            for (int position = cars.componentsStart(row); position < cars.componentsEnd(row); position++) {
+                int component = cars.componentAt(row, position);
+                touched.set(component);
+                moved.getIfAbsentPut(component, IntArrayList::new).add(row);
+            }
+        }
+
+        var patched = Arrays.copyOf(postings, componentCount);
+        for (int component = postings.length; component < componentCount; component++) {
+            patched[component] = EMPTY;
+        }
+        for (int component = touched.nextSetBit(0); component >= 0; component = touched.nextSetBit(component + 1)) {
+            var movedRows = moved.get(component);
+            patched[component] = merge(patched[component], movedRows == null ? EMPTY : movedRows.toArray(), changes);
+        }
+
+        return new CarComponentIndex(cars, patched);
+    }
+
+    /**
+     * Rows of posting which weren't removed or replaced are renumbered, they keep their order, so they are merged
+     * with ascending moved rows.
+     */
+    private static int[] merge(int[] rows, int[] movedRows, CarChanges changes) {
+
+        var merged = new int[rows.length + movedRows.length];
+        int length = 0;
+        int moved = 0;
+        for (int oldRow : rows) {
+            if (changes.isRemoved(oldRow) || changes.isReplaced(oldRow)) {
+                continue;
+            }
+            int row = changes.newRow(oldRow);
+            while (moved < movedRows.length && movedRows[moved] < row) {
+                merged[length++] = movedRows[moved++];
+            }
+            merged[length++] = row;
+        }
+        while (moved < movedRows.length) {
+            merged[length++] = movedRows[moved++];
+        }
+
+        return length == 0 ? EMPTY : Arrays.copyOf(merged, length);
+    }
+
+    /**
+     * @return sorted rows of cars containing component with given id.
+     */
+    public int[] rowsWith(int componentId) {
+        return postings[componentId].clone();
+    }
+
+    public boolean contains(int row, int componentId) {
+        return Arrays.binarySearch(postings[componentId], row) >= 0;
+    }
+
+    /**
+     * Method intersects postings of all given components starting with the shortest one, rows of shorter posting
+     * are searched in longer one, so cost depends on the shortest posting.
+     * @param components names of required components.
+     * @return bitmap with rows of cars containing every given component, empty when any component is unknown.
+     */
+    public BitSet carsWithAll(Collection<String> components) {
+
+        var componentIds = new int[components.size()];
+        int count = 0;
+        for (var component : components) {
+            int componentId = cars.componentId(component);
+            if (componentId < 0) {
+                return new BitSet();
+            }
+            componentIds[count++] = componentId;
+        }
+        if (count == 0) {
+            return new BitSet();
+        }
+
+        int shortest = 0;
+        for (int i = 1; i < count; i++) {
+            if (length(componentIds[i]) < length(componentIds[shortest])) {
+                shortest = i;
+            }
+        }
+        var candidates = rowsWith(componentIds[shortest]);
+        int length = candidates.length;
+        for (int i = 0; i < count && length > 0; i++) {
+            if (i != shortest) {
+                length = retain(candidates, length, componentIds[i]);
+            }
+        }
+
+        var result = new BitSet(length == 0 ? 0 : candidates[length - 1] + 1);
+        for (int i = 0; i < length; i++) {
+            result.set(candidates[i]);
+        }
+
+        return result;
+    }
+
+    /**
+     * Method sums postings of all given components, unknown components are skipped.
+     * @param components names of components.
+     * @return bitmap with rows of cars containing at least one of given components.
+     */
+    public BitSet carsWithAny(Collection<String> components) {
+
+        var result = new BitSet(cars.size());
+        for (var component : components) {
+            int componentId = cars.componentId(component);
+            if (componentId >= 0) {
+                for (int row : postings[componentId]) {
+                    result.set(row);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    private int length(int componentId) {
+        return postings[componentId].length;
+    }
+
+    /**
+     * Method keeps at the beginning of candidates only rows found in posting of given component. Rows of both are
+     * sorted, so search continues from position of previous row and jumps by growing steps before binary search.
+     * @return amount of kept candidates.
+     */
+    private int retain(int[] candidates, int length, int componentId) {
+
+        var rows = postings[componentId];
+        int position = 0;
+        int end = rows.length;
+        int kept = 0;
+        for (int i = 0; i < length && position < end; i++) {
+            int row = candidates[i];
+            int step = 1;
+            int bound = position;
+            while (bound < end && rows[bound] < row) {
+                position = bound + 1;
+                bound = position + step;
+                step <<= 1;
+            }
+            int found = Arrays.binarySearch(rows, position, Math.min(bound + 1, end), row);
+            if (found >= 0) {
+                candidates[kept++] = row;
+                position = found + 1;
+            } else {
+                position = -found - 1;
+            }
+        }
+
+        return kept;
+    }
+
+    /**
+     * Chunk of rows with amount of rows of every component, later replaced by position in posting of component where
+     * rows of chunk start.
+     */
+    private static final class Chunk {
+
+        private final int from;
+        private final int[] positions;
+
+        private Chunk(int from, int[] positions) {
+            this.from = from;
+            this.positions = positions;
+        }
+
+        private static List<Chunk> count(CarColumnStore cars, int from, int to) {
+            var counts = new int[cars.componentCount()];
+            for (int row = from; row < to; row++) {
+                for (int position = cars.componentsStart(row); position < cars.componentsEnd(row); position++) {
+                    counts[cars.componentAt(row, position)]++;
+                }
+            }
+            var chunks = new ArrayList<Chunk>();
+            chunks.add(new Chunk(from, counts));
+            return chunks;
+        }
+    }
+}
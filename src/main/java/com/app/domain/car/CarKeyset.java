@@ -0,0 +1,55 @@
+package com.app.domain.car;
+
+import com.app.domain.car.type.SortingType;
+import lombok.Value;
+
+/**
+ * Position in result of query given by sorted value and id of the last returned car. Cars equal by sorted value are
+ * in order of ids, which is order of rows, so position stays valid when cars are added, changed or removed and next
+ * page continues after the same car.
+ */
+@Value
+public class CarKeyset {
+
+    /**
+     * Sorted value of car, fixed-point price, bits of mileage or ordinal of color, 0 when query isn't sorted or is
+     * sorted by model.
+     */
+    long value;
+
+    /**
+     * Model of car when query is sorted by model, null otherwise.
+     */
+    String model;
+
+    long id;
+
+    /**
+     * @return position of car in given row of store.
+     */
+    public static CarKeyset of(CarColumnStore cars, SortingType sortBy, int row) {
+        if (sortBy == null) {
+            return new CarKeyset(0, null, cars.id(row));
+        }
+        return switch (sortBy) {
+            case MODEL -> new CarKeyset(0, cars.model(row), cars.id(row));
+            case COLOR -> new CarKeyset(cars.colorOrdinal(row), null, cars.id(row));
+            case PRICE -> new CarKeyset(cars.price(row), null, cars.id(row));
+            case MILEAGE -> new CarKeyset(Double.doubleToLongBits(cars.mileage(row)), null, cars.id(row));
+        };
+    }
+
+    /**
+     * Method compares car in given row with this position in ascending order of sorted value and id.
+     * @return negative number when car is before position, 0 when it is car of position, positive number after it.
+     */
+    int compareTo(CarColumnStore cars, SortingType sortBy, int row) {
+        int result = sortBy == null ? 0 : switch (sortBy) {
+            case MODEL -> cars.model(row).compareTo(model);
+            case COLOR -> Integer.compare(cars.colorOrdinal(row), (int) value);
+            case PRICE -> Long.compare(cars.price(row), value);
+            case MILEAGE -> Double.compare(cars.mileage(row), Double.longBitsToDouble(value));
+        };
+        return result != 0 ? result : Long.compare(cars.id(row), id);
+    }
+}
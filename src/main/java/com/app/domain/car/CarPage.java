@@ -0,0 +1,25 @@
+package com.app.domain.car;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * One page of cars selected by {@link CarQuery}, next page is requested with its token.
+ */
+@Value
+@Builder
+public class CarPage {
+
+    List<Car> cars;
+
+    /**
+     * Token of next page, null when this page is the last one.
+     */
+    String nextPageToken;
+
+    public boolean hasNextPage() {
+        return nextPageToken != null;
+    }
+}
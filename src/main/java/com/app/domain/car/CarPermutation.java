@@ -0,0 +1,284 @@
+package com.app.domain.car;
+
+import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.IntPredicate;
+import java.util.function.IntSupplier;
+
+/**
+ * Rows of store in sorted order split into blocks of about {@link #BLOCK_ROWS} rows. Blocks are immutable and shared
+ * with permutations of next versions of store, patch copies only blocks which lose or gain rows, so change of one car
+ * costs one block instead of whole permutation. Block of position is found by binary search of block starts.
+ */
+final class CarPermutation {
+
+    static final int BLOCK_ROWS = 1 << 12;
+
+    private final int[][] blocks;
+    private final int[] maxRows;
+    private final int[] starts;
+
+    private CarPermutation(int[][] blocks, int[] maxRows) {
+        this.blocks = blocks;
+        this.maxRows = maxRows;
+        this.starts = new int[blocks.length + 1];
+        for (int block = 0; block < blocks.length; block++) {
+            starts[block + 1] = starts[block] + blocks[block].length;
+        }
+    }
+
+    static CarPermutation of(int[] rows) {
+        var blocks = new ArrayList<int[]>();
+        var maxRows = new IntArrayList();
+        for (int from = 0; from < rows.length; from += BLOCK_ROWS) {
+            add(blocks, maxRows, Arrays.copyOfRange(rows, from, Math.min(rows.length, from + BLOCK_ROWS)));
+        }
+        return new CarPermutation(blocks.toArray(int[][]::new), maxRows.toArray());
+    }
+
+    int size() {
+        return starts[blocks.length];
+    }
+
+    int row(int position) {
+        int block = blockOf(position);
+        return blocks[block][position - starts[block]];
+    }
+
+    /**
+     * @return rows from given range of positions in their sorted order.
+     */
+    int[] rows(int from, int to) {
+        var rows = new int[to - from];
+        for (int position = from; position < to; ) {
+            int block = blockOf(position);
+            int length = Math.min(to, starts[block + 1]) - position;
+            System.arraycopy(blocks[block], position - starts[block], rows, position - from, length);
+            position += length;
+        }
+        return rows;
+    }
+
+    /**
+     * Rows of range are marked in bitmap over all rows, which is read word by word in order of rows, so cost is
+     * O(k + n / 64) for k rows. Only ranges so short that sorting them is cheaper than reading bitmap are sorted.
+     * @param rowCount amount of rows of store.
+     * @return rows from given range of positions in ascending order.
+     */
+    int[] rowsInRowOrder(int from, int to, int rowCount) {
+
+        int length = to - from;
+        int words = (rowCount + Long.SIZE - 1) / Long.SIZE;
+        if ((long) length * (Integer.SIZE - Integer.numberOfLeadingZeros(length)) < words) {
+            var rows = rows(from, to);
+            Arrays.sort(rows);
+            return rows;
+        }
+
+        var bitmap = new long[words];
+        var walk = walk(from, to, false);
+        for (int row = walk.getAsInt(); row >= 0; row = walk.getAsInt()) {
+            bitmap[row >>> 6] |= 1L << row;
+        }
+        var rows = new int[length];
+        int count = 0;
+        for (int word = 0; word < words; word++) {
+            for (long bits = bitmap[word]; bits != 0; bits &= bits - 1) {
+                rows[count++] = (word << 6) + Long.numberOfTrailingZeros(bits);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * @return supplier of rows from given range of positions, it gives -1 after the last row.
+     */
+    IntSupplier walk(int from, int to, boolean backwards) {
+        return new IntSupplier() {
+            private int position = backwards ? to - 1 : from;
+            private int block = from < to ? blockOf(position) : 0;
+
+            @Override
+            public int getAsInt() {
+                if (position < from || position >= to) {
+                    return -1;
+                }
+                while (position < starts[block]) {
+                    block--;
+                }
+                while (position >= starts[block + 1]) {
+                    block++;
+                }
+                int row = blocks[block][position - starts[block]];
+                position += backwards ? -1 : 1;
+                return row;
+            }
+        };
+    }
+
+    /**
+     * @return the first position of range where predicate of row holds, it holds for all following positions too.
+     */
+    int firstPosition(int from, int to, IntPredicate predicate) {
+        while (from < to) {
+            int middle = (from + to) >>> 1;
+            if (predicate.test(row(middle))) {
+                to = middle;
+            } else {
+                from = middle + 1;
+            }
+        }
+        return from;
+    }
+
+    /**
+     * Method creates permutation of store built with given changes. Blocks of removed and changed rows are found by
+     * binary search in order of old store, changed and added rows are put to blocks found by their last rows in
+     * order of built store. Only these blocks are copied, except when rows are removed: rows after the first removed
+     * one get lower numbers, so blocks with such rows are copied too, like segments of store after removed row.
+     * @param oldOrder order of store of this permutation.
+     * @param order order of built store.
+     * @param changes changes made while store was built.
+     * @param moved changed and added rows of built store sorted by given order and row.
+     * @return permutation of built store.
+     */
+    CarPermutation patch(CarColumnStore.RowComparator oldOrder, CarColumnStore.RowComparator order,
+                         CarChanges changes, int[] moved) {
+
+        var rewritten = new BitSet(blocks.length);
+        for (int left : changes.removedOrChangedRows()) {
+            rewritten.set(blockOf(firstPosition(0, size(), row -> !isBefore(oldOrder, row, left))));
+        }
+        int firstRemoved = changes.firstRemoved();
+        for (int block = 0; firstRemoved >= 0 && block < blocks.length; block++) {
+            if (maxRows[block] > firstRemoved) {
+                rewritten.set(block);
+            }
+        }
+
+        var targets = new int[moved.length];
+        int next = 0;
+        int lastKept = -1;
+        for (int block = 0; block < blocks.length && next < moved.length; block++) {
+            int last = lastKeptRow(block, rewritten.get(block), changes);
+            if (last < 0) {
+                continue;
+            }
+            lastKept = block;
+            while (next < moved.length && isBefore(order, moved[next], last)) {
+                targets[next++] = block;
+            }
+        }
+        Arrays.fill(targets, next, moved.length, lastKept < 0 ? blocks.length : lastKept);
+
+        var patched = new ArrayList<int[]>(blocks.length + 1);
+        var patchedMaxRows = new IntArrayList(blocks.length + 1);
+        next = 0;
+        for (int block = 0; block < blocks.length; block++) {
+            int from = next;
+            while (next < moved.length && targets[next] == block) {
+                next++;
+            }
+            if (from == next && !rewritten.get(block)) {
+                patched.add(blocks[block]);
+                patchedMaxRows.add(maxRows[block]);
+            } else {
+                addRewritten(patched, patchedMaxRows, merge(blocks[block], moved, from, next, order, changes));
+            }
+        }
+        if (next < moved.length) {
+            addRewritten(patched, patchedMaxRows, Arrays.copyOfRange(moved, next, moved.length));
+        }
+
+        return new CarPermutation(patched.toArray(int[][]::new), patchedMaxRows.toArray());
+    }
+
+    /**
+     * @return row of built store of the last row of block which wasn't removed or changed, or -1 when there is none.
+     */
+    private int lastKeptRow(int block, boolean rewritten, CarChanges changes) {
+        var rows = blocks[block];
+        for (int i = rows.length - 1; i >= 0; i--) {
+            if (!rewritten || !changes.isRemoved(rows[i]) && !changes.isChanged(rows[i])) {
+                return changes.newRow(rows[i]);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Rows of block which weren't removed or changed are renumbered, they keep their order, so they are merged with
+     * moved rows by value and then by row.
+     */
+    private static int[] merge(int[] rows, int[] moved, int from, int to, CarColumnStore.RowComparator order,
+                               CarChanges changes) {
+
+        var merged = new int[rows.length + to - from];
+        int length = 0;
+        int next = from;
+        for (int oldRow : rows) {
+            if (changes.isRemoved(oldRow) || changes.isChanged(oldRow)) {
+                continue;
+            }
+            int row = changes.newRow(oldRow);
+            while (next < to && isBefore(order, moved[next], row)) {
+                merged[length++] = moved[next++];
+            }
+            merged[length++] = row;
+        }
+        while (next < to) {
+            merged[length++] = moved[next++];
+        }
+
+        return Arrays.copyOf(merged, length);
+    }
+
+    /**
+     * Copied block longer than two blocks is split, shorter than half of block is joined with previous block when
+     * they fit in two blocks, so blocks don't get smaller with every patch.
+     */
+    private static void addRewritten(List<int[]> blocks, IntArrayList maxRows, int[] rows) {
+
+        if (rows.length == 0) {
+            return;
+        }
+        if (rows.length > 2 * BLOCK_ROWS) {
+            for (int from = 0; from < rows.length; from += BLOCK_ROWS) {
+                add(blocks, maxRows, Arrays.copyOfRange(rows, from, Math.min(rows.length, from + BLOCK_ROWS)));
+            }
+            return;
+        }
+        int last = blocks.size() - 1;
+        if (rows.length < BLOCK_ROWS / 2 && last >= 0 && blocks.get(last).length + rows.length <= 2 * BLOCK_ROWS) {
+            var previous = blocks.remove(last);
+            maxRows.removeAtIndex(last);
+            var joined = Arrays.copyOf(previous, previous.length + rows.length);
+            System.arraycopy(rows, 0, joined, previous.length, rows.length);
+            rows = joined;
+        }
+        add(blocks, maxRows, rows);
+    }
+
+    private static void add(List<int[]> blocks, IntArrayList maxRows, int[] rows) {
+        int max = -1;
+        for (int row : rows) {
+            max = Math.max(max, row);
+        }
+        blocks.add(rows);
+        maxRows.add(max);
+    }
+
+    private int blockOf(int position) {
+        int found = Arrays.binarySearch(starts, 0, blocks.length, position);
+        return found >= 0 ? found : -found - 2;
+    }
+
+    private static boolean isBefore(CarColumnStore.RowComparator comparator, int first, int second) {
+        int result = comparator.compare(first, second);
+        return result < 0 || (result == 0 && first < second);
+    }
+}
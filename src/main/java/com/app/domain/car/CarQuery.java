@@ -0,0 +1,58 @@
+package com.app.domain.car;
+
+import com.app.domain.car.type.CarField;
+import com.app.domain.car.type.Color;
+import com.app.domain.car.type.SortingType;
+import lombok.Builder;
+import lombok.Singular;
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.util.Set;
+
+/**
+ * Query combining conditions on cars with sorting, paging and projection. Every condition which is not set
+ * accepts all cars, price and mileage bounds are inclusive. It is executed by {@link CarQueryPlan} in one pass.
+ */
+@Value
+@Builder(toBuilder = true)
+public class CarQuery {
+
+    /**
+     * Models of selected cars, car has to have one of them.
+     */
+    @Singular
+    Set<String> models;
+
+    @Singular
+    Set<Color> colors;
+
+    BigDecimal minPrice;
+    BigDecimal maxPrice;
+
+    Double minMileage;
+    Double maxMileage;
+
+    /**
+     * Components required in selected cars, car has to have all of them.
+     */
+    @Singular
+    Set<String> components;
+
+    /**
+     * Order of selected cars, cars stay in order of store when it is null.
+     */
+    SortingType sortBy;
+    boolean descending;
+
+    int offset;
+
+    @Builder.Default
+    int limit = Integer.MAX_VALUE;
+
+    /**
+     * Fields filled in selected cars, all fields are filled when it is empty.
+     */
+    @Singular
+    Set<CarField> fields;
+}
@@ -0,0 +1,680 @@
+package com.app.domain.car;
+
+import com.app.domain.car.type.Color;
+import com.app.domain.car.type.SortingType;
+import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.CancellationException;
+import java.util.function.IntPredicate;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Compiled {@link CarQuery}. Conditions which can use index count their matching cars exactly, condition with the
+ * smallest cost is chosen to give candidate rows and all other conditions are checked on every candidate starting
+ * from the most selective one, so checking stops on the first failed condition. When candidates come in requested
+ * order, scan stops as soon as requested page is complete. Cars are created only for rows of the page. Full scan
+ * checking all rows at once checks price and mileage ranges on whole chunk of column with {@link ColumnKernels}, other
+ * conditions are checked only on rows left in selection.
+ * <p>
+ * Query can continue after {@link CarKeyset} of the last car of previous page, walks in requested order start at it
+ * with binary search and price or mileage range of query sorted by it is narrowed to cars from it.
+ * <p>
+ * Plan stops with {@link CancellationException} when thread which runs it is interrupted, interruption is checked
+ * while candidates are read, before every chunk of full scan and after sorting, so query cancelled with deadline
+ * doesn't run until the end.
+ */
+public class CarQueryPlan {
+
+    /**
+     * When price or mileage range leaves at most this part of cars, components are checked on dictionary ids of
+     * candidate rows and component index isn't needed.
+     */
+    static final double COMPONENTS_CHECKED_ON_ROWS = 1.0 / 8;
+
+    /**
+     * Amount of candidates read between checks of interruption, power of 2.
+     */
+    static final int INTERRUPTION_CHECK_ROWS = 1 << 12;
+
+    public enum AccessPath {
+        /**
+         * Some condition matches no car, nothing is read.
+         */
+        NONE,
+        FULL_SCAN,
+        /**
+         * Rows are read in order of sort permutation until page is complete.
+         */
+        SORTED_WALK,
+        PRICE_RANGE,
+        MILEAGE_RANGE,
+        COMPONENTS
+    }
+
+    private final CarColumnStore cars;
+    private final CarSortIndex sortIndex;
+    private final CarQuery query;
+    private final AccessPath accessPath;
+    private final int[] candidateRange;
+    private final BitSet componentRows;
+    private final IntPredicate[] predicates;
+    private final ChunkFilter[] chunkFilters;
+    private final IntPredicate[] rowPredicates;
+    private final CarKeyset after;
+    private long rowsExamined;
+    private int lastRow = -1;
+
+    private CarQueryPlan(CarColumnStore cars, CarSortIndex sortIndex, CarQuery query, CarKeyset after,
+                         AccessPath accessPath, int[] candidateRange, BitSet componentRows, List<Condition> conditions) {
+        this.cars = cars;
+        this.sortIndex = sortIndex;
+        this.query = query;
+        this.after = after;
+        this.accessPath = accessPath;
+        this.candidateRange = candidateRange;
+        this.componentRows = componentRows;
+        this.predicates = conditions.stream().map(condition -> condition.predicate).toArray(IntPredicate[]::new);
+        this.chunkFilters = conditions
+                .stream()
+                .filter(condition -> condition.chunkFilter != null)
+                .map(condition -> condition.chunkFilter)
+                .toArray(ChunkFilter[]::new);
+        this.rowPredicates = conditions
+                .stream()
+                .filter(condition -> condition.chunkFilter == null)
+                .map(condition -> condition.predicate)
+                .toArray(IntPredicate[]::new);
+    }
+
+    /**
+     * Method chooses the cheapest way of executing query with given indexes.
+     * @param query query with valid bounds.
+     * @param cars store with cars.
+     * @param sortIndex sort permutations of store.
+     * @param rangeIndex price and mileage index of store.
+     * @param componentIndex gives component index of store, it is used only when query requires components.
+     * @return plan ready to be executed once.
+     */
+    public static CarQueryPlan compile(CarQuery query, CarColumnStore cars, CarSortIndex sortIndex,
+                                       CarRangeIndex rangeIndex, Supplier<CarComponentIndex> componentIndex) {
+        return compile(query, cars, sortIndex, rangeIndex, componentIndex, null);
+    }
+
+    /**
+     * Method chooses the cheapest way of executing query which continues after given position.
+     * @param after position of the last car of previous page, or null when query starts from the first car.
+     * @return plan ready to be executed once.
+     */
+    public static CarQueryPlan compile(CarQuery query, CarColumnStore cars, CarSortIndex sortIndex,
+                                       CarRangeIndex rangeIndex, Supplier<CarComponentIndex> componentIndex,
+                                       CarKeyset after) {
+
+        var sortBy = query.getSortBy();
+        boolean backwards = sortBy != null && query.isDescending();
+        var conditions = new ArrayList<Condition>();
+        boolean empty = false;
+        int[] priceRange = null;
+        int[] mileageRange = null;
+        BitSet componentRows = null;
+
+        if (!query.getModels().isEmpty()) {
+            var allowedModels = new boolean[cars.modelCount()];
+            int known = 0;
+            for (var model : query.getModels()) {
+                int modelId = cars.modelId(model);
+                if (modelId >= 0 && !allowedModels[modelId]) {
+                    allowedModels[modelId] = true;
+                    known++;
+                }
+            }
+            empty = known == 0;
+            conditions.add(new Condition(null, (double) known / Math.max(1, cars.modelCount()),
+                    row -> allowedModels[cars.modelId(row)]));
+        }
+
+        if (!query.getColors().isEmpty()) {
+            var allowedColors = new boolean[Color.values().length];
+            query.getColors().forEach(color -> allowedColors[color.ordinal()] = true);
+            conditions.add(new Condition(null, (double) query.getColors().size() / allowedColors.length,
+                    row -> allowedColors[cars.colorOrdinal(row)]));
+        }
+
+        boolean afterPrice = after != null && sortBy == SortingType.PRICE;
+        if (query.getMinPrice() != null || query.getMaxPrice() != null || afterPrice) {
+            long minPrice = query.getMinPrice() == null ? Long.MIN_VALUE : belowCeil(query.getMinPrice());
+            long maxPrice = query.getMaxPrice() == null ? Long.MAX_VALUE : CarColumnStore.toFixedPointFloor(query.getMaxPrice());
+            // cars with price of position are kept, position itself is checked by condition of keyset
+            long lowerBound = afterPrice && !backwards && after.getValue() != Long.MIN_VALUE
+                    ? Math.max(minPrice, after.getValue() - 1) : minPrice;
+            long upperBound = afterPrice && backwards ? Math.min(maxPrice, after.getValue()) : maxPrice;
+            priceRange = rangeIndex.priceRange(lowerBound, upperBound);
+            empty |= priceRange[1] <= priceRange[0];
+            conditions.add(new Condition(AccessPath.PRICE_RANGE, selectivity(priceRange[1] - priceRange[0], cars), row -> {
+                long price = cars.price(row);
+                return price > lowerBound && price <= upperBound;
+            }, (kernels, from, to, selection) -> cars.retainPriceRange(kernels, from, to, lowerBound, upperBound,
+                    selection)));
+        }
+
+        if (query.getMinMileage() != null || query.getMaxMileage() != null) {
+            double minMileage = query.getMinMileage() == null ? Double.NEGATIVE_INFINITY : Math.nextDown(query.getMinMileage());
+            double maxMileage = query.getMaxMileage() == null ? Double.POSITIVE_INFINITY : query.getMaxMileage();
+            // range is narrowed only when query has it, so cars without mileage are never left out by position
+            double position = after != null && sortBy == SortingType.MILEAGE
+                    ? Double.longBitsToDouble(after.getValue()) : Double.NaN;
+            double lowerBound = !Double.isNaN(position) && !backwards
+                    ? Math.max(minMileage, Math.nextDown(position)) : minMileage;
+            double upperBound = !Double.isNaN(position) && backwards ? Math.min(maxMileage, position) : maxMileage;
+            mileageRange = rangeIndex.mileageRange(lowerBound, upperBound);
+            empty |= mileageRange[1] <= mileageRange[0];
+            conditions.add(new Condition(AccessPath.MILEAGE_RANGE, selectivity(mileageRange[1] - mileageRange[0], cars), row -> {
+                double mileage = cars.mileage(row);
+                return mileage > lowerBound && mileage <= upperBound;
+            }, (kernels, from, to, selection) -> cars.retainMileageRange(kernels, from, to, lowerBound, upperBound,
+                    selection)));
+        }
+
+        double rangeSelectivity = conditions
+                .stream()
+                .filter(condition -> condition.accessPath != null)
+                .mapToDouble(condition -> condition.selectivity)
+                .min()
+                .orElse(1);
+
+        if (!query.getComponents().isEmpty() && rangeSelectivity <= COMPONENTS_CHECKED_ON_ROWS) {
+            var componentIds = new int[query.getComponents().size()];
+            int position = 0;
+            for (var component : query.getComponents()) {
+                componentIds[position] = cars.componentId(component);
+                empty |= componentIds[position++] < 0;
+            }
+            conditions.add(new Condition(null, 1, row -> {
+                for (int componentId : componentIds) {
+                    if (!cars.hasComponent(row, componentId)) {
+                        return false;
+                    }
+                }
+                return true;
+            }));
+        } else if (!query.getComponents().isEmpty()) {
+            var rows = componentIndex.get().carsWithAll(query.getComponents());
+            componentRows = rows;
+            empty |= rows.isEmpty();
+            conditions.add(new Condition(AccessPath.COMPONENTS, selectivity(rows.cardinality(), cars), rows::get));
+        }
+
+        if (after != null) {
+            conditions.add(new Condition(null, 1, backwards
+                    ? row -> after.compareTo(cars, sortBy, row) < 0
+                    : row -> after.compareTo(cars, sortBy, row) > 0));
+        }
+
+        if (empty || cars.size() == 0) {
+            return new CarQueryPlan(cars, sortIndex, query, after, AccessPath.NONE, null, null, List.of());
+        }
+
+        var accessPath = chooseAccessPath(query, cars, conditions);
+        var checked = conditions
+                .stream()
+                .filter(condition -> condition.accessPath != accessPath)
+                .sorted(Comparator.comparingDouble(condition -> condition.selectivity))
+                .collect(Collectors.toList());
+        var candidateRange = accessPath == AccessPath.PRICE_RANGE ? priceRange
+                : accessPath == AccessPath.MILEAGE_RANGE ? mileageRange : null;
+
+        return new CarQueryPlan(cars, sortIndex, query, after, accessPath, candidateRange, componentRows, checked);
+    }
+
+    /**
+     * Cost is estimated as amount of rows read plus cost of sorting matching rows when they are not read in
+     * requested order, conditions are treated as independent. Range of the field cars are sorted by is read in
+     * requested order, so sort permutation is walked only when there is no such range.
+     */
+    private static AccessPath chooseAccessPath(CarQuery query, CarColumnStore cars, List<Condition> conditions) {
+
+        int size = cars.size();
+        double selectivity = 1;
+        for (var condition : conditions) {
+            selectivity *= condition.selectivity;
+        }
+        double matches = size * selectivity;
+        var sortBy = query.getSortBy();
+
+        var accessPath = AccessPath.FULL_SCAN;
+        double cost = size + (sortBy == null ? 0 : sortCost(matches));
+        double needed = (double) query.getOffset() + query.getLimit();
+        boolean sortedByRange = false;
+
+        for (var condition : conditions) {
+            if (condition.accessPath == null) {
+                continue;
+            }
+            double candidates = size * condition.selectivity;
+            double pathCost;
+            if (sortBy == null) {
+                pathCost = candidates + (condition.accessPath == AccessPath.COMPONENTS ? 0 : sortCost(candidates));
+            } else if (sortBy == orderOf(condition.accessPath)) {
+                sortedByRange = true;
+                double otherSelectivity = selectivity / Math.max(condition.selectivity, 1.0 / size);
+                pathCost = Math.min(candidates, needed / Math.max(otherSelectivity, 1.0 / size));
+            } else {
+                pathCost = candidates + sortCost(candidates) + sortCost(matches);
+            }
+            if (pathCost <= cost) {
+                accessPath = condition.accessPath;
+                cost = pathCost;
+            }
+        }
+
+        if (sortBy != null && !sortedByRange) {
+            double walkCost = Math.min(size, needed / Math.max(selectivity, 1.0 / size));
+            if (walkCost < cost) {
+                accessPath = AccessPath.SORTED_WALK;
+            }
+        }
+
+        return accessPath;
+    }
+
+    /**
+     * Method runs plan.
+     * @param scan runs full scans of store.
+     * @return page of matching cars in requested order with requested fields.
+     */
+    public List<Car> execute(CarScan scan) {
+
+        var rows = rows(scan, true);
+        var page = new ArrayList<Car>();
+        while (rows.hasNext()) {
+            page.add(cars.car(rows.nextInt(), query.getFields()));
+        }
+
+        return page;
+    }
+
+    /**
+     * Method runs plan lazily, candidates are checked only when next car is requested. When candidates don't come
+     * in requested order, all matching rows are found and sorted before the first car, but cars are still created
+     * one by one.
+     * @param scan runs full scans and sorting of matching rows.
+     * @return iterator over page of matching cars in requested order with requested fields.
+     */
+    public Iterator<Car> iterator(CarScan scan) {
+
+        var rows = rows(scan, false);
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return rows.hasNext();
+            }
+
+            @Override
+            public Car next() {
+                lastRow = rows.nextInt();
+                return cars.car(lastRow, query.getFields());
+            }
+        };
+    }
+
+    /**
+     * @return position of the last car returned by iterator, or null when no car was returned.
+     */
+    public CarKeyset lastPosition() {
+        return lastRow < 0 ? null : CarKeyset.of(cars, query.getSortBy(), lastRow);
+    }
+
+    public AccessPath accessPath() {
+        return accessPath;
+    }
+
+    /**
+     * @return amount of rows checked by last execution.
+     */
+    public long rowsExamined() {
+        return rowsExamined;
+    }
+
+    /**
+     * @param scan runs full scans of store.
+     * @param scanAllAtOnce true when full scan without order may check all rows before the first row is returned.
+     * @return rows of requested page in requested order.
+     */
+    private PrimitiveIterator.OfInt rows(CarScan scan, boolean scanAllAtOnce) {
+
+        if (accessPath == AccessPath.NONE || query.getLimit() == 0) {
+            return new PageRows(() -> -1, false);
+        }
+
+        long needed = (long) query.getOffset() + query.getLimit();
+        var sortBy = query.getSortBy();
+
+        switch (accessPath) {
+            case FULL_SCAN:
+                if (sortBy == null && (!scanAllAtOnce || needed < cars.size())) {
+                    return new PageRows(walkFromPosition(null, 0, cars.size()), true);
+                }
+                return sorted(scanAll(scan).toArray(), scan);
+            case SORTED_WALK:
+                return new PageRows(walkFromPosition(sortIndex.rows(sortBy), 0, cars.size()), true);
+            case PRICE_RANGE:
+            case MILEAGE_RANGE:
+                var permutation = sortIndex.rows(orderOf(accessPath));
+                if (sortBy == orderOf(accessPath)) {
+                    return new PageRows(walkFromPosition(permutation, candidateRange[0], candidateRange[1]), true);
+                }
+                var candidates = permutation.rowsInRowOrder(candidateRange[0], candidateRange[1], cars.size());
+                if (sortBy == null) {
+                    return new PageRows(walk(candidates, 0, candidates.length, false), true);
+                }
+                return sorted(collectAll(walk(candidates, 0, candidates.length, false)), scan);
+            case COMPONENTS:
+                var components = new IntSupplier() {
+                    private int row = -1;
+                    private boolean done;
+
+                    @Override
+                    public int getAsInt() {
+                        if (!done) {
+                            row = componentRows.nextSetBit(row + 1);
+                            done = row < 0;
+                        }
+                        return row;
+                    }
+                };
+                if (sortBy == null) {
+                    return new PageRows(components, true);
+                }
+                return sorted(collectAll(components), scan);
+            default:
+                throw new IllegalStateException("Unknown access path " + accessPath);
+        }
+    }
+
+    /**
+     * @return supplier of candidate rows read from range of given rows, or range of store rows when rows are null,
+     * it gives -1 after the last candidate.
+     */
+    private static IntSupplier walk(int[] rows, int from, int to, boolean backwards) {
+        return new IntSupplier() {
+            private int i;
+
+            @Override
+            public int getAsInt() {
+                if (i >= to - from) {
+                    return -1;
+                }
+                int position = backwards ? to - 1 - i++ : from + i++;
+                return rows == null ? position : rows[position];
+            }
+        };
+    }
+
+    /**
+     * Walk in requested order over range of permutation in ascending order of sorted value and id, or of store rows
+     * when permutation is null. Part of range before position of previous page is skipped with binary search.
+     */
+    private IntSupplier walkFromPosition(CarPermutation rows, int from, int to) {
+
+        boolean backwards = query.getSortBy() != null && query.isDescending();
+        if (after != null) {
+            var sortBy = query.getSortBy();
+            if (backwards) {
+                to = firstPosition(rows, from, to, row -> after.compareTo(cars, sortBy, row) >= 0);
+            } else {
+                from = firstPosition(rows, from, to, row -> after.compareTo(cars, sortBy, row) > 0);
+            }
+        }
+
+        return rows == null ? walk(null, from, to, backwards) : rows.walk(from, to, backwards);
+    }
+
+    /**
+     * @return the first position of range where predicate holds, it holds for all following positions too.
+     */
+    private static int firstPosition(CarPermutation rows, int from, int to, IntPredicate predicate) {
+        if (rows != null) {
+            return rows.firstPosition(from, to, predicate);
+        }
+        while (from < to) {
+            int middle = (from + to) >>> 1;
+            if (predicate.test(middle)) {
+                to = middle;
+            } else {
+                from = middle + 1;
+            }
+        }
+        return from;
+    }
+
+    private int[] collectAll(IntSupplier candidates) {
+        var matches = new IntArrayList();
+        var caller = Thread.currentThread();
+        for (int row = candidates.getAsInt(); row >= 0; row = candidates.getAsInt()) {
+            if ((++rowsExamined & (INTERRUPTION_CHECK_ROWS - 1)) == 0) {
+                checkInterrupted(caller);
+            }
+            if (matches(row)) {
+                matches.add(row);
+            }
+        }
+        return matches.toArray();
+    }
+
+    private PageRows sorted(int[] rows, CarScan scan) {
+        if (query.getSortBy() != null) {
+            scan.sort(rows, rows.length, cars.comparing(query.getSortBy()));
+            checkInterrupted(Thread.currentThread());
+            if (query.isDescending()) {
+                reverse(rows);
+            }
+        }
+        return new PageRows(walk(rows, 0, rows.length, false), false);
+    }
+
+    private IntArrayList scanAll(CarScan scan) {
+        var caller = Thread.currentThread();
+        var matches = scanChunks(scan, caller);
+        checkInterrupted(caller);
+        return matches;
+    }
+
+    private IntArrayList scanChunks(CarScan scan, Thread caller) {
+        rowsExamined += cars.size();
+        if (chunkFilters.length == 0) {
+            return scan.reduce(cars.size(), (from, to) -> {
+                checkInterrupted(caller);
+                var chunkMatches = new IntArrayList();
+                for (int row = from; row < to; row++) {
+                    if (matches(row)) {
+                        chunkMatches.add(row);
+                    }
+                }
+                return chunkMatches;
+            }, (left, right) -> {
+                left.addAll(right);
+                return left;
+            });
+        }
+
+        var kernels = ColumnKernels.get();
+        return scan.reduce(cars.size(), (from, to) -> {
+            checkInterrupted(caller);
+            var selection = ColumnKernels.selectAll(to - from);
+            for (var filter : chunkFilters) {
+                filter.retain(kernels, from, to, selection);
+            }
+            var chunkMatches = new IntArrayList();
+            for (int word = 0; word < selection.length; word++) {
+                for (long bits = selection[word]; bits != 0; bits &= bits - 1) {
+                    int row = from + word * Long.SIZE + Long.numberOfTrailingZeros(bits);
+                    if (matchesRow(row)) {
+                        chunkMatches.add(row);
+                    }
+                }
+            }
+            return chunkMatches;
+        }, (left, right) -> {
+            left.addAll(right);
+            return left;
+        });
+    }
+
+    private boolean matches(int row) {
+        for (var predicate : predicates) {
+            if (!predicate.test(row)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return true when row left in selection of range filters matches other conditions.
+     */
+    private boolean matchesRow(int row) {
+        for (var predicate : rowPredicates) {
+            if (!predicate.test(row)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Chunks of sequential scan check interruption of thread which runs plan. Pool hides interruption of thread
+     * waiting for parallel scan until all chunks end, so parallel scan is checked when it finishes.
+     */
+    private static void checkInterrupted(Thread caller) {
+        if (caller.isInterrupted()) {
+            throw new CancellationException("Query was interrupted");
+        }
+    }
+
+    /**
+     * Ascending stable order read backwards, the same as order of {@link CarRowList#reversed()}.
+     */
+    private static void reverse(int[] rows) {
+        for (int left = 0, right = rows.length - 1; left < right; left++, right--) {
+            int row = rows[left];
+            rows[left] = rows[right];
+            rows[right] = row;
+        }
+    }
+
+    private static SortingType orderOf(AccessPath accessPath) {
+        return accessPath == AccessPath.PRICE_RANGE ? SortingType.PRICE
+                : accessPath == AccessPath.MILEAGE_RANGE ? SortingType.MILEAGE : null;
+    }
+
+    /**
+     * Inclusive lower bound of price is changed to exclusive bound of range index.
+     */
+    private static long belowCeil(BigDecimal price) {
+        long ceil = CarColumnStore.toFixedPointCeil(price);
+        return ceil == Long.MIN_VALUE ? ceil : ceil - 1;
+    }
+
+    private static double selectivity(int matches, CarColumnStore cars) {
+        return cars.size() == 0 ? 0 : (double) matches / cars.size();
+    }
+
+    private static double sortCost(double rows) {
+        return rows < 2 ? 0 : rows * (Math.log(rows) / Math.log(2));
+    }
+
+    /**
+     * Rows of requested page taken from candidates, candidates are checked with conditions when they aren't
+     * matching rows already.
+     */
+    private class PageRows implements PrimitiveIterator.OfInt {
+
+        private final IntSupplier candidates;
+        private final boolean check;
+        private int skipped;
+        private int returned;
+        private int next = -2;
+
+        private PageRows(IntSupplier candidates, boolean check) {
+            this.candidates = candidates;
+            this.check = check;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == -2) {
+                next = advance();
+            }
+            return next >= 0;
+        }
+
+        @Override
+        public int nextInt() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int row = next;
+            next = -2;
+            returned++;
+            return row;
+        }
+
+        private int advance() {
+            if (returned >= query.getLimit()) {
+                return -1;
+            }
+            for (int row = candidates.getAsInt(); row >= 0; row = candidates.getAsInt()) {
+                if (check) {
+                    if ((++rowsExamined & (INTERRUPTION_CHECK_ROWS - 1)) == 0) {
+                        checkInterrupted(Thread.currentThread());
+                    }
+                    if (!matches(row)) {
+                        continue;
+                    }
+                }
+                if (skipped < query.getOffset()) {
+                    skipped++;
+                    continue;
+                }
+                return row;
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Check of condition on chunk of rows, it clears bits of rows which don't match condition.
+     */
+    @FunctionalInterface
+    private interface ChunkFilter {
+        void retain(ColumnKernels kernels, int from, int to, long[] selection);
+    }
+
+    private static class Condition {
+
+        private final AccessPath accessPath;
+        private final double selectivity;
+        private final IntPredicate predicate;
+        private final ChunkFilter chunkFilter;
+
+        private Condition(AccessPath accessPath, double selectivity, IntPredicate predicate) {
+            this(accessPath, selectivity, predicate, null);
+        }
+
+        private Condition(AccessPath accessPath, double selectivity, IntPredicate predicate, ChunkFilter chunkFilter) {
+            this.accessPath = accessPath;
+            this.selectivity = selectivity;
+            this.predicate = predicate;
+            this.chunkFilter = chunkFilter;
+        }
+    }
+}
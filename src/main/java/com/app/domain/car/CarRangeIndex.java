@@ -0,0 +1,62 @@
+package com.app.domain.car;
+
+import com.app.domain.car.type.SortingType;
+
+/**
+ * Secondary indexes on price and mileage. Ranges of matching cars are found with binary search of price and
+ * mileage permutations from {@link CarSortIndex} reading values from store, so length of range is the number of
+ * matching cars. Index keeps nothing but permutations, which are patched for next versions of store, so its first
+ * range query costs the same as every other one.
+ */
+public class CarRangeIndex {
+
+    private final CarColumnStore cars;
+    private final CarSortIndex sortIndex;
+
+    public CarRangeIndex(CarColumnStore cars, CarSortIndex sortIndex) {
+        this.cars = cars;
+        this.sortIndex = sortIndex;
+    }
+
+    /**
+     * @return range of positions in price permutation with price higher than lowerBound and not higher than
+     * upperBound, as two element array of inclusive start and exclusive end.
+     */
+    public int[] priceRange(long lowerBound, long upperBound) {
+        var prices = sortIndex.rows(SortingType.PRICE);
+        return new int[]{
+                prices.firstPosition(0, prices.size(), row -> cars.price(row) > lowerBound),
+                prices.firstPosition(0, prices.size(), row -> cars.price(row) > upperBound)};
+    }
+
+    /**
+     * @return range of positions in mileage permutation with mileage higher than given one.
+     */
+    public int[] mileageRange(double mileage) {
+        return mileageRange(mileage, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Mileages are sorted with {@link Double#compare}, so NaN mileages are at the end and are never greater
+     * than infinity.
+     * @return range of positions in mileage permutation with mileage higher than lowerBound and not higher than
+     * upperBound.
+     */
+    public int[] mileageRange(double lowerBound, double upperBound) {
+        var mileages = sortIndex.rows(SortingType.MILEAGE);
+        return new int[]{
+                mileages.firstPosition(0, mileages.size(), row -> Double.compare(cars.mileage(row), lowerBound) > 0),
+                mileages.firstPosition(0, mileages.size(), row -> Double.compare(cars.mileage(row), upperBound) > 0)};
+    }
+
+    /**
+     * @return row indexes of cars from given positions of price permutation in their original order.
+     */
+    public int[] rowsInPriceRange(int[] range) {
+        return sortIndex.rows(SortingType.PRICE).rowsInRowOrder(range[0], range[1], cars.size());
+    }
+
+    public int[] rowsInMileageRange(int[] range) {
+        return sortIndex.rows(SortingType.MILEAGE).rowsInRowOrder(range[0], range[1], cars.size());
+    }
+}
@@ -0,0 +1,78 @@
+package com.app.domain.car;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * Read only list of cars over range of row indexes or of sorted permutation. Cars are created from store only when
+ * they are accessed, reversed list reads the same indexes from the end so it doesn't copy anything. List without row
+ * indexes reads rows of store in their order.
+ */
+public class CarRowList extends AbstractList<Car> implements RandomAccess {
+
+    private final CarColumnStore cars;
+    private final int[] rows;
+    private final CarPermutation permutation;
+    private final int from;
+    private final int to;
+    private final boolean reversed;
+
+    public CarRowList(CarColumnStore cars, int[] rows, int from, int to, boolean reversed) {
+        this(cars, rows, null, from, to, reversed);
+    }
+
+    private CarRowList(CarColumnStore cars, int[] rows, CarPermutation permutation, int from, int to,
+                       boolean reversed) {
+        this.cars = cars;
+        this.rows = rows;
+        this.permutation = permutation;
+        this.from = from;
+        this.to = to;
+        this.reversed = reversed;
+    }
+
+    /**
+     * @return view of all cars in order of given permutation.
+     */
+    static CarRowList of(CarColumnStore cars, CarPermutation permutation, boolean reversed) {
+        return new CarRowList(cars, null, permutation, 0, permutation.size(), reversed);
+    }
+
+    @Override
+    public Car get(int index) {
+        return cars.car(row(index));
+    }
+
+    /**
+     * @return row index in store of car at given position of this list.
+     */
+    public int row(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size());
+        }
+        int position = reversed ? to - 1 - index : from + index;
+        if (permutation != null) {
+            return permutation.row(position);
+        }
+        return rows == null ? position : rows[position];
+    }
+
+    @Override
+    public int size() {
+        return to - from;
+    }
+
+    @Override
+    public CarRowList subList(int fromIndex, int toIndex) {
+        if (fromIndex < 0 || toIndex > size() || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException("From: " + fromIndex + ", to: " + toIndex + ", size: " + size());
+        }
+        return reversed
+                ? new CarRowList(cars, rows, permutation, to - toIndex, to - fromIndex, true)
+                : new CarRowList(cars, rows, permutation, from + fromIndex, from + toIndex, false);
+    }
+
+    public CarRowList reversed() {
+        return new CarRowList(cars, rows, permutation, from, to, !reversed);
+    }
+}
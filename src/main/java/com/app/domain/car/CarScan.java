@@ -0,0 +1,208 @@
+package com.app.domain.car;
+
+import com.app.domain.car.type.ExecutionMode;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BinaryOperator;
+
+/**
+ * Runs scans of store rows split into chunks of fixed size, sequentially or on dedicated fork-join pool. In both
+ * modes chunks have the same bounds and their partial results are merged from left to right, so results are
+ * exactly the same, even for floating point sums.
+ */
+public class CarScan {
+
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 14;
+
+    public static final CarScan SEQUENTIAL = new CarScan(null, DEFAULT_CHUNK_SIZE);
+
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+
+    private CarScan(ForkJoinPool pool, int chunkSize) {
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * @return sequential scan or parallel scan on shared pool with one thread for every processor.
+     */
+    public static CarScan of(ExecutionMode mode) {
+        return mode == ExecutionMode.PARALLEL ? parallel(SharedPool.INSTANCE, DEFAULT_CHUNK_SIZE) : SEQUENTIAL;
+    }
+
+    public static CarScan parallel(ForkJoinPool pool, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        return new CarScan(pool, chunkSize);
+    }
+
+    public boolean isParallel() {
+        return pool != null;
+    }
+
+    /**
+     * Method applies function to chunks of rows from 0 to size and merges their results.
+     * @param size amount of rows to scan.
+     * @param function counts partial result for rows from inclusive start to exclusive end.
+     * @param merge merges result of left rows with result of next chunk.
+     * @return merged result of all chunks.
+     */
+    public <R> R reduce(int size, RangeFunction<R> function, BinaryOperator<R> merge) {
+
+        int chunks = Math.max(1, (int) (((long) size + chunkSize - 1) / chunkSize));
+        if (chunks == 1) {
+            return function.apply(0, size);
+        }
+
+        var partials = new Object[chunks];
+        if (pool == null) {
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                partials[chunk] = applyToChunk(chunk, size, function);
+            }
+        } else {
+            pool.invoke(new ChunksTask<>(0, chunks, size, function, partials));
+        }
+
+        @SuppressWarnings("unchecked")
+        var result = (R) partials[0];
+        for (int chunk = 1; chunk < chunks; chunk++) {
+            @SuppressWarnings("unchecked")
+            var partial = (R) partials[chunk];
+            result = merge.apply(result, partial);
+        }
+
+        return result;
+    }
+
+    /**
+     * Method runs action for every chunk of rows from 0 to size, chunks may run at the same time so action can
+     * only write to its own rows.
+     */
+    public void forEachChunk(int size, RangeAction action) {
+        reduce(size, (from, to) -> {
+            action.accept(from, to);
+            return null;
+        }, (left, right) -> null);
+    }
+
+    private <R> R applyToChunk(int chunk, int size, RangeFunction<R> function) {
+        int from = chunk * chunkSize;
+        return function.apply(from, Math.min(size, from + chunkSize));
+    }
+
+    /**
+     * Method sorts first length rows, sorting is stable. Chunks are sorted in parallel and merged.
+     */
+    public void sort(int[] rows, int length, CarColumnStore.RowComparator comparator) {
+
+        if (pool == null || length <= chunkSize) {
+            CarColumnStore.sortRows(rows, length, comparator);
+            return;
+        }
+
+        pool.invoke(new SortTask(rows, new int[length], 0, length, comparator));
+    }
+
+    @FunctionalInterface
+    public interface RangeFunction<R> {
+        R apply(int from, int to);
+    }
+
+    @FunctionalInterface
+    public interface RangeAction {
+        void accept(int from, int to);
+    }
+
+    private class ChunksTask<R> extends RecursiveAction {
+
+        private final int fromChunk;
+        private final int toChunk;
+        private final int size;
+        private final RangeFunction<R> function;
+        private final Object[] partials;
+
+        private ChunksTask(int fromChunk, int toChunk, int size, RangeFunction<R> function, Object[] partials) {
+            this.fromChunk = fromChunk;
+            this.toChunk = toChunk;
+            this.size = size;
+            this.function = function;
+            this.partials = partials;
+        }
+
+        @Override
+        protected void compute() {
+
+            if (toChunk - fromChunk == 1) {
+                partials[fromChunk] = applyToChunk(fromChunk, size, function);
+                return;
+            }
+
+            int middle = (fromChunk + toChunk) >>> 1;
+            invokeAll(new ChunksTask<>(fromChunk, middle, size, function, partials),
+                    new ChunksTask<>(middle, toChunk, size, function, partials));
+        }
+    }
+
+    private class SortTask extends RecursiveAction {
+
+        private final int[] rows;
+        private final int[] buffer;
+        private final int from;
+        private final int to;
+        private final CarColumnStore.RowComparator comparator;
+
+        private SortTask(int[] rows, int[] buffer, int from, int to, CarColumnStore.RowComparator comparator) {
+            this.rows = rows;
+            this.buffer = buffer;
+            this.from = from;
+            this.to = to;
+            this.comparator = comparator;
+        }
+
+        @Override
+        protected void compute() {
+
+            if (to - from <= chunkSize) {
+                var chunk = Arrays.copyOfRange(rows, from, to);
+                CarColumnStore.sortRows(chunk, chunk.length, comparator);
+                System.arraycopy(chunk, 0, rows, from, chunk.length);
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(new SortTask(rows, buffer, from, middle, comparator), new SortTask(rows, buffer, middle, to, comparator));
+
+            int left = from;
+            int right = middle;
+            for (int i = from; i < to; i++) {
+                if (right >= to || (left < middle && comparator.compare(rows[left], rows[right]) <= 0)) {
+                    buffer[i] = rows[left++];
+                } else {
+                    buffer[i] = rows[right++];
+                }
+            }
+            System.arraycopy(buffer, from, rows, from, to - from);
+        }
+    }
+
+    private static final class SharedPool {
+
+        private static final ForkJoinPool INSTANCE = new ForkJoinPool(
+                Runtime.getRuntime().availableProcessors(),
+                pool -> {
+                    var thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                    thread.setName("cars-scan-" + thread.getPoolIndex());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                null,
+                false);
+
+        private SharedPool() {
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.app.domain.car;
+
+import com.app.domain.car.sketch.HeavyHitters;
+import com.app.domain.car.sketch.HyperLogLog;
+import com.app.domain.car.sketch.SketchSettings;
+
+import java.util.Collection;
+import java.util.Objects;
+
+/**
+ * Sketches of models and components maintained while cars are loaded, added and removed, every change costs the same
+ * however many cars there are. Class is not thread safe, it is meant to be changed only by writer and read through
+ * immutable {@link #snapshot()}.
+ */
+public class CarSketcher {
+
+    private final HyperLogLog models;
+    private final HyperLogLog components;
+    private final HeavyHitters modelFrequencies;
+    private final HeavyHitters componentFrequencies;
+    private long count;
+
+    public CarSketcher() {
+        this(SketchSettings.DEFAULT);
+    }
+
+    public CarSketcher(SketchSettings settings) {
+        this.models = settings.distinctValues();
+        this.components = settings.distinctValues();
+        this.modelFrequencies = settings.frequentValues();
+        this.componentFrequencies = settings.frequentValues();
+    }
+
+    /**
+     * @return sketcher with all cars from given store.
+     */
+    public static CarSketcher of(CarColumnStore cars) {
+        return of(cars, SketchSettings.DEFAULT);
+    }
+
+    /**
+     * Method counts cars of every model and component id in one scan of store and adds every name once with its
+     * amount of cars.
+     * @return sketcher with all cars from given store.
+     */
+    public static CarSketcher of(CarColumnStore cars, SketchSettings settings) {
+
+        var modelCounts = new long[cars.modelCount()];
+        var componentCounts = new long[cars.componentCount()];
+        for (int row = 0; row < cars.size(); row++) {
+            modelCounts[cars.modelId(row)]++;
+            for (int position = cars.componentsStart(row); position < cars.componentsEnd(row); position++) {
+                componentCounts[cars.componentAt(row, position)]++;
+            }
+        }
+
+        var sketcher = new CarSketcher(settings);
+        sketcher.count = cars.size();
+        for (int model = 0; model < modelCounts.length; model++) {
+            if (modelCounts[model] > 0) {
+                sketcher.models.add(cars.modelName(model));
+                sketcher.modelFrequencies.add(cars.modelName(model), modelCounts[model]);
+            }
+        }
+        for (int component = 0; component < componentCounts.length; component++) {
+            if (componentCounts[component] > 0) {
+                sketcher.components.add(cars.componentName(component));
+                sketcher.componentFrequencies.add(cars.componentName(component), componentCounts[component]);
+            }
+        }
+
+        return sketcher;
+    }
+
+    public void add(Car car) {
+        add(car.model, car.components);
+    }
+
+    /**
+     * @param components distinct components of car.
+     */
+    public void add(String model, Collection<String> components) {
+        count++;
+        models.add(model);
+        modelFrequencies.add(model, 1);
+        if (Objects.nonNull(components)) {
+            components.forEach(component -> {
+                this.components.add(component);
+                componentFrequencies.add(component, 1);
+            });
+        }
+    }
+
+    /**
+     * Method removes car from amounts of cars, given values must be the same as values car was added with.
+     */
+    public void remove(String model, Collection<String> components) {
+        count--;
+        modelFrequencies.add(model, -1);
+        if (Objects.nonNull(components)) {
+            components.forEach(component -> componentFrequencies.add(component, -1));
+        }
+    }
+
+    public CarSketches snapshot() {
+        return new CarSketches(count, models.copy(), components.copy(), modelFrequencies.copy(),
+                componentFrequencies.copy());
+    }
+}
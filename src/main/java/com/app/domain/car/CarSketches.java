@@ -0,0 +1,153 @@
+package com.app.domain.car;
+
+import com.app.domain.car.sketch.HeavyHitters;
+import com.app.domain.car.sketch.HyperLogLog;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+
+/**
+ * Immutable sketches of one version of cars answering approximate analytics in time independent of amount of cars:
+ * amount of distinct models and components, estimated amount of cars with given model or component and the most
+ * frequent models and components. Sketches are taken from {@link CarSketcher} maintained while cars are loaded or
+ * changed. Sketches of separate partitions of cars merged together answer the same as sketches of all cars, and they
+ * can be sent between processes as bytes.
+ */
+public class CarSketches {
+
+    private static final int FORMAT_VERSION = 1;
+
+    private final long count;
+    private final HyperLogLog models;
+    private final HyperLogLog components;
+    private final HeavyHitters modelFrequencies;
+    private final HeavyHitters componentFrequencies;
+    private final long distinctModels;
+    private final long distinctComponents;
+
+    CarSketches(long count, HyperLogLog models, HyperLogLog components, HeavyHitters modelFrequencies,
+                HeavyHitters componentFrequencies) {
+        this.count = count;
+        this.models = models;
+        this.components = components;
+        this.modelFrequencies = modelFrequencies;
+        this.componentFrequencies = componentFrequencies;
+        this.distinctModels = models.estimate();
+        this.distinctComponents = components.estimate();
+    }
+
+    /**
+     * @return exact amount of cars.
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Removed cars are counted until sketches are built again from store, distinct values can't be removed.
+     * @return estimated amount of distinct models.
+     */
+    public long distinctModels() {
+        return distinctModels;
+    }
+
+    /**
+     * @return estimated amount of distinct components.
+     */
+    public long distinctComponents() {
+        return distinctComponents;
+    }
+
+    /**
+     * @return estimated amount of cars with given model, never lower than exact amount.
+     */
+    public long carsWithModel(String model) {
+        return modelFrequencies.estimate(model);
+    }
+
+    /**
+     * @return estimated amount of cars with given component, never lower than exact amount.
+     */
+    public long carsWithComponent(String component) {
+        return componentFrequencies.estimate(component);
+    }
+
+    /**
+     * @param amount amount of models, at most amount of heavy hitters of settings.
+     * @return the most frequent models with estimated amount of cars from the most frequent one.
+     */
+    public Map<String, Long> topModels(int amount) {
+        return modelFrequencies.top(amount);
+    }
+
+    /**
+     * @param amount amount of components, at most amount of heavy hitters of settings.
+     * @return the most frequent components with estimated amount of cars from the most frequent one.
+     */
+    public Map<String, Long> topComponents(int amount) {
+        return componentFrequencies.top(amount);
+    }
+
+    /**
+     * @param other sketches of other cars built with the same settings.
+     * @return new sketches of cars of both sketches or IllegalArgumentException when settings are different.
+     */
+    public CarSketches merge(CarSketches other) {
+        return new CarSketches(
+                count + other.count,
+                models.copy().merge(other.models),
+                components.copy().merge(other.components),
+                modelFrequencies.copy().merge(other.modelFrequencies),
+                componentFrequencies.copy().merge(other.componentFrequencies));
+    }
+
+    public byte[] toBytes() {
+
+        var bytes = new ByteArrayOutputStream();
+        try (var output = new DataOutputStream(bytes)) {
+            output.writeInt(FORMAT_VERSION);
+            output.writeLong(count);
+            models.writeTo(output);
+            components.writeTo(output);
+            modelFrequencies.writeTo(output);
+            componentFrequencies.writeTo(output);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @param bytes sketches written by {@link #toBytes()}.
+     * @return read sketches or IllegalArgumentException when bytes are not valid sketches.
+     */
+    public static CarSketches fromBytes(byte[] bytes) {
+
+        try (var input = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            if (input.readInt() != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unknown format of sketches");
+            }
+            var sketches = new CarSketches(
+                    input.readLong(),
+                    HyperLogLog.readFrom(input),
+                    HyperLogLog.readFrom(input),
+                    HeavyHitters.readFrom(input),
+                    HeavyHitters.readFrom(input));
+            if (input.read() != -1) {
+                throw new IllegalArgumentException("Sketches are followed by unknown bytes");
+            }
+            return sketches;
+        } catch (EOFException e) {
+            throw new IllegalArgumentException("Sketches are cut off", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.app.domain.car;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary snapshot of {@link CarColumnStore}. File starts with header and dictionaries of models and components,
+ * after them there are fixed-width columns, every column aligned to 8 bytes:
+ * <pre>
+ * int magic, int format version, int amount of cars, int amount of component ids,
+ * int dictionary size + (int length + UTF-8 bytes) for every model, the same for components,
+ * double mileages, long prices, long car ids, int models, int component offsets, int component ids, byte colors
+ * </pre>
+ * Files in version 1 have no car ids column, their cars get ids equal to rows.
+ * Opened snapshot maps every column read only, so queries read straight from page cache which is shared by all
+ * processes opening the same file.
+ */
+public final class CarSnapshot {
+
+    public static final int MAGIC = 0x43415253;
+    public static final int FORMAT_VERSION = 2;
+
+    private static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+    private CarSnapshot() {
+    }
+
+    /**
+     * Method saves all columns and dictionaries of store to file, existing file is replaced.
+     * @param cars store to save.
+     * @param file path of snapshot file.
+     */
+    public static void save(CarColumnStore cars, Path file) {
+
+        int size = cars.size();
+        long componentsLength = 0;
+        for (int row = 0; row < size; row++) {
+            componentsLength += cars.componentsEnd(row) - cars.componentsStart(row);
+        }
+        if (componentsLength > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Snapshot can't have more than " + Integer.MAX_VALUE + " components");
+        }
+
+        try (var channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            var buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE).order(ORDER);
+            buffer.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(size).putInt((int) componentsLength);
+            writeDictionary(channel, buffer, cars.modelDictionary());
+            writeDictionary(channel, buffer, cars.componentDictionary());
+            align(channel, buffer);
+
+            for (int row = 0; row < size; row++) {
+                ensure(channel, buffer, Double.BYTES).putDouble(cars.mileage(row));
+            }
+            for (int row = 0; row < size; row++) {
+                ensure(channel, buffer, Long.BYTES).putLong(cars.price(row));
+            }
+            for (int row = 0; row < size; row++) {
+                ensure(channel, buffer, Long.BYTES).putLong(cars.id(row));
+            }
+            for (int row = 0; row < size; row++) {
+                ensure(channel, buffer, Integer.BYTES).putInt(cars.modelId(row));
+            }
+            align(channel, buffer);
+            int offset = 0;
+            ensure(channel, buffer, Integer.BYTES).putInt(offset);
+            for (int row = 0; row < size; row++) {
+                offset += cars.componentsEnd(row) - cars.componentsStart(row);
+                ensure(channel, buffer, Integer.BYTES).putInt(offset);
+            }
+            align(channel, buffer);
+            for (int row = 0; row < size; row++) {
+                for (int position = cars.componentsStart(row); position < cars.componentsEnd(row); position++) {
+                    ensure(channel, buffer, Integer.BYTES).putInt(cars.componentAt(row, position));
+                }
+            }
+            align(channel, buffer);
+            for (int row = 0; row < size; row++) {
+                ensure(channel, buffer, Byte.BYTES).put((byte) cars.colorOrdinal(row));
+            }
+
+            flush(channel, buffer);
+            channel.force(true);
+
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't save snapshot to " + file, e);
+        }
+    }
+
+    /**
+     * Method opens snapshot file, only header and dictionaries are read, columns are mapped to memory.
+     * @param file path of snapshot file.
+     * @return store reading columns directly from mapped file or IllegalStateException when file is not snapshot
+     * or has unsupported version.
+     */
+    public static CarColumnStore open(Path file) {
+
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+
+            var header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(channel.size(), Integer.MAX_VALUE))
+                    .order(ORDER);
+
+            if (header.remaining() < 4 * Integer.BYTES || header.getInt() != MAGIC) {
+                throw new IllegalStateException(file + " is not cars snapshot");
+            }
+
+            int version = header.getInt();
+            if (version < 1 || version > FORMAT_VERSION) {
+                throw new IllegalStateException("Unsupported snapshot version " + version);
+            }
+
+            int size = header.getInt();
+            int componentsLength = header.getInt();
+            var modelDictionary = readDictionary(header);
+            var componentDictionary = readDictionary(header);
+
+            long position = aligned(header.position());
+            var mileages = map(channel, position, (long) size * Double.BYTES);
+            position = aligned(position + (long) size * Double.BYTES);
+            var prices = map(channel, position, (long) size * Long.BYTES);
+            position = aligned(position + (long) size * Long.BYTES);
+            ByteBuffer ids = null;
+            if (version >= 2) {
+                ids = map(channel, position, (long) size * Long.BYTES);
+                position = aligned(position + (long) size * Long.BYTES);
+            }
+            var models = map(channel, position, (long) size * Integer.BYTES);
+            position = aligned(position + (long) size * Integer.BYTES);
+            var componentOffsets = map(channel, position, (long) (size + 1) * Integer.BYTES);
+            position = aligned(position + (long) (size + 1) * Integer.BYTES);
+            var components = map(channel, position, (long) componentsLength * Integer.BYTES);
+            position = aligned(position + (long) componentsLength * Integer.BYTES);
+            var colors = map(channel, position, size);
+
+            return new CarColumnStore(new CarColumnStore.Columns(
+                    size,
+                    ids == null ? null : ids.asLongBuffer(),
+                    mileages.asDoubleBuffer(),
+                    prices.asLongBuffer(),
+                    colors,
+                    models.asIntBuffer(),
+                    componentOffsets.asIntBuffer(),
+                    components.asIntBuffer(),
+                    modelDictionary,
+                    componentDictionary));
+
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't open snapshot " + file, e);
+        }
+    }
+
+    private static ByteBuffer map(FileChannel channel, long position, long length) throws IOException {
+        if (position + length > channel.size()) {
+            throw new IllegalStateException("Snapshot file is truncated");
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, length).order(ORDER);
+    }
+
+    private static String[] readDictionary(ByteBuffer header) {
+        var dictionary = new String[header.getInt()];
+        for (int id = 0; id < dictionary.length; id++) {
+            var bytes = new byte[header.getInt()];
+            header.get(bytes);
+            dictionary[id] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return dictionary;
+    }
+
+    private static void writeDictionary(FileChannel channel, ByteBuffer buffer, String[] dictionary) throws IOException {
+        ensure(channel, buffer, Integer.BYTES).putInt(dictionary.length);
+        for (var value : dictionary) {
+            var bytes = value.getBytes(StandardCharsets.UTF_8);
+            ensure(channel, buffer, Integer.BYTES).putInt(bytes.length);
+            for (int offset = 0; offset < bytes.length; offset += buffer.capacity()) {
+                int length = Math.min(buffer.capacity(), bytes.length - offset);
+                ensure(channel, buffer, length).put(bytes, offset, length);
+            }
+        }
+    }
+
+    private static long aligned(long position) {
+        return (position + 7) & ~7L;
+    }
+
+    private static void align(FileChannel channel, ByteBuffer buffer) throws IOException {
+        long written = channel.position() + buffer.position();
+        for (long padding = aligned(written) - written; padding > 0; padding--) {
+            ensure(channel, buffer, 1).put((byte) 0);
+        }
+    }
+
+    private static ByteBuffer ensure(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush(channel, buffer);
+        }
+        return buffer;
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
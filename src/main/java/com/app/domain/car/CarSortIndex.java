@@ -0,0 +1,86 @@
+package com.app.domain.car;
+
+import com.app.domain.car.type.SortingType;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Sorted permutations of store rows, one for every sorting type. Permutation is computed on first use and kept,
+ * so every next request for the same order only reads it. Permutations of next version of store are patched and
+ * share blocks without changed rows with permutations of this index.
+ */
+public class CarSortIndex {
+
+    private final CarColumnStore cars;
+    private final CarScan scan;
+    private final AtomicReferenceArray<CarPermutation> permutations =
+            new AtomicReferenceArray<>(SortingType.values().length);
+
+    public CarSortIndex(CarColumnStore cars) {
+        this(cars, CarScan.SEQUENTIAL);
+    }
+
+    public CarSortIndex(CarColumnStore cars, CarScan scan) {
+        this.cars = cars;
+        this.scan = scan;
+    }
+
+    /**
+     * @return row indexes sorted ascending by given sorting type.
+     */
+    CarPermutation rows(SortingType sortingType) {
+
+        var rows = permutations.get(sortingType.ordinal());
+        if (rows == null) {
+            rows = CarPermutation.of(cars.sortedRows(cars.comparing(sortingType), scan));
+            if (!permutations.compareAndSet(sortingType.ordinal(), null, rows)) {
+                rows = permutations.get(sortingType.ordinal());
+            }
+        }
+
+        return rows;
+    }
+
+    /**
+     * Method creates index of store built with given changes from store of this index. Permutations computed by
+     * this index are patched: changed and added rows are sorted alone and put to blocks where they belong, other
+     * blocks are shared, see {@link CarPermutation#patch}.
+     * @param cars store built from store of this index.
+     * @param changes changes made while store was built.
+     * @return index of given store.
+     */
+    public CarSortIndex patch(CarColumnStore cars, CarChanges changes) {
+
+        var patched = new CarSortIndex(cars, scan);
+        int[] changedRows = null;
+        for (var sortingType : SortingType.values()) {
+            var rows = permutations.get(sortingType.ordinal());
+            if (rows != null) {
+                if (changedRows == null) {
+                    changedRows = changes.changedRows();
+                }
+                var order = cars.comparing(sortingType);
+                var moved = changedRows.clone();
+                CarColumnStore.sortRows(moved, moved.length, order);
+                patched.permutations.set(sortingType.ordinal(),
+                        rows.patch(this.cars.comparing(sortingType), order, changes, moved));
+            }
+        }
+
+        return patched;
+    }
+
+    /**
+     * @return true when permutation for given sorting type is already computed.
+     */
+    public boolean isBuilt(SortingType sortingType) {
+        return permutations.get(sortingType.ordinal()) != null;
+    }
+
+    /**
+     * @return view of all cars sorted by given sorting type, descending order reads ascending permutation backwards.
+     */
+    public CarRowList cars(SortingType sortingType, boolean descending) {
+        return CarRowList.of(cars, rows(sortingType), descending);
+    }
+}
@@ -0,0 +1,368 @@
+package com.app.domain.car;
+
+import com.app.domain.car.sketch.QuantileSketch;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+
+/**
+ * Statistic of price and mileage counted in one scan of store. Minimal, maximal values and sums are taken from
+ * aggregates when they are counted already, otherwise the same scan counts them with {@link ColumnKernels}. Scan reads
+ * fixed-point prices without converting them to BigDecimal and adds standard deviation, quantiles from
+ * {@link QuantileSketch} and histograms with buckets of equal width between minimal and maximal value. Bounds of
+ * buckets depend on minimal and maximal value, so without aggregates histograms are counted after scan by short
+ * second pass over price and mileage columns only. Every chunk of rows has its own partial statistic and partials are
+ * merged, so parallel scan gives the same statistic as sequential one.
+ */
+public class CarStatisticScan {
+
+    public static final int DEFAULT_HISTOGRAM_BUCKETS = 10;
+
+    private static final double PRICE_UNIT = Math.pow(10, CarColumnStore.PRICE_SCALE);
+
+    private CarStatisticScan() {
+    }
+
+    /**
+     * @param cars store with cars.
+     * @param aggregates aggregates of the same store, or null when they are not counted.
+     * @param scan decides how chunks are scanned.
+     * @param histogramBuckets amount of buckets of both histograms.
+     * @return statistic with both price and mileage filled.
+     */
+    public static CarStatistic of(CarColumnStore cars, CarAggregates aggregates, CarScan scan, int histogramBuckets) {
+
+        if (histogramBuckets < 1) {
+            throw new IllegalArgumentException("Amount of histogram buckets must be positive");
+        }
+
+        var totals = aggregates == null ? null : Totals.of(aggregates);
+        var knownBuckets = totals == null ? null : new Buckets(totals, histogramBuckets);
+
+        var partial = scan.reduce(cars.size(), (from, to) -> {
+            var chunk = new Partial(knownBuckets == null ? null : new Histograms(histogramBuckets));
+            for (int row = from; row < to; row++) {
+                long price = cars.price(row);
+                chunk.prices.add(price);
+                chunk.priceSketch.add(price);
+
+                double mileage = cars.mileage(row);
+                if (!Double.isNaN(mileage)) {
+                    chunk.mileages.add(mileage);
+                    chunk.mileageSketch.add(mileage);
+                }
+            }
+            if (knownBuckets == null) {
+                var kernels = ColumnKernels.get();
+                cars.summarizePrices(kernels, from, to, chunk.priceSummary);
+                cars.summarizeMileages(kernels, from, to, chunk.mileageSummary);
+            } else {
+                chunk.histograms.count(cars, from, to, knownBuckets);
+            }
+            return chunk;
+        }, Partial::merge);
+
+        if (totals == null) {
+            totals = Totals.of(cars.size(), partial.priceSummary, partial.mileageSummary);
+        }
+        var buckets = knownBuckets == null ? new Buckets(totals, histogramBuckets) : knownBuckets;
+        var histograms = knownBuckets == null ? Histograms.of(cars, scan, buckets) : partial.histograms;
+
+        return CarStatistic
+                .builder()
+                .price(priceStatistic(totals, partial, histograms.prices, buckets.prices))
+                .mileage(mileageStatistic(totals, partial, histograms.mileages, buckets.mileages))
+                .build();
+    }
+
+    private static Statistic<BigDecimal> priceStatistic(Totals totals, Partial partial, long[] priceHistogram,
+                                                        PriceBuckets buckets) {
+
+        if (totals.count == 0) {
+            return Statistic
+                    .<BigDecimal>builder()
+                    .average(BigDecimal.ZERO)
+                    .sum(BigDecimal.ZERO)
+                    .count(0L)
+                    .histogram(new ArrayList<>())
+                    .build();
+        }
+
+        var histogram = new ArrayList<HistogramBucket<BigDecimal>>(priceHistogram.length);
+        for (int bucket = 0; bucket < priceHistogram.length; bucket++) {
+            histogram.add(HistogramBucket
+                    .<BigDecimal>builder()
+                    .lowerBound(CarColumnStore.toPrice(buckets.lowerBound(bucket)))
+                    .upperBound(CarColumnStore.toPrice(buckets.upperBound(bucket)))
+                    .count(priceHistogram[bucket])
+                    .build());
+        }
+
+        return Statistic
+                .<BigDecimal>builder()
+                .min(CarColumnStore.toPrice(totals.minPrice))
+                .max(CarColumnStore.toPrice(totals.maxPrice))
+                .average(totals.priceSum.divide(BigDecimal.valueOf(totals.count), MathContext.DECIMAL128))
+                .sum(totals.priceSum)
+                .count(totals.count)
+                .standardDeviation(partial.prices.standardDeviation() / PRICE_UNIT)
+                .median(price(partial.priceSketch.quantile(0.5)))
+                .p90(price(partial.priceSketch.quantile(0.9)))
+                .p99(price(partial.priceSketch.quantile(0.99)))
+                .histogram(histogram)
+                .build();
+    }
+
+    private static Statistic<Double> mileageStatistic(Totals totals, Partial partial, long[] mileageHistogram,
+                                                      MileageBuckets buckets) {
+
+        var histogram = new ArrayList<HistogramBucket<Double>>(mileageHistogram.length);
+        if (partial.mileages.count > 0) {
+            for (int bucket = 0; bucket < mileageHistogram.length; bucket++) {
+                histogram.add(HistogramBucket
+                        .<Double>builder()
+                        .lowerBound(buckets.lowerBound(bucket))
+                        .upperBound(buckets.upperBound(bucket))
+                        .count(mileageHistogram[bucket])
+                        .build());
+            }
+        }
+
+        return Statistic
+                .<Double>builder()
+                .min(totals.minMileage)
+                .max(totals.maxMileage)
+                .average(totals.count == 0 ? 0 : totals.mileageSum / totals.count)
+                .sum(totals.mileageSum)
+                .count(totals.count)
+                .standardDeviation(partial.mileages.count == 0 ? null : partial.mileages.standardDeviation())
+                .median(mileage(partial.mileageSketch.quantile(0.5)))
+                .p90(mileage(partial.mileageSketch.quantile(0.9)))
+                .p99(mileage(partial.mileageSketch.quantile(0.99)))
+                .histogram(histogram)
+                .build();
+    }
+
+    private static BigDecimal price(double fixedPoint) {
+        return CarColumnStore.toPrice(Math.round(fixedPoint));
+    }
+
+    private static Double mileage(double quantile) {
+        return Double.isNaN(quantile) ? null : quantile;
+    }
+
+    /**
+     * Count, mean and sum of squared differences from mean updated with Welford's method, partials are merged with
+     * Chan's formula.
+     */
+    private static class Moments {
+
+        private long count;
+        private double mean;
+        private double squaredDifferences;
+
+        private void add(double value) {
+            count++;
+            double difference = value - mean;
+            mean += difference / count;
+            squaredDifferences += difference * (value - mean);
+        }
+
+        private void merge(Moments other) {
+            if (other.count == 0) {
+                return;
+            }
+            long total = count + other.count;
+            double difference = other.mean - mean;
+            squaredDifferences += other.squaredDifferences + difference * difference * count * other.count / total;
+            mean += difference * other.count / total;
+            count = total;
+        }
+
+        private double standardDeviation() {
+            return count == 0 ? 0 : Math.sqrt(squaredDifferences / count);
+        }
+    }
+
+    /**
+     * Count, minimal, maximal values and sums of both attributes, taken from aggregates or counted by scan.
+     */
+    private static class Totals {
+
+        private final long count;
+        private final long minPrice;
+        private final long maxPrice;
+        private final BigDecimal priceSum;
+        private final double minMileage;
+        private final double maxMileage;
+        private final double mileageSum;
+
+        private Totals(long count, long minPrice, long maxPrice, BigDecimal priceSum, double minMileage,
+                       double maxMileage, double mileageSum) {
+            this.count = count;
+            this.minPrice = minPrice;
+            this.maxPrice = maxPrice;
+            this.priceSum = priceSum;
+            this.minMileage = minMileage;
+            this.maxMileage = maxMileage;
+            this.mileageSum = mileageSum;
+        }
+
+        private static Totals of(CarAggregates aggregates) {
+            return new Totals(aggregates.count(), aggregates.minPrice(), aggregates.maxPrice(),
+                    aggregates.priceSum(), aggregates.minMileage(), aggregates.maxMileage(), aggregates.mileageSum());
+        }
+
+        /**
+         * Values are counted the same way as by {@link CarAggregates#of(CarColumnStore, CarScan)}.
+         */
+        private static Totals of(int count, ColumnKernels.LongSummary prices, ColumnKernels.DoubleSummary mileages) {
+            return new Totals(count, count == 0 ? 0 : prices.min, count == 0 ? 0 : prices.max,
+                    new BigDecimal(prices.sum.toBigInteger(), CarColumnStore.PRICE_SCALE), mileages.min, mileages.max,
+                    mileages.sum());
+        }
+    }
+
+    private static class Partial {
+
+        private final Moments prices = new Moments();
+        private final Moments mileages = new Moments();
+        private final QuantileSketch priceSketch = new QuantileSketch();
+        private final QuantileSketch mileageSketch = new QuantileSketch();
+        private final ColumnKernels.LongSummary priceSummary = new ColumnKernels.LongSummary();
+        private final ColumnKernels.DoubleSummary mileageSummary = new ColumnKernels.DoubleSummary();
+        private final Histograms histograms;
+
+        /**
+         * @param histograms histograms of chunk, or null when bounds of buckets are not known yet.
+         */
+        private Partial(Histograms histograms) {
+            this.histograms = histograms;
+        }
+
+        private Partial merge(Partial next) {
+            prices.merge(next.prices);
+            mileages.merge(next.mileages);
+            priceSketch.merge(next.priceSketch);
+            mileageSketch.merge(next.mileageSketch);
+            priceSummary.merge(next.priceSummary);
+            mileageSummary.merge(next.mileageSummary);
+            if (histograms != null) {
+                histograms.merge(next.histograms);
+            }
+            return this;
+        }
+    }
+
+    private static class Buckets {
+
+        private final PriceBuckets prices;
+        private final MileageBuckets mileages;
+
+        private Buckets(Totals totals, int histogramBuckets) {
+            this.prices = new PriceBuckets(totals.minPrice, totals.maxPrice, histogramBuckets);
+            this.mileages = new MileageBuckets(totals.minMileage, totals.maxMileage, histogramBuckets);
+        }
+    }
+
+    private static class Histograms {
+
+        private final long[] prices;
+        private final long[] mileages;
+
+        private Histograms(int histogramBuckets) {
+            this.prices = new long[histogramBuckets];
+            this.mileages = new long[histogramBuckets];
+        }
+
+        /**
+         * Pass counting only histograms, used when bounds of buckets are known after scan.
+         */
+        private static Histograms of(CarColumnStore cars, CarScan scan, Buckets buckets) {
+            return scan.reduce(cars.size(), (from, to) -> {
+                var chunk = new Histograms(buckets.prices.buckets);
+                chunk.count(cars, from, to, buckets);
+                return chunk;
+            }, Histograms::merge);
+        }
+
+        private void count(CarColumnStore cars, int from, int to, Buckets buckets) {
+            for (int row = from; row < to; row++) {
+                prices[buckets.prices.bucket(cars.price(row))]++;
+                double mileage = cars.mileage(row);
+                if (!Double.isNaN(mileage)) {
+                    mileages[buckets.mileages.bucket(mileage)]++;
+                }
+            }
+        }
+
+        private Histograms merge(Histograms next) {
+            for (int bucket = 0; bucket < prices.length; bucket++) {
+                prices[bucket] += next.prices[bucket];
+                mileages[bucket] += next.mileages[bucket];
+            }
+            return this;
+        }
+    }
+
+    /**
+     * Buckets of fixed-point prices, width is counted without sign so the whole range of long fits.
+     */
+    private static class PriceBuckets {
+
+        private final long min;
+        private final long max;
+        private final long width;
+        private final int buckets;
+
+        private PriceBuckets(long min, long max, int buckets) {
+            this.min = min;
+            this.max = max;
+            this.buckets = buckets;
+            this.width = Long.divideUnsigned(max - min, buckets) + 1;
+        }
+
+        private int bucket(long price) {
+            return (int) Math.min(buckets - 1, Long.divideUnsigned(price - min, width));
+        }
+
+        private long lowerBound(int bucket) {
+            return min + bucket * width;
+        }
+
+        private long upperBound(int bucket) {
+            return bucket == buckets - 1 ? max : min + (bucket + 1) * width;
+        }
+    }
+
+    private static class MileageBuckets {
+
+        private final double min;
+        private final double max;
+        private final double width;
+        private final int buckets;
+
+        private MileageBuckets(double min, double max, int buckets) {
+            this.min = min;
+            this.max = max;
+            this.buckets = buckets;
+            this.width = (max - min) / buckets;
+        }
+
+        private int bucket(double mileage) {
+            if (!(width > 0) || Double.isInfinite(width)) {
+                return 0;
+            }
+            return (int) Math.min(buckets - 1, Math.max(0, (mileage - min) / width));
+        }
+
+        private double lowerBound(int bucket) {
+            return min + bucket * width;
+        }
+
+        private double upperBound(int bucket) {
+            return bucket == buckets - 1 ? max : min + (bucket + 1) * width;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.app.domain.car;
+
+import com.app.domain.car.type.SortingType;
+
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * First cars of sorted order selected without sorting whole store. Every chunk of rows keeps only k best rows in
+ * bounded heap, so selection takes O(n log k) time and O(k) memory per chunk and group, heaps of chunks are merged
+ * from left to right. Rows with equal sorted value keep the same order as in
+ * {@link CarSortIndex#cars(SortingType, boolean)}, so selected cars are always the first cars of sorted collection.
+ */
+public class CarTopK {
+
+    private CarTopK() {
+    }
+
+    /**
+     * @param cars store with cars.
+     * @param sortingType value by which cars are ordered.
+     * @param descending true when the highest values are selected.
+     * @param k the highest amount of selected rows.
+     * @param scan decides how chunks are scanned.
+     * @return selected rows in sorted order.
+     */
+    public static int[] rows(CarColumnStore cars, SortingType sortingType, boolean descending, int k, CarScan scan) {
+
+        var order = order(cars, sortingType, descending);
+
+        return scan.reduce(cars.size(), (from, to) -> {
+            var heap = new RowHeap(order, k);
+            for (int row = from; row < to; row++) {
+                heap.offer(row);
+            }
+            return heap;
+        }, RowHeap::merge).sortedRows();
+    }
+
+    /**
+     * @param cars store with cars.
+     * @param sortingType value by which cars are ordered.
+     * @param descending true when the highest values are selected.
+     * @param k the highest amount of selected rows of every group.
+     * @param groups amount of groups.
+     * @param groupOf returns group of row, from 0 to amount of groups exclusive.
+     * @param scan decides how chunks are scanned.
+     * @return selected rows of every group in sorted order, empty array for group without rows.
+     */
+    public static int[][] rowsByGroup(CarColumnStore cars, SortingType sortingType, boolean descending, int k,
+                                      int groups, IntUnaryOperator groupOf, CarScan scan) {
+
+        var order = order(cars, sortingType, descending);
+
+        var heaps = scan.reduce(cars.size(), (from, to) -> {
+            var chunk = new RowHeap[groups];
+            for (int row = from; row < to; row++) {
+                int group = groupOf.applyAsInt(row);
+                if (chunk[group] == null) {
+                    chunk[group] = new RowHeap(order, k);
+                }
+                chunk[group].offer(row);
+            }
+            return chunk;
+        }, (left, right) -> {
+            for (int group = 0; group < groups; group++) {
+                if (left[group] == null) {
+                    left[group] = right[group];
+                } else if (right[group] != null) {
+                    left[group].merge(right[group]);
+                }
+            }
+            return left;
+        });
+
+        var rows = new int[groups][];
+        for (int group = 0; group < groups; group++) {
+            rows[group] = heaps[group] == null ? new int[0] : heaps[group].sortedRows();
+        }
+
+        return rows;
+    }
+
+    /**
+     * Ascending order compares rows by value and then by row index, descending order is its reverse like
+     * ascending permutation read backwards.
+     */
+    private static CarColumnStore.RowComparator order(CarColumnStore cars, SortingType sortingType, boolean descending) {
+
+        var byValue = cars.comparing(sortingType);
+        CarColumnStore.RowComparator ascending = (first, second) -> {
+            int result = byValue.compare(first, second);
+            return result != 0 ? result : Integer.compare(first, second);
+        };
+
+        return descending ? (first, second) -> ascending.compare(second, first) : ascending;
+    }
+
+    /**
+     * Heap of at most capacity rows with the worst kept row in root, row better than root replaces it.
+     */
+    private static class RowHeap {
+
+        private final CarColumnStore.RowComparator order;
+        private final int capacity;
+        private int[] rows;
+        private int size;
+
+        private RowHeap(CarColumnStore.RowComparator order, int capacity) {
+            this.order = order;
+            this.capacity = capacity;
+            this.rows = new int[Math.min(capacity, 16)];
+        }
+
+        private void offer(int row) {
+
+            if (size < capacity) {
+                if (size == rows.length) {
+                    rows = Arrays.copyOf(rows, (int) Math.min(capacity, 2L * rows.length));
+                }
+                rows[size] = row;
+                siftUp(size++);
+            } else if (capacity > 0 && order.compare(row, rows[0]) < 0) {
+                rows[0] = row;
+                siftDown(0);
+            }
+        }
+
+        private RowHeap merge(RowHeap other) {
+            for (int i = 0; i < other.size; i++) {
+                offer(other.rows[i]);
+            }
+            return this;
+        }
+
+        private int[] sortedRows() {
+            var sorted = Arrays.copyOf(rows, size);
+            CarColumnStore.sortRows(sorted, size, order);
+            return sorted;
+        }
+
+        private void siftUp(int position) {
+            int row = rows[position];
+            while (position > 0) {
+                int parent = (position - 1) >>> 1;
+                if (order.compare(rows[parent], row) >= 0) {
+                    break;
+                }
+                rows[position] = rows[parent];
+                position = parent;
+            }
+            rows[position] = row;
+        }
+
+        private void siftDown(int position) {
+            int row = rows[position];
+            int half = size >>> 1;
+            while (position < half) {
+                int child = 2 * position + 1;
+                if (child + 1 < size && order.compare(rows[child + 1], rows[child]) > 0) {
+                    child++;
+                }
+                if (order.compare(row, rows[child]) >= 0) {
+                    break;
+                }
+                rows[position] = rows[child];
+                position = child;
+            }
+            rows[position] = row;
+        }
+    }
+}
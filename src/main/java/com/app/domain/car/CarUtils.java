@@ -1,9 +1,10 @@
 package com.app.domain.car;
 
 import com.app.domain.car.type.Color;
+import com.app.domain.car.type.SortingType;
 
 import java.math.BigDecimal;
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.function.DoubleFunction;
@@ -21,7 +22,18 @@ public interface CarUtils {
     Function<Car, String> toModel = car -> car.model;
     Function<Car, Color> toColor = car -> car.color;
     Function<Car, BigDecimal> toPrice = car -> car.price;
-    Function<Car, List<String>> toComponents = car -> new ArrayList<>(car.components);
+    Function<Car, List<String>> toComponents = car -> Collections.unmodifiableList(car.components);
 
+    /**
+     * @return comparator ordering cars the same way as {@link CarColumnStore#comparing(SortingType)} orders rows.
+     */
+    static Comparator<Car> compareBy(SortingType sortingType) {
+        return switch (sortingType) {
+            case MODEL -> compareByModel;
+            case COLOR -> compareByColor;
+            case PRICE -> compareByPrice;
+            case MILEAGE -> compareByMileage;
+        };
+    }
 
 }
@@ -0,0 +1,154 @@
+package com.app.domain.car;
+
+import java.nio.DoubleBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+
+/**
+ * Kernels scanning range of rows of one primitive column. SIMD kernels of {@code jdk.incubator.vector} are used when
+ * JVM runs with {@code --add-modules jdk.incubator.vector}, otherwise the same results are counted by scalar loops.
+ * Only sums of doubles can differ in the last bits, because lanes add values in other order. Scalar kernels can be
+ * chosen with the module too by setting system property {@value #VECTOR_PROPERTY} to false.
+ */
+interface ColumnKernels {
+
+    String VECTOR_PROPERTY = "cars.vectorKernels";
+
+    ColumnKernels SCALAR = new ScalarColumnKernels();
+
+    /**
+     * @return vector kernels when module with Vector API is available, scalar kernels otherwise.
+     */
+    static ColumnKernels get() {
+        return Available.INSTANCE;
+    }
+
+    boolean isVectorized();
+
+    /**
+     * Method clears bits of rows with value outside of range, so ranges of several columns are checked on one
+     * selection. Bit of row is bit {@code row - from} of selection.
+     * @param lowerBound exclusive lower bound.
+     * @param upperBound inclusive upper bound.
+     * @param selection bitmask of rows from inclusive start to exclusive end.
+     */
+    void retainRange(LongBuffer column, int from, int to, long lowerBound, long upperBound, long[] selection);
+
+    /**
+     * Method clears bits of rows with value outside of range, NaN is never in range.
+     */
+    void retainRange(DoubleBuffer column, int from, int to, double lowerBound, double upperBound, long[] selection);
+
+    void summarize(LongBuffer column, int from, int to, LongSummary summary);
+
+    void summarize(DoubleBuffer column, int from, int to, DoubleSummary summary);
+
+    /**
+     * @return selection of given amount of rows with all bits set.
+     */
+    static long[] selectAll(int rows) {
+        var selection = new long[(rows + Long.SIZE - 1) / Long.SIZE];
+        Arrays.fill(selection, -1L);
+        if (rows % Long.SIZE != 0) {
+            selection[selection.length - 1] = -1L >>> (Long.SIZE - rows % Long.SIZE);
+        }
+        return selection;
+    }
+
+    /**
+     * Minimal, maximal value and exact sum of longs.
+     */
+    final class LongSummary {
+
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        final LongSum sum = new LongSum();
+
+        void add(long value) {
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            sum.add(value);
+        }
+
+        LongSummary merge(LongSummary other) {
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+            sum.add(other.sum);
+            return this;
+        }
+    }
+
+    /**
+     * Count, minimal, maximal value and sum of doubles with Kahan compensation, values are handled the same way as
+     * by {@link java.util.DoubleSummaryStatistics}.
+     */
+    final class DoubleSummary {
+
+        long count;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        private double sum;
+        private double compensation;
+        private double simpleSum;
+
+        void add(double value) {
+            count++;
+            simpleSum += value;
+            addCompensated(value);
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+
+        /**
+         * Method adds summary of other values given as its parts, used to merge lanes of vector kernels.
+         */
+        void merge(long count, double min, double max, double sum, double compensation, double simpleSum) {
+            this.count += count;
+            this.simpleSum += simpleSum;
+            addCompensated(sum);
+            addCompensated(-compensation);
+            this.min = Math.min(this.min, min);
+            this.max = Math.max(this.max, max);
+        }
+
+        DoubleSummary merge(DoubleSummary other) {
+            merge(other.count, other.min, other.max, other.sum, other.compensation, other.simpleSum);
+            return this;
+        }
+
+        double sum() {
+            double total = sum - compensation;
+            return Double.isNaN(total) && Double.isInfinite(simpleSum) ? simpleSum : total;
+        }
+
+        private void addCompensated(double value) {
+            double corrected = value - compensation;
+            double next = sum + corrected;
+            compensation = (next - sum) - corrected;
+            sum = next;
+        }
+    }
+
+    /**
+     * Vector kernels are created only when module is resolved, so classes of Vector API are never loaded without it.
+     */
+    final class Available {
+
+        private static final ColumnKernels INSTANCE = load();
+
+        private Available() {
+        }
+
+        private static ColumnKernels load() {
+            if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()
+                    || !Boolean.parseBoolean(System.getProperty(VECTOR_PROPERTY, "true"))) {
+                return SCALAR;
+            }
+            try {
+                return new VectorColumnKernels();
+            } catch (LinkageError e) {
+                return SCALAR;
+            }
+        }
+    }
+}
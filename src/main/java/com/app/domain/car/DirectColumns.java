@@ -0,0 +1,68 @@
+package com.app.domain.car;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Direct buffers in native byte order holding columns of {@link CarColumnStore} outside of Java heap.
+ */
+final class DirectColumns {
+
+    private DirectColumns() {
+    }
+
+    static ByteBuffer allocate(int bytes) {
+        return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Method grows buffer twice until given amount of bytes fits after its position.
+     * @return the same buffer when bytes fit or new buffer with copy of written bytes.
+     */
+    static ByteBuffer ensure(ByteBuffer buffer, int bytes) {
+
+        if (buffer.remaining() >= bytes) {
+            return buffer;
+        }
+
+        long required = (long) buffer.position() + bytes;
+        long capacity = Math.max(buffer.capacity(), 1);
+        while (capacity < required) {
+            capacity *= 2;
+        }
+        if (required > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Column can't have more than " + Integer.MAX_VALUE + " bytes");
+        }
+
+        return allocate((int) Math.min(capacity, Integer.MAX_VALUE)).put(buffer.flip());
+    }
+
+    /**
+     * @return view of bytes written to buffer.
+     */
+    static ByteBuffer filled(ByteBuffer buffer) {
+        return buffer.duplicate().flip().slice().order(ByteOrder.nativeOrder());
+    }
+
+    static ByteBuffer of(long[] values) {
+        var buffer = allocate(values.length * Long.BYTES);
+        buffer.asLongBuffer().put(values);
+        return buffer;
+    }
+
+    static ByteBuffer of(double[] values) {
+        var buffer = allocate(values.length * Double.BYTES);
+        buffer.asDoubleBuffer().put(values);
+        return buffer;
+    }
+
+    static ByteBuffer of(int[] values) {
+        var buffer = allocate(values.length * Integer.BYTES);
+        buffer.asIntBuffer().put(values);
+        return buffer;
+    }
+
+    static ByteBuffer of(byte[] values) {
+        return allocate(values.length).put(values).flip();
+    }
+}
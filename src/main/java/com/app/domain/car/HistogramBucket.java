@@ -0,0 +1,21 @@
+package com.app.domain.car;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Bucket of histogram with values from inclusive lower bound to exclusive upper bound, upper bound of the last
+ * bucket is inclusive.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class HistogramBucket<T> {
+
+    private T lowerBound;
+    private T upperBound;
+    private long count;
+}
@@ -0,0 +1,58 @@
+package com.app.domain.car;
+
+import java.math.BigInteger;
+
+/**
+ * Exact sum of long values which doesn't overflow. Values are added to low 64 bits and every overflow is counted in
+ * high part, so adding and subtracting doesn't allocate anything.
+ */
+public class LongSum {
+
+    private long low;
+    private long high;
+
+    /**
+     * @return sum equal to high part shifted by 64 bits plus low bits taken as signed.
+     */
+    static LongSum of(long high, long low) {
+        var sum = new LongSum();
+        sum.high = high;
+        sum.low = low;
+        return sum;
+    }
+
+    public LongSum add(long value) {
+        long result = low + value;
+        if (((low ^ result) & (value ^ result)) < 0) {
+            high += value > 0 ? 1 : -1;
+        }
+        low = result;
+        return this;
+    }
+
+    public LongSum subtract(long value) {
+        long result = low - value;
+        if (((low ^ value) & (low ^ result)) < 0) {
+            high += value < 0 ? 1 : -1;
+        }
+        low = result;
+        return this;
+    }
+
+    public LongSum add(LongSum other) {
+        add(other.low);
+        high += other.high;
+        return this;
+    }
+
+    public BigInteger toBigInteger() {
+        return BigInteger.valueOf(high).shiftLeft(Long.SIZE).add(BigInteger.valueOf(low));
+    }
+
+    public LongSum copy() {
+        var copy = new LongSum();
+        copy.low = low;
+        copy.high = high;
+        return copy;
+    }
+}
@@ -0,0 +1,54 @@
+package com.app.domain.car;
+
+import java.nio.DoubleBuffer;
+import java.nio.LongBuffer;
+
+/**
+ * Kernels reading column one value at a time.
+ */
+final class ScalarColumnKernels implements ColumnKernels {
+
+    @Override
+    public boolean isVectorized() {
+        return false;
+    }
+
+    @Override
+    public void retainRange(LongBuffer column, int from, int to, long lowerBound, long upperBound, long[] selection) {
+        for (int row = from; row < to; row++) {
+            long value = column.get(row);
+            if (value <= lowerBound || value > upperBound) {
+                clear(selection, row - from);
+            }
+        }
+    }
+
+    @Override
+    public void retainRange(DoubleBuffer column, int from, int to, double lowerBound, double upperBound,
+                            long[] selection) {
+        for (int row = from; row < to; row++) {
+            double value = column.get(row);
+            if (!(value > lowerBound && value <= upperBound)) {
+                clear(selection, row - from);
+            }
+        }
+    }
+
+    @Override
+    public void summarize(LongBuffer column, int from, int to, LongSummary summary) {
+        for (int row = from; row < to; row++) {
+            summary.add(column.get(row));
+        }
+    }
+
+    @Override
+    public void summarize(DoubleBuffer column, int from, int to, DoubleSummary summary) {
+        for (int row = from; row < to; row++) {
+            summary.add(column.get(row));
+        }
+    }
+
+    static void clear(long[] selection, int bit) {
+        selection[bit >>> 6] &= ~(1L << bit);
+    }
+}
@@ -6,6 +6,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -15,4 +17,21 @@ public class Statistic<T> {
     private T min;
     private T max;
     private T average;
+
+    /**
+     * Sum and count are filled in every statistic, so statistics of separate parts of cars can be merged.
+     */
+    private T sum;
+    private Long count;
+    /**
+     * Population standard deviation, it and fields below are filled only by statistic of all attributes.
+     */
+    private Double standardDeviation;
+    /**
+     * Quantiles are approximated with relative error of {@link com.app.domain.car.sketch.QuantileSketch}.
+     */
+    private T median;
+    private T p90;
+    private T p99;
+    private List<HistogramBucket<T>> histogram;
 }
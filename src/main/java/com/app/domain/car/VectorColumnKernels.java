@@ -0,0 +1,258 @@
+package com.app.domain.car;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.nio.DoubleBuffer;
+import java.nio.LongBuffer;
+
+/**
+ * Kernels processing as many values at once as preferred vector of CPU holds, lanes are reduced once at the end of
+ * every block. Columns wrapping arrays are read in place as one block, columns in direct buffers or mapped files are
+ * copied in blocks to small array first. Values after the last whole vector are handled by scalar code.
+ */
+final class VectorColumnKernels implements ColumnKernels {
+
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+
+    /**
+     * Amount of values copied at once from columns without array, multiple of bits of selection word so vectors
+     * never cross words of selection.
+     */
+    private static final int BLOCK = 2048;
+
+    @Override
+    public boolean isVectorized() {
+        return true;
+    }
+
+    @Override
+    public void retainRange(LongBuffer column, int from, int to, long lowerBound, long upperBound, long[] selection) {
+        var block = new LongBlock(column, from, to);
+        while (block.next()) {
+            retainRange(block.values, block.offset, block.length, lowerBound, upperBound, selection,
+                    block.start - from);
+        }
+    }
+
+    @Override
+    public void retainRange(DoubleBuffer column, int from, int to, double lowerBound, double upperBound,
+                            long[] selection) {
+        var block = new DoubleBlock(column, from, to);
+        while (block.next()) {
+            retainRange(block.values, block.offset, block.length, lowerBound, upperBound, selection,
+                    block.start - from);
+        }
+    }
+
+    @Override
+    public void summarize(LongBuffer column, int from, int to, LongSummary summary) {
+        var block = new LongBlock(column, from, to);
+        while (block.next()) {
+            summarize(block.values, block.offset, block.length, summary);
+        }
+    }
+
+    @Override
+    public void summarize(DoubleBuffer column, int from, int to, DoubleSummary summary) {
+        var block = new DoubleBlock(column, from, to);
+        while (block.next()) {
+            summarize(block.values, block.offset, block.length, summary);
+        }
+    }
+
+    /**
+     * Every kernel of one block keeps its vectors only inside its own loop, so they are never boxed between blocks.
+     * @param bit bit of selection of the first value.
+     */
+    private static void retainRange(long[] values, int offset, int length, long lowerBound, long upperBound,
+                                    long[] selection, int bit) {
+
+        long laneBits = -1L >>> (Long.SIZE - LONGS.length());
+        int end = offset + length;
+        int bound = offset + LONGS.loopBound(length);
+        int i = offset;
+        for (; i < bound; i += LONGS.length(), bit += LONGS.length()) {
+            var vector = LongVector.fromArray(LONGS, values, i);
+            long inRange = vector.compare(VectorOperators.GT, lowerBound)
+                    .and(vector.compare(VectorOperators.LE, upperBound))
+                    .toLong();
+            selection[bit >>> 6] &= ~((~inRange & laneBits) << bit);
+        }
+        for (; i < end; i++, bit++) {
+            if (values[i] <= lowerBound || values[i] > upperBound) {
+                ScalarColumnKernels.clear(selection, bit);
+            }
+        }
+    }
+
+    private static void retainRange(double[] values, int offset, int length, double lowerBound, double upperBound,
+                                    long[] selection, int bit) {
+
+        long laneBits = -1L >>> (Long.SIZE - DOUBLES.length());
+        int end = offset + length;
+        int bound = offset + DOUBLES.loopBound(length);
+        int i = offset;
+        for (; i < bound; i += DOUBLES.length(), bit += DOUBLES.length()) {
+            var vector = DoubleVector.fromArray(DOUBLES, values, i);
+            long inRange = vector.compare(VectorOperators.GT, lowerBound)
+                    .and(vector.compare(VectorOperators.LE, upperBound))
+                    .toLong();
+            selection[bit >>> 6] &= ~((~inRange & laneBits) << bit);
+        }
+        for (; i < end; i++, bit++) {
+            if (!(values[i] > lowerBound && values[i] <= upperBound)) {
+                ScalarColumnKernels.clear(selection, bit);
+            }
+        }
+    }
+
+    /**
+     * Lanes add high 32 bits of values with sign and low 32 bits without sign separately, neither sum can overflow
+     * for less than 2^31 values, and both are added to exact sum once per block.
+     */
+    private static void summarize(long[] values, int offset, int length, LongSummary summary) {
+
+        var min = LongVector.broadcast(LONGS, Long.MAX_VALUE);
+        var max = LongVector.broadcast(LONGS, Long.MIN_VALUE);
+        var highs = LongVector.zero(LONGS);
+        var lows = LongVector.zero(LONGS);
+        int end = offset + length;
+        int bound = offset + LONGS.loopBound(length);
+        int i = offset;
+        for (; i < bound; i += LONGS.length()) {
+            var vector = LongVector.fromArray(LONGS, values, i);
+            min = min.min(vector);
+            max = max.max(vector);
+            highs = highs.add(vector.lanewise(VectorOperators.ASHR, Integer.SIZE));
+            lows = lows.add(vector.lanewise(VectorOperators.AND, 0xFFFFFFFFL));
+        }
+        for (; i < end; i++) {
+            summary.add(values[i]);
+        }
+
+        if (bound > offset) {
+            summary.min = Math.min(summary.min, min.reduceLanes(VectorOperators.MIN));
+            summary.max = Math.max(summary.max, max.reduceLanes(VectorOperators.MAX));
+            long high = highs.reduceLanes(VectorOperators.ADD);
+            long shifted = high << Integer.SIZE;
+            summary.sum.add(LongSum.of((high >> Integer.SIZE) + (shifted < 0 ? 1 : 0), shifted));
+            summary.sum.add(lows.reduceLanes(VectorOperators.ADD));
+        }
+    }
+
+    /**
+     * Every lane keeps its own compensated sum, lanes are merged as summaries of separate values.
+     */
+    private static void summarize(double[] values, int offset, int length, DoubleSummary summary) {
+
+        var min = DoubleVector.broadcast(DOUBLES, Double.POSITIVE_INFINITY);
+        var max = DoubleVector.broadcast(DOUBLES, Double.NEGATIVE_INFINITY);
+        var sum = DoubleVector.zero(DOUBLES);
+        var compensation = DoubleVector.zero(DOUBLES);
+        var simpleSum = DoubleVector.zero(DOUBLES);
+        int end = offset + length;
+        int bound = offset + DOUBLES.loopBound(length);
+        int i = offset;
+        for (; i < bound; i += DOUBLES.length()) {
+            var vector = DoubleVector.fromArray(DOUBLES, values, i);
+            min = min.min(vector);
+            max = max.max(vector);
+            simpleSum = simpleSum.add(vector);
+            var corrected = vector.sub(compensation);
+            var next = sum.add(corrected);
+            compensation = next.sub(sum).sub(corrected);
+            sum = next;
+        }
+        for (; i < end; i++) {
+            summary.add(values[i]);
+        }
+
+        if (bound == offset) {
+            return;
+        }
+        long laneCount = (bound - offset) / DOUBLES.length();
+        var mins = min.toArray();
+        var maxs = max.toArray();
+        var sums = sum.toArray();
+        var compensations = compensation.toArray();
+        var simpleSums = simpleSum.toArray();
+        for (int lane = 0; lane < sums.length; lane++) {
+            summary.merge(laneCount, mins[lane], maxs[lane], sums[lane], compensations[lane], simpleSums[lane]);
+        }
+    }
+
+    /**
+     * Consecutive parts of range of column as array, offset in it and first row of part.
+     */
+    private static final class LongBlock {
+
+        private final LongBuffer column;
+        private final int to;
+        private final boolean inPlace;
+        private final long[] values;
+        private int offset;
+        private int start;
+        private int length;
+
+        private LongBlock(LongBuffer column, int from, int to) {
+            this.column = column;
+            this.to = to;
+            this.inPlace = column.hasArray();
+            this.values = inPlace ? column.array() : new long[Math.min(BLOCK, Math.max(0, to - from))];
+            this.start = from;
+        }
+
+        private boolean next() {
+            start += length;
+            if (start >= to) {
+                return false;
+            }
+            if (inPlace) {
+                offset = column.arrayOffset() + start;
+                length = to - start;
+            } else {
+                length = Math.min(BLOCK, to - start);
+                column.get(start, values, 0, length);
+            }
+            return true;
+        }
+    }
+
+    private static final class DoubleBlock {
+
+        private final DoubleBuffer column;
+        private final int to;
+        private final boolean inPlace;
+        private final double[] values;
+        private int offset;
+        private int start;
+        private int length;
+
+        private DoubleBlock(DoubleBuffer column, int from, int to) {
+            this.column = column;
+            this.to = to;
+            this.inPlace = column.hasArray();
+            this.values = inPlace ? column.array() : new double[Math.min(BLOCK, Math.max(0, to - from))];
+            this.start = from;
+        }
+
+        private boolean next() {
+            start += length;
+            if (start >= to) {
+                return false;
+            }
+            if (inPlace) {
+                offset = column.arrayOffset() + start;
+                length = to - start;
+            } else {
+                length = Math.min(BLOCK, to - start);
+                column.get(start, values, 0, length);
+            }
+            return true;
+        }
+    }
+}
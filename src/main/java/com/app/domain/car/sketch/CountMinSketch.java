@@ -0,0 +1,160 @@
+package com.app.domain.car.sketch;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Mergeable sketch of frequencies of values. Every value is counted in one counter of every row of counters and its
+ * frequency is estimated by the lowest of its counters. Estimate is never lower than exact frequency and with given
+ * confidence it is higher by at most relative error of total count. Removed values are subtracted from the same
+ * counters, so removing only values which were added keeps both bounds.
+ */
+public class CountMinSketch {
+
+    /**
+     * The highest amount of counters of sketch read from bytes, sketch with relative error 0.00001 and confidence
+     * 0.999999 has about 2^22 counters.
+     */
+    static final int MAX_READ_COUNTERS = 1 << 25;
+
+    private final int width;
+    private final int depth;
+    private final long[] counts;
+    private long total;
+
+    /**
+     * @param relativeError the highest overestimate of frequency as part of total count, from 0 to 1 exclusive.
+     * @param confidence probability that estimate keeps relative error, from 0 to 1 exclusive.
+     */
+    public CountMinSketch(double relativeError, double confidence) {
+        this(width(relativeError), depth(confidence));
+    }
+
+    private CountMinSketch(int width, int depth) {
+
+        if (width < 1 || depth < 1 || (long) width * depth > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Sketch can't have " + depth + " rows of " + width + " counters");
+        }
+
+        this.width = width;
+        this.depth = depth;
+        this.counts = new long[width * depth];
+    }
+
+    public void add(String value, long count) {
+        addHash(Hashing.hash(value), count);
+    }
+
+    /**
+     * Counters of rows are chosen with two halves of one hash like in Kirsch and Mitzenmacher double hashing.
+     */
+    public void addHash(long hash, long count) {
+
+        int first = (int) hash;
+        int second = (int) (hash >>> 32);
+        for (int row = 0; row < depth; row++) {
+            counts[row * width + Math.floorMod(first + row * second, width)] += count;
+        }
+        total += count;
+    }
+
+    public long estimate(String value) {
+        return estimateHash(Hashing.hash(value));
+    }
+
+    public long estimateHash(long hash) {
+
+        int first = (int) hash;
+        int second = (int) (hash >>> 32);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counts[row * width + Math.floorMod(first + row * second, width)]);
+        }
+        return estimate;
+    }
+
+    /**
+     * Method adds all values of other sketch to this one.
+     * @param other sketch with the same amount of rows and counters.
+     * @return this sketch.
+     */
+    public CountMinSketch merge(CountMinSketch other) {
+
+        if (other.width != width || other.depth != depth) {
+            throw new IllegalArgumentException(
+                    "Only sketches with the same relative error and confidence can be merged");
+        }
+
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        total += other.total;
+
+        return this;
+    }
+
+    /**
+     * @return sum of counts of all values.
+     */
+    public long total() {
+        return total;
+    }
+
+    public double relativeError() {
+        return Math.E / width;
+    }
+
+    public double confidence() {
+        return 1 - Math.exp(-depth);
+    }
+
+    public CountMinSketch copy() {
+        var copy = new CountMinSketch(width, depth);
+        System.arraycopy(counts, 0, copy.counts, 0, counts.length);
+        copy.total = total;
+        return copy;
+    }
+
+    public void writeTo(DataOutput output) throws IOException {
+        output.writeInt(width);
+        output.writeInt(depth);
+        output.writeLong(total);
+        for (var count : counts) {
+            output.writeLong(count);
+        }
+    }
+
+    /**
+     * Size of sketch is checked before its counters are allocated, so corrupted bytes can't allocate more memory than
+     * {@link #MAX_READ_COUNTERS} counters take.
+     * @return sketch written by {@link #writeTo(DataOutput)} or IllegalArgumentException when size is not valid.
+     */
+    public static CountMinSketch readFrom(DataInput input) throws IOException {
+        int width = input.readInt();
+        int depth = input.readInt();
+        if (width < 1 || depth < 1 || (long) width * depth > MAX_READ_COUNTERS) {
+            throw new IllegalArgumentException("Sketch can't have " + depth + " rows of " + width + " counters");
+        }
+        var sketch = new CountMinSketch(width, depth);
+        sketch.total = input.readLong();
+        for (int i = 0; i < sketch.counts.length; i++) {
+            sketch.counts[i] = input.readLong();
+        }
+        return sketch;
+    }
+
+    private static int width(double relativeError) {
+        if (!(relativeError > 0 && relativeError < 1)) {
+            throw new IllegalArgumentException("Relative error must be between 0 and 1");
+        }
+        return (int) Math.ceil(Math.E / relativeError);
+    }
+
+    private static int depth(double confidence) {
+        if (!(confidence > 0 && confidence < 1)) {
+            throw new IllegalArgumentException("Confidence must be between 0 and 1");
+        }
+        return (int) Math.ceil(Math.log(1 / (1 - confidence)));
+    }
+}
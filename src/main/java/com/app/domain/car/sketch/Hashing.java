@@ -0,0 +1,30 @@
+package com.app.domain.car.sketch;
+
+/**
+ * 64 bit hash of text shared by all sketches, so sketches of the same values built in different processes agree.
+ * Characters are hashed with FNV-1a and result is mixed with finalizer of MurmurHash3, which spreads every input bit
+ * over all output bits as sketches using high bits and separate halves of hash need.
+ */
+final class Hashing {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private Hashing() {
+    }
+
+    static long hash(String value) {
+
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
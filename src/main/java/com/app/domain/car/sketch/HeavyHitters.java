@@ -0,0 +1,157 @@
+package com.app.domain.car.sketch;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Mergeable sketch of the most frequent values. Frequencies are counted in {@link CountMinSketch} and fixed amount of
+ * values with the highest estimated frequency are kept as candidates, every value more frequent than the least
+ * frequent candidate replaces it. Values are kept by name, so sketch takes memory of sketch of frequencies and of
+ * candidates only, independently of amount of distinct values.
+ */
+public class HeavyHitters {
+
+    private final CountMinSketch frequencies;
+    private final int capacity;
+    private final Map<String, Long> candidates = new HashMap<>();
+    /**
+     * Frequency not higher than frequency of any candidate, values with lower estimate are skipped without looking
+     * for the least frequent candidate.
+     */
+    private long lowestCandidate;
+
+    /**
+     * @param capacity the highest amount of kept candidates, top values are answered only up to this amount.
+     */
+    public HeavyHitters(CountMinSketch frequencies, int capacity) {
+
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+
+        this.frequencies = frequencies;
+        this.capacity = capacity;
+    }
+
+    /**
+     * @param count amount of occurrences of value, negative count removes occurrences which were added before.
+     */
+    public void add(String value, long count) {
+
+        long hash = Hashing.hash(value);
+        frequencies.addHash(hash, count);
+        long estimate = frequencies.estimateHash(hash);
+
+        if (candidates.containsKey(value) || candidates.size() < capacity) {
+            candidates.put(value, estimate);
+            lowestCandidate = candidates.size() == 1 ? estimate : Math.min(lowestCandidate, estimate);
+        } else if (estimate > lowestCandidate) {
+            var lowest = lowestCandidateValue();
+            if (estimate > candidates.get(lowest)) {
+                candidates.remove(lowest);
+                candidates.put(value, estimate);
+            }
+            lowestCandidate = candidates.get(lowestCandidateValue());
+        }
+    }
+
+    public long estimate(String value) {
+        return frequencies.estimate(value);
+    }
+
+    /**
+     * @param amount amount of values.
+     * @return the most frequent values with their estimated frequencies from the most frequent, equally frequent
+     * values are ordered by name.
+     */
+    public Map<String, Long> top(int amount) {
+
+        if (amount < 0) {
+            throw new IllegalArgumentException("Amount can't be negative");
+        }
+
+        var top = new LinkedHashMap<String, Long>();
+        candidates
+                .keySet()
+                .stream()
+                .map(value -> Map.entry(value, frequencies.estimate(value)))
+                .filter(entry -> entry.getValue() > 0)
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(amount)
+                .forEach(entry -> top.put(entry.getKey(), entry.getValue()));
+        return top;
+    }
+
+    /**
+     * Method adds all values of other sketch to this one, candidates of both sketches are estimated again from
+     * merged frequencies.
+     * @param other sketch with the same capacity and sketch of frequencies.
+     * @return this sketch.
+     */
+    public HeavyHitters merge(HeavyHitters other) {
+
+        if (other.capacity != capacity) {
+            throw new IllegalArgumentException("Only sketches with the same capacity can be merged");
+        }
+
+        frequencies.merge(other.frequencies);
+        candidates.putAll(other.candidates);
+        var kept = top(capacity);
+        candidates.clear();
+        candidates.putAll(kept);
+        lowestCandidate = candidates.isEmpty() ? 0 : candidates.get(lowestCandidateValue());
+
+        return this;
+    }
+
+    public long total() {
+        return frequencies.total();
+    }
+
+    public HeavyHitters copy() {
+        var copy = new HeavyHitters(frequencies.copy(), capacity);
+        copy.candidates.putAll(candidates);
+        copy.lowestCandidate = lowestCandidate;
+        return copy;
+    }
+
+    public void writeTo(DataOutput output) throws IOException {
+        frequencies.writeTo(output);
+        output.writeInt(capacity);
+        output.writeInt(candidates.size());
+        for (var candidate : candidates.entrySet()) {
+            output.writeUTF(candidate.getKey());
+            output.writeLong(candidate.getValue());
+        }
+    }
+
+    public static HeavyHitters readFrom(DataInput input) throws IOException {
+
+        var sketch = new HeavyHitters(CountMinSketch.readFrom(input), input.readInt());
+        int size = input.readInt();
+        if (size < 0 || size > sketch.capacity) {
+            throw new IllegalArgumentException("Sketch can't have " + size + " candidates");
+        }
+        for (int i = 0; i < size; i++) {
+            sketch.candidates.put(input.readUTF(), input.readLong());
+        }
+        sketch.lowestCandidate = size == 0 ? 0 : sketch.candidates.get(sketch.lowestCandidateValue());
+
+        return sketch;
+    }
+
+    private String lowestCandidateValue() {
+        return candidates
+                .entrySet()
+                .stream()
+                .min(Map.Entry.comparingByValue())
+                .orElseThrow()
+                .getKey();
+    }
+}
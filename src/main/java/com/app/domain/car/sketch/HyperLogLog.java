@@ -0,0 +1,133 @@
+package com.app.domain.car.sketch;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Mergeable sketch of amount of distinct values. Every value is hashed to one of 2^precision registers which keeps
+ * the longest run of leading zeros seen in rest of hash, amount of values is estimated from harmonic mean of
+ * registers and small amounts are counted from empty registers. Standard error of estimate is 1.04 / sqrt(2^precision)
+ * independently of amount of values, sketch takes 2^precision bytes. Values can't be removed from sketch.
+ */
+public class HyperLogLog {
+
+    public static final int MIN_PRECISION = 4;
+    public static final int MAX_PRECISION = 18;
+
+    private final int precision;
+    private final byte[] registers;
+
+    /**
+     * @param precision amount of bits of hash choosing register, from 4 to 18.
+     */
+    public HyperLogLog(int precision) {
+
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("Precision must be from " + MIN_PRECISION + " to " + MAX_PRECISION);
+        }
+
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    /**
+     * @param relativeError the highest standard error of estimate, from 0 to 1 exclusive.
+     * @return the smallest sketch with given standard error, or more precise when error is below reach of
+     * the highest precision.
+     */
+    public static HyperLogLog withRelativeError(double relativeError) {
+
+        if (!(relativeError > 0 && relativeError < 1)) {
+            throw new IllegalArgumentException("Relative error must be between 0 and 1");
+        }
+
+        double registers = Math.pow(1.04 / relativeError, 2);
+        int precision = (int) Math.ceil(Math.log(registers) / Math.log(2));
+        return new HyperLogLog(Math.max(MIN_PRECISION, Math.min(MAX_PRECISION, precision)));
+    }
+
+    public void add(String value) {
+        addHash(Hashing.hash(value));
+    }
+
+    public void addHash(long hash) {
+
+        int register = (int) (hash >>> (Long.SIZE - precision));
+        int rank = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+
+        if (rank > registers[register]) {
+            registers[register] = (byte) rank;
+        }
+    }
+
+    /**
+     * Method adds all values of other sketch to this one.
+     * @param other sketch with the same precision.
+     * @return this sketch.
+     */
+    public HyperLogLog merge(HyperLogLog other) {
+
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Only sketches with the same precision can be merged");
+        }
+
+        for (int i = 0; i < registers.length; i++) {
+            registers[i] = (byte) Math.max(registers[i], other.registers[i]);
+        }
+
+        return this;
+    }
+
+    /**
+     * @return estimated amount of distinct values added to sketch.
+     */
+    public long estimate() {
+
+        double sum = 0;
+        int emptyRegisters = 0;
+        for (var register : registers) {
+            sum += Math.scalb(1.0, -register);
+            if (register == 0) {
+                emptyRegisters++;
+            }
+        }
+
+        double size = registers.length;
+        double estimate = 0.7213 / (1 + 1.079 / size) * size * size / sum;
+
+        if (estimate <= 2.5 * size && emptyRegisters > 0) {
+            estimate = size * Math.log(size / emptyRegisters);
+        }
+
+        return Math.round(estimate);
+    }
+
+    public double relativeError() {
+        return 1.04 / Math.sqrt(registers.length);
+    }
+
+    public int precision() {
+        return precision;
+    }
+
+    public HyperLogLog copy() {
+        var copy = new HyperLogLog(precision);
+        System.arraycopy(registers, 0, copy.registers, 0, registers.length);
+        return copy;
+    }
+
+    public void writeTo(DataOutput output) throws IOException {
+        output.writeByte(precision);
+        output.write(registers);
+    }
+
+    /**
+     * @return sketch written by {@link #writeTo(DataOutput)} or IllegalArgumentException when precision is not valid.
+     */
+    public static HyperLogLog readFrom(DataInput input) throws IOException {
+        var sketch = new HyperLogLog(input.readByte());
+        input.readFully(sketch.registers);
+        return sketch;
+    }
+}
@@ -0,0 +1,204 @@
+package com.app.domain.car.sketch;
+
+/**
+ * Mergeable sketch of distribution of values answering quantiles with relative error. Values are counted in buckets
+ * with logarithmic bounds like in DDSketch, so every quantile differs from exact one by at most relative accuracy
+ * of its value, independently of amount of values. Sketches of separate parts of data merged together answer the
+ * same as one sketch of all data.
+ */
+public class QuantileSketch {
+
+    public static final double DEFAULT_RELATIVE_ACCURACY = 0.01;
+
+    private final double relativeAccuracy;
+    private final double gamma;
+    private final double logGamma;
+    private final Buckets positive = new Buckets();
+    private final Buckets negative = new Buckets();
+    private long zeroCount;
+    private long count;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public QuantileSketch() {
+        this(DEFAULT_RELATIVE_ACCURACY);
+    }
+
+    /**
+     * @param relativeAccuracy the highest relative error of quantile, from 0 to 1 exclusive.
+     */
+    public QuantileSketch(double relativeAccuracy) {
+
+        if (!(relativeAccuracy > 0 && relativeAccuracy < 1)) {
+            throw new IllegalArgumentException("Relative accuracy must be between 0 and 1");
+        }
+
+        this.relativeAccuracy = relativeAccuracy;
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+    }
+
+    /**
+     * Method adds value to sketch, NaN is ignored and values closer to zero than {@link Double#MIN_NORMAL} are
+     * counted as zero.
+     */
+    public void add(double value) {
+
+        if (Double.isNaN(value)) {
+            return;
+        }
+
+        if (value >= Double.MIN_NORMAL) {
+            positive.add(index(value), 1);
+        } else if (value <= -Double.MIN_NORMAL) {
+            negative.add(index(-value), 1);
+        } else {
+            zeroCount++;
+        }
+        count++;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Method adds all values of other sketch to this one.
+     * @param other sketch with the same relative accuracy.
+     * @return this sketch.
+     */
+    public QuantileSketch merge(QuantileSketch other) {
+
+        if (other.relativeAccuracy != relativeAccuracy) {
+            throw new IllegalArgumentException("Only sketches with the same relative accuracy can be merged");
+        }
+
+        positive.addAll(other.positive);
+        negative.addAll(other.negative);
+        zeroCount += other.zeroCount;
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+
+        return this;
+    }
+
+    /**
+     * Quantile is taken with nearest rank method, so it is always one of added values up to relative accuracy.
+     * @param quantile quantile from 0 to 1.
+     * @return value of given quantile, NaN when sketch is empty.
+     */
+    public double quantile(double quantile) {
+
+        if (quantile < 0 || quantile > 1) {
+            throw new IllegalArgumentException("Quantile must be from 0 to 1");
+        }
+        if (count == 0) {
+            return Double.NaN;
+        }
+
+        long rank = Math.max(0, (long) Math.ceil(quantile * count) - 1);
+        long seen = 0;
+
+        for (int index = negative.maxIndex(); index >= negative.minIndex(); index--) {
+            seen += negative.count(index);
+            if (seen > rank) {
+                return clamp(-value(index));
+            }
+        }
+
+        seen += zeroCount;
+        if (seen > rank) {
+            return clamp(0);
+        }
+
+        for (int index = positive.minIndex(); index <= positive.maxIndex(); index++) {
+            seen += positive.count(index);
+            if (seen > rank) {
+                return clamp(value(index));
+            }
+        }
+
+        return max;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public double relativeAccuracy() {
+        return relativeAccuracy;
+    }
+
+    /**
+     * Infinite values are counted in bucket of the highest finite value.
+     */
+    private int index(double value) {
+        return (int) Math.ceil(Math.log(Math.min(value, Double.MAX_VALUE)) / logGamma);
+    }
+
+    /**
+     * @return value in bucket with given index which has the same relative distance to both bucket bounds.
+     */
+    private double value(int index) {
+        return 2 * Math.pow(gamma, index) / (gamma + 1);
+    }
+
+    private double clamp(double value) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    /**
+     * Counts of buckets with consecutive indexes kept in one array, which grows when index out of it is added.
+     */
+    private static class Buckets {
+
+        private long[] counts = new long[0];
+        private int offset;
+
+        private void add(int index, long count) {
+            ensureCapacity(index);
+            counts[index - offset] += count;
+        }
+
+        private void addAll(Buckets other) {
+            for (int i = 0; i < other.counts.length; i++) {
+                if (other.counts[i] != 0) {
+                    add(other.offset + i, other.counts[i]);
+                }
+            }
+        }
+
+        private long count(int index) {
+            return counts[index - offset];
+        }
+
+        private int minIndex() {
+            return offset;
+        }
+
+        private int maxIndex() {
+            return offset + counts.length - 1;
+        }
+
+        private void ensureCapacity(int index) {
+
+            if (counts.length == 0) {
+                counts = new long[16];
+                offset = index - counts.length / 2;
+                return;
+            }
+
+            if (index >= offset && index < offset + counts.length) {
+                return;
+            }
+
+            int newMin = Math.min(offset, index);
+            int newMax = Math.max(offset + counts.length - 1, index);
+            int length = Math.max(newMax - newMin + 1, counts.length * 2);
+            int newOffset = index < offset ? newMax - length + 1 : newMin;
+            var newCounts = new long[length];
+            System.arraycopy(counts, 0, newCounts, offset - newOffset, counts.length);
+            counts = newCounts;
+            offset = newOffset;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.app.domain.car.sketch;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Error bounds of approximate answers, every setting which is not given has its default value. Only sketches built
+ * with the same settings can be merged.
+ */
+@Value
+@Builder
+public class SketchSettings {
+
+    public static final SketchSettings DEFAULT = SketchSettings.builder().build();
+
+    /**
+     * Standard error of amount of distinct values as part of exact amount.
+     */
+    @Builder.Default
+    double distinctRelativeError = 0.01;
+
+    /**
+     * The highest overestimate of frequency of value as part of amount of all counted values.
+     */
+    @Builder.Default
+    double frequencyRelativeError = 0.001;
+
+    /**
+     * Probability that frequency of value keeps its relative error.
+     */
+    @Builder.Default
+    double frequencyConfidence = 0.99;
+
+    /**
+     * Amount of the most frequent values which can be answered.
+     */
+    @Builder.Default
+    int heavyHitters = 100;
+
+    public HyperLogLog distinctValues() {
+        return HyperLogLog.withRelativeError(distinctRelativeError);
+    }
+
+    public HeavyHitters frequentValues() {
+        return new HeavyHitters(new CountMinSketch(frequencyRelativeError, frequencyConfidence), heavyHitters);
+    }
+}
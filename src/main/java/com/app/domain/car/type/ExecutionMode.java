@@ -0,0 +1,6 @@
+package com.app.domain.car.type;
+
+public enum ExecutionMode {
+
+    SEQUENTIAL, PARALLEL
+}
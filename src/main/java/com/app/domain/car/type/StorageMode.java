@@ -0,0 +1,6 @@
+package com.app.domain.car.type;
+
+public enum StorageMode {
+
+    HEAP, OFF_HEAP
+}
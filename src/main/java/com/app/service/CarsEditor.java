@@ -0,0 +1,28 @@
+package com.app.service;
+
+import com.app.domain.car.Car;
+
+import java.math.BigDecimal;
+
+/**
+ * Changes of cars collected in one batch of {@link ConcurrentCarsService#edit(java.util.function.Consumer)},
+ * all of them are published together as one new version.
+ */
+public interface CarsEditor {
+
+    /**
+     * @return id given to added car.
+     */
+    long add(Car car);
+
+    void update(long id, Car car);
+
+    void updatePrice(long id, BigDecimal price);
+
+    void updateMileage(long id, double mileage);
+
+    /**
+     * @return true when car was removed, false when there was no car with given id.
+     */
+    boolean remove(long id);
+}
@@ -0,0 +1,81 @@
+package com.app.service;
+
+import com.app.domain.car.Car;
+import com.app.domain.car.CarPage;
+import com.app.domain.car.CarQuery;
+import com.app.domain.car.CarSketches;
+import com.app.domain.car.CarStatistic;
+import com.app.domain.car.type.Color;
+import com.app.domain.car.type.SortingType;
+import com.app.domain.car.type.StatisticAttribute;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Flow;
+import java.util.stream.Stream;
+
+/**
+ * Read only queries about one data set of cars. They are answered by {@link CarsService}, decorators add features
+ * like metrics around it without changing results.
+ */
+public interface CarsQueries {
+
+    List<Car> sortingByGivenOrder(SortingType sortingType, boolean descending);
+
+    List<Car> sortingByGivenOrder(SortingType sortingType, boolean descending, int offset, int limit);
+
+    List<Car> getTopCars(SortingType sortingType, boolean descending, int k);
+
+    Map<String, List<Car>> getTopCarsForEveryModel(SortingType sortingType, boolean descending, int k);
+
+    Map<Color, List<Car>> getTopCarsForEveryColor(SortingType sortingType, boolean descending, int k);
+
+    List<Car> findAllWithMileageGreaterThan(double mileage);
+
+    int countWithMileageGreaterThan(double mileage);
+
+    Map<Color, Long> returnAmountOfCarsForAllColors();
+
+    Map<String, Car> returnMostExpensiveCarForEveryModel();
+
+    CarStatistic getStatisticForGivenAttribute(StatisticAttribute statisticAttribute);
+
+    CarStatistic getStatisticForAllAttributes();
+
+    Car getTheMostExpensiveCar();
+
+    List<Car> sortAlphabeticalComponentList();
+
+    List<Car> getCarsWithGivenPriceRange(BigDecimal minPrice, BigDecimal maxPrice);
+
+    int countWithGivenPriceRange(BigDecimal minPrice, BigDecimal maxPrice);
+
+    Map<String, List<Car>> groupByComponent();
+
+    List<Car> findAllWithAllComponents(Collection<String> components);
+
+    List<Car> findAllWithAnyComponent(Collection<String> components);
+
+    List<Car> find(CarQuery query);
+
+    Stream<Car> stream(CarQuery query);
+
+    CarPage findPage(CarQuery query, String pageToken);
+
+    Flow.Publisher<Car> publish(CarQuery query);
+
+    /**
+     * @return sketches answering approximate amounts of distinct and the most frequent models and components.
+     */
+    CarSketches sketches();
+
+    /**
+     * @return version of data set, it is higher after every change of cars.
+     */
+    long version();
+
+    Optional<Car> findById(long id);
+}
@@ -1,27 +1,167 @@
 package com.app.service;
 
 import com.app.domain.car.Car;
+import com.app.domain.car.CarAggregates;
+import com.app.domain.car.CarChanges;
+import com.app.domain.car.CarColumnStore;
+import com.app.domain.car.CarComponentIndex;
+import com.app.domain.car.CarKeyset;
+import com.app.domain.car.CarPage;
+import com.app.domain.car.CarQuery;
+import com.app.domain.car.CarQueryPlan;
+import com.app.domain.car.CarRangeIndex;
+import com.app.domain.car.CarScan;
+import com.app.domain.car.CarSketcher;
+import com.app.domain.car.CarSketches;
+import com.app.domain.car.CarSnapshot;
+import com.app.domain.car.CarSortIndex;
 import com.app.domain.car.CarStatistic;
-import com.app.domain.car.CarUtils;
+import com.app.domain.car.CarStatisticScan;
+import com.app.domain.car.CarTopK;
 import com.app.domain.car.Statistic;
 import com.app.domain.car.type.SortingType;
 
 import com.app.domain.car.type.Color;
+import com.app.domain.car.type.ExecutionMode;
 import com.app.domain.car.type.StatisticAttribute;
 import com.app.service.exception.CarsServiceException;
-import org.eclipse.collections.impl.collector.Collectors2;
+import com.app.service.metrics.ScannedRows;
+import com.app.service.stream.CarPublisher;
+import com.app.service.stream.PageToken;
 
 import java.math.BigDecimal;
+import java.math.MathContext;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import java.util.List;
-import java.util.stream.Collectors;
 
-public class CarsService {
+public class CarsService implements CarsQueries {
 
-    private List<Car> cars;
+    private final CarColumnStore cars;
+    private final long version;
+    private volatile CarComponentIndex componentIndex;
+    private volatile CarAggregates aggregates;
+    private volatile CarSketches sketches;
+    private final CarSortIndex sortIndex;
+    private final CarRangeIndex rangeIndex;
+    private final CarScan scan;
 
+    /**
+     * Prices are stored as fixed-point values with {@link CarColumnStore#PRICE_SCALE} decimal places, so returned
+     * cars have prices equal by {@link BigDecimal#compareTo(BigDecimal)} to given ones, but without trailing zeros in
+     * fraction part, price 10.50 is returned as 10.5.
+     * @param cars cars with model, price and color.
+     * @throws CarsServiceException when any car has no model, price or color or its price has more decimal places
+     * than store keeps.
+     */
     public CarsService(List<Car> cars) {
+        this(storeOf(cars));
+    }
+
+    /**
+     * @return store with given cars or CarsServiceException when any car can't be stored.
+     */
+    static CarColumnStore storeOf(List<Car> cars) {
+        try {
+            return CarColumnStore.of(cars);
+        } catch (IllegalArgumentException e) {
+            throw new CarsServiceException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Method opens service over snapshot saved with {@link #saveSnapshot(Path)}, columns are not read but mapped
+     * to memory so service is ready without parsing whole file.
+     * @param file path of snapshot file.
+     * @return service reading cars from mapped snapshot.
+     */
+    public static CarsService openSnapshot(Path file) {
+        return new CarsService(CarSnapshot.open(file));
+    }
+
+    public CarsService(CarColumnStore cars) {
+        this(cars, 0);
+    }
+
+    /**
+     * @param cars store with cars, service never changes it.
+     * @param version version of data set, services created for next versions of the same data set have higher one.
+     */
+    public CarsService(CarColumnStore cars, long version) {
+        this(cars, version, null);
+    }
+
+    /**
+     * @param cars store with cars, service never changes it.
+     * @param version version of data set.
+     * @param aggregates aggregates of given cars maintained by writer or null when they should be counted from store
+     * on first use.
+     */
+    public CarsService(CarColumnStore cars, long version, CarAggregates aggregates) {
+        this(cars, version, aggregates, CarScan.SEQUENTIAL);
+    }
+
+    /**
+     * @param cars store with cars, service never changes it.
+     * @param mode decides if scans, sorts and aggregates are run in one thread or split between threads of
+     * shared fork-join pool, results are the same in both modes.
+     */
+    public CarsService(CarColumnStore cars, ExecutionMode mode) {
+        this(cars, 0, null, CarScan.of(mode));
+    }
+
+    /**
+     * @param cars store with cars, service never changes it.
+     * @param version version of data set.
+     * @param aggregates aggregates of given cars or null when they should be counted from store on first use.
+     * @param scan runs scans of store rows.
+     */
+    public CarsService(CarColumnStore cars, long version, CarAggregates aggregates, CarScan scan) {
+        this(cars, version, aggregates, null, scan);
+    }
+
+    /**
+     * @param cars store with cars, service never changes it.
+     * @param version version of data set.
+     * @param aggregates aggregates of given cars or null when they should be counted from store on first use.
+     * @param sketches sketches of given cars maintained while they were loaded or changed, or null when they should
+     * be built from store on first use.
+     * @param scan runs scans of store rows.
+     */
+    public CarsService(CarColumnStore cars, long version, CarAggregates aggregates, CarSketches sketches, CarScan scan) {
+        this(cars, version, aggregates, sketches, scan, new CarSortIndex(cars, scan), null);
+    }
+
+    private CarsService(CarColumnStore cars, long version, CarAggregates aggregates, CarSketches sketches,
+                        CarScan scan, CarSortIndex sortIndex, CarComponentIndex componentIndex) {
         this.cars = cars;
+        this.version = version;
+        this.aggregates = aggregates;
+        this.sketches = sketches;
+        this.scan = scan;
+        this.sortIndex = sortIndex;
+        this.rangeIndex = new CarRangeIndex(cars, sortIndex);
+        this.componentIndex = componentIndex;
+    }
+
+    /**
+     * Method creates service of next version of cars. Sort permutations and component postings already built by
+     * this service are patched for new store instead of being built again.
+     * @param cars store built from store of this service.
+     * @param changes changes made while store was built.
+     * @param aggregates aggregates of given cars maintained by writer.
+     * @param sketches sketches of given cars maintained by writer.
+     * @return service of given cars with next version.
+     */
+    public CarsService next(CarColumnStore cars, CarChanges changes, CarAggregates aggregates, CarSketches sketches) {
+        var index = componentIndex;
+        return new CarsService(cars, version + 1, aggregates, sketches, scan, sortIndex.patch(cars, changes),
+                index == null ? null : index.patch(cars, changes));
     }
 
 
@@ -32,28 +172,129 @@ public class CarsService {
      * parameter and possibility to chose descending or ascending sorting.
      * @param sortingType Enum decide according to what collection should be sorted
      * @param descending boolean decide about ascending or descending order or collection
-     * @return sorted List by given parameters.
+     * @return sorted read only List by given parameters.
      */
+    @Override
     public List<Car> sortingByGivenOrder(SortingType sortingType, boolean descending) {
 
         if (sortingType == null) {
             throw new IllegalStateException("Sorting Type is null");
         }
 
-        var sortedCars = switch (sortingType) {
-            case MODEL -> cars.stream().sorted(CarUtils.compareByModel);
-            case COLOR -> cars.stream().sorted(CarUtils.compareByColor);
-            case PRICE -> cars.stream().sorted(CarUtils.compareByPrice);
-            default -> cars.stream().sorted(CarUtils.compareByMileage);
-        };
+        scannedWhileSorting(sortingType);
 
-        var sortedCarsCollection = sortedCars.collect(Collectors.toList());
+        return sortIndex.cars(sortingType, descending);
+    }
 
-        if (descending) {
-            Collections.reverse(sortedCarsCollection);
+    /**
+     * Method provide ability to take one page of collection sorted by given sortingType, only cars from this page
+     * are created.
+     * @param sortingType Enum decide according to what collection should be sorted
+     * @param descending boolean decide about ascending or descending order or collection
+     * @param offset number of sorted cars to skip
+     * @param limit maximal number of cars on page
+     * @return sorted read only page of cars or CarsServiceException when offset or limit is negative.
+     */
+    @Override
+    public List<Car> sortingByGivenOrder(SortingType sortingType, boolean descending, int offset, int limit) {
+
+        if (offset < 0 || limit < 0) {
+            throw new CarsServiceException("Offset and limit can't be negative");
+        }
+
+        var sortedCars = sortingByGivenOrder(sortingType, descending);
+        int from = Math.min(offset, sortedCars.size());
+        int to = (int) Math.min((long) from + limit, sortedCars.size());
+        ScannedRows.add(to - from);
+
+        return sortedCars.subList(from, to);
+    }
+
+    /**
+     * Method selects first k cars of collection sorted by given sortingType, like the most expensive or the lowest
+     * mileage cars. Cars are selected with bounded heap, whole collection is sorted only when the same order was
+     * already sorted before.
+     * @param sortingType Enum decide according to what collection should be sorted
+     * @param descending true for the highest values, false for the lowest
+     * @param k maximal number of selected cars
+     * @return first k cars in sorted order or CarsServiceException when sortingType is null or k is negative.
+     */
+    @Override
+    public List<Car> getTopCars(SortingType sortingType, boolean descending, int k) {
+
+        validateTopCars(sortingType, k);
+
+        if (sortIndex.isBuilt(sortingType)) {
+            return new ArrayList<>(sortingByGivenOrder(sortingType, descending, 0, k));
         }
 
-        return sortedCarsCollection;
+        var rows = CarTopK.rows(cars, sortingType, descending, k, scan);
+        ScannedRows.add(cars.size());
+
+        return cars.cars(rows, rows.length);
+    }
+
+    /**
+     * Method selects first k cars of every model sorted by given sortingType.
+     * @param sortingType Enum decide according to what cars of every model should be sorted
+     * @param descending true for the highest values, false for the lowest
+     * @param k maximal number of selected cars of every model
+     * @return first k cars of every model in sorted order or CarsServiceException when sortingType is null or k
+     * is negative.
+     */
+    @Override
+    public Map<String, List<Car>> getTopCarsForEveryModel(SortingType sortingType, boolean descending, int k) {
+
+        validateTopCars(sortingType, k);
+
+        var rows = CarTopK.rowsByGroup(cars, sortingType, descending, k, cars.modelCount(), cars::modelId, scan);
+        ScannedRows.add(cars.size());
+
+        var topCars = new HashMap<String, List<Car>>();
+        for (int model = 0; model < rows.length; model++) {
+            if (rows[model].length > 0) {
+                topCars.put(cars.modelName(model), cars.cars(rows[model], rows[model].length));
+            }
+        }
+
+        return topCars;
+    }
+
+    /**
+     * Method selects first k cars of every color sorted by given sortingType.
+     * @param sortingType Enum decide according to what cars of every color should be sorted
+     * @param descending true for the highest values, false for the lowest
+     * @param k maximal number of selected cars of every color
+     * @return first k cars of every color in sorted order or CarsServiceException when sortingType is null or k
+     * is negative.
+     */
+    @Override
+    public Map<Color, List<Car>> getTopCarsForEveryColor(SortingType sortingType, boolean descending, int k) {
+
+        validateTopCars(sortingType, k);
+
+        var colors = Color.values();
+        var rows = CarTopK.rowsByGroup(cars, sortingType, descending, k, colors.length, cars::colorOrdinal, scan);
+        ScannedRows.add(cars.size());
+
+        var topCars = new EnumMap<Color, List<Car>>(Color.class);
+        for (var color : colors) {
+            if (rows[color.ordinal()].length > 0) {
+                topCars.put(color, cars.cars(rows[color.ordinal()], rows[color.ordinal()].length));
+            }
+        }
+
+        return topCars;
+    }
+
+    private static void validateTopCars(SortingType sortingType, int k) {
+
+        if (sortingType == null) {
+            throw new CarsServiceException("Sorting Type is null");
+        }
+        if (k < 0) {
+            throw new CarsServiceException("Amount of selected cars can't be negative");
+        }
     }
 
     /**
@@ -63,15 +304,36 @@ public class CarsService {
      * @return List of cars with higher mileage than given as parameter or CarServiceException
      * when mileage parameter is negative value.
      */
+    @Override
     public List<Car> findAllWithMileageGreaterThan(double mileage) {
 
         if (mileage <= 0){
             throw new CarsServiceException("Mileage must have positive value");
         }
 
-        return cars.stream()
-                .filter(car -> car.hasMileageGreaterThan(mileage))
-                .collect(Collectors.toList());
+        scannedWhileSorting(SortingType.MILEAGE);
+        var rows = rangeIndex.rowsInMileageRange(rangeIndex.mileageRange(mileage));
+        ScannedRows.add(rows.length);
+
+        return cars.cars(rows, rows.length);
+    }
+
+    /**
+     * Method count cars with higher mileage than given as parameter without selecting them.
+     * @param mileage double value above which cars would be counted
+     * @return amount of cars with higher mileage or CarServiceException when mileage parameter is negative value.
+     */
+    @Override
+    public int countWithMileageGreaterThan(double mileage) {
+
+        if (mileage <= 0){
+            throw new CarsServiceException("Mileage must have positive value");
+        }
+
+        scannedWhileSorting(SortingType.MILEAGE);
+        var range = rangeIndex.mileageRange(mileage);
+
+        return range[1] - range[0];
     }
 
     /**
@@ -79,26 +341,36 @@ public class CarsService {
      * every color.
      * @return collection grouped by Cars colors with amount of cars for every color.
      */
+    @Override
     public Map<Color, Long> returnAmountOfCarsForAllColors() {
-        return cars.stream()
-                .collect(Collectors.groupingByConcurrent(CarUtils.toColor, Collectors.counting()))
-                .entrySet()
-                .stream()
-                .sorted(Map.Entry.comparingByValue(Comparator.reverseOrder()))
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, Long::max, LinkedHashMap::new));
+
+        var aggregates = aggregates();
+        var colors = Color.values().clone();
+        Arrays.sort(colors, Comparator.comparingLong(aggregates::colorCount).reversed());
+
+        var amountOfCars = new LinkedHashMap<Color, Long>();
+        for (var color : colors) {
+            if (aggregates.colorCount(color) > 0) {
+                amountOfCars.put(color, aggregates.colorCount(color));
+            }
+        }
+
+        return amountOfCars;
     }
 
 
     /**
      * Method provide ability to select the mose expensive car for every car model.
-     * @return collection of cars where for every model have selected the mose expensive car or CarServiceException
-     * if there is no possibility of finding the most expensive car.
+     * @return collection of cars where for every model have selected the mose expensive car.
      */
+    @Override
     public Map<String, Car> returnMostExpensiveCarForEveryModel() {
-        return cars.stream()
-                .collect(Collectors.groupingBy(CarUtils.toModel, Collectors.collectingAndThen(
-                        Collectors.maxBy(Comparator.comparing(CarUtils.toPrice)),
-                        highestPriceCar -> highestPriceCar.orElseThrow(() -> new CarsServiceException("Cannot find the most expensive car")))));
+
+        var mostExpensiveCars = new HashMap<String, Car>();
+        aggregates().mostExpensiveByModel().forEach((model, id) -> mostExpensiveCars.put(model, cars.car(cars.rowOf(id))));
+        ScannedRows.add(mostExpensiveCars.size());
+
+        return mostExpensiveCars;
     }
 
 
@@ -108,6 +380,7 @@ public class CarsService {
      * @param statisticAttribute Enum decide which statistic should be counted.
      * @return cars statistics for given as parameter required attribute.
      */
+    @Override
     public CarStatistic getStatisticForGivenAttribute(StatisticAttribute statisticAttribute){
 
         if (Objects.isNull(statisticAttribute)){
@@ -123,33 +396,62 @@ public class CarsService {
         };
     }
 
+    /**
+     * Method counts statistic of both price and mileage in one scan of collection. Besides minimal, maximal and
+     * average value it contains sum, count, standard deviation, median, 90th and 99th percentile and histogram
+     * with {@link CarStatisticScan#DEFAULT_HISTOGRAM_BUCKETS} buckets of equal width.
+     * @return cars statistics with both price and mileage filled.
+     */
+    @Override
+    public CarStatistic getStatisticForAllAttributes() {
+
+        // aggregates aren't counted only for statistic, scan counts minimal, maximal values and sums itself and
+        // histograms are counted by second pass over price and mileage columns
+        var known = aggregates;
+        var statistic = CarStatisticScan.of(cars, known, scan, CarStatisticScan.DEFAULT_HISTOGRAM_BUCKETS);
+        ScannedRows.add(known == null ? 2L * cars.size() : cars.size());
+
+        return statistic;
+    }
+
     private CarStatistic getMileageStatistic() {
 
-        var mileageStatistic = cars.stream().collect(Collectors.summarizingDouble(CarUtils.toMileage::apply));
+        var aggregates = aggregates();
 
         return CarStatistic
                 .builder()
                 .mileage(Statistic
                         .<Double>
                         builder()
-                        .min(mileageStatistic.getMin())
-                        .max(mileageStatistic.getMax())
-                        .average(mileageStatistic.getAverage())
+                        .min(aggregates.minMileage())
+                        .max(aggregates.maxMileage())
+                        .average(aggregates.count() == 0 ? 0 : aggregates.mileageSum() / aggregates.count())
+                        .sum(aggregates.mileageSum())
+                        .count(aggregates.count())
                         .build())
                 .build();
     }
 
     private CarStatistic getPriceStatistic() {
 
-        var priceStatistic = cars.stream().collect(Collectors2.summarizingBigDecimal(CarUtils.toPrice::apply));
+        var aggregates = aggregates();
+
+        if (aggregates.count() == 0) {
+            return CarStatistic
+                    .builder()
+                    .price(Statistic.<BigDecimal>builder().average(BigDecimal.ZERO).sum(BigDecimal.ZERO).count(0L).build())
+                    .build();
+        }
 
         return CarStatistic
                 .builder()
                 .price(Statistic
                         .<BigDecimal>builder()
-                        .min(priceStatistic.getMin())
-                        .max(priceStatistic.getMax())
-                        .average(priceStatistic.getAverage())
+                        .min(CarColumnStore.toPrice(aggregates.minPrice()))
+                        .max(CarColumnStore.toPrice(aggregates.maxPrice()))
+                        .average(aggregates.priceSum().divide(BigDecimal.valueOf(aggregates.count()), MathContext.DECIMAL128))
+                        .sum(aggregates.priceSum())
+                        .count(aggregates.count())
                         .build())
                 .build();
 
@@ -160,27 +462,37 @@ public class CarsService {
      * Method select the most expensive car from whole collection
      * @return the most expensive car in collection of cars or CarsServiceException if there is any.
      */
+    @Override
     public Car getTheMostExpensiveCar() {
 
-        return cars
-                .stream()
-                .collect(Collectors.groupingBy(CarUtils.toPrice))
-                .entrySet()
-                .stream()
-                .max(Map.Entry.comparingByKey())
-                .orElseThrow(() -> new CarsServiceException("Can't find the most expensive car"))
-                .getValue().get(0);
+        int mostExpensiveRow = -1;
+        var mostExpensiveByModel = aggregates().mostExpensiveByModel();
+        ScannedRows.add(mostExpensiveByModel.size());
+        for (var id : mostExpensiveByModel.values()) {
+            int row = cars.rowOf(id);
+            if (mostExpensiveRow < 0
+                    || cars.price(row) > cars.price(mostExpensiveRow)
+                    || (cars.price(row) == cars.price(mostExpensiveRow) && row < mostExpensiveRow)) {
+                mostExpensiveRow = row;
+            }
+        }
+
+        if (mostExpensiveRow < 0) {
+            throw new CarsServiceException("Can't find the most expensive car");
+        }
+
+        return cars.car(mostExpensiveRow);
     }
 
     /**
-     * method sort alphabetically list of components for every car.
+     * method sort alphabetically list of components for every car. Components are sorted when car is created, so
+     * view of all cars is returned without sorting or creating anything.
      * @return sorted alphabetically component list.
      */
+    @Override
     public  List<Car> sortAlphabeticalComponentList() {
-        return cars
-                .stream()
-                .map(Car::withSortedComponents)
-                .collect(Collectors.toList());
+
+        return cars.cars();
     }
 
 
@@ -192,8 +504,35 @@ public class CarsService {
      * maximal price given as parameter. Null if any of price is not filled or CarServiceException when minPrice is
      * higher than maxPrice
      */
+    @Override
     public List<Car> getCarsWithGivenPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
 
+        var rows = rangeIndex.rowsInPriceRange(priceRange(minPrice, maxPrice));
+        ScannedRows.add(rows.length);
+
+        scan.sort(rows, rows.length, cars.comparing(SortingType.MODEL));
+
+        return cars.cars(rows, rows.length);
+
+    }
+
+    /**
+     * Method count cars in given price range without selecting them.
+     * @param minPrice BigDecimal the lowest price range for searching.
+     * @param maxPrice BigDecimal the highest price range for searching
+     * @return amount of cars with price higher than minimal price and not higher than maximal price or
+     * CarServiceException when any of price is not filled or minPrice is higher than maxPrice
+     */
+    @Override
+    public int countWithGivenPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
+
+        var range = priceRange(minPrice, maxPrice);
+
+        return range[1] - range[0];
+    }
+
+    private int[] priceRange(BigDecimal minPrice, BigDecimal maxPrice) {
+
         if (Objects.isNull(minPrice)) {
             throw new CarsServiceException("Price can't be null");
         }
@@ -206,12 +545,9 @@ public class CarsService {
             throw new CarsServiceException("Minimal price can't be lowe than maximal price");
         }
 
+        scannedWhileSorting(SortingType.PRICE);
 
-        return cars.stream()
-                .filter(car -> car.hasPriceGreaterThan(minPrice)  && !car.hasPriceGreaterThan(maxPrice))
-                .sorted(Comparator.comparing(CarUtils.toModel))
-                .collect(Collectors.toList());
-
+        return rangeIndex.priceRange(CarColumnStore.toFixedPointFloor(minPrice), CarColumnStore.toFixedPointFloor(maxPrice));
     }
 
     /**
@@ -219,24 +555,280 @@ public class CarsService {
      * @return collections of cars for every component specified car have.
      */
 
+    @Override
     public Map<String, List<Car>> groupByComponent() {
-        return cars
-                .stream()
-                .flatMap(CarUtils.toComponents.andThen(Collection::stream))
-                .distinct()
-                .collect(Collectors.toMap(
-                        component -> component,
-                        component -> cars
-                                .stream()
-                                .filter(car -> car.doesContainComponent(component))
-                                .collect(Collectors.toList())
-                ));
+
+        var carsByComponent = new HashMap<String, List<Car>>();
+        for (int component = 0; component < cars.componentCount(); component++) {
+            var rows = componentIndex().rowsWith(component);
+            ScannedRows.add(rows.length);
+            if (rows.length > 0) {
+                carsByComponent.put(cars.componentName(component), cars.cars(rows, rows.length));
+            }
+        }
+
+        return carsByComponent;
+    }
+
+    /**
+     * Method select cars which have every component from given collection.
+     * @param components names of required components.
+     * @return cars containing all given components or CarsServiceException when components are null or empty.
+     */
+    @Override
+    public List<Car> findAllWithAllComponents(Collection<String> components) {
+
+        if (Objects.isNull(components) || components.isEmpty()) {
+            throw new CarsServiceException("Components can't be empty");
+        }
+
+        var rows = componentIndex().carsWithAll(components);
+        ScannedRows.add(rows.cardinality());
+
+        return cars.cars(rows);
+    }
+
+    /**
+     * Method select cars which have at least one component from given collection.
+     * @param components names of components.
+     * @return cars containing any of given components or CarsServiceException when components are null or empty.
+     */
+    @Override
+    public List<Car> findAllWithAnyComponent(Collection<String> components) {
+
+        if (Objects.isNull(components) || components.isEmpty()) {
+            throw new CarsServiceException("Components can't be empty");
+        }
+
+        var rows = componentIndex().carsWithAny(components);
+        ScannedRows.add(rows.cardinality());
+
+        return cars.cars(rows);
     }
 
+    /**
+     * Method selects cars matching all conditions of given query in one pass, the most selective condition with
+     * index gives candidates and only cars of requested page are created.
+     * @param query conditions, order, page and fields of selected cars.
+     * @return page of matching cars or CarsServiceException when query is null or its bounds are not valid.
+     */
+    @Override
+    public List<Car> find(CarQuery query) {
+
+        var plan = compile(query);
+        var page = plan.execute(scan);
+        ScannedRows.add(plan.rowsExamined());
 
+        return page;
+    }
 
+    /**
+     * Method selects cars matching query lazily, next candidate is checked and next car is created only when
+     * stream needs it, so the first car comes without waiting for the whole result.
+     * @param query conditions, order, page and fields of selected cars.
+     * @return ordered stream of matching cars or CarsServiceException when query is null or its bounds are not
+     * valid.
+     */
+    @Override
+    public Stream<Car> stream(CarQuery query) {
 
+        var matches = compile(query).iterator(scan);
 
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(matches,
+                Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE), false);
+    }
+
+    /**
+     * Method selects one page of cars matching query, limit of query is size of page. Next page continues after
+     * sorted value and id of the last car of this one, so it is found without reading previous pages and token stays
+     * valid when cars are changed.
+     * @param query conditions, order, page size and fields of selected cars, offset is used only by the first page.
+     * @param pageToken token of requested page, null for the first page.
+     * @return page of matching cars with token of next page or CarsServiceException when query is not valid or
+     * token was created for other query.
+     */
+    @Override
+    public CarPage findPage(CarQuery query, String pageToken) {
+
+        validate(query);
+
+        if (query.getLimit() == Integer.MAX_VALUE) {
+            throw new CarsServiceException("Page size must be lower than " + Integer.MAX_VALUE);
+        }
+        var after = Objects.isNull(pageToken) ? null : PageToken.decode(pageToken).positionFor(query);
+        var pageQuery = query
+                .toBuilder()
+                .offset(Objects.isNull(after) ? query.getOffset() : 0)
+                .limit(query.getLimit() + 1)
+                .build();
+
+        var plan = compile(pageQuery, after);
+        var rows = plan.iterator(scan);
+        var page = new ArrayList<Car>(Math.min(query.getLimit(), 1024));
+        while (page.size() < query.getLimit() && rows.hasNext()) {
+            page.add(rows.next());
+        }
+        var last = plan.lastPosition();
+        boolean hasNextPage = rows.hasNext();
+        ScannedRows.add(plan.rowsExamined());
+
+        return CarPage
+                .builder()
+                .cars(page)
+                .nextPageToken(hasNextPage ? PageToken.of(query, last).encode() : null)
+                .build();
+    }
+
+    /**
+     * Method publishes cars matching query to every subscriber as fast as it requests them, cars are delivered on
+     * common fork join pool.
+     * @param query conditions, order, page and fields of selected cars.
+     * @return publisher of matching cars or CarsServiceException when query is null or its bounds are not valid.
+     */
+    @Override
+    public Flow.Publisher<Car> publish(CarQuery query) {
+        return publish(query, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param query conditions, order, page and fields of selected cars.
+     * @param executor runs delivery of cars to subscribers.
+     * @return publisher of matching cars or CarsServiceException when query is null or its bounds are not valid.
+     */
+    public Flow.Publisher<Car> publish(CarQuery query, Executor executor) {
+        validate(query);
+        return new CarPublisher(() -> compile(query).iterator(scan), executor);
+    }
 
+    /**
+     * Sketches are built with default settings when they were not given to constructor.
+     */
+    @Override
+    public CarSketches sketches() {
+        var values = sketches;
+        if (values == null) {
+            values = CarSketcher.of(cars).snapshot();
+            ScannedRows.add(cars.size());
+            sketches = values;
+        }
+        return values;
+    }
+
+    private CarQueryPlan compile(CarQuery query) {
+        return compile(query, null);
+    }
+
+    /**
+     * @param after position of the last car of previous page or null.
+     */
+    private CarQueryPlan compile(CarQuery query, CarKeyset after) {
+
+        validate(query);
+
+        if (Objects.nonNull(query.getMinPrice()) || Objects.nonNull(query.getMaxPrice())
+                || (Objects.nonNull(after) && query.getSortBy() == SortingType.PRICE)) {
+            scannedWhileSorting(SortingType.PRICE);
+        }
+        if (Objects.nonNull(query.getMinMileage()) || Objects.nonNull(query.getMaxMileage())) {
+            scannedWhileSorting(SortingType.MILEAGE);
+        }
+
+        return CarQueryPlan.compile(query, cars, sortIndex, rangeIndex, this::componentIndex, after);
+    }
+
+    /**
+     * Method checks arguments of query which don't depend on cars.
+     * @param query checked query.
+     * @throws CarsServiceException when query is null or its offset, limit or bounds are not valid.
+     */
+    public static void validate(CarQuery query) {
+
+        if (Objects.isNull(query)) {
+            throw new CarsServiceException("Query can't be null");
+        }
+
+        if (query.getOffset() < 0 || query.getLimit() < 0) {
+            throw new CarsServiceException("Offset and limit can't be negative");
+        }
+
+        if (Objects.nonNull(query.getMinPrice()) && Objects.nonNull(query.getMaxPrice())
+                && query.getMinPrice().compareTo(query.getMaxPrice()) > 0) {
+            throw new CarsServiceException("Minimal price can't be higher than maximal price");
+        }
+
+        if (Objects.nonNull(query.getMinMileage()) && Objects.nonNull(query.getMaxMileage())
+                && query.getMinMileage() > query.getMaxMileage()) {
+            throw new CarsServiceException("Minimal mileage can't be higher than maximal mileage");
+        }
+    }
+
+    /**
+     * @return version of data set this service was created for.
+     */
+    @Override
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Method select car with given id.
+     * @param id id of car given when car was added.
+     * @return car with given id or empty when there is no such car.
+     */
+    @Override
+    public Optional<Car> findById(long id) {
+        int row = cars.rowOf(id);
+        ScannedRows.add(row < 0 ? 0 : 1);
+        return row < 0 ? Optional.empty() : Optional.of(cars.car(row));
+    }
+
+    /**
+     * @return store with all cars of this service.
+     */
+    public CarColumnStore store() {
+        return cars;
+    }
+
+    /**
+     * Method saves all cars of this service to binary snapshot file.
+     * @param file path of snapshot file, existing file is replaced.
+     */
+    public void saveSnapshot(Path file) {
+
+        if (Objects.isNull(file)) {
+            throw new CarsServiceException("Snapshot file can't be null");
+        }
+
+        CarSnapshot.save(cars, file);
+    }
+
+    private CarAggregates aggregates() {
+        var values = aggregates;
+        if (values == null) {
+            values = CarAggregates.of(cars, scan);
+            ScannedRows.add(cars.size());
+            aggregates = values;
+        }
+        return values;
+    }
+
+    private CarComponentIndex componentIndex() {
+        var index = componentIndex;
+        if (index == null) {
+            index = CarComponentIndex.of(cars, scan);
+            ScannedRows.add(cars.size());
+            componentIndex = index;
+        }
+        return index;
+    }
+
+    /**
+     * Rows of all cars are read when permutation of given sorting type is built by this call.
+     */
+    private void scannedWhileSorting(SortingType sortingType) {
+        if (!sortIndex.isBuilt(sortingType)) {
+            ScannedRows.add(cars.size());
+        }
+    }
 
 }
@@ -0,0 +1,452 @@
+package com.app.service;
+
+import com.app.domain.car.Car;
+import com.app.domain.car.CarAggregator;
+import com.app.domain.car.CarColumnStore;
+import com.app.domain.car.CarPage;
+import com.app.domain.car.CarQuery;
+import com.app.domain.car.CarScan;
+import com.app.domain.car.CarSketcher;
+import com.app.domain.car.CarSketches;
+import com.app.domain.car.CarStatistic;
+import com.app.domain.car.type.Color;
+import com.app.domain.car.type.ExecutionMode;
+import com.app.domain.car.type.SortingType;
+import com.app.domain.car.type.StatisticAttribute;
+import com.app.service.exception.CarsServiceException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Mutable collection of cars. Every published version is immutable {@link CarsService}, readers take current
+ * version with one volatile read and can query it as long as they need while writers are publishing next versions.
+ * Writers copy only segments of current store with changed rows, apply their changes and replace current version
+ * atomically, only writers wait for each other. Aggregates like color counts, the most expensive car of every model
+ * or price and mileage statistic and sketches of models and components are updated with every change, sort
+ * permutations and component postings of current version are patched, so versions get them without scanning cars.
+ * Batch of changes given to {@link #edit(Consumer)} is published as one version, so it is preferred way to apply
+ * many changes.
+ * Queries called on this service are answered by version current at the moment of call.
+ */
+public class ConcurrentCarsService implements CarsQueries {
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final CarScan scan;
+    private CarAggregator aggregator;
+    private CarSketcher sketcher;
+    private volatile CarsService current;
+    private CarsService latest;
+
+    /**
+     * @param cars first version of cars, stored like cars given to {@link CarsService#CarsService(List)}.
+     * @throws CarsServiceException when any car can't be stored.
+     */
+    public ConcurrentCarsService(List<Car> cars) {
+        this(CarsService.storeOf(cars));
+    }
+
+    public ConcurrentCarsService(CarColumnStore cars) {
+        this(cars, ExecutionMode.SEQUENTIAL);
+    }
+
+    /**
+     * @param cars first version of cars.
+     * @param mode execution mode of every version of cars.
+     */
+    public ConcurrentCarsService(CarColumnStore cars, ExecutionMode mode) {
+        this(cars, 0, mode);
+    }
+
+    /**
+     * @param cars first version of cars.
+     * @param version version of first cars, every published change increments it.
+     * @param mode execution mode of every version of cars.
+     */
+    public ConcurrentCarsService(CarColumnStore cars, long version, ExecutionMode mode) {
+        this.scan = CarScan.of(mode);
+        this.aggregator = CarAggregator.of(cars, scan);
+        this.sketcher = CarSketcher.of(cars);
+        this.current = new CarsService(cars, version, aggregator.snapshot(), sketcher.snapshot(), scan);
+        this.latest = current;
+    }
+
+    /**
+     * @return current version of cars, it never changes even when cars are changed later.
+     */
+    public CarsService snapshot() {
+        return current;
+    }
+
+    @Override
+    public long version() {
+        return current.version();
+    }
+
+    @Override
+    public Optional<Car> findById(long id) {
+        return current.findById(id);
+    }
+
+    @Override
+    public List<Car> sortingByGivenOrder(SortingType sortingType, boolean descending) {
+        return current.sortingByGivenOrder(sortingType, descending);
+    }
+
+    @Override
+    public List<Car> sortingByGivenOrder(SortingType sortingType, boolean descending, int offset, int limit) {
+        return current.sortingByGivenOrder(sortingType, descending, offset, limit);
+    }
+
+    @Override
+    public List<Car> getTopCars(SortingType sortingType, boolean descending, int k) {
+        return current.getTopCars(sortingType, descending, k);
+    }
+
+    @Override
+    public Map<String, List<Car>> getTopCarsForEveryModel(SortingType sortingType, boolean descending, int k) {
+        return current.getTopCarsForEveryModel(sortingType, descending, k);
+    }
+
+    @Override
+    public Map<Color, List<Car>> getTopCarsForEveryColor(SortingType sortingType, boolean descending, int k) {
+        return current.getTopCarsForEveryColor(sortingType, descending, k);
+    }
+
+    @Override
+    public List<Car> findAllWithMileageGreaterThan(double mileage) {
+        return current.findAllWithMileageGreaterThan(mileage);
+    }
+
+    @Override
+    public int countWithMileageGreaterThan(double mileage) {
+        return current.countWithMileageGreaterThan(mileage);
+    }
+
+    @Override
+    public Map<Color, Long> returnAmountOfCarsForAllColors() {
+        return current.returnAmountOfCarsForAllColors();
+    }
+
+    @Override
+    public Map<String, Car> returnMostExpensiveCarForEveryModel() {
+        return current.returnMostExpensiveCarForEveryModel();
+    }
+
+    @Override
+    public CarStatistic getStatisticForGivenAttribute(StatisticAttribute statisticAttribute) {
+        return current.getStatisticForGivenAttribute(statisticAttribute);
+    }
+
+    @Override
+    public CarStatistic getStatisticForAllAttributes() {
+        return current.getStatisticForAllAttributes();
+    }
+
+    @Override
+    public Car getTheMostExpensiveCar() {
+        return current.getTheMostExpensiveCar();
+    }
+
+    @Override
+    public List<Car> sortAlphabeticalComponentList() {
+        return current.sortAlphabeticalComponentList();
+    }
+
+    @Override
+    public List<Car> getCarsWithGivenPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
+        return current.getCarsWithGivenPriceRange(minPrice, maxPrice);
+    }
+
+    @Override
+    public int countWithGivenPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
+        return current.countWithGivenPriceRange(minPrice, maxPrice);
+    }
+
+    @Override
+    public Map<String, List<Car>> groupByComponent() {
+        return current.groupByComponent();
+    }
+
+    @Override
+    public List<Car> findAllWithAllComponents(Collection<String> components) {
+        return current.findAllWithAllComponents(components);
+    }
+
+    @Override
+    public List<Car> findAllWithAnyComponent(Collection<String> components) {
+        return current.findAllWithAnyComponent(components);
+    }
+
+    @Override
+    public List<Car> find(CarQuery query) {
+        return current.find(query);
+    }
+
+    /**
+     * Stream reads version of cars which was current when it was created.
+     */
+    @Override
+    public Stream<Car> stream(CarQuery query) {
+        return current.stream(query);
+    }
+
+    /**
+     * Token of page stays valid when cars are changed, next page is read from current version after the last car of
+     * previous page, so cars added before it are not returned and changed cars can move to other page.
+     */
+    @Override
+    public CarPage findPage(CarQuery query, String pageToken) {
+        return current.findPage(query, pageToken);
+    }
+
+    @Override
+    public Flow.Publisher<Car> publish(CarQuery query) {
+        return current.publish(query);
+    }
+
+    @Override
+    public CarSketches sketches() {
+        return current.sketches();
+    }
+
+    /**
+     * Method adds car and publishes new version.
+     * @param car Car with filled model, price and color.
+     * @return id of added car or CarsServiceException when car is not valid.
+     */
+    public long add(Car car) {
+        var id = new long[1];
+        edit(editor -> id[0] = editor.add(car));
+        return id[0];
+    }
+
+    public void update(long id, Car car) {
+        edit(editor -> editor.update(id, car));
+    }
+
+    public void updatePrice(long id, BigDecimal price) {
+        edit(editor -> editor.updatePrice(id, price));
+    }
+
+    public void updateMileage(long id, double mileage) {
+        edit(editor -> editor.updateMileage(id, mileage));
+    }
+
+    public boolean remove(long id) {
+        var removed = new boolean[1];
+        edit(editor -> removed[0] = editor.remove(id));
+        return removed[0];
+    }
+
+    /**
+     * Method applies all changes made with given editor and publishes them as one new version. When any change
+     * fails nothing is published.
+     * @param changes function making changes with editor.
+     * @return new current version, current version when nothing was changed, or CarsServiceException when any
+     * change is not valid.
+     */
+    public CarsService edit(Consumer<CarsEditor> changes) {
+        return edit(changes, next -> CompletableFuture.completedFuture(null));
+    }
+
+    /**
+     * Method applies changes like {@link #edit(Consumer)}, but new version is published only when future returned
+     * for it by given function completes. Function is called before next writer can change cars, so versions come
+     * to it in order, and future is awaited without blocking writers, they build next versions on top of this one
+     * meanwhile. When future fails, the version and versions built on it are dropped, so future of every later
+     * version has to fail too.
+     * @param changes function making changes with editor.
+     * @param publishing function called with new version before it is published.
+     * @return new current version or CarsServiceException when any change is not valid and cause of failed future.
+     */
+    protected CarsService edit(Consumer<CarsEditor> changes,
+                               Function<CarsService, CompletableFuture<Void>> publishing) {
+
+        Objects.requireNonNull(changes, "Changes can't be null");
+
+        CarsService next;
+        CompletableFuture<Void> published;
+        writeLock.lock();
+        var base = latest;
+        var editor = new Editor(CarColumnStore.Builder.from(base.store()), aggregator, sketcher);
+        try {
+            changes.accept(editor);
+
+            if (!editor.changed) {
+                // latest version can still wait for its publishing future, so it is not returned before it is current
+                return current;
+            }
+
+            var store = editor.builder.build();
+            next = base.next(store, editor.builder.changes(), aggregator.snapshot(), sketcher.snapshot());
+            published = publishing.apply(next);
+            latest = next;
+        } catch (RuntimeException e) {
+            editor.undo();
+            throw e instanceof IllegalArgumentException ? new CarsServiceException(e.getMessage(), e) : e;
+        } finally {
+            writeLock.unlock();
+        }
+
+        try {
+            published.join();
+        } catch (CompletionException e) {
+            drop(next);
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+
+        writeLock.lock();
+        try {
+            if (next.version() > current.version()) {
+                current = next;
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        return next;
+    }
+
+    /**
+     * Method drops given version and versions built on it, unless they were dropped already, next changes are
+     * applied to current version.
+     */
+    private void drop(CarsService version) {
+        writeLock.lock();
+        try {
+            if (latest.version() >= version.version()) {
+                latest = current;
+                aggregator = CarAggregator.of(current.store(), scan);
+                sketcher = CarSketcher.of(current.store());
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private static class Editor implements CarsEditor {
+
+        private final CarColumnStore.Builder builder;
+        private final CarAggregator aggregator;
+        private final CarSketcher sketcher;
+        private final List<Runnable> undoLog = new ArrayList<>();
+        private boolean changed;
+
+        private Editor(CarColumnStore.Builder builder, CarAggregator aggregator, CarSketcher sketcher) {
+            this.builder = builder;
+            this.aggregator = aggregator;
+            this.sketcher = sketcher;
+        }
+
+        @Override
+        public long add(Car car) {
+            long id = builder.nextId();
+            builder.add(car);
+            aggregate(builder.rowOf(id), true);
+            sketch(builder.rowOf(id), true);
+            changed = true;
+            return id;
+        }
+
+        @Override
+        public void update(long id, Car car) {
+            int row = rowOf(id);
+            aggregate(row, false);
+            sketch(row, false);
+            builder.set(row, car);
+            aggregate(row, true);
+            sketch(row, true);
+            changed = true;
+        }
+
+        @Override
+        public void updatePrice(long id, BigDecimal price) {
+            int row = rowOf(id);
+            aggregate(row, false);
+            builder.setPrice(row, price);
+            aggregate(row, true);
+            changed = true;
+        }
+
+        @Override
+        public void updateMileage(long id, double mileage) {
+            int row = rowOf(id);
+            aggregate(row, false);
+            builder.setMileage(row, mileage);
+            aggregate(row, true);
+            changed = true;
+        }
+
+        @Override
+        public boolean remove(long id) {
+            int row = builder.rowOf(id);
+            if (row < 0) {
+                return false;
+            }
+            aggregate(row, false);
+            sketch(row, false);
+            builder.remove(row);
+            changed = true;
+            return true;
+        }
+
+        private void aggregate(int row, boolean add) {
+            long id = builder.id(row);
+            var model = builder.model(row);
+            long price = builder.price(row);
+            var color = builder.color(row);
+            double mileage = builder.mileage(row);
+            if (add) {
+                aggregator.add(id, model, price, color, mileage);
+                undoLog.add(() -> aggregator.remove(id, model, price, color, mileage));
+            } else {
+                aggregator.remove(id, model, price, color, mileage);
+                undoLog.add(() -> aggregator.add(id, model, price, color, mileage));
+            }
+        }
+
+        private void sketch(int row, boolean add) {
+            var model = builder.model(row);
+            var components = builder.components(row);
+            if (add) {
+                sketcher.add(model, components);
+                undoLog.add(() -> sketcher.remove(model, components));
+            } else {
+                sketcher.remove(model, components);
+                undoLog.add(() -> sketcher.add(model, components));
+            }
+        }
+
+        /**
+         * Method reverts changes of aggregator and sketcher made by this editor in reverse order, so they count cars
+         * of base version again without scanning it. Distinct models and components seen by sketcher are kept,
+         * the same as when cars are removed.
+         */
+        private void undo() {
+            for (int i = undoLog.size() - 1; i >= 0; i--) {
+                undoLog.get(i).run();
+            }
+            undoLog.clear();
+        }
+
+        private int rowOf(long id) {
+            int row = builder.rowOf(id);
+            if (row < 0) {
+                throw new CarsServiceException("There is no car with id " + id);
+            }
+            return row;
+        }
+    }
+}
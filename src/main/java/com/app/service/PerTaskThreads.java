@@ -0,0 +1,56 @@
+package com.app.service;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Executor starting new thread for every task, used for tasks which mostly wait like requests and calls of remote
+ * shards. Virtual threads are created with {@code Executors.newVirtualThreadPerTaskExecutor()} found at runtime, so
+ * the same build runs on Java 17, where tasks get daemon platform threads of cached pool instead.
+ */
+public final class PerTaskThreads {
+
+    private static final MethodHandle VIRTUAL_THREADS = virtualThreads();
+
+    private PerTaskThreads() {
+    }
+
+    /**
+     * @return true when executors run tasks on virtual threads, false when every task holds platform thread.
+     */
+    public static boolean isVirtual() {
+        return VIRTUAL_THREADS != null;
+    }
+
+    /**
+     * @param name name of platform threads used when JVM has no virtual threads.
+     */
+    public static ExecutorService executor(String name) {
+
+        if (VIRTUAL_THREADS == null) {
+            return Executors.newCachedThreadPool(task -> {
+                var thread = new Thread(task, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        try {
+            return (ExecutorService) VIRTUAL_THREADS.invoke();
+        } catch (Throwable e) {
+            throw new IllegalStateException("Can't create executor of virtual threads", e);
+        }
+    }
+
+    private static MethodHandle virtualThreads() {
+        try {
+            return MethodHandles.publicLookup().findStatic(Executors.class, "newVirtualThreadPerTaskExecutor",
+                    MethodType.methodType(ExecutorService.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.app.service.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Counters of query result cache since it was created.
+ */
+@Data
+@AllArgsConstructor
+@Builder
+public class CacheStats {
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    /**
+     * Amount of times all results were dropped because version of cars changed.
+     */
+    private long invalidations;
+    private int size;
+
+    public double hitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+}
@@ -0,0 +1,339 @@
+package com.app.service.cache;
+
+import com.app.domain.car.Car;
+import com.app.domain.car.CarPage;
+import com.app.domain.car.CarQuery;
+import com.app.domain.car.CarSketches;
+import com.app.domain.car.CarStatistic;
+import com.app.domain.car.HistogramBucket;
+import com.app.domain.car.Statistic;
+import com.app.domain.car.type.Color;
+import com.app.domain.car.type.SortingType;
+import com.app.domain.car.type.StatisticAttribute;
+import com.app.service.CarsQueries;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Flow;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+/**
+ * Decorator keeping results of queries in cache with least recently used eviction. Results are keyed by method and
+ * arguments and tagged with version of cars they were computed for, so when version of decorated queries changes
+ * all cached results are dropped and no result of older version is ever returned. Cached lists and maps are read
+ * only and statistics are copied for every caller. Version and {@link #findById(long)} are not cached, they cost
+ * less than cache lookup.
+ */
+public class CachingCarsQueries implements CarsQueries {
+
+    public static final int DEFAULT_MAXIMUM_SIZE = 1024;
+
+    private final CarsQueries queries;
+    private final int maximumSize;
+    private final LinkedHashMap<List<Object>, CachedResult> results;
+    private long version = Long.MIN_VALUE;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    public CachingCarsQueries(CarsQueries queries) {
+        this(queries, DEFAULT_MAXIMUM_SIZE);
+    }
+
+    /**
+     * @param queries queries answering cache misses, their version decides when cached results are dropped.
+     * @param maximumSize the highest amount of cached results.
+     */
+    public CachingCarsQueries(CarsQueries queries, int maximumSize) {
+
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Maximum size of cache must be positive");
+        }
+
+        this.queries = Objects.requireNonNull(queries, "Queries can't be null");
+        this.maximumSize = maximumSize;
+        this.results = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<List<Object>, CachedResult> eldest) {
+                if (size() > CachingCarsQueries.this.maximumSize) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public List<Car> sortingByGivenOrder(SortingType sortingType, boolean descending) {
+        return cached(key("sortingByGivenOrder", sortingType, descending),
+                () -> queries.sortingByGivenOrder(sortingType, descending), Collections::unmodifiableList);
+    }
+
+    @Override
+    public List<Car> sortingByGivenOrder(SortingType sortingType, boolean descending, int offset, int limit) {
+        return cached(key("sortingByGivenOrderPage", sortingType, descending, offset, limit),
+                () -> queries.sortingByGivenOrder(sortingType, descending, offset, limit), Collections::unmodifiableList);
+    }
+
+    @Override
+    public List<Car> getTopCars(SortingType sortingType, boolean descending, int k) {
+        return cached(key("getTopCars", sortingType, descending, k),
+                () -> queries.getTopCars(sortingType, descending, k), Collections::unmodifiableList);
+    }
+
+    @Override
+    public Map<String, List<Car>> getTopCarsForEveryModel(SortingType sortingType, boolean descending, int k) {
+        return cached(key("getTopCarsForEveryModel", sortingType, descending, k),
+                () -> queries.getTopCarsForEveryModel(sortingType, descending, k), CachingCarsQueries::readOnlyGroups);
+    }
+
+    @Override
+    public Map<Color, List<Car>> getTopCarsForEveryColor(SortingType sortingType, boolean descending, int k) {
+        return cached(key("getTopCarsForEveryColor", sortingType, descending, k),
+                () -> queries.getTopCarsForEveryColor(sortingType, descending, k), CachingCarsQueries::readOnlyGroups);
+    }
+
+    @Override
+    public List<Car> findAllWithMileageGreaterThan(double mileage) {
+        return cached(key("findAllWithMileageGreaterThan", mileage),
+                () -> queries.findAllWithMileageGreaterThan(mileage), Collections::unmodifiableList);
+    }
+
+    @Override
+    public int countWithMileageGreaterThan(double mileage) {
+        return cached(key("countWithMileageGreaterThan", mileage),
+                () -> queries.countWithMileageGreaterThan(mileage), UnaryOperator.identity());
+    }
+
+    @Override
+    public Map<Color, Long> returnAmountOfCarsForAllColors() {
+        return cached(key("returnAmountOfCarsForAllColors"),
+                queries::returnAmountOfCarsForAllColors, Collections::unmodifiableMap);
+    }
+
+    @Override
+    public Map<String, Car> returnMostExpensiveCarForEveryModel() {
+        return cached(key("returnMostExpensiveCarForEveryModel"),
+                queries::returnMostExpensiveCarForEveryModel, Collections::unmodifiableMap);
+    }
+
+    @Override
+    public CarStatistic getStatisticForGivenAttribute(StatisticAttribute statisticAttribute) {
+        return copy(cached(key("getStatisticForGivenAttribute", statisticAttribute),
+                () -> queries.getStatisticForGivenAttribute(statisticAttribute), CachingCarsQueries::copy));
+    }
+
+    @Override
+    public CarStatistic getStatisticForAllAttributes() {
+        return copy(cached(key("getStatisticForAllAttributes"),
+                queries::getStatisticForAllAttributes, CachingCarsQueries::copy));
+    }
+
+    @Override
+    public Car getTheMostExpensiveCar() {
+        return cached(key("getTheMostExpensiveCar"), queries::getTheMostExpensiveCar, UnaryOperator.identity());
+    }
+
+    @Override
+    public List<Car> sortAlphabeticalComponentList() {
+        return cached(key("sortAlphabeticalComponentList"),
+                queries::sortAlphabeticalComponentList, Collections::unmodifiableList);
+    }
+
+    @Override
+    public List<Car> getCarsWithGivenPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
+        return cached(key("getCarsWithGivenPriceRange", minPrice, maxPrice),
+                () -> queries.getCarsWithGivenPriceRange(minPrice, maxPrice), Collections::unmodifiableList);
+    }
+
+    @Override
+    public int countWithGivenPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
+        return cached(key("countWithGivenPriceRange", minPrice, maxPrice),
+                () -> queries.countWithGivenPriceRange(minPrice, maxPrice), UnaryOperator.identity());
+    }
+
+    @Override
+    public Map<String, List<Car>> groupByComponent() {
+        return cached(key("groupByComponent"), queries::groupByComponent, CachingCarsQueries::readOnlyGroups);
+    }
+
+    @Override
+    public List<Car> findAllWithAllComponents(Collection<String> components) {
+        return cached(key("findAllWithAllComponents", copy(components)),
+                () -> queries.findAllWithAllComponents(components), Collections::unmodifiableList);
+    }
+
+    @Override
+    public List<Car> findAllWithAnyComponent(Collection<String> components) {
+        return cached(key("findAllWithAnyComponent", copy(components)),
+                () -> queries.findAllWithAnyComponent(components), Collections::unmodifiableList);
+    }
+
+    @Override
+    public List<Car> find(CarQuery query) {
+        return cached(key("find", query), () -> queries.find(query), Collections::unmodifiableList);
+    }
+
+    /**
+     * Streams are read lazily once, so they are not cached.
+     */
+    @Override
+    public Stream<Car> stream(CarQuery query) {
+        return queries.stream(query);
+    }
+
+    @Override
+    public CarPage findPage(CarQuery query, String pageToken) {
+        return cached(key("findPage", query, pageToken), () -> queries.findPage(query, pageToken), page -> CarPage
+                .builder()
+                .cars(Collections.unmodifiableList(page.getCars()))
+                .nextPageToken(page.getNextPageToken())
+                .build());
+    }
+
+    /**
+     * Publishers read cars lazily for every subscriber, so they are not cached.
+     */
+    @Override
+    public Flow.Publisher<Car> publish(CarQuery query) {
+        return queries.publish(query);
+    }
+
+    /**
+     * Sketches are immutable, so the same sketches are returned to every caller.
+     */
+    @Override
+    public CarSketches sketches() {
+        return cached(key("sketches"), queries::sketches, UnaryOperator.identity());
+    }
+
+    @Override
+    public long version() {
+        return queries.version();
+    }
+
+    @Override
+    public Optional<Car> findById(long id) {
+        return queries.findById(id);
+    }
+
+    public synchronized CacheStats stats() {
+        return CacheStats
+                .builder()
+                .hits(hits)
+                .misses(misses)
+                .evictions(evictions)
+                .invalidations(invalidations)
+                .size(results.size())
+                .build();
+    }
+
+    public synchronized void clear() {
+        results.clear();
+    }
+
+    /**
+     * Version is read before query is answered, so result of newer version may be tagged with older one. It is
+     * never returned for older version, because cache drops all results when it sees newer version.
+     */
+    private <T> T cached(List<Object> key, Supplier<T> query, UnaryOperator<T> readOnly) {
+
+        long currentVersion = queries.version();
+        synchronized (this) {
+            if (currentVersion > version) {
+                if (!results.isEmpty()) {
+                    invalidations++;
+                }
+                results.clear();
+                version = currentVersion;
+            }
+            var result = results.get(key);
+            if (result != null && result.version == currentVersion) {
+                hits++;
+                @SuppressWarnings("unchecked")
+                var value = (T) result.value;
+                return value;
+            }
+            misses++;
+        }
+
+        var value = readOnly.apply(query.get());
+
+        synchronized (this) {
+            if (currentVersion == version) {
+                results.put(key, new CachedResult(currentVersion, value));
+            }
+        }
+
+        return value;
+    }
+
+    private static List<Object> key(Object... methodAndArguments) {
+        return Arrays.asList(methodAndArguments);
+    }
+
+    private static List<String> copy(Collection<String> components) {
+        return components == null ? null : new ArrayList<>(components);
+    }
+
+    private static <K> Map<K, List<Car>> readOnlyGroups(Map<K, List<Car>> groups) {
+        var readOnly = new LinkedHashMap<K, List<Car>>();
+        groups.forEach((group, cars) -> readOnly.put(group, Collections.unmodifiableList(cars)));
+        return Collections.unmodifiableMap(readOnly);
+    }
+
+    private static CarStatistic copy(CarStatistic statistic) {
+        return CarStatistic
+                .builder()
+                .price(copy(statistic.getPrice()))
+                .mileage(copy(statistic.getMileage()))
+                .build();
+    }
+
+    private static <T> Statistic<T> copy(Statistic<T> statistic) {
+        return statistic == null ? null : Statistic
+                .<T>builder()
+                .min(statistic.getMin())
+                .max(statistic.getMax())
+                .average(statistic.getAverage())
+                .sum(statistic.getSum())
+                .count(statistic.getCount())
+                .standardDeviation(statistic.getStandardDeviation())
+                .median(statistic.getMedian())
+                .p90(statistic.getP90())
+                .p99(statistic.getP99())
+                .histogram(statistic.getHistogram() == null ? null : copyHistogram(statistic.getHistogram()))
+                .build();
+    }
+
+    private static <T> List<HistogramBucket<T>> copyHistogram(List<HistogramBucket<T>> histogram) {
+        var copy = new ArrayList<HistogramBucket<T>>(histogram.size());
+        for (var bucket : histogram) {
+            copy.add(new HistogramBucket<>(bucket.getLowerBound(), bucket.getUpperBound(), bucket.getCount()));
+        }
+        return copy;
+    }
+
+    private static class CachedResult {
+
+        private final long version;
+        private final Object value;
+
+        private CachedResult(long version, Object value) {
+            this.version = version;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.app.service.exception;
+
+public class CarsLoaderException extends RuntimeException {
+    public CarsLoaderException(String message) {
+        super(message);
+    }
+
+    public CarsLoaderException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
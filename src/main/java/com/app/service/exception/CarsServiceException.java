@@ -4,4 +4,8 @@ public class CarsServiceException extends RuntimeException {
     public CarsServiceException(String message) {
         super(message);
     }
+
+    public CarsServiceException(String message, Throwable cause) {
+        super(message, cause);
+    }
 }
@@ -0,0 +1,18 @@
+package com.app.service.loader;
+
+import com.app.domain.car.Car;
+
+import java.io.IOException;
+
+/**
+ * Reads cars one by one from source file, so whole file never has to be kept in memory.
+ */
+public interface CarReader {
+
+    /**
+     * @return next car from file or null when there are no more cars.
+     * @throws InvalidCarException when current record can't be converted to car, reader is still able to
+     * continue with next record.
+     */
+    Car next() throws IOException;
+}
@@ -0,0 +1,71 @@
+package com.app.service.loader;
+
+import com.app.domain.car.Car;
+import com.app.domain.car.type.Color;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Conversion of raw field values read from files to Car, every invalid value ends with {@link InvalidCarException}.
+ */
+final class CarRecords {
+
+    private CarRecords() {
+    }
+
+    static Car toCar(String model, BigDecimal price, String color, double mileage, List<String> components) {
+
+        if (Objects.isNull(model) || model.isBlank()) {
+            throw new InvalidCarException("Model can't be empty");
+        }
+
+        if (Objects.isNull(price) || price.signum() < 0) {
+            throw new InvalidCarException("Price must have non negative value");
+        }
+
+        if (Double.isNaN(mileage) || mileage < 0) {
+            throw new InvalidCarException("Mileage must have non negative value");
+        }
+
+        return Car
+                .builder()
+                .model(model)
+                .price(price)
+                .color(toColor(color))
+                .mileage(mileage)
+                .components(components)
+                .build();
+    }
+
+    static Color toColor(String color) {
+
+        if (Objects.isNull(color)) {
+            throw new InvalidCarException("Color can't be empty");
+        }
+
+        try {
+            return Color.valueOf(color.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCarException("Unknown color " + color);
+        }
+    }
+
+    static BigDecimal toPrice(String price) {
+        try {
+            return new BigDecimal(price.trim());
+        } catch (NumberFormatException e) {
+            throw new InvalidCarException("Invalid price " + price);
+        }
+    }
+
+    static double toMileage(String mileage) {
+        try {
+            return Double.parseDouble(mileage.trim());
+        } catch (NumberFormatException e) {
+            throw new InvalidCarException("Invalid mileage " + mileage);
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package com.app.service.loader;
+
+public enum CarsFileFormat {
+
+    JSON, CSV
+}
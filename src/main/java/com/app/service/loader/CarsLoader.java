@@ -0,0 +1,177 @@
+package com.app.service.loader;
+
+import com.app.domain.car.CarColumnStore;
+import com.app.domain.car.CarScan;
+import com.app.domain.car.CarSketcher;
+import com.app.domain.car.type.StorageMode;
+import com.app.service.CarsService;
+import com.app.service.exception.CarsLoaderException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * Loads cars from JSON or CSV files directly into {@link CarColumnStore}. File is read through buffered file
+ * channel and parsed record by record, so memory used by loading doesn't depend on size of file. With
+ * {@link StorageMode#OFF_HEAP} columns of cars are written straight outside of Java heap. Sketches of models and
+ * components are counted while cars are read, so loaded service answers approximate analytics without scanning.
+ */
+public class CarsLoader {
+
+    private static final int PROGRESS_INTERVAL = 100_000;
+
+    private final LoadProgressListener progressListener;
+    private final StorageMode storage;
+
+    public CarsLoader() {
+        this(LoadProgressListener.NONE);
+    }
+
+    public CarsLoader(LoadProgressListener progressListener) {
+        this(progressListener, StorageMode.HEAP);
+    }
+
+    public CarsLoader(LoadProgressListener progressListener, StorageMode storage) {
+        this.progressListener = Objects.requireNonNull(progressListener);
+        this.storage = Objects.requireNonNull(storage);
+    }
+
+    /**
+     * Method loads cars from file and creates service for them.
+     * @param file path to JSON or CSV file.
+     * @param format format of file.
+     * @return service with all valid cars from file or CarsLoaderException when file can't be read.
+     */
+    public CarsService loadService(Path file, CarsFileFormat format) {
+        var result = load(file, format);
+        return new CarsService(result.getCars(), 0, null, result.getSketches(), CarScan.SEQUENTIAL);
+    }
+
+    /**
+     * Method loads cars from file, records which are not valid cars are skipped and counted.
+     * @param file path to JSON or CSV file.
+     * @param format format of file.
+     * @return store with loaded cars with amount of loaded and rejected records or CarsLoaderException when file
+     * can't be read or is not well-formed.
+     */
+    public LoadResult load(Path file, CarsFileFormat format) {
+
+        if (Objects.isNull(file) || Objects.isNull(format)) {
+            throw new CarsLoaderException("File and format can't be null");
+        }
+
+        try (var channel = new CountingChannel(FileChannel.open(file, StandardOpenOption.READ))) {
+
+            var reader = Channels.newReader(channel, StandardCharsets.UTF_8);
+
+            return load(carReader(reader, format), channel, channel.size());
+
+        } catch (IOException e) {
+            throw new CarsLoaderException("Can't load cars from " + file, e);
+        }
+    }
+
+    /**
+     * Method loads cars from reader with content in given format.
+     */
+    public LoadResult load(Reader reader, CarsFileFormat format) {
+
+        if (Objects.isNull(reader) || Objects.isNull(format)) {
+            throw new CarsLoaderException("Reader and format can't be null");
+        }
+
+        try {
+            return load(carReader(reader, format), null, -1);
+        } catch (IOException e) {
+            throw new CarsLoaderException("Can't load cars", e);
+        }
+    }
+
+    private LoadResult load(CarReader carReader, CountingChannel channel, long totalBytes) throws IOException {
+
+        var cars = CarColumnStore.builder(storage);
+        var sketcher = new CarSketcher();
+        long loaded = 0;
+        long rejected = 0;
+
+        while (true) {
+            try {
+                var car = carReader.next();
+                if (car == null) {
+                    break;
+                }
+                cars.add(car);
+                sketcher.add(car);
+                loaded++;
+            } catch (InvalidCarException | IllegalArgumentException e) {
+                rejected++;
+            }
+
+            if ((loaded + rejected) % PROGRESS_INTERVAL == 0) {
+                progressListener.onProgress(bytesRead(channel), totalBytes, loaded, rejected);
+            }
+        }
+
+        progressListener.onProgress(bytesRead(channel), totalBytes, loaded, rejected);
+
+        return LoadResult
+                .builder()
+                .cars(cars.build())
+                .sketches(sketcher.snapshot())
+                .loaded(loaded)
+                .rejected(rejected)
+                .build();
+    }
+
+    private static CarReader carReader(Reader reader, CarsFileFormat format) {
+        return switch (format) {
+            case JSON -> new JsonCarReader(reader);
+            case CSV -> new CsvCarReader(reader);
+        };
+    }
+
+    private static long bytesRead(CountingChannel channel) {
+        return channel == null ? -1 : channel.bytesRead;
+    }
+
+    private static class CountingChannel implements ReadableByteChannel {
+
+        private final FileChannel channel;
+        private long bytesRead;
+
+        private CountingChannel(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public int read(ByteBuffer target) throws IOException {
+            int read = channel.read(target);
+            if (read > 0) {
+                bytesRead += read;
+            }
+            return read;
+        }
+
+        long size() throws IOException {
+            return channel.size();
+        }
+
+        @Override
+        public boolean isOpen() {
+            return channel.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
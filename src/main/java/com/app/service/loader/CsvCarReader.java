@@ -0,0 +1,138 @@
+package com.app.service.loader;
+
+import com.app.domain.car.Car;
+import com.app.service.exception.CarsLoaderException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads cars from CSV file with header line naming columns model, price, color, mileage and components.
+ * Components of one car are separated with ';', fields may be quoted with '"'.
+ */
+public class CsvCarReader implements CarReader {
+
+    private static final char SEPARATOR = ',';
+    private static final String COMPONENT_SEPARATOR = ";";
+
+    private final BufferedReader reader;
+    private Map<String, Integer> columns;
+
+    public CsvCarReader(Reader reader) {
+        this.reader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader, 1 << 16);
+    }
+
+    @Override
+    public Car next() throws IOException {
+
+        if (columns == null) {
+            columns = readHeader();
+        }
+
+        var line = reader.readLine();
+        while (line != null && line.isBlank()) {
+            line = reader.readLine();
+        }
+        if (line == null) {
+            return null;
+        }
+
+        var fields = split(line);
+        if (fields.size() != columns.size()) {
+            throw new InvalidCarException("Expected " + columns.size() + " fields but was " + fields.size());
+        }
+
+        var mileage = field(fields, "mileage");
+        var components = field(fields, "components");
+
+        return CarRecords.toCar(
+                field(fields, "model"),
+                CarRecords.toPrice(field(fields, "price")),
+                field(fields, "color"),
+                mileage == null || mileage.isBlank() ? 0 : CarRecords.toMileage(mileage),
+                toComponents(components));
+    }
+
+    private Map<String, Integer> readHeader() throws IOException {
+
+        var header = reader.readLine();
+        if (header == null) {
+            throw new CarsLoaderException("CSV file has no header");
+        }
+
+        var names = split(header);
+        var columns = new HashMap<String, Integer>();
+        for (int column = 0; column < names.size(); column++) {
+            columns.put(names.get(column).trim().toLowerCase(), column);
+        }
+
+        for (var required : List.of("model", "price", "color")) {
+            if (!columns.containsKey(required)) {
+                throw new CarsLoaderException("CSV header has no column " + required);
+            }
+        }
+
+        return columns;
+    }
+
+    private String field(List<String> fields, String name) {
+        var column = columns.get(name);
+        return column == null ? null : fields.get(column);
+    }
+
+    private static List<String> toComponents(String components) {
+
+        var result = new ArrayList<String>();
+        if (components == null || components.isBlank()) {
+            return result;
+        }
+
+        for (var component : components.split(COMPONENT_SEPARATOR)) {
+            if (!component.isBlank()) {
+                result.add(component.trim());
+            }
+        }
+
+        return result;
+    }
+
+    private static List<String> split(String line) {
+
+        var fields = new ArrayList<String>();
+        var field = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char next = line.charAt(i);
+            if (quoted) {
+                if (next == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (next == '"') {
+                    quoted = false;
+                } else {
+                    field.append(next);
+                }
+            } else if (next == '"') {
+                quoted = true;
+            } else if (next == SEPARATOR) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(next);
+            }
+        }
+
+        if (quoted) {
+            throw new InvalidCarException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+
+        return fields;
+    }
+}
@@ -0,0 +1,10 @@
+package com.app.service.loader;
+
+/**
+ * Thrown by {@link CarReader} for single record which is not valid car, loader counts it as rejected row.
+ */
+public class InvalidCarException extends RuntimeException {
+    public InvalidCarException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,96 @@
+package com.app.service.loader;
+
+import com.app.domain.car.Car;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads cars from JSON array of objects like
+ * {"model": "Audi", "price": 25000, "color": "WHITE", "mileage": 500, "components": ["ABS"]}.
+ * Unknown fields are ignored, mileage and components are optional.
+ */
+public class JsonCarReader implements CarReader {
+
+    private final JsonReader json;
+
+    public JsonCarReader(Reader reader) {
+        this.json = new JsonReader(reader);
+    }
+
+    @Override
+    public Car next() throws IOException {
+
+        var element = json.nextArrayElement();
+        if (element == null) {
+            return null;
+        }
+
+        if (!(element instanceof Map)) {
+            throw new InvalidCarException("Car must be JSON object");
+        }
+        var object = (Map<?, ?>) element;
+
+        return CarRecords.toCar(
+                text(object.get("model")),
+                price(object.get("price")),
+                text(object.get("color")),
+                mileage(object.get("mileage")),
+                components(object.get("components")));
+    }
+
+    private static String text(Object value) {
+        if (value == null || value instanceof String) {
+            return (String) value;
+        }
+        throw new InvalidCarException("Expected text but was " + value);
+    }
+
+    private static BigDecimal price(Object value) {
+        if (value instanceof String) {
+            return CarRecords.toPrice((String) value);
+        }
+        if (value == null || value instanceof BigDecimal) {
+            return (BigDecimal) value;
+        }
+        throw new InvalidCarException("Invalid price " + value);
+    }
+
+    private static double mileage(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof BigDecimal) {
+            return ((BigDecimal) value).doubleValue();
+        }
+        if (value instanceof String) {
+            return CarRecords.toMileage((String) value);
+        }
+        throw new InvalidCarException("Invalid mileage " + value);
+    }
+
+    private static List<String> components(Object value) {
+
+        var components = new ArrayList<String>();
+        if (value == null) {
+            return components;
+        }
+
+        if (!(value instanceof List)) {
+            throw new InvalidCarException("Components must be JSON array");
+        }
+
+        for (var component : (List<?>) value) {
+            if (!(component instanceof String)) {
+                throw new InvalidCarException("Component must be text but was " + component);
+            }
+            components.add((String) component);
+        }
+
+        return components;
+    }
+}
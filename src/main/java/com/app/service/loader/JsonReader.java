@@ -0,0 +1,252 @@
+package com.app.service.loader;
+
+import com.app.service.exception.CarsLoaderException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal pull parser of JSON text. Characters are read through own buffer and only currently parsed value is
+ * kept in memory, so elements of big top level array can be read one by one with {@link #nextArrayElement()}.
+ * Objects are returned as Map, arrays as List, numbers as BigDecimal to keep prices exact.
+ */
+public class JsonReader {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Reader reader;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private long offset;
+    private boolean arrayStarted;
+    private boolean arrayFinished;
+
+    public JsonReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Method reads next element of top level array.
+     * @return next parsed element or null when array is finished.
+     */
+    public Object nextArrayElement() throws IOException {
+
+        if (arrayFinished) {
+            return null;
+        }
+
+        if (!arrayStarted) {
+            expect('[');
+            arrayStarted = true;
+            if (peekSignificant() == ']') {
+                read();
+                arrayFinished = true;
+                return null;
+            }
+        } else {
+            int separator = readSignificant();
+            if (separator == ']') {
+                arrayFinished = true;
+                return null;
+            }
+            if (separator != ',') {
+                throw syntaxError("Expected ',' or ']'");
+            }
+        }
+
+        return readValue();
+    }
+
+    /**
+     * Method reads one complete value from current position.
+     */
+    public Object readValue() throws IOException {
+
+        int next = peekSignificant();
+        return switch (next) {
+            case '{' -> readObject();
+            case '[' -> readArray();
+            case '"' -> readString();
+            case 't' -> readLiteral("true", Boolean.TRUE);
+            case 'f' -> readLiteral("false", Boolean.FALSE);
+            case 'n' -> readLiteral("null", null);
+            case -1 -> throw syntaxError("Unexpected end of input");
+            default -> readNumber();
+        };
+    }
+
+    private Map<String, Object> readObject() throws IOException {
+
+        expect('{');
+        var object = new LinkedHashMap<String, Object>();
+        if (peekSignificant() == '}') {
+            read();
+            return object;
+        }
+
+        while (true) {
+            if (peekSignificant() != '"') {
+                throw syntaxError("Expected name of field");
+            }
+            var name = readString();
+            expect(':');
+            object.put(name, readValue());
+
+            int next = readSignificant();
+            if (next == '}') {
+                return object;
+            }
+            if (next != ',') {
+                throw syntaxError("Expected ',' or '}'");
+            }
+        }
+    }
+
+    private List<Object> readArray() throws IOException {
+
+        expect('[');
+        var array = new ArrayList<>();
+        if (peekSignificant() == ']') {
+            read();
+            return array;
+        }
+
+        while (true) {
+            array.add(readValue());
+
+            int next = readSignificant();
+            if (next == ']') {
+                return array;
+            }
+            if (next != ',') {
+                throw syntaxError("Expected ',' or ']'");
+            }
+        }
+    }
+
+    private String readString() throws IOException {
+
+        expect('"');
+        var value = new StringBuilder();
+        while (true) {
+            int next = read();
+            switch (next) {
+                case -1 -> throw syntaxError("Unterminated string");
+                case '"' -> {
+                    return value.toString();
+                }
+                case '\\' -> value.append(readEscaped());
+                default -> value.append((char) next);
+            }
+        }
+    }
+
+    private char readEscaped() throws IOException {
+
+        int next = read();
+        return switch (next) {
+            case '"', '\\', '/' -> (char) next;
+            case 'b' -> '\b';
+            case 'f' -> '\f';
+            case 'n' -> '\n';
+            case 'r' -> '\r';
+            case 't' -> '\t';
+            case 'u' -> {
+                int code = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(read(), 16);
+                    if (digit < 0) {
+                        throw syntaxError("Invalid unicode escape");
+                    }
+                    code = code * 16 + digit;
+                }
+                yield (char) code;
+            }
+            default -> throw syntaxError("Invalid escape character");
+        };
+    }
+
+    private BigDecimal readNumber() throws IOException {
+
+        var number = new StringBuilder();
+        while (true) {
+            int next = peek();
+            if ((next >= '0' && next <= '9') || next == '-' || next == '+' || next == '.' || next == 'e' || next == 'E') {
+                number.append((char) read());
+            } else {
+                break;
+            }
+        }
+
+        try {
+            return new BigDecimal(number.toString());
+        } catch (NumberFormatException e) {
+            throw syntaxError("Invalid number '" + number + "'");
+        }
+    }
+
+    private Object readLiteral(String literal, Object value) throws IOException {
+        for (int i = 0; i < literal.length(); i++) {
+            if (read() != literal.charAt(i)) {
+                throw syntaxError("Expected " + literal);
+            }
+        }
+        return value;
+    }
+
+    private void expect(char expected) throws IOException {
+        if (readSignificant() != expected) {
+            throw syntaxError("Expected '" + expected + "'");
+        }
+    }
+
+    private int readSignificant() throws IOException {
+        peekSignificant();
+        return read();
+    }
+
+    private int peekSignificant() throws IOException {
+        int next = peek();
+        while (next == ' ' || next == '\n' || next == '\r' || next == '\t') {
+            read();
+            next = peek();
+        }
+        return next;
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position];
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++];
+    }
+
+    private boolean fill() throws IOException {
+        offset += limit;
+        position = 0;
+        limit = 0;
+        int read = reader.read(buffer);
+        if (read <= 0) {
+            return false;
+        }
+        limit = read;
+        return true;
+    }
+
+    private CarsLoaderException syntaxError(String message) {
+        return new CarsLoaderException(message + " at character " + (offset + position));
+    }
+}
@@ -0,0 +1,16 @@
+package com.app.service.loader;
+
+@FunctionalInterface
+public interface LoadProgressListener {
+
+    LoadProgressListener NONE = (bytesRead, totalBytes, loaded, rejected) -> { };
+
+    /**
+     * Called periodically while file is loaded and once after whole file is read.
+     * @param bytesRead amount of bytes already read from file.
+     * @param totalBytes size of file.
+     * @param loaded amount of cars added to store.
+     * @param rejected amount of records which were not valid cars.
+     */
+    void onProgress(long bytesRead, long totalBytes, long loaded, long rejected);
+}
@@ -0,0 +1,21 @@
+package com.app.service.loader;
+
+import com.app.domain.car.CarColumnStore;
+import com.app.domain.car.CarSketches;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+@Builder
+public class LoadResult {
+
+    private CarColumnStore cars;
+    /**
+     * Sketches of loaded cars counted while they were read.
+     */
+    private CarSketches sketches;
+    private long loaded;
+    private long rejected;
+}
@@ -0,0 +1,161 @@
+package com.app.service.log;
+
+import com.app.domain.car.Car;
+import com.app.domain.car.CarUtils;
+import com.app.domain.car.type.Color;
+import com.app.service.CarsEditor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Changes published together as one version of cars, one record of change log. Added cars keep id they were given,
+ * so replayed batch is checked to give the same ids.
+ */
+final class ChangeBatch {
+
+    private static final Color[] COLORS = Color.values();
+
+    private final long version;
+    private final List<Change> changes;
+
+    ChangeBatch(long version, List<Change> changes) {
+        this.version = version;
+        this.changes = changes;
+    }
+
+    long version() {
+        return version;
+    }
+
+    /**
+     * Method makes all changes of batch with given editor.
+     * @throws IllegalStateException when added car gets other id than it got when batch was logged.
+     */
+    void applyTo(CarsEditor editor) {
+        for (var change : changes) {
+            switch (change.type) {
+                case ADD -> {
+                    long id = editor.add(change.car);
+                    if (id != change.id) {
+                        throw new IllegalStateException("Car logged with id " + change.id + " got id " + id);
+                    }
+                }
+                case UPDATE -> editor.update(change.id, change.car);
+                case UPDATE_PRICE -> editor.updatePrice(change.id, change.price);
+                case UPDATE_MILEAGE -> editor.updateMileage(change.id, change.mileage);
+                case REMOVE -> editor.remove(change.id);
+            }
+        }
+    }
+
+    byte[] encode() {
+
+        var bytes = new ByteArrayOutputStream();
+        try (var output = new DataOutputStream(bytes)) {
+            output.writeLong(version);
+            output.writeInt(changes.size());
+            for (var change : changes) {
+                output.writeByte(change.type.ordinal());
+                output.writeLong(change.id);
+                switch (change.type) {
+                    case ADD, UPDATE -> writeCar(output, change.car);
+                    case UPDATE_PRICE -> output.writeUTF(change.price.toPlainString());
+                    case UPDATE_MILEAGE -> output.writeDouble(change.mileage);
+                    case REMOVE -> {
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @return batch encoded with {@link #encode()} or IllegalStateException when bytes are not valid batch.
+     */
+    static ChangeBatch decode(byte[] record) {
+
+        try (var input = new DataInputStream(new ByteArrayInputStream(record))) {
+            long version = input.readLong();
+            int size = input.readInt();
+            var changes = new ArrayList<Change>();
+            for (int i = 0; i < size; i++) {
+                var type = Type.values()[input.readByte()];
+                long id = input.readLong();
+                changes.add(switch (type) {
+                    case ADD, UPDATE -> new Change(type, id, readCar(input), null, 0);
+                    case UPDATE_PRICE -> new Change(type, id, null, new BigDecimal(input.readUTF()), 0);
+                    case UPDATE_MILEAGE -> new Change(type, id, null, null, input.readDouble());
+                    case REMOVE -> new Change(type, id, null, null, 0);
+                });
+            }
+            return new ChangeBatch(version, changes);
+        } catch (IOException | RuntimeException e) {
+            throw new IllegalStateException("Change log record is not valid", e);
+        }
+    }
+
+    private static void writeCar(DataOutput output, Car car) throws IOException {
+
+        var components = CarUtils.toComponents.apply(car);
+        output.writeUTF(CarUtils.toModel.apply(car));
+        output.writeUTF(CarUtils.toPrice.apply(car).toPlainString());
+        output.writeByte(CarUtils.toColor.apply(car).ordinal());
+        output.writeDouble(CarUtils.toMileage.apply(car));
+        output.writeInt(components.size());
+        for (var component : components) {
+            output.writeUTF(component);
+        }
+    }
+
+    private static Car readCar(DataInput input) throws IOException {
+
+        var car = Car
+                .builder()
+                .model(input.readUTF())
+                .price(new BigDecimal(input.readUTF()))
+                .color(COLORS[input.readByte()])
+                .mileage(input.readDouble());
+
+        var components = new ArrayList<String>();
+        int size = input.readInt();
+        for (int i = 0; i < size; i++) {
+            components.add(input.readUTF());
+        }
+
+        return car.components(components).build();
+    }
+
+    enum Type {
+        ADD, UPDATE, UPDATE_PRICE, UPDATE_MILEAGE, REMOVE
+    }
+
+    static final class Change {
+
+        private final Type type;
+        private final long id;
+        private final Car car;
+        private final BigDecimal price;
+        private final double mileage;
+
+        Change(Type type, long id, Car car, BigDecimal price, double mileage) {
+            this.type = type;
+            this.id = id;
+            this.car = car;
+            this.price = price;
+            this.mileage = mileage;
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package com.app.service.log;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.zip.CRC32C;
+
+/**
+ * One append-only segment of changes. Every record is written as its length, CRC32C checksum and bytes. Records are
+ * written by one writer thread, which takes all records appended while previous write was synced, writes them at
+ * once and syncs file once for all of them, so many writers share every fsync. Record is durable when future
+ * returned by {@link #append(byte[])} completes.
+ */
+final class ChangeLog implements AutoCloseable {
+
+    private static final int HEADER_BYTES = 2 * Integer.BYTES;
+    private static final Pending CLOSE = new Pending(null);
+
+    private final Path file;
+    private final FileChannel channel;
+    private final LinkedBlockingQueue<Pending> pending = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private volatile long size;
+    private volatile IOException failure;
+    private boolean closed;
+
+    private ChangeLog(Path file, FileChannel channel, long size) {
+        this.file = file;
+        this.channel = channel;
+        this.size = size;
+        this.writer = new Thread(this::write, "cars-change-log");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Method opens segment for appending records after its last valid record, torn record at the end left by crash
+     * is cut off. Damaged record followed by more records is not torn, segment is not opened then, so valid records
+     * after it are never cut off.
+     * @throws UncheckedIOException when segment can't be read or has damaged record before its end.
+     */
+    static ChangeLog open(Path file) {
+        try {
+            var channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            long valid = validLength(channel);
+            channel.truncate(valid);
+            channel.position(valid);
+            return new ChangeLog(file, channel, valid);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't open change log " + file, e);
+        }
+    }
+
+    /**
+     * @return bytes of all valid records of segment in order they were appended, torn record at the end is skipped.
+     * @throws UncheckedIOException when segment can't be read or has damaged record before its end.
+     */
+    static List<byte[]> read(Path file) {
+
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            var records = new ArrayList<byte[]>();
+            var header = ByteBuffer.allocate(HEADER_BYTES);
+            while (true) {
+                var record = next(channel, header);
+                if (record == null) {
+                    return records;
+                }
+                records.add(record);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't read change log " + file, e);
+        }
+    }
+
+    /**
+     * @return future completed when record is synced to disk, or completed with UncheckedIOException when writing
+     * failed.
+     */
+    synchronized CompletableFuture<Void> append(byte[] record) {
+
+        if (closed) {
+            throw new IllegalStateException("Change log " + file + " is closed");
+        }
+        if (failure != null) {
+            return CompletableFuture.failedFuture(new UncheckedIOException("Change log " + file + " failed", failure));
+        }
+
+        var next = new Pending(record);
+        pending.add(next);
+        return next.durable;
+    }
+
+    /**
+     * Method checks that records can be still appended, so changes are not published when they can't be logged.
+     * @throws UncheckedIOException when earlier write failed.
+     */
+    void checkWritable() {
+        if (failure != null) {
+            throw new UncheckedIOException("Change log " + file + " failed", failure);
+        }
+    }
+
+    /**
+     * @return bytes of synced records of segment.
+     */
+    long size() {
+        return size;
+    }
+
+    /**
+     * Method waits until all appended records are synced and closes segment.
+     */
+    @Override
+    public void close() {
+
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            pending.add(CLOSE);
+        }
+
+        try {
+            writer.join();
+            channel.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't close change log " + file, e);
+        }
+    }
+
+    private void write() {
+
+        var batch = new ArrayList<Pending>();
+        boolean closing = false;
+
+        while (!closing) {
+            try {
+                batch.add(pending.take());
+            } catch (InterruptedException e) {
+                failPending(new InterruptedIOException("Writer of change log " + file + " was interrupted"));
+                return;
+            }
+            pending.drainTo(batch);
+            closing = batch.remove(CLOSE);
+
+            if (!batch.isEmpty()) {
+                sync(batch);
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * Method fails all appended records, records appended later fail at once, because failure is set while appending
+     * is locked.
+     */
+    private void failPending(IOException cause) {
+
+        synchronized (this) {
+            failure = cause;
+        }
+        var batch = new ArrayList<Pending>();
+        pending.drainTo(batch);
+        batch.remove(CLOSE);
+        sync(batch);
+    }
+
+    private void sync(List<Pending> batch) {
+
+        if (failure == null) {
+            try {
+                int bytes = batch.stream().mapToInt(next -> HEADER_BYTES + next.record.length).sum();
+                var buffer = ByteBuffer.allocate(bytes);
+                var checksum = new CRC32C();
+                for (var next : batch) {
+                    checksum.reset();
+                    checksum.update(next.record);
+                    buffer.putInt(next.record.length).putInt((int) checksum.getValue()).put(next.record);
+                }
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+                size += bytes;
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+
+        for (var next : batch) {
+            if (failure == null) {
+                next.durable.complete(null);
+            } else {
+                next.durable.completeExceptionally(new UncheckedIOException("Can't write change log " + file, failure));
+            }
+        }
+    }
+
+    private static long validLength(FileChannel channel) throws IOException {
+
+        var header = ByteBuffer.allocate(HEADER_BYTES);
+        long valid = 0;
+        channel.position(0);
+        while (next(channel, header) != null) {
+            valid = channel.position();
+        }
+        return valid;
+    }
+
+    /**
+     * Record is torn when it is shorter than its length or when it is the last record and its checksum doesn't
+     * match, crash can leave file longer than synced bytes of the last write.
+     * @return bytes of next record or null when channel ends or next record is torn.
+     * @throws IOException when record is damaged and more bytes follow it.
+     */
+    private static byte[] next(FileChannel channel, ByteBuffer header) throws IOException {
+
+        long start = channel.position();
+        header.clear();
+        if (!readFully(channel, header)) {
+            return null;
+        }
+        header.flip();
+        int length = header.getInt();
+        int expectedChecksum = header.getInt();
+        if (length < 0) {
+            throw new IOException("Record at byte " + start + " has negative length " + length);
+        }
+        if (length > channel.size() - channel.position()) {
+            return null;
+        }
+
+        var record = ByteBuffer.allocate(length);
+        if (!readFully(channel, record)) {
+            return null;
+        }
+        var checksum = new CRC32C();
+        checksum.update(record.array());
+        if ((int) checksum.getValue() == expectedChecksum) {
+            return record.array();
+        }
+        if (channel.position() < channel.size()) {
+            throw new IOException("Record at byte " + start + " has wrong checksum and is followed by more records");
+        }
+        return null;
+    }
+
+    private static boolean readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static class Pending {
+
+        private final byte[] record;
+        private final CompletableFuture<Void> durable = new CompletableFuture<>();
+
+        private Pending(byte[] record) {
+            this.record = record;
+        }
+    }
+}
@@ -0,0 +1,410 @@
+package com.app.service.log;
+
+import com.app.domain.car.Car;
+import com.app.domain.car.CarColumnStore;
+import com.app.domain.car.CarSnapshot;
+import com.app.service.CarsEditor;
+import com.app.service.CarsService;
+import com.app.service.ConcurrentCarsService;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * {@link ConcurrentCarsService} which survives restarts. Directory keeps snapshot of cars saved at some version and
+ * segments of change log with every batch of changes published after it:
+ * <pre>
+ * snapshot-&lt;version&gt;.cars   cars of given version saved with {@link CarSnapshot}
+ * changes-&lt;version&gt;.log     batches of changes publishing versions higher than given one
+ * </pre>
+ * Every batch is appended to log before its version is published and version is published when batch is synced
+ * to disk, so readers never see changes which can be lost. Writers wait for sync without blocking each other, so
+ * batches of concurrent writers share one fsync and amount of durable changes per second is bounded by batches per
+ * fsync, not by fsyncs per second. When log can't be written, versions which weren't synced are dropped and cars
+ * can't be changed or compacted any more.
+ * <p>
+ * Opened directory is recovered by mapping the newest snapshot and replaying batches logged after it, batch torn by
+ * crash at the end of log is dropped. Compaction saves current cars to new snapshot and starts new log segment, older
+ * files are deleted then. It runs in background when log grows over threshold of {@link LogSettings}, writers wait
+ * only while log segment is switched, snapshot is saved after that.
+ */
+public class DurableCarsService extends ConcurrentCarsService implements AutoCloseable {
+
+    private static final Pattern SNAPSHOT = Pattern.compile("snapshot-(\\d{20})\\.cars");
+    private static final Pattern SEGMENT = Pattern.compile("changes-(\\d{20})\\.log");
+
+    private final Path directory;
+    private final LogSettings settings;
+    private final ReentrantLock logLock = new ReentrantLock();
+    private final ReentrantLock compactionLock = new ReentrantLock();
+    private ScheduledExecutorService compactions;
+    private volatile ChangeLog log;
+    private CarsService appended;
+    private long snapshotVersion;
+    private boolean closed;
+    private volatile UncheckedIOException compactionFailure;
+
+    private DurableCarsService(Path directory, CarColumnStore cars, long version, LogSettings settings) {
+        super(cars, version, settings.getExecutionMode());
+        this.directory = directory;
+        this.settings = settings;
+        this.snapshotVersion = version;
+    }
+
+    public static DurableCarsService open(Path directory) {
+        return open(directory, LogSettings.builder().build());
+    }
+
+    /**
+     * Method recovers cars from the newest snapshot in directory and batches of changes logged after it, directory
+     * without snapshot starts with no cars.
+     * @param directory directory with snapshots and change log, it is created when it doesn't exist.
+     * @return recovered cars or IllegalStateException when change log can't be replayed.
+     */
+    public static DurableCarsService open(Path directory, LogSettings settings) {
+
+        Objects.requireNonNull(settings, "Settings can't be null");
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't create directory " + directory, e);
+        }
+
+        var snapshots = files(directory, SNAPSHOT);
+        var service = snapshots.isEmpty()
+                ? new DurableCarsService(directory, CarColumnStore.of(List.of()), 0, settings)
+                : new DurableCarsService(directory, CarSnapshot.open(snapshots.lastEntry().getValue()),
+                snapshots.lastKey(), settings);
+        service.recover();
+
+        return service;
+    }
+
+    /**
+     * Method saves given cars as the first snapshot of empty directory, so they are never imported again.
+     * @return durable cars starting with given cars or IllegalStateException when directory already has cars.
+     */
+    public static DurableCarsService create(Path directory, CarColumnStore cars, LogSettings settings) {
+
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't create directory " + directory, e);
+        }
+        if (!files(directory, SNAPSHOT).isEmpty() || !files(directory, SEGMENT).isEmpty()) {
+            throw new IllegalStateException("Directory " + directory + " already has cars");
+        }
+
+        saveSnapshot(directory, cars, 0);
+        return open(directory, settings);
+    }
+
+    /**
+     * Method appends changes to change log and publishes them when they are synced.
+     * @return new current version or CarsServiceException when any change is not valid, UncheckedIOException when
+     * log can't be written and IllegalStateException when service is closed.
+     */
+    @Override
+    public CarsService edit(Consumer<CarsEditor> changes) {
+
+        Objects.requireNonNull(changes, "Changes can't be null");
+
+        var logged = new ArrayList<ChangeBatch.Change>();
+        return edit(editor -> changes.accept(new LoggingEditor(editor, logged)),
+                next -> append(next, new ChangeBatch(next.version(), logged).encode()));
+    }
+
+    /**
+     * Method saves cars of the last appended version to new snapshot, starts new log segment and deletes older
+     * snapshots and segments. Old segment is closed first, which waits until its batches are synced, so snapshot
+     * has only durable changes. Writers wait only for that, snapshot is saved after they can continue.
+     * @return version of cars in the newest snapshot or UncheckedIOException when change log failed.
+     */
+    public long compact() {
+
+        compactionLock.lock();
+        try {
+            CarsService cars;
+            logLock.lock();
+            try {
+                if (closed) {
+                    throw new IllegalStateException("Cars in " + directory + " are closed");
+                }
+                log.checkWritable();
+                cars = appended;
+                if (cars.version() == snapshotVersion) {
+                    return snapshotVersion;
+                }
+                log.close();
+                log.checkWritable();
+                log = ChangeLog.open(directory.resolve(name("changes", cars.version(), ".log")));
+                syncDirectory(directory);
+            } finally {
+                logLock.unlock();
+            }
+
+            saveSnapshot(directory, cars.store(), cars.version());
+            snapshotVersion = cars.version();
+            deleteOlderThan(snapshotVersion);
+
+            return snapshotVersion;
+        } finally {
+            compactionLock.unlock();
+        }
+    }
+
+    /**
+     * @return bytes of current log segment.
+     */
+    public long logSize() {
+        return log.size();
+    }
+
+    /**
+     * @return failure of the last background compaction, empty when it succeeded or none was run yet.
+     */
+    public Optional<UncheckedIOException> compactionFailure() {
+        return Optional.ofNullable(compactionFailure);
+    }
+
+    /**
+     * Method stops background compaction and waits until all appended changes are synced, queries can be still
+     * answered but cars can't be changed any more.
+     */
+    @Override
+    public void close() {
+
+        logLock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        } finally {
+            logLock.unlock();
+        }
+
+        if (compactions != null) {
+            compactions.shutdownNow();
+        }
+        compactionLock.lock();
+        try {
+            log.close();
+        } finally {
+            compactionLock.unlock();
+        }
+    }
+
+    private void recover() {
+
+        var segments = files(directory, SEGMENT).tailMap(snapshotVersion, true);
+        for (var segment : segments.values()) {
+            for (var record : ChangeLog.read(segment)) {
+                replay(ChangeBatch.decode(record));
+            }
+        }
+
+        var last = segments.isEmpty()
+                ? directory.resolve(name("changes", snapshotVersion, ".log"))
+                : segments.lastEntry().getValue();
+        log = ChangeLog.open(last);
+        appended = snapshot();
+        syncDirectory(directory);
+        deleteOlderThan(snapshotVersion);
+
+        var interval = settings.getCompactionCheckInterval();
+        if (interval != null) {
+            compactions = Executors.newSingleThreadScheduledExecutor(task -> {
+                var thread = new Thread(task, "cars-compaction");
+                thread.setDaemon(true);
+                return thread;
+            });
+            compactions.scheduleWithFixedDelay(this::compactWhenLogIsFull, interval.toMillis(), interval.toMillis(),
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Method is called by writer with versions in order, so batches are appended in order of versions. Compaction
+     * snapshots the last appended version, so batches in old segment are never lost.
+     * @return future completed when batch is synced.
+     */
+    private CompletableFuture<Void> append(CarsService next, byte[] batch) {
+
+        logLock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Cars in " + directory + " are closed");
+            }
+            log.checkWritable();
+            var durable = log.append(batch);
+            appended = next;
+            return durable;
+        } finally {
+            logLock.unlock();
+        }
+    }
+
+    private void replay(ChangeBatch batch) {
+
+        long version = snapshot().version();
+        if (batch.version() <= version) {
+            return;
+        }
+        if (batch.version() != version + 1) {
+            throw new IllegalStateException("Change log has no changes of version " + (version + 1));
+        }
+
+        try {
+            super.edit(batch::applyTo);
+        } catch (RuntimeException e) {
+            throw new IllegalStateException("Changes of version " + batch.version() + " can't be replayed", e);
+        }
+    }
+
+    /**
+     * Failed compaction leaves current log and snapshot in place, so it is only tried again on next check, its
+     * failure is kept for {@link #compactionFailure()}. Other exceptions are bugs, they stop background compaction.
+     */
+    private void compactWhenLogIsFull() {
+        try {
+            if (log.size() >= settings.getCompactionThreshold()) {
+                compact();
+            }
+            compactionFailure = null;
+        } catch (UncheckedIOException e) {
+            compactionFailure = e;
+        }
+    }
+
+    private void deleteOlderThan(long version) {
+
+        var stale = new ArrayList<Path>();
+        stale.addAll(files(directory, SNAPSHOT).headMap(version).values());
+        stale.addAll(files(directory, SEGMENT).headMap(version).values());
+
+        for (var file : stale) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                // file still mapped on some systems, it is deleted by next compaction
+            }
+        }
+    }
+
+    /**
+     * Snapshot is written to temporary file and renamed, so directory never has partially written snapshot.
+     */
+    private static void saveSnapshot(Path directory, CarColumnStore cars, long version) {
+
+        var file = directory.resolve(name("snapshot", version, ".cars"));
+        var temporary = directory.resolve(file.getFileName() + ".tmp");
+        CarSnapshot.save(cars, temporary);
+        try {
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't save snapshot " + file, e);
+        }
+        syncDirectory(directory);
+    }
+
+    /**
+     * Method syncs created and renamed files of directory, systems which can't open directory sync it with files.
+     */
+    private static void syncDirectory(Path directory) {
+        try (var channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // directory can't be opened as file on this system
+        }
+    }
+
+    /**
+     * @return files of directory matching pattern by version in their name.
+     */
+    private static TreeMap<Long, Path> files(Path directory, Pattern pattern) {
+
+        var files = new TreeMap<Long, Path>();
+        try (var entries = Files.list(directory)) {
+            entries.forEach(file -> {
+                var matcher = pattern.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    files.put(Long.parseLong(matcher.group(1)), file);
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't list directory " + directory, e);
+        }
+        return files;
+    }
+
+    private static String name(String prefix, long version, String suffix) {
+        return String.format("%s-%020d%s", prefix, version, suffix);
+    }
+
+    /**
+     * Editor recording every change which succeeded, removal of missing car changes nothing and is not recorded.
+     */
+    private static class LoggingEditor implements CarsEditor {
+
+        private final CarsEditor editor;
+        private final List<ChangeBatch.Change> changes;
+
+        private LoggingEditor(CarsEditor editor, List<ChangeBatch.Change> changes) {
+            this.editor = editor;
+            this.changes = changes;
+        }
+
+        @Override
+        public long add(Car car) {
+            long id = editor.add(car);
+            changes.add(new ChangeBatch.Change(ChangeBatch.Type.ADD, id, car, null, 0));
+            return id;
+        }
+
+        @Override
+        public void update(long id, Car car) {
+            editor.update(id, car);
+            changes.add(new ChangeBatch.Change(ChangeBatch.Type.UPDATE, id, car, null, 0));
+        }
+
+        @Override
+        public void updatePrice(long id, BigDecimal price) {
+            editor.updatePrice(id, price);
+            changes.add(new ChangeBatch.Change(ChangeBatch.Type.UPDATE_PRICE, id, null, price, 0));
+        }
+
+        @Override
+        public void updateMileage(long id, double mileage) {
+            editor.updateMileage(id, mileage);
+            changes.add(new ChangeBatch.Change(ChangeBatch.Type.UPDATE_MILEAGE, id, null, null, mileage));
+        }
+
+        @Override
+        public boolean remove(long id) {
+            boolean removed = editor.remove(id);
+            if (removed) {
+                changes.add(new ChangeBatch.Change(ChangeBatch.Type.REMOVE, id, null, null, 0));
+            }
+            return removed;
+        }
+    }
+}
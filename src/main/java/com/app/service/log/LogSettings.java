@@ -0,0 +1,30 @@
+package com.app.service.log;
+
+import com.app.domain.car.type.ExecutionMode;
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Duration;
+
+/**
+ * Settings of {@link DurableCarsService}, every setting which is not given has its default value.
+ */
+@Value
+@Builder
+public class LogSettings {
+
+    /**
+     * Size of change log in bytes after which cars are saved to new snapshot and log is started again.
+     */
+    @Builder.Default
+    long compactionThreshold = 64L << 20;
+
+    /**
+     * How often size of change log is checked in background, compaction in background is off when it is null.
+     */
+    @Builder.Default
+    Duration compactionCheckInterval = Duration.ofSeconds(10);
+
+    @Builder.Default
+    ExecutionMode executionMode = ExecutionMode.SEQUENTIAL;
+}
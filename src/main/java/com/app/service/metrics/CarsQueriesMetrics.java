@@ -0,0 +1,110 @@
+package com.app.service.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Sink keeping metrics of every query method in memory. Metrics of methods can be read directly or through JMX
+ * after {@link #registerMBeans(String)}, then every method is visible as
+ * {@code com.app:type=CarsQueries,name=<name>,method=<method>}.
+ */
+public class CarsQueriesMetrics implements MetricsSink {
+
+    private final ConcurrentMap<String, QueryMetrics> metrics = new ConcurrentHashMap<>();
+    private volatile String mBeansName;
+
+    @Override
+    public void record(QueryCall call) {
+        metrics(call.getMethod()).record(call);
+    }
+
+    /**
+     * @return metrics of given method, they are created when method was never called.
+     */
+    public QueryMetrics metrics(String method) {
+        var methodMetrics = metrics.get(method);
+        if (methodMetrics == null) {
+            methodMetrics = metrics.computeIfAbsent(method, this::newMetrics);
+        }
+        return methodMetrics;
+    }
+
+    /**
+     * @return metrics of all called methods sorted by method name.
+     */
+    public Map<String, QueryMetrics> allMetrics() {
+        return new TreeMap<>(metrics);
+    }
+
+    /**
+     * Method registers metrics of all methods in platform MBean server, metrics of methods called later are
+     * registered when they are created.
+     * @param name name of measured service, it has to be unique in JVM.
+     */
+    public synchronized void registerMBeans(String name) {
+
+        if (mBeansName != null) {
+            throw new IllegalStateException("Metrics are already registered as " + mBeansName);
+        }
+
+        mBeansName = name;
+        metrics.values().forEach(this::register);
+    }
+
+    public synchronized void unregisterMBeans() {
+
+        if (mBeansName == null) {
+            return;
+        }
+
+        var server = ManagementFactory.getPlatformMBeanServer();
+        for (var methodMetrics : metrics.values()) {
+            try {
+                var objectName = objectName(methodMetrics.getMethod());
+                if (server.isRegistered(objectName)) {
+                    server.unregisterMBean(objectName);
+                }
+            } catch (JMException e) {
+                throw new IllegalStateException("Can't unregister metrics of " + methodMetrics.getMethod(), e);
+            }
+        }
+        mBeansName = null;
+    }
+
+    private QueryMetrics newMetrics(String method) {
+        var methodMetrics = new QueryMetrics(method);
+        if (mBeansName != null) {
+            synchronized (this) {
+                register(methodMetrics);
+            }
+        }
+        return methodMetrics;
+    }
+
+    private void register(QueryMetrics methodMetrics) {
+
+        if (mBeansName == null) {
+            return;
+        }
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            var objectName = objectName(methodMetrics.getMethod());
+            if (!server.isRegistered(objectName)) {
+                server.registerMBean(methodMetrics, objectName);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Can't register metrics of " + methodMetrics.getMethod(), e);
+        }
+    }
+
+    private ObjectName objectName(String method) throws JMException {
+        return new ObjectName("com.app:type=CarsQueries,name=" + ObjectName.quote(mBeansName) + ",method=" + method);
+    }
+}
@@ -0,0 +1,248 @@
+package com.app.service.metrics;
+
+import com.app.domain.car.Car;
+import com.app.domain.car.CarPage;
+import com.app.domain.car.CarQuery;
+import com.app.domain.car.CarSketches;
+import com.app.domain.car.CarStatistic;
+import com.app.domain.car.type.Color;
+import com.app.domain.car.type.SortingType;
+import com.app.domain.car.type.StatisticAttribute;
+import com.app.service.CarsQueries;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Flow;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Decorator measuring every query: latency, rows of store read by query, rows returned to caller and bytes
+ * allocated by calling thread. Measurements of every call, also failed one, are given to sink.
+ */
+public class InstrumentedCarsQueries implements CarsQueries {
+
+    private static final com.sun.management.ThreadMXBean THREADS = threads();
+
+    private final CarsQueries queries;
+    private final MetricsSink sink;
+
+    public InstrumentedCarsQueries(CarsQueries queries, MetricsSink sink) {
+        this.queries = queries;
+        this.sink = sink;
+    }
+
+    @Override
+    public List<Car> sortingByGivenOrder(SortingType sortingType, boolean descending) {
+        return measure("sortingByGivenOrder", () -> queries.sortingByGivenOrder(sortingType, descending));
+    }
+
+    @Override
+    public List<Car> sortingByGivenOrder(SortingType sortingType, boolean descending, int offset, int limit) {
+        return measure("sortingByGivenOrderPage",
+                () -> queries.sortingByGivenOrder(sortingType, descending, offset, limit));
+    }
+
+    @Override
+    public List<Car> getTopCars(SortingType sortingType, boolean descending, int k) {
+        return measure("getTopCars", () -> queries.getTopCars(sortingType, descending, k));
+    }
+
+    @Override
+    public Map<String, List<Car>> getTopCarsForEveryModel(SortingType sortingType, boolean descending, int k) {
+        return measure("getTopCarsForEveryModel", () -> queries.getTopCarsForEveryModel(sortingType, descending, k));
+    }
+
+    @Override
+    public Map<Color, List<Car>> getTopCarsForEveryColor(SortingType sortingType, boolean descending, int k) {
+        return measure("getTopCarsForEveryColor", () -> queries.getTopCarsForEveryColor(sortingType, descending, k));
+    }
+
+    @Override
+    public List<Car> findAllWithMileageGreaterThan(double mileage) {
+        return measure("findAllWithMileageGreaterThan", () -> queries.findAllWithMileageGreaterThan(mileage));
+    }
+
+    @Override
+    public int countWithMileageGreaterThan(double mileage) {
+        return measure("countWithMileageGreaterThan", () -> queries.countWithMileageGreaterThan(mileage));
+    }
+
+    @Override
+    public Map<Color, Long> returnAmountOfCarsForAllColors() {
+        return measure("returnAmountOfCarsForAllColors", queries::returnAmountOfCarsForAllColors);
+    }
+
+    @Override
+    public Map<String, Car> returnMostExpensiveCarForEveryModel() {
+        return measure("returnMostExpensiveCarForEveryModel", queries::returnMostExpensiveCarForEveryModel);
+    }
+
+    @Override
+    public CarStatistic getStatisticForGivenAttribute(StatisticAttribute statisticAttribute) {
+        return measure("getStatisticForGivenAttribute", () -> queries.getStatisticForGivenAttribute(statisticAttribute));
+    }
+
+    @Override
+    public CarStatistic getStatisticForAllAttributes() {
+        return measure("getStatisticForAllAttributes", queries::getStatisticForAllAttributes);
+    }
+
+    @Override
+    public Car getTheMostExpensiveCar() {
+        return measure("getTheMostExpensiveCar", queries::getTheMostExpensiveCar);
+    }
+
+    @Override
+    public List<Car> sortAlphabeticalComponentList() {
+        return measure("sortAlphabeticalComponentList", queries::sortAlphabeticalComponentList);
+    }
+
+    @Override
+    public List<Car> getCarsWithGivenPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
+        return measure("getCarsWithGivenPriceRange", () -> queries.getCarsWithGivenPriceRange(minPrice, maxPrice));
+    }
+
+    @Override
+    public int countWithGivenPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
+        return measure("countWithGivenPriceRange", () -> queries.countWithGivenPriceRange(minPrice, maxPrice));
+    }
+
+    @Override
+    public Map<String, List<Car>> groupByComponent() {
+        return measure("groupByComponent", queries::groupByComponent);
+    }
+
+    @Override
+    public List<Car> findAllWithAllComponents(Collection<String> components) {
+        return measure("findAllWithAllComponents", () -> queries.findAllWithAllComponents(components));
+    }
+
+    @Override
+    public List<Car> findAllWithAnyComponent(Collection<String> components) {
+        return measure("findAllWithAnyComponent", () -> queries.findAllWithAnyComponent(components));
+    }
+
+    @Override
+    public List<Car> find(CarQuery query) {
+        return measure("find", () -> queries.find(query));
+    }
+
+    /**
+     * Only creation of stream is measured, cars are read later by caller.
+     */
+    @Override
+    public Stream<Car> stream(CarQuery query) {
+        return measure("stream", () -> queries.stream(query));
+    }
+
+    @Override
+    public CarPage findPage(CarQuery query, String pageToken) {
+        return measure("findPage", () -> queries.findPage(query, pageToken));
+    }
+
+    /**
+     * Only creation of publisher is measured, cars are read later on its executor.
+     */
+    @Override
+    public Flow.Publisher<Car> publish(CarQuery query) {
+        return measure("publish", () -> queries.publish(query));
+    }
+
+    @Override
+    public CarSketches sketches() {
+        return measure("sketches", queries::sketches);
+    }
+
+    @Override
+    public long version() {
+        return queries.version();
+    }
+
+    @Override
+    public Optional<Car> findById(long id) {
+        return measure("findById", () -> queries.findById(id));
+    }
+
+    private <T> T measure(String method, Supplier<T> query) {
+
+        var outerRows = ScannedRows.start();
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        T result = null;
+        boolean failed = true;
+
+        try {
+            result = query.get();
+            failed = false;
+            return result;
+        } finally {
+            long latency = System.nanoTime() - start;
+            long allocatedAfter = allocatedBytes();
+            long rowsScanned = ScannedRows.stop(outerRows);
+            sink.record(QueryCall
+                    .builder()
+                    .method(method)
+                    .latencyNanos(latency)
+                    .rowsScanned(rowsScanned)
+                    .rowsReturned(rowsReturned(result))
+                    .allocatedBytes(allocatedBefore < 0 || allocatedAfter < 0 ? -1 : allocatedAfter - allocatedBefore)
+                    .failed(failed)
+                    .build());
+        }
+    }
+
+    /**
+     * @return amount of cars in result, cars in lists of map values are counted separately.
+     */
+    static long rowsReturned(Object result) {
+
+        if (result instanceof Car) {
+            return 1;
+        }
+        if (result instanceof Optional) {
+            return ((Optional<?>) result).isPresent() ? 1 : 0;
+        }
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof CarPage) {
+            return ((CarPage) result).getCars().size();
+        }
+        if (result instanceof Map) {
+            long rows = 0;
+            for (var value : ((Map<?, ?>) result).values()) {
+                rows += value instanceof Collection ? ((Collection<?>) value).size() : value instanceof Car ? 1 : 0;
+            }
+            return rows;
+        }
+
+        return 0;
+    }
+
+    private static long allocatedBytes() {
+        return THREADS == null ? -1 : THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    private static com.sun.management.ThreadMXBean threads() {
+
+        var threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+
+        var allocations = (com.sun.management.ThreadMXBean) threads;
+        if (!allocations.isThreadAllocatedMemorySupported()) {
+            return null;
+        }
+        if (!allocations.isThreadAllocatedMemoryEnabled()) {
+            allocations.setThreadAllocatedMemoryEnabled(true);
+        }
+
+        return allocations;
+    }
+}
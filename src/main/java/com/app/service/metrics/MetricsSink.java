@@ -0,0 +1,23 @@
+package com.app.service.metrics;
+
+/**
+ * Receiver of measurements of query calls, it is called by thread which made the call so it should be fast.
+ */
+@FunctionalInterface
+public interface MetricsSink {
+
+    MetricsSink NONE = call -> {
+    };
+
+    void record(QueryCall call);
+
+    /**
+     * @return sink giving every call to this sink and then to the next one.
+     */
+    default MetricsSink andThen(MetricsSink next) {
+        return call -> {
+            record(call);
+            next.record(call);
+        };
+    }
+}
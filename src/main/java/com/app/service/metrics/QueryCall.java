@@ -0,0 +1,25 @@
+package com.app.service.metrics;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Measurements of one call of query.
+ */
+@Data
+@AllArgsConstructor
+@Builder
+public class QueryCall {
+
+    private String method;
+    private long latencyNanos;
+    private long rowsScanned;
+    private long rowsReturned;
+    /**
+     * Bytes allocated by calling thread or -1 when JVM does not measure allocations, allocations of parallel scans
+     * made by threads of pool are not included.
+     */
+    private long allocatedBytes;
+    private boolean failed;
+}
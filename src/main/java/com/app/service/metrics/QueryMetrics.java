@@ -0,0 +1,102 @@
+package com.app.service.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics of all calls of one query method.
+ */
+public class QueryMetrics implements QueryMetricsMXBean {
+
+    private static final double NANOS_IN_MILLI = 1_000_000.0;
+
+    private final String method;
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder rowsScanned = new LongAdder();
+    private final LongAdder rowsReturned = new LongAdder();
+    private final LongAdder allocatedBytes = new LongAdder();
+    private final LongAdder measuredAllocations = new LongAdder();
+
+    QueryMetrics(String method) {
+        this.method = method;
+    }
+
+    void record(QueryCall call) {
+        calls.increment();
+        if (call.isFailed()) {
+            failures.increment();
+        }
+        latency.record(call.getLatencyNanos());
+        rowsScanned.add(call.getRowsScanned());
+        rowsReturned.add(call.getRowsReturned());
+        if (call.getAllocatedBytes() >= 0) {
+            allocatedBytes.add(call.getAllocatedBytes());
+            measuredAllocations.increment();
+        }
+    }
+
+    /**
+     * @return histogram of latencies in nanoseconds.
+     */
+    public LatencyHistogram latency() {
+        return latency;
+    }
+
+    @Override
+    public String getMethod() {
+        return method;
+    }
+
+    @Override
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    @Override
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    @Override
+    public double getLatencyP50Millis() {
+        return latency.valueAt(0.5) / NANOS_IN_MILLI;
+    }
+
+    @Override
+    public double getLatencyP99Millis() {
+        return latency.valueAt(0.99) / NANOS_IN_MILLI;
+    }
+
+    @Override
+    public double getLatencyP999Millis() {
+        return latency.valueAt(0.999) / NANOS_IN_MILLI;
+    }
+
+    @Override
+    public long getRowsScanned() {
+        return rowsScanned.sum();
+    }
+
+    @Override
+    public long getRowsReturned() {
+        return rowsReturned.sum();
+    }
+
+    @Override
+    public long getAllocatedBytesPerCall() {
+        long measured = measuredAllocations.sum();
+        return measured == 0 ? -1 : allocatedBytes.sum() / measured;
+    }
+
+    @Override
+    public void reset() {
+        calls.reset();
+        failures.reset();
+        latency.reset();
+        rowsScanned.reset();
+        rowsReturned.reset();
+        allocatedBytes.reset();
+        measuredAllocations.reset();
+    }
+}
@@ -0,0 +1,30 @@
+package com.app.service.metrics;
+
+/**
+ * Metrics of one query method exposed through JMX.
+ */
+public interface QueryMetricsMXBean {
+
+    String getMethod();
+
+    long getCalls();
+
+    long getFailures();
+
+    double getLatencyP50Millis();
+
+    double getLatencyP99Millis();
+
+    double getLatencyP999Millis();
+
+    long getRowsScanned();
+
+    long getRowsReturned();
+
+    /**
+     * @return average bytes allocated by one call or -1 when allocations are not measured.
+     */
+    long getAllocatedBytesPerCall();
+
+    void reset();
+}
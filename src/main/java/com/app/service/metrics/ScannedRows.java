@@ -0,0 +1,45 @@
+package com.app.service.metrics;
+
+/**
+ * Counter of store rows read by query running in current thread. Services report rows they read and
+ * {@link InstrumentedCarsQueries} takes their sum after every call, when nothing is measured reports are ignored.
+ */
+public final class ScannedRows {
+
+    private static final ThreadLocal<long[]> COUNTER = new ThreadLocal<>();
+
+    private ScannedRows() {
+    }
+
+    public static void add(long rows) {
+        var counter = COUNTER.get();
+        if (counter != null) {
+            counter[0] += rows;
+        }
+    }
+
+    /**
+     * Method starts counting in current thread.
+     * @return counter of outer measured call or null, it has to be given back to {@link #stop(long[])}.
+     */
+    public static long[] start() {
+        var outer = COUNTER.get();
+        COUNTER.set(new long[1]);
+        return outer;
+    }
+
+    /**
+     * Method stops counting in current thread, rows of nested call are counted also for outer call.
+     * @return rows reported since start.
+     */
+    public static long stop(long[] outer) {
+        long rows = COUNTER.get()[0];
+        if (outer == null) {
+            COUNTER.remove();
+        } else {
+            outer[0] += rows;
+            COUNTER.set(outer);
+        }
+        return rows;
+    }
+}
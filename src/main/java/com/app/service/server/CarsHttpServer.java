@@ -0,0 +1,372 @@
+package com.app.service.server;
+
+import com.app.domain.car.CarQuery;
+import com.app.domain.car.type.CarField;
+import com.app.domain.car.type.Color;
+import com.app.domain.car.type.SortingType;
+import com.app.domain.car.type.StatisticAttribute;
+import com.app.service.CarsQueries;
+import com.app.service.PerTaskThreads;
+import com.app.service.exception.CarsServiceException;
+import com.app.service.loader.CarsFileFormat;
+import com.app.service.loader.CarsLoader;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * HTTP endpoint answering every query of {@link CarsQueries} with JSON. Path of request is name of query method,
+ * arguments are given as query parameters, for example
+ * {@code GET /getTopCars?sortingType=PRICE&descending=true&k=10} or
+ * {@code GET /find?model=Audi&component=ABS&sortBy=MILEAGE&limit=100}. Parameter which takes many values like
+ * {@code component} is repeated. Cars of {@code /find} are written to response one by one while they are selected,
+ * it is the HTTP form of {@link CarsQueries#stream(CarQuery)} and {@link CarsQueries#publish(CarQuery)}.
+ * <p>
+ * Every request runs on its own virtual thread when JVM has them, so blocked or waiting requests hold no platform
+ * thread. Amount of answered requests is bounded by {@link ServerSettings#getMaxConcurrentRequests()}, request over
+ * it is rejected with status 503. Query which is not answered in request timeout gets status 504 and its thread is
+ * interrupted, so query plan stops at its next check of interruption. Permit of such query is released only when
+ * query really finishes, so slow queries can't pile up over the bound. Invalid arguments get status 400 with
+ * message of error in field {@code error}.
+ */
+public class CarsHttpServer implements AutoCloseable {
+
+    private static final String JSON = "application/json; charset=utf-8";
+
+    private final CarsQueries queries;
+    private final ServerSettings settings;
+    private final Semaphore admissions;
+    private final ExecutorService requests;
+    private final ScheduledExecutorService deadlines;
+    private final HttpServer server;
+    private final Map<String, Function<QueryParameters, Object>> operations = operations();
+
+    public CarsHttpServer(CarsQueries queries, ServerSettings settings) throws IOException {
+        this.queries = queries;
+        this.settings = settings;
+        this.admissions = new Semaphore(settings.getMaxConcurrentRequests());
+        this.requests = PerTaskThreads.executor("cars-http-request");
+        this.deadlines = Executors.newSingleThreadScheduledExecutor(task -> {
+            var thread = new Thread(task, "cars-http-deadline");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server = HttpServer.create(new InetSocketAddress(settings.getBindAddress(), settings.getPort()), 0);
+        this.server.setExecutor(requests);
+        this.server.createContext("/", this::handle);
+    }
+
+    /**
+     * Method starts server with cars from file, arguments are path of file, its format and optionally port and
+     * address to bind, server listens only on loopback when address is not given.
+     */
+    public static void main(String[] args) throws IOException {
+
+        if (args.length < 2) {
+            System.err.println("Usage: CarsHttpServer <file> <JSON|CSV> [port] [bind address]");
+            return;
+        }
+
+        var queries = new CarsLoader().loadService(Path.of(args[0]), CarsFileFormat.valueOf(args[1].toUpperCase()));
+        var settings = ServerSettings.builder();
+        if (args.length > 2) {
+            settings.port(Integer.parseInt(args[2]));
+        }
+        if (args.length > 3) {
+            settings.bindAddress(InetAddress.getByName(args[3]));
+        }
+
+        var server = new CarsHttpServer(queries, settings.build());
+        server.start();
+        System.out.println("Listening on port " + server.port());
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * @return port on which server listens, also when free port was chosen.
+     */
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Method stops server without waiting for unfinished requests.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        requests.shutdownNow();
+        deadlines.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+
+        boolean answered = false;
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                respond(exchange, 405, error("Only GET requests are allowed"));
+            } else {
+                var operation = exchange.getRequestURI().getPath().substring(1);
+                var parameters = new QueryParameters(exchange.getRequestURI().getRawQuery());
+                if (operation.equals("find")) {
+                    find(exchange, parameters);
+                } else if (operations.containsKey(operation)) {
+                    answer(exchange, operations.get(operation), parameters);
+                } else {
+                    respond(exchange, 404, error("Unknown query " + operation));
+                }
+            }
+            answered = true;
+        } catch (CarsServiceException e) {
+            respond(exchange, 400, error(e.getMessage()));
+            answered = true;
+        } finally {
+            // connection of request which failed after status was sent is closed by server without ending response,
+            // so client can't take cut off response for complete one
+            if (answered) {
+                exchange.close();
+            }
+        }
+    }
+
+    /**
+     * Query is answered on its own thread, so request thread can stop waiting for it after timeout.
+     */
+    private void answer(HttpExchange exchange, Function<QueryParameters, Object> operation,
+                        QueryParameters parameters) throws IOException {
+
+        if (!admit()) {
+            respond(exchange, 503, error("Too many concurrent requests"));
+            return;
+        }
+
+        var result = requests.submit(() -> {
+            try {
+                return operation.apply(parameters);
+            } finally {
+                admissions.release();
+            }
+        });
+
+        try {
+            respond(exchange, 200, result.get(settings.getRequestTimeout().toNanos(), TimeUnit.NANOSECONDS));
+        } catch (TimeoutException e) {
+            result.cancel(true);
+            respond(exchange, 504, error("Query took longer than " + settings.getRequestTimeout()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.cancel(true);
+            respond(exchange, 503, error("Server is stopping"));
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof CarsServiceException) {
+                throw (CarsServiceException) e.getCause();
+            }
+            respond(exchange, 500, error(String.valueOf(e.getCause())));
+        }
+    }
+
+    /**
+     * Cars are written while they are selected, so only one car is kept in memory at a time. Thread of request is
+     * interrupted at request timeout, so also query which sorts or scans cars before the first one is stopped. Query
+     * stopped before the first car gets status 504, later status is already sent, so response is cut off by closing
+     * connection.
+     */
+    private void find(HttpExchange exchange, QueryParameters parameters) throws IOException {
+
+        var query = query(parameters);
+        if (!admit()) {
+            respond(exchange, 503, error("Too many concurrent requests"));
+            return;
+        }
+
+        try {
+            if (!writeCars(exchange, query)) {
+                respond(exchange, 504, error("Query took longer than " + settings.getRequestTimeout()));
+            }
+        } finally {
+            admissions.release();
+        }
+    }
+
+    /**
+     * Deadline is closed before method returns, so status 504 is sent by caller without interruption.
+     * @return false when query was stopped before the first car and nothing was sent.
+     */
+    private boolean writeCars(HttpExchange exchange, CarQuery query) throws IOException {
+
+        var deadline = new Deadline();
+        try (deadline; var cars = queries.stream(query)) {
+            var iterator = cars.iterator();
+            boolean hasNext;
+            try {
+                hasNext = iterator.hasNext();
+            } catch (CancellationException e) {
+                return false;
+            }
+            var json = start(exchange, 200);
+            json.beginArray();
+            boolean first = true;
+            while (hasNext) {
+                first = json.separate(first);
+                json.value(iterator.next());
+                // queries which don't check interruption are stopped between cars
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new CancellationException();
+                }
+                hasNext = iterator.hasNext();
+            }
+            json.endArray();
+            json.flush();
+            return true;
+        } catch (CancellationException e) {
+            throw new IOException("Query took longer than " + settings.getRequestTimeout(), e);
+        }
+    }
+
+    private boolean admit() {
+        try {
+            return admissions.tryAcquire(settings.getAdmissionTimeout().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, Object body) throws IOException {
+        var json = start(exchange, status);
+        json.value(body);
+        json.flush();
+    }
+
+    /**
+     * Response is sent in chunks, so its length doesn't have to be known before it is written.
+     */
+    private static JsonWriter start(HttpExchange exchange, int status) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(status, 0);
+        return new JsonWriter(new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(),
+                StandardCharsets.UTF_8)));
+    }
+
+    private static Map<String, String> error(String message) {
+        return Map.of("error", message);
+    }
+
+    private Map<String, Function<QueryParameters, Object>> operations() {
+
+        var operations = new HashMap<String, Function<QueryParameters, Object>>();
+
+        operations.put("sortingByGivenOrder", parameters -> parameters.optionalText("offset") == null
+                && parameters.optionalText("limit") == null
+                ? queries.sortingByGivenOrder(sortingType(parameters), parameters.bool("descending"))
+                : queries.sortingByGivenOrder(sortingType(parameters), parameters.bool("descending"),
+                parameters.integer("offset", 0), parameters.integer("limit", Integer.MAX_VALUE)));
+        operations.put("getTopCars", parameters -> queries.getTopCars(sortingType(parameters),
+                parameters.bool("descending"), parameters.integer("k", 0)));
+        operations.put("getTopCarsForEveryModel", parameters -> queries.getTopCarsForEveryModel(
+                sortingType(parameters), parameters.bool("descending"), parameters.integer("k", 0)));
+        operations.put("getTopCarsForEveryColor", parameters -> queries.getTopCarsForEveryColor(
+                sortingType(parameters), parameters.bool("descending"), parameters.integer("k", 0)));
+        operations.put("findAllWithMileageGreaterThan",
+                parameters -> queries.findAllWithMileageGreaterThan(parameters.number("mileage")));
+        operations.put("countWithMileageGreaterThan",
+                parameters -> queries.countWithMileageGreaterThan(parameters.number("mileage")));
+        operations.put("returnAmountOfCarsForAllColors", parameters -> queries.returnAmountOfCarsForAllColors());
+        operations.put("returnMostExpensiveCarForEveryModel",
+                parameters -> queries.returnMostExpensiveCarForEveryModel());
+        operations.put("getStatisticForGivenAttribute", parameters -> queries.getStatisticForGivenAttribute(
+                parameters.enumValue(StatisticAttribute.class, "attribute")));
+        operations.put("getStatisticForAllAttributes", parameters -> queries.getStatisticForAllAttributes());
+        operations.put("getTheMostExpensiveCar", parameters -> queries.getTheMostExpensiveCar());
+        operations.put("sortAlphabeticalComponentList", parameters -> queries.sortAlphabeticalComponentList());
+        operations.put("getCarsWithGivenPriceRange", parameters -> queries.getCarsWithGivenPriceRange(
+                parameters.decimal("minPrice"), parameters.decimal("maxPrice")));
+        operations.put("countWithGivenPriceRange", parameters -> queries.countWithGivenPriceRange(
+                parameters.decimal("minPrice"), parameters.decimal("maxPrice")));
+        operations.put("groupByComponent", parameters -> queries.groupByComponent());
+        operations.put("findAllWithAllComponents",
+                parameters -> queries.findAllWithAllComponents(parameters.all("component")));
+        operations.put("findAllWithAnyComponent",
+                parameters -> queries.findAllWithAnyComponent(parameters.all("component")));
+        operations.put("findPage",
+                parameters -> queries.findPage(query(parameters), parameters.optionalText("pageToken")));
+        operations.put("sketches", parameters -> queries.sketches());
+        operations.put("version", parameters -> queries.version());
+        operations.put("findById", parameters -> queries.findById(parameters.longNumber("id")));
+
+        return operations;
+    }
+
+    private static SortingType sortingType(QueryParameters parameters) {
+        return parameters.enumValue(SortingType.class, "sortingType");
+    }
+
+    private static CarQuery query(QueryParameters parameters) {
+        return CarQuery
+                .builder()
+                .models(parameters.all("model"))
+                .colors(parameters.enumValues(Color.class, "color"))
+                .minPrice(parameters.decimal("minPrice"))
+                .maxPrice(parameters.decimal("maxPrice"))
+                .minMileage(parameters.optionalNumber("minMileage"))
+                .maxMileage(parameters.optionalNumber("maxMileage"))
+                .components(parameters.all("component"))
+                .sortBy(parameters.enumValue(SortingType.class, "sortBy"))
+                .descending(parameters.bool("descending"))
+                .offset(parameters.integer("offset", 0))
+                .limit(parameters.integer("limit", Integer.MAX_VALUE))
+                .fields(parameters.enumValues(CarField.class, "field"))
+                .build();
+    }
+
+    /**
+     * Interruption of thread of request at request timeout. Interruption is cleared when deadline is closed, so
+     * thread can write response and no interruption comes after it.
+     */
+    private final class Deadline implements AutoCloseable {
+
+        private final Thread thread = Thread.currentThread();
+        private final ScheduledFuture<?> timer;
+        private boolean closed;
+
+        private Deadline() {
+            this.timer = deadlines.schedule(this::expire, settings.getRequestTimeout().toNanos(),
+                    TimeUnit.NANOSECONDS);
+        }
+
+        private synchronized void expire() {
+            if (!closed) {
+                thread.interrupt();
+            }
+        }
+
+        @Override
+        public synchronized void close() {
+            closed = true;
+            timer.cancel(false);
+            Thread.interrupted();
+        }
+    }
+}
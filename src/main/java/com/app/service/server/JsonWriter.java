@@ -0,0 +1,216 @@
+package com.app.service.server;
+
+import com.app.domain.car.Car;
+import com.app.domain.car.CarPage;
+import com.app.domain.car.CarSketches;
+import com.app.domain.car.CarStatistic;
+import com.app.domain.car.CarUtils;
+import com.app.domain.car.HistogramBucket;
+import com.app.domain.car.Statistic;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Minimal JSON writer, every value is written directly to writer without building whole text in memory. Cars are
+ * written in the same form as read by {@link com.app.service.loader.JsonCarReader}, fields not filled by projection
+ * are left out. Prices are written as exact numbers, NaN or infinite numbers as null and sketches as Base64 text of
+ * their bytes.
+ */
+public class JsonWriter {
+
+    private final Writer writer;
+
+    public JsonWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * Method writes map as object, collection as array and known domain objects as objects of their fields.
+     */
+    public void value(Object value) throws IOException {
+
+        if (value == null) {
+            writer.write("null");
+        } else if (value instanceof String) {
+            string((String) value);
+        } else if (value instanceof Enum) {
+            string(((Enum<?>) value).name());
+        } else if (value instanceof BigDecimal) {
+            writer.write(((BigDecimal) value).toPlainString());
+        } else if (value instanceof Double || value instanceof Float) {
+            number(((Number) value).doubleValue());
+        } else if (value instanceof Number || value instanceof Boolean) {
+            writer.write(value.toString());
+        } else if (value instanceof Optional) {
+            value(((Optional<?>) value).orElse(null));
+        } else if (value instanceof Car) {
+            car((Car) value);
+        } else if (value instanceof Collection) {
+            beginArray();
+            boolean first = true;
+            for (var element : (Collection<?>) value) {
+                first = separate(first);
+                value(element);
+            }
+            endArray();
+        } else if (value instanceof Map) {
+            writer.write('{');
+            boolean first = true;
+            for (var entry : ((Map<?, ?>) value).entrySet()) {
+                first = separate(first);
+                name(String.valueOf(entry.getKey() instanceof Enum ? ((Enum<?>) entry.getKey()).name() : entry.getKey()));
+                value(entry.getValue());
+            }
+            writer.write('}');
+        } else if (value instanceof CarPage) {
+            var page = (CarPage) value;
+            writer.write('{');
+            name("cars");
+            value(page.getCars());
+            writer.write(',');
+            name("nextPageToken");
+            value(page.getNextPageToken());
+            writer.write('}');
+        } else if (value instanceof CarStatistic) {
+            var statistic = (CarStatistic) value;
+            writer.write('{');
+            name("price");
+            value(statistic.getPrice());
+            writer.write(',');
+            name("mileage");
+            value(statistic.getMileage());
+            writer.write('}');
+        } else if (value instanceof Statistic) {
+            statistic((Statistic<?>) value);
+        } else if (value instanceof CarSketches) {
+            string(Base64.getEncoder().encodeToString(((CarSketches) value).toBytes()));
+        } else if (value instanceof HistogramBucket) {
+            var bucket = (HistogramBucket<?>) value;
+            writer.write('{');
+            name("lowerBound");
+            value(bucket.getLowerBound());
+            writer.write(',');
+            name("upperBound");
+            value(bucket.getUpperBound());
+            writer.write(',');
+            name("count");
+            value(bucket.getCount());
+            writer.write('}');
+        } else {
+            throw new IllegalArgumentException("Can't write " + value.getClass().getSimpleName() + " as JSON");
+        }
+    }
+
+    public void beginArray() throws IOException {
+        writer.write('[');
+    }
+
+    /**
+     * Method writes separator before every element of array except the first one.
+     * @return false, so it can be assigned to flag of the first element.
+     */
+    public boolean separate(boolean first) throws IOException {
+        if (!first) {
+            writer.write(',');
+        }
+        return false;
+    }
+
+    public void endArray() throws IOException {
+        writer.write(']');
+    }
+
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    private void car(Car car) throws IOException {
+
+        writer.write('{');
+        boolean first = true;
+
+        var model = CarUtils.toModel.apply(car);
+        if (model != null) {
+            first = field(first, "model", model);
+        }
+        var price = CarUtils.toPrice.apply(car);
+        if (price != null) {
+            first = field(first, "price", price);
+        }
+        var color = CarUtils.toColor.apply(car);
+        if (color != null) {
+            first = field(first, "color", color);
+        }
+        first = field(first, "mileage", CarUtils.toMileage.apply(car));
+        field(first, "components", CarUtils.toComponents.apply(car));
+
+        writer.write('}');
+    }
+
+    private void statistic(Statistic<?> statistic) throws IOException {
+
+        writer.write('{');
+        boolean first = field(true, "min", statistic.getMin());
+        first = field(first, "max", statistic.getMax());
+        first = field(first, "average", statistic.getAverage());
+        first = field(first, "sum", statistic.getSum());
+        first = field(first, "count", statistic.getCount());
+        first = field(first, "standardDeviation", statistic.getStandardDeviation());
+        first = field(first, "median", statistic.getMedian());
+        first = field(first, "p90", statistic.getP90());
+        first = field(first, "p99", statistic.getP99());
+        field(first, "histogram", statistic.getHistogram());
+        writer.write('}');
+    }
+
+    private boolean field(boolean first, String name, Object value) throws IOException {
+        separate(first);
+        name(name);
+        value(value);
+        return false;
+    }
+
+    private void name(String name) throws IOException {
+        string(name);
+        writer.write(':');
+    }
+
+    private void number(double value) throws IOException {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            writer.write("null");
+        } else {
+            writer.write(Double.toString(value));
+        }
+    }
+
+    private void string(String value) throws IOException {
+
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char next = value.charAt(i);
+            switch (next) {
+                case '"' -> writer.write("\\\"");
+                case '\\' -> writer.write("\\\\");
+                case '\n' -> writer.write("\\n");
+                case '\r' -> writer.write("\\r");
+                case '\t' -> writer.write("\\t");
+                case '\b' -> writer.write("\\b");
+                case '\f' -> writer.write("\\f");
+                default -> {
+                    if (next < 0x20) {
+                        writer.write(String.format("\\u%04x", (int) next));
+                    } else {
+                        writer.write(next);
+                    }
+                }
+            }
+        }
+        writer.write('"');
+    }
+}
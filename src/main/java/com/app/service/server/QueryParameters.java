@@ -0,0 +1,142 @@
+package com.app.service.server;
+
+import com.app.service.exception.CarsServiceException;
+
+import java.math.BigDecimal;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parameters of query part of request URI. Parameter can be repeated to give more values, invalid or missing
+ * parameter is reported with {@link CarsServiceException} like any other invalid argument of query.
+ */
+class QueryParameters {
+
+    private final Map<String, List<String>> values = new HashMap<>();
+
+    /**
+     * @param rawQuery query part of URI still encoded, null when URI has no query.
+     */
+    QueryParameters(String rawQuery) {
+
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return;
+        }
+
+        for (var parameter : rawQuery.split("&")) {
+            if (parameter.isEmpty()) {
+                continue;
+            }
+            int separator = parameter.indexOf('=');
+            var name = decode(separator < 0 ? parameter : parameter.substring(0, separator));
+            var value = separator < 0 ? "" : decode(parameter.substring(separator + 1));
+            values.computeIfAbsent(name, key -> new ArrayList<>()).add(value);
+        }
+    }
+
+    String text(String name) {
+        var value = optionalText(name);
+        if (value == null) {
+            throw new CarsServiceException("Parameter " + name + " is required");
+        }
+        return value;
+    }
+
+    String optionalText(String name) {
+        var all = values.get(name);
+        return all == null ? null : all.get(all.size() - 1);
+    }
+
+    List<String> all(String name) {
+        return values.getOrDefault(name, List.of());
+    }
+
+    int integer(String name, int defaultValue) {
+        var value = optionalText(name);
+        try {
+            return value == null ? defaultValue : Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw invalid(name, value);
+        }
+    }
+
+    long longNumber(String name) {
+        var value = text(name);
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw invalid(name, value);
+        }
+    }
+
+    double number(String name) {
+        text(name);
+        return optionalNumber(name);
+    }
+
+    Double optionalNumber(String name) {
+        var value = optionalText(name);
+        try {
+            return value == null ? null : Double.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw invalid(name, value);
+        }
+    }
+
+    BigDecimal decimal(String name) {
+        var value = optionalText(name);
+        try {
+            return value == null ? null : new BigDecimal(value);
+        } catch (NumberFormatException e) {
+            throw invalid(name, value);
+        }
+    }
+
+    boolean bool(String name) {
+        var value = optionalText(name);
+        if (value == null || value.equals("false")) {
+            return false;
+        }
+        if (value.isEmpty() || value.equals("true")) {
+            return true;
+        }
+        throw invalid(name, value);
+    }
+
+    <E extends Enum<E>> E enumValue(Class<E> type, String name) {
+        var value = optionalText(name);
+        return value == null ? null : toEnum(type, name, value);
+    }
+
+    <E extends Enum<E>> List<E> enumValues(Class<E> type, String name) {
+        var enums = new ArrayList<E>();
+        for (var value : all(name)) {
+            enums.add(toEnum(type, name, value));
+        }
+        return enums;
+    }
+
+    private static <E extends Enum<E>> E toEnum(Class<E> type, String name, String value) {
+        try {
+            return Enum.valueOf(type, value.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw invalid(name, value);
+        }
+    }
+
+    private static CarsServiceException invalid(String name, String value) {
+        return new CarsServiceException("Invalid value '" + value + "' of parameter " + name);
+    }
+
+    private static String decode(String value) {
+        try {
+            return URLDecoder.decode(value, StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new CarsServiceException("Invalid encoding of parameter '" + value + "'");
+        }
+    }
+}
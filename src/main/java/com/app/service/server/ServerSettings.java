@@ -0,0 +1,57 @@
+package com.app.service.server;
+
+import com.app.service.PerTaskThreads;
+import lombok.Builder;
+import lombok.Value;
+
+import java.net.InetAddress;
+import java.time.Duration;
+
+/**
+ * Settings of {@link CarsHttpServer}, every setting which is not given has its default value.
+ */
+@Value
+@Builder
+public class ServerSettings {
+
+    /**
+     * Default bound of concurrent requests when requests run on virtual threads.
+     */
+    public static final int VIRTUAL_THREAD_REQUESTS = 10_000;
+
+    /**
+     * Default bound of concurrent requests on JVM without virtual threads, where every admitted request holds two
+     * platform threads, one writing response and one running query.
+     */
+    public static final int PLATFORM_THREAD_REQUESTS = 256;
+
+    /**
+     * Port of server, free port is chosen when it is 0.
+     */
+    @Builder.Default
+    int port = 8080;
+
+    /**
+     * Address of interface server listens on, only local clients can connect by default. Wildcard address
+     * {@code 0.0.0.0} accepts connections on all interfaces.
+     */
+    @Builder.Default
+    InetAddress bindAddress = InetAddress.getLoopbackAddress();
+
+    /**
+     * The highest amount of requests answered at the same time, request over it waits for admission timeout and
+     * then is rejected with status 503. Default bound depends on threads which run requests.
+     */
+    @Builder.Default
+    int maxConcurrentRequests = PerTaskThreads.isVirtual() ? VIRTUAL_THREAD_REQUESTS : PLATFORM_THREAD_REQUESTS;
+
+    @Builder.Default
+    Duration admissionTimeout = Duration.ofMillis(100);
+
+    /**
+     * The longest time of answering admitted request, status 504 is returned when query takes longer and streamed
+     * response is cut off.
+     */
+    @Builder.Default
+    Duration requestTimeout = Duration.ofSeconds(10);
+}
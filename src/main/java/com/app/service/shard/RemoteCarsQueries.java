@@ -0,0 +1,485 @@
+package com.app.service.shard;
+
+import com.app.domain.car.Car;
+import com.app.domain.car.CarPage;
+import com.app.domain.car.CarQuery;
+import com.app.domain.car.CarSketches;
+import com.app.domain.car.CarStatistic;
+import com.app.domain.car.HistogramBucket;
+import com.app.domain.car.Statistic;
+import com.app.domain.car.type.Color;
+import com.app.domain.car.type.SortingType;
+import com.app.domain.car.type.StatisticAttribute;
+import com.app.service.CarsQueries;
+import com.app.service.CarsService;
+import com.app.service.PerTaskThreads;
+import com.app.service.exception.CarsServiceException;
+import com.app.service.loader.JsonReader;
+import com.app.service.stream.CarPublisher;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Queries answered by {@link com.app.service.server.CarsHttpServer} of other process, so cars of one shard can live
+ * in other JVM. Results are read back into the same types as returned by {@link CarsService}, invalid arguments
+ * end with {@link CarsServiceException} with message of remote service and failure of connection or remote server
+ * ends with {@link UncheckedIOException}.
+ */
+public class RemoteCarsQueries implements CarsQueries {
+
+    private static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final URI server;
+    private final Duration requestTimeout;
+    private final HttpClient client;
+    private final Executor publishers = PerTaskThreads.executor("cars-remote-publisher");
+
+    public RemoteCarsQueries(URI server) {
+        this(server, DEFAULT_REQUEST_TIMEOUT);
+    }
+
+    /**
+     * @param server address of server like {@code http://localhost:8080}.
+     * @param requestTimeout the longest time of waiting for response status.
+     */
+    public RemoteCarsQueries(URI server, Duration requestTimeout) {
+        this.server = server;
+        this.requestTimeout = requestTimeout;
+        this.client = HttpClient.newBuilder().connectTimeout(requestTimeout).build();
+    }
+
+    @Override
+    public List<Car> sortingByGivenOrder(SortingType sortingType, boolean descending) {
+        return cars(get("sortingByGivenOrder", "sortingType", sortingType, "descending", descending));
+    }
+
+    @Override
+    public List<Car> sortingByGivenOrder(SortingType sortingType, boolean descending, int offset, int limit) {
+        return cars(get("sortingByGivenOrder", "sortingType", sortingType, "descending", descending,
+                "offset", offset, "limit", limit));
+    }
+
+    @Override
+    public List<Car> getTopCars(SortingType sortingType, boolean descending, int k) {
+        return cars(get("getTopCars", "sortingType", sortingType, "descending", descending, "k", k));
+    }
+
+    @Override
+    public Map<String, List<Car>> getTopCarsForEveryModel(SortingType sortingType, boolean descending, int k) {
+        var topCars = new HashMap<String, List<Car>>();
+        object(get("getTopCarsForEveryModel", "sortingType", sortingType, "descending", descending, "k", k))
+                .forEach((model, cars) -> topCars.put(model, cars(cars)));
+        return topCars;
+    }
+
+    @Override
+    public Map<Color, List<Car>> getTopCarsForEveryColor(SortingType sortingType, boolean descending, int k) {
+        var topCars = new EnumMap<Color, List<Car>>(Color.class);
+        object(get("getTopCarsForEveryColor", "sortingType", sortingType, "descending", descending, "k", k))
+                .forEach((color, cars) -> topCars.put(Color.valueOf(color), cars(cars)));
+        return topCars;
+    }
+
+    @Override
+    public List<Car> findAllWithMileageGreaterThan(double mileage) {
+        return cars(get("findAllWithMileageGreaterThan", "mileage", mileage));
+    }
+
+    @Override
+    public int countWithMileageGreaterThan(double mileage) {
+        return number(get("countWithMileageGreaterThan", "mileage", mileage)).intValueExact();
+    }
+
+    @Override
+    public Map<Color, Long> returnAmountOfCarsForAllColors() {
+        var amountOfCars = new LinkedHashMap<Color, Long>();
+        object(get("returnAmountOfCarsForAllColors"))
+                .forEach((color, amount) -> amountOfCars.put(Color.valueOf(color), number(amount).longValueExact()));
+        return amountOfCars;
+    }
+
+    @Override
+    public Map<String, Car> returnMostExpensiveCarForEveryModel() {
+        var mostExpensiveCars = new HashMap<String, Car>();
+        object(get("returnMostExpensiveCarForEveryModel")).forEach((model, car) -> mostExpensiveCars.put(model, car(car)));
+        return mostExpensiveCars;
+    }
+
+    @Override
+    public CarStatistic getStatisticForGivenAttribute(StatisticAttribute statisticAttribute) {
+        return statistic(get("getStatisticForGivenAttribute", "attribute", statisticAttribute));
+    }
+
+    @Override
+    public CarStatistic getStatisticForAllAttributes() {
+        return statistic(get("getStatisticForAllAttributes"));
+    }
+
+    @Override
+    public Car getTheMostExpensiveCar() {
+        return car(get("getTheMostExpensiveCar"));
+    }
+
+    @Override
+    public List<Car> sortAlphabeticalComponentList() {
+        return cars(get("sortAlphabeticalComponentList"));
+    }
+
+    @Override
+    public List<Car> getCarsWithGivenPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
+        return cars(get("getCarsWithGivenPriceRange", "minPrice", minPrice, "maxPrice", maxPrice));
+    }
+
+    @Override
+    public int countWithGivenPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
+        return number(get("countWithGivenPriceRange", "minPrice", minPrice, "maxPrice", maxPrice)).intValueExact();
+    }
+
+    @Override
+    public Map<String, List<Car>> groupByComponent() {
+        var carsByComponent = new HashMap<String, List<Car>>();
+        object(get("groupByComponent")).forEach((component, cars) -> carsByComponent.put(component, cars(cars)));
+        return carsByComponent;
+    }
+
+    @Override
+    public List<Car> findAllWithAllComponents(Collection<String> components) {
+        return cars(get("findAllWithAllComponents", "component", components));
+    }
+
+    @Override
+    public List<Car> findAllWithAnyComponent(Collection<String> components) {
+        return cars(get("findAllWithAnyComponent", "component", components));
+    }
+
+    @Override
+    public List<Car> find(CarQuery query) {
+        try (var cars = stream(query)) {
+            return cars.collect(ArrayList::new, ArrayList::add, ArrayList::addAll);
+        }
+    }
+
+    /**
+     * Request is sent and its status checked when stream is created, cars are read from response while stream is
+     * consumed. Stream has to be closed when it is not read to the end.
+     */
+    @Override
+    public Stream<Car> stream(CarQuery query) {
+
+        CarsService.validate(query);
+
+        var body = send("find", parameters(query));
+        var json = new JsonReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        var cars = new Iterator<Car>() {
+
+            private Car next;
+            private boolean finished;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null && !finished) {
+                    var element = read(json);
+                    finished = element == null;
+                    next = finished ? null : car(element);
+                }
+                return next != null;
+            }
+
+            @Override
+            public Car next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                var car = next;
+                next = null;
+                return car;
+            }
+        };
+
+        return StreamSupport
+                .stream(Spliterators.spliteratorUnknownSize(cars,
+                        Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE), false)
+                .onClose(() -> close(body));
+    }
+
+    @Override
+    public CarPage findPage(CarQuery query, String pageToken) {
+
+        CarsService.validate(query);
+
+        var parameters = parameters(query);
+        if (pageToken != null) {
+            parameters.add("pageToken");
+            parameters.add(pageToken);
+        }
+        var page = object(read(send("findPage", parameters)));
+
+        return CarPage
+                .builder()
+                .cars(cars(page.get("cars")))
+                .nextPageToken((String) page.get("nextPageToken"))
+                .build();
+    }
+
+    /**
+     * Every subscriber gets its own request, cars are delivered on its own thread.
+     */
+    @Override
+    public Flow.Publisher<Car> publish(CarQuery query) {
+        CarsService.validate(query);
+        return new CarPublisher(() -> stream(query).iterator(), publishers);
+    }
+
+    /**
+     * Sketches are sent as Base64 text of their bytes.
+     */
+    @Override
+    public CarSketches sketches() {
+        return CarSketches.fromBytes(Base64.getDecoder().decode((String) get("sketches")));
+    }
+
+    @Override
+    public long version() {
+        return number(get("version")).longValueExact();
+    }
+
+    @Override
+    public Optional<Car> findById(long id) {
+        var car = get("findById", "id", id);
+        return car == null ? Optional.empty() : Optional.of(car(car));
+    }
+
+    /**
+     * @param nameAndValues names of parameters each followed by its value, collection value repeats parameter
+     *                      for every element and null value leaves parameter out.
+     */
+    private Object get(String query, Object... nameAndValues) {
+        var parameters = new ArrayList<>();
+        for (int i = 0; i < nameAndValues.length; i += 2) {
+            if (nameAndValues[i + 1] instanceof Collection) {
+                for (var value : (Collection<?>) nameAndValues[i + 1]) {
+                    parameters.add(nameAndValues[i]);
+                    parameters.add(value);
+                }
+            } else if (nameAndValues[i + 1] != null) {
+                parameters.add(nameAndValues[i]);
+                parameters.add(nameAndValues[i + 1]);
+            }
+        }
+        return read(send(query, parameters));
+    }
+
+    private static List<Object> parameters(CarQuery query) {
+
+        var parameters = new ArrayList<>();
+        query.getModels().forEach(model -> add(parameters, "model", model));
+        query.getColors().forEach(color -> add(parameters, "color", color));
+        add(parameters, "minPrice", query.getMinPrice());
+        add(parameters, "maxPrice", query.getMaxPrice());
+        add(parameters, "minMileage", query.getMinMileage());
+        add(parameters, "maxMileage", query.getMaxMileage());
+        query.getComponents().forEach(component -> add(parameters, "component", component));
+        add(parameters, "sortBy", query.getSortBy());
+        add(parameters, "descending", query.isDescending());
+        add(parameters, "offset", query.getOffset());
+        add(parameters, "limit", query.getLimit());
+        query.getFields().forEach(field -> add(parameters, "field", field));
+
+        return parameters;
+    }
+
+    private static void add(List<Object> parameters, String name, Object value) {
+        if (value != null) {
+            parameters.add(name);
+            parameters.add(value);
+        }
+    }
+
+    /**
+     * @return body of successful response, status 400 is thrown as {@link CarsServiceException}.
+     */
+    private InputStream send(String query, List<Object> parameters) {
+
+        var uri = new StringBuilder(server.toString()).append('/').append(query);
+        for (int i = 0; i < parameters.size(); i += 2) {
+            uri.append(i == 0 ? '?' : '&')
+                    .append(parameters.get(i))
+                    .append('=')
+                    .append(encode(parameters.get(i + 1)));
+        }
+
+        HttpResponse<InputStream> response;
+        try {
+            response = client.send(HttpRequest.newBuilder(URI.create(uri.toString())).timeout(requestTimeout).build(),
+                    HttpResponse.BodyHandlers.ofInputStream());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Shard " + server + " can't be reached", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new InterruptedIOException("Interrupted while waiting for " + server));
+        }
+
+        if (response.statusCode() == 200) {
+            return response.body();
+        }
+
+        var error = read(response.body());
+        var message = error instanceof Map ? String.valueOf(((Map<?, ?>) error).get("error")) : String.valueOf(error);
+        if (response.statusCode() == 400) {
+            throw new CarsServiceException(message);
+        }
+        throw new UncheckedIOException(new IOException("Shard " + server + " answered with status "
+                + response.statusCode() + ": " + message));
+    }
+
+    private static String encode(Object value) {
+        var text = value instanceof BigDecimal ? ((BigDecimal) value).toPlainString()
+                : value instanceof Enum ? ((Enum<?>) value).name() : String.valueOf(value);
+        return URLEncoder.encode(text, StandardCharsets.UTF_8);
+    }
+
+    private Object read(InputStream body) {
+        try (body) {
+            return new JsonReader(new InputStreamReader(body, StandardCharsets.UTF_8)).readValue();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Response of shard " + server + " can't be read", e);
+        }
+    }
+
+    private Object read(JsonReader json) {
+        try {
+            return json.nextArrayElement();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Response of shard " + server + " can't be read", e);
+        }
+    }
+
+    private static void close(InputStream body) {
+        try {
+            body.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> object(Object value) {
+        return (Map<String, Object>) value;
+    }
+
+    private static BigDecimal number(Object value) {
+        return (BigDecimal) value;
+    }
+
+    private static List<Car> cars(Object value) {
+        var cars = new ArrayList<Car>();
+        for (var car : (List<?>) value) {
+            cars.add(car(car));
+        }
+        return cars;
+    }
+
+    /**
+     * Fields left out by projection stay empty like in car read from store.
+     */
+    private static Car car(Object value) {
+
+        var car = object(value);
+        var color = (String) car.get("color");
+        var mileage = number(car.get("mileage"));
+        var components = new ArrayList<String>();
+        if (car.get("components") != null) {
+            for (var component : (List<?>) car.get("components")) {
+                components.add((String) component);
+            }
+        }
+
+        return Car
+                .builder()
+                .model((String) car.get("model"))
+                .price(number(car.get("price")))
+                .color(color == null ? null : Color.valueOf(color))
+                .mileage(mileage == null ? Double.NaN : mileage.doubleValue())
+                .components(components)
+                .build();
+    }
+
+    private static CarStatistic statistic(Object value) {
+        var statistic = object(value);
+        return CarStatistic
+                .builder()
+                .price(statistic(statistic.get("price"), RemoteCarsQueries::number))
+                .mileage(statistic(statistic.get("mileage"), RemoteCarsQueries::mileage))
+                .build();
+    }
+
+    private static <T> Statistic<T> statistic(Object value, Function<Object, T> number) {
+
+        if (value == null) {
+            return null;
+        }
+
+        var statistic = object(value);
+        List<HistogramBucket<T>> histogram = null;
+        if (statistic.get("histogram") != null) {
+            histogram = new ArrayList<>();
+            for (var bucket : (List<?>) statistic.get("histogram")) {
+                var fields = object(bucket);
+                histogram.add(HistogramBucket
+                        .<T>builder()
+                        .lowerBound(number.apply(fields.get("lowerBound")))
+                        .upperBound(number.apply(fields.get("upperBound")))
+                        .count(number(fields.get("count")).longValueExact())
+                        .build());
+            }
+        }
+
+        return Statistic
+                .<T>builder()
+                .min(number.apply(statistic.get("min")))
+                .max(number.apply(statistic.get("max")))
+                .average(number.apply(statistic.get("average")))
+                .sum(number.apply(statistic.get("sum")))
+                .count(statistic.get("count") == null ? null : number(statistic.get("count")).longValueExact())
+                .standardDeviation(mileage(statistic.get("standardDeviation")))
+                .median(number.apply(statistic.get("median")))
+                .p90(number.apply(statistic.get("p90")))
+                .p99(number.apply(statistic.get("p99")))
+                .histogram(histogram)
+                .build();
+    }
+
+    private static Double mileage(Object value) {
+        return value == null ? null : number(value).doubleValue();
+    }
+}
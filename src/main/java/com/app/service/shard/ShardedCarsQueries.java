@@ -0,0 +1,825 @@
+package com.app.service.shard;
+
+import com.app.domain.car.Car;
+import com.app.domain.car.CarPage;
+import com.app.domain.car.CarQuery;
+import com.app.domain.car.CarSketches;
+import com.app.domain.car.CarStatistic;
+import com.app.domain.car.CarUtils;
+import com.app.domain.car.Statistic;
+import com.app.domain.car.type.CarField;
+import com.app.domain.car.type.Color;
+import com.app.domain.car.type.SortingType;
+import com.app.domain.car.type.StatisticAttribute;
+import com.app.service.CarsQueries;
+import com.app.service.CarsService;
+import com.app.service.PerTaskThreads;
+import com.app.service.exception.CarsServiceException;
+import com.app.service.metrics.ScannedRows;
+import com.app.service.stream.CarPublisher;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Queries about cars partitioned into shards, answered like by one {@link CarsService} with all cars. Every query
+ * is sent to all shards at the same time and their partial results are merged: sorted lists are merged from
+ * sorted partial lists, counts are added and statistics are merged from sums and counts of shards. Shard can be
+ * {@link CarsService} in this JVM or {@link RemoteCarsQueries} of other process.
+ * <p>
+ * Cars equal by sorted value may come in other order than from one service, cars of lower shard go first. Lists
+ * which are not sorted have cars of shards one after another. Shards number their cars on their own and no query
+ * returns ids, so cars can't be found by id here. Median, percentiles and histogram can't be merged from results of
+ * shards, so merged statistic has them empty.
+ */
+public class ShardedCarsQueries implements CarsQueries {
+
+    private final List<CarsQueries> shards;
+    private final Executor executor;
+
+    public ShardedCarsQueries(List<? extends CarsQueries> shards) {
+        this(shards, PerTaskThreads.executor("cars-shard-query"));
+    }
+
+    /**
+     * @param shards services with disjoint parts of cars.
+     * @param executor sends queries to shards, every shard is queried by its own task.
+     */
+    public ShardedCarsQueries(List<? extends CarsQueries> shards, Executor executor) {
+
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+
+        this.shards = List.copyOf(shards);
+        this.executor = executor;
+    }
+
+    /**
+     * Method partitions cars into shards in this JVM.
+     */
+    public static ShardedCarsQueries inProcess(List<Car> cars, int shards) {
+        var services = new ArrayList<CarsService>(shards);
+        for (var partition : partition(cars, shards)) {
+            services.add(new CarsService(partition));
+        }
+        return new ShardedCarsQueries(services);
+    }
+
+    /**
+     * Method partitions cars by hash of model, so all cars of one model are in the same shard.
+     * @return cars of every shard in their original order.
+     */
+    public static List<List<Car>> partition(Collection<Car> cars, int shards) {
+
+        if (shards < 1) {
+            throw new IllegalArgumentException("Amount of shards must be positive");
+        }
+
+        var partitions = new ArrayList<List<Car>>(shards);
+        for (int shard = 0; shard < shards; shard++) {
+            partitions.add(new ArrayList<>());
+        }
+        for (var car : cars) {
+            partitions.get(shardOf(CarUtils.toModel.apply(car), shards)).add(car);
+        }
+
+        return partitions;
+    }
+
+    static int shardOf(String model, int shards) {
+        return Math.floorMod(Objects.hashCode(model), shards);
+    }
+
+    @Override
+    public List<Car> sortingByGivenOrder(SortingType sortingType, boolean descending) {
+        var sorted = fanOut(shard -> shard.sortingByGivenOrder(sortingType, descending));
+        return merge(sorted, order(sortingType, descending), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Every shard returns cars up to the end of page, page is taken from merged cars.
+     */
+    @Override
+    public List<Car> sortingByGivenOrder(SortingType sortingType, boolean descending, int offset, int limit) {
+
+        if (offset < 0 || limit < 0) {
+            throw new CarsServiceException("Offset and limit can't be negative");
+        }
+
+        int end = (int) Math.min(Integer.MAX_VALUE, (long) offset + limit);
+        var sorted = merge(fanOut(shard -> shard.sortingByGivenOrder(sortingType, descending, 0, end)),
+                order(sortingType, descending), end);
+
+        return sorted.subList(Math.min(offset, sorted.size()), sorted.size());
+    }
+
+    @Override
+    public List<Car> getTopCars(SortingType sortingType, boolean descending, int k) {
+        var topCars = fanOut(shard -> shard.getTopCars(sortingType, descending, k));
+        return merge(topCars, order(sortingType, descending), k);
+    }
+
+    @Override
+    public Map<String, List<Car>> getTopCarsForEveryModel(SortingType sortingType, boolean descending, int k) {
+        var topCars = fanOut(shard -> shard.getTopCarsForEveryModel(sortingType, descending, k));
+        return mergeGroups(topCars, new HashMap<>(), order(sortingType, descending), k);
+    }
+
+    @Override
+    public Map<Color, List<Car>> getTopCarsForEveryColor(SortingType sortingType, boolean descending, int k) {
+        var topCars = fanOut(shard -> shard.getTopCarsForEveryColor(sortingType, descending, k));
+        return mergeGroups(topCars, new EnumMap<>(Color.class), order(sortingType, descending), k);
+    }
+
+    @Override
+    public List<Car> findAllWithMileageGreaterThan(double mileage) {
+        return concat(fanOut(shard -> shard.findAllWithMileageGreaterThan(mileage)));
+    }
+
+    @Override
+    public int countWithMileageGreaterThan(double mileage) {
+        return sum(fanOut(shard -> shard.countWithMileageGreaterThan(mileage)));
+    }
+
+    /**
+     * Counts of shards are added and colors are sorted again by merged count, like one service sorts them.
+     */
+    @Override
+    public Map<Color, Long> returnAmountOfCarsForAllColors() {
+
+        var counts = new EnumMap<Color, Long>(Color.class);
+        for (var shardCounts : fanOut(CarsQueries::returnAmountOfCarsForAllColors)) {
+            shardCounts.forEach((color, count) -> counts.merge(color, count, Long::sum));
+        }
+
+        var colors = Color.values().clone();
+        Arrays.sort(colors, Comparator.comparingLong((Color color) -> counts.getOrDefault(color, 0L)).reversed());
+
+        var amountOfCars = new LinkedHashMap<Color, Long>();
+        for (var color : colors) {
+            if (counts.containsKey(color)) {
+                amountOfCars.put(color, counts.get(color));
+            }
+        }
+
+        return amountOfCars;
+    }
+
+    @Override
+    public Map<String, Car> returnMostExpensiveCarForEveryModel() {
+
+        var mostExpensiveCars = new HashMap<String, Car>();
+        for (var shardCars : fanOut(CarsQueries::returnMostExpensiveCarForEveryModel)) {
+            shardCars.forEach((model, car) -> mostExpensiveCars.merge(model, car,
+                    (first, second) -> CarUtils.compareByPrice.compare(second, first) > 0 ? second : first));
+        }
+
+        return mostExpensiveCars;
+    }
+
+    @Override
+    public CarStatistic getStatisticForGivenAttribute(StatisticAttribute statisticAttribute) {
+
+        var statistics = fanOut(shard -> shard.getStatisticForGivenAttribute(statisticAttribute));
+
+        return CarStatistic
+                .builder()
+                .price(statisticAttribute == StatisticAttribute.PRICE ? mergePrice(statistics) : null)
+                .mileage(statisticAttribute == StatisticAttribute.MILEAGE ? mergeMileage(statistics) : null)
+                .build();
+    }
+
+    @Override
+    public CarStatistic getStatisticForAllAttributes() {
+
+        var statistics = fanOut(CarsQueries::getStatisticForAllAttributes);
+
+        return CarStatistic
+                .builder()
+                .price(mergePrice(statistics))
+                .mileage(mergeMileage(statistics))
+                .build();
+    }
+
+    @Override
+    public Car getTheMostExpensiveCar() {
+
+        Car mostExpensive = null;
+        for (var topCars : fanOut(shard -> shard.getTopCars(SortingType.PRICE, true, 1))) {
+            for (var car : topCars) {
+                if (mostExpensive == null || CarUtils.compareByPrice.compare(car, mostExpensive) > 0) {
+                    mostExpensive = car;
+                }
+            }
+        }
+
+        if (mostExpensive == null) {
+            throw new CarsServiceException("Can't find the most expensive car");
+        }
+
+        return mostExpensive;
+    }
+
+    @Override
+    public List<Car> sortAlphabeticalComponentList() {
+        return concat(fanOut(CarsQueries::sortAlphabeticalComponentList));
+    }
+
+    @Override
+    public List<Car> getCarsWithGivenPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
+        return merge(fanOut(shard -> shard.getCarsWithGivenPriceRange(minPrice, maxPrice)), CarUtils.compareByModel,
+                Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int countWithGivenPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
+        return sum(fanOut(shard -> shard.countWithGivenPriceRange(minPrice, maxPrice)));
+    }
+
+    @Override
+    public Map<String, List<Car>> groupByComponent() {
+
+        var carsByComponent = new HashMap<String, List<Car>>();
+        for (var shardGroups : fanOut(CarsQueries::groupByComponent)) {
+            shardGroups.forEach((component, cars) ->
+                    carsByComponent.computeIfAbsent(component, key -> new ArrayList<>()).addAll(cars));
+        }
+
+        return carsByComponent;
+    }
+
+    @Override
+    public List<Car> findAllWithAllComponents(Collection<String> components) {
+        return concat(fanOut(shard -> shard.findAllWithAllComponents(components)));
+    }
+
+    @Override
+    public List<Car> findAllWithAnyComponent(Collection<String> components) {
+        return concat(fanOut(shard -> shard.findAllWithAnyComponent(components)));
+    }
+
+    @Override
+    public List<Car> find(CarQuery query) {
+        try (var cars = stream(query)) {
+            return cars.collect(ArrayList::new, ArrayList::add, ArrayList::addAll);
+        }
+    }
+
+    /**
+     * Every shard streams cars up to the end of page, sorted streams are merged lazily, so only one car of every
+     * shard is waiting to be taken. Field by which cars are sorted is read from shards also when projection
+     * leaves it out and it is removed after merge.
+     */
+    @Override
+    public Stream<Car> stream(CarQuery query) {
+
+        CarsService.validate(query);
+
+        var fields = query.getFields();
+        var shardQuery = shardQuery(query, (int) Math.min(Integer.MAX_VALUE, (long) query.getOffset() + query.getLimit()));
+        boolean projectAfterMerge = !shardQuery.getFields().equals(fields);
+
+        var streams = fanOut(shard -> shard.stream(shardQuery));
+        var iterators = new ArrayList<Iterator<Car>>(streams.size());
+        for (var stream : streams) {
+            iterators.add(stream.iterator());
+        }
+
+        Iterator<Car> merged = query.getSortBy() == null
+                ? new ConcatenatedCars(iterators)
+                : new MergedCars(iterators, order(query.getSortBy(), query.isDescending()));
+
+        var cars = StreamSupport
+                .stream(Spliterators.spliteratorUnknownSize(merged,
+                        Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE), false)
+                .skip(query.getOffset())
+                .limit(query.getLimit())
+                .onClose(() -> streams.forEach(Stream::close));
+
+        return projectAfterMerge ? cars.map(car -> project(car, fields)) : cars;
+    }
+
+    /**
+     * Every shard gives page of the same size after its own page token and pages are merged. Token of next page
+     * keeps page token of every shard after the last car taken from it, shard from which only part of page was taken
+     * is asked once more for token after that car. Tokens stay valid when cars of shards are changed.
+     */
+    @Override
+    public CarPage findPage(CarQuery query, String pageToken) {
+
+        CarsService.validate(query);
+
+        int skip = Objects.isNull(pageToken) ? query.getOffset() : 0;
+        if ((long) skip + query.getLimit() >= Integer.MAX_VALUE) {
+            throw new CarsServiceException("Page size and offset must be lower than " + Integer.MAX_VALUE);
+        }
+        var shardTokens = Objects.isNull(pageToken) ? new String[shards.size()]
+                : ShardedPageToken.decode(pageToken).shardTokensFor(query, shards.size());
+        var shardQuery = shardQuery(query, skip + query.getLimit());
+
+        var pages = fanOutByShard((index, shard) -> Objects.equals(shardTokens[index], ShardedPageToken.DONE)
+                ? CarPage.builder().cars(List.of()).build()
+                : shard.findPage(shardQuery, shardTokens[index]));
+        var iterators = new ArrayList<TakenCars>(pages.size());
+        for (var shardPage : pages) {
+            iterators.add(new TakenCars(shardPage.getCars().iterator()));
+        }
+        var sources = new ArrayList<Iterator<Car>>(iterators);
+        TakingCars merged = query.getSortBy() == null
+                ? new ConcatenatedCars(sources)
+                : new MergedCars(sources, order(query.getSortBy(), query.isDescending()));
+
+        var page = new ArrayList<Car>(query.getLimit());
+        for (int skipped = 0; skipped < skip && merged.hasNext(); skipped++) {
+            merged.next();
+        }
+        while (page.size() < query.getLimit() && merged.hasNext()) {
+            var car = merged.next();
+            page.add(shardQuery.getFields().equals(query.getFields()) ? car : project(car, query.getFields()));
+        }
+        boolean hasNextPage = merged.hasNext();
+
+        var taken = new int[pages.size()];
+        for (int shard = 0; shard < pages.size(); shard++) {
+            taken[shard] = iterators.get(shard).taken - (merged.isWaiting(shard) ? 1 : 0);
+            hasNextPage |= taken[shard] == pages.get(shard).getCars().size() && pages.get(shard).hasNextPage();
+        }
+        if (!hasNextPage) {
+            return CarPage.builder().cars(page).build();
+        }
+
+        var nextTokens = fanOutByShard((index, shard) -> {
+            var shardPage = pages.get(index);
+            if (taken[index] == 0) {
+                return shardTokens[index];
+            } else if (taken[index] == shardPage.getCars().size()) {
+                return shardPage.hasNextPage() ? shardPage.getNextPageToken() : ShardedPageToken.DONE;
+            }
+            // cars of shard could be removed since its page was read
+            var next = shard.findPage(shardQuery.toBuilder().limit(taken[index]).build(), shardTokens[index]);
+            return next.hasNextPage() ? next.getNextPageToken() : ShardedPageToken.DONE;
+        });
+
+        return CarPage
+                .builder()
+                .cars(page)
+                .nextPageToken(ShardedPageToken.of(query, nextTokens.toArray(String[]::new)).encode())
+                .build();
+    }
+
+    @Override
+    public Flow.Publisher<Car> publish(CarQuery query) {
+        CarsService.validate(query);
+        return new CarPublisher(() -> stream(query).iterator(), executor);
+    }
+
+    /**
+     * Sketches of shards are merged, so they answer the same as sketches of all cars built in one process.
+     */
+    @Override
+    public CarSketches sketches() {
+        return fanOut(CarsQueries::sketches).stream().reduce(CarSketches::merge).orElseThrow();
+    }
+
+    /**
+     * Version of every shard only grows, so their sum grows after every change of any shard.
+     */
+    @Override
+    public long version() {
+        long version = 0;
+        for (var shardVersion : fanOut(CarsQueries::version)) {
+            version += shardVersion;
+        }
+        return version;
+    }
+
+    /**
+     * Ids of shards overlap and cars are partitioned by model, so id doesn't tell shard of car.
+     * @throws UnsupportedOperationException always, car has to be found by id in its shard.
+     */
+    @Override
+    public Optional<Car> findById(long id) {
+        throw new UnsupportedOperationException("Cars of shards can't be found by id, ask shard of car");
+    }
+
+    /**
+     * Method runs query on every shard in its own task, rows scanned by shards in this JVM are reported to calling
+     * thread.
+     * @return results of shards in order of shards.
+     * @throws RuntimeException the first failure in order of shards.
+     */
+    private <T> List<T> fanOut(Function<CarsQueries, T> query) {
+        return fanOutByShard((index, shard) -> query.apply(shard));
+    }
+
+    /**
+     * @param query query of shard given index of shard and shard.
+     */
+    private <T> List<T> fanOutByShard(BiFunction<Integer, CarsQueries, T> query) {
+
+        var results = new ArrayList<CompletableFuture<ShardResult<T>>>(shards.size());
+        for (int index = 0; index < shards.size(); index++) {
+            int shardIndex = index;
+            var shard = shards.get(index);
+            results.add(CompletableFuture.supplyAsync(() -> {
+                var outer = ScannedRows.start();
+                try {
+                    var value = query.apply(shardIndex, shard);
+                    return new ShardResult<>(value, ScannedRows.stop(outer));
+                } catch (RuntimeException e) {
+                    ScannedRows.stop(outer);
+                    throw e;
+                }
+            }, executor));
+        }
+
+        var merged = new ArrayList<T>(shards.size());
+        for (var result : results) {
+            try {
+                var shardResult = result.join();
+                ScannedRows.add(shardResult.rowsScanned);
+                merged.add(shardResult.value);
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+        }
+
+        return merged;
+    }
+
+    private static Comparator<Car> order(SortingType sortingType, boolean descending) {
+        var order = CarUtils.compareBy(sortingType);
+        return descending ? order.reversed() : order;
+    }
+
+    private static CarField sortedField(SortingType sortingType) {
+        return CarField.valueOf(sortingType.name());
+    }
+
+    /**
+     * Query of shards without offset, field by which cars are sorted is read from shards also when projection leaves
+     * it out, so cars can be merged.
+     */
+    private static CarQuery shardQuery(CarQuery query, int limit) {
+
+        var shardQuery = query
+                .toBuilder()
+                .offset(0)
+                .limit(limit);
+        if (query.getSortBy() != null && !query.getFields().isEmpty()
+                && !query.getFields().contains(sortedField(query.getSortBy()))) {
+            shardQuery.field(sortedField(query.getSortBy()));
+        }
+
+        return shardQuery.build();
+    }
+
+    private static List<Car> merge(List<List<Car>> sorted, Comparator<Car> order, int limit) {
+
+        var iterators = new ArrayList<Iterator<Car>>(sorted.size());
+        int size = 0;
+        for (var cars : sorted) {
+            iterators.add(cars.iterator());
+            size += cars.size();
+        }
+
+        var merged = new MergedCars(iterators, order);
+        var cars = new ArrayList<Car>(Math.min(size, limit));
+        while (cars.size() < limit && merged.hasNext()) {
+            cars.add(merged.next());
+        }
+
+        return cars;
+    }
+
+    private static <K> Map<K, List<Car>> mergeGroups(List<Map<K, List<Car>>> shardGroups, Map<K, List<Car>> merged,
+                                                     Comparator<Car> order, int k) {
+
+        var groups = new HashMap<K, List<List<Car>>>();
+        for (var shard : shardGroups) {
+            shard.forEach((group, cars) -> groups.computeIfAbsent(group, key -> new ArrayList<>()).add(cars));
+        }
+        groups.forEach((group, sorted) -> merged.put(group, merge(sorted, order, k)));
+
+        return merged;
+    }
+
+    private static List<Car> concat(List<List<Car>> shardCars) {
+        var cars = new ArrayList<Car>();
+        shardCars.forEach(cars::addAll);
+        return cars;
+    }
+
+    private static int sum(List<Integer> counts) {
+        int sum = 0;
+        for (int count : counts) {
+            sum += count;
+        }
+        return sum;
+    }
+
+    private static Car project(Car car, Set<CarField> fields) {
+        return Car
+                .builder()
+                .model(fields.contains(CarField.MODEL) ? CarUtils.toModel.apply(car) : null)
+                .price(fields.contains(CarField.PRICE) ? CarUtils.toPrice.apply(car) : null)
+                .color(fields.contains(CarField.COLOR) ? CarUtils.toColor.apply(car) : null)
+                .mileage(fields.contains(CarField.MILEAGE) ? CarUtils.toMileage.apply(car) : 0)
+                .components(fields.contains(CarField.COMPONENTS) ? CarUtils.toComponents.apply(car) : null)
+                .build();
+    }
+
+    /**
+     * Minimum, maximum, sum and count are merged exactly, average is sum divided by count and standard deviation
+     * is merged from count, average and deviation of every shard.
+     */
+    private static Statistic<BigDecimal> mergePrice(List<CarStatistic> statistics) {
+
+        var merged = new MergedMoments();
+        BigDecimal min = null;
+        BigDecimal max = null;
+        var sum = BigDecimal.ZERO;
+        for (var statistic : statistics) {
+            var price = statistic.getPrice();
+            if (price.getCount() == null || price.getCount() == 0) {
+                continue;
+            }
+            min = min == null || price.getMin().compareTo(min) < 0 ? price.getMin() : min;
+            max = max == null || price.getMax().compareTo(max) > 0 ? price.getMax() : max;
+            sum = sum.add(price.getSum());
+            merged.add(price.getCount(), price.getAverage().doubleValue(), price.getStandardDeviation());
+        }
+
+        return Statistic
+                .<BigDecimal>builder()
+                .min(min)
+                .max(max)
+                .average(merged.count == 0 ? BigDecimal.ZERO
+                        : sum.divide(BigDecimal.valueOf(merged.count), MathContext.DECIMAL128))
+                .sum(sum)
+                .count(merged.count)
+                .standardDeviation(merged.standardDeviation())
+                .build();
+    }
+
+    private static Statistic<Double> mergeMileage(List<CarStatistic> statistics) {
+
+        var merged = new MergedMoments();
+        Double min = null;
+        Double max = null;
+        double sum = 0;
+        for (var statistic : statistics) {
+            var mileage = statistic.getMileage();
+            if (mileage.getCount() == null || mileage.getCount() == 0) {
+                continue;
+            }
+            min = min == null ? mileage.getMin() : Math.min(min, mileage.getMin());
+            max = max == null ? mileage.getMax() : Math.max(max, mileage.getMax());
+            sum += mileage.getSum();
+            merged.add(mileage.getCount(), mileage.getAverage(), mileage.getStandardDeviation());
+        }
+
+        return Statistic
+                .<Double>builder()
+                .min(min)
+                .max(max)
+                .average(merged.count == 0 ? 0 : sum / merged.count)
+                .sum(sum)
+                .count(merged.count)
+                .standardDeviation(merged.standardDeviation())
+                .build();
+    }
+
+    /**
+     * Sum of squared differences from mean of all shards, counted from count, mean and standard deviation of every
+     * shard like partial statistics of one scan are merged. Deviation is unknown when any shard has no deviation.
+     */
+    private static class MergedMoments {
+
+        private long count;
+        private double mean;
+        private double squaredDifferences;
+        private boolean known = true;
+
+        private void add(long shardCount, double shardMean, Double shardDeviation) {
+
+            if (shardDeviation == null) {
+                known = false;
+            }
+
+            long total = count + shardCount;
+            double difference = shardMean - mean;
+            double shardSquaredDifferences = shardDeviation == null ? 0 : shardDeviation * shardDeviation * shardCount;
+            squaredDifferences += shardSquaredDifferences + difference * difference * count * shardCount / total;
+            mean += difference * shardCount / total;
+            count = total;
+        }
+
+        private Double standardDeviation() {
+            return known && count > 0 ? Math.sqrt(squaredDifferences / count) : null;
+        }
+    }
+
+    private static class ShardResult<T> {
+
+        private final T value;
+        private final long rowsScanned;
+
+        private ShardResult(T value, long rowsScanned) {
+            this.value = value;
+            this.rowsScanned = rowsScanned;
+        }
+    }
+
+    /**
+     * Cars taken from several iterators into one sequence.
+     */
+    private interface TakingCars extends Iterator<Car> {
+
+        /**
+         * @return true when car already read from iterator with given index waits to be returned.
+         */
+        boolean isWaiting(int source);
+    }
+
+    /**
+     * Cars of page of shard counting cars read from it.
+     */
+    private static class TakenCars implements Iterator<Car> {
+
+        private final Iterator<Car> cars;
+        private int taken;
+
+        private TakenCars(Iterator<Car> cars) {
+            this.cars = cars;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return cars.hasNext();
+        }
+
+        @Override
+        public Car next() {
+            var car = cars.next();
+            taken++;
+            return car;
+        }
+    }
+
+    /**
+     * Cars of sorted iterators merged into one sorted sequence, heads of iterators are kept in heap. Equal cars are
+     * taken from iterator with lower index first.
+     */
+    private static class MergedCars implements TakingCars {
+
+        private final Comparator<Car> order;
+        private final List<Iterator<Car>> iterators;
+        private final Car[] heads;
+        private final int[] heap;
+        private int size;
+
+        private MergedCars(List<Iterator<Car>> iterators, Comparator<Car> order) {
+            this.order = order;
+            this.iterators = iterators;
+            this.heads = new Car[iterators.size()];
+            this.heap = new int[iterators.size()];
+            for (int source = 0; source < iterators.size(); source++) {
+                if (iterators.get(source).hasNext()) {
+                    heads[source] = iterators.get(source).next();
+                    heap[size] = source;
+                    siftUp(size++);
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return size > 0;
+        }
+
+        @Override
+        public Car next() {
+
+            if (size == 0) {
+                throw new NoSuchElementException();
+            }
+
+            int source = heap[0];
+            var car = heads[source];
+            if (iterators.get(source).hasNext()) {
+                heads[source] = iterators.get(source).next();
+            } else {
+                heads[source] = null;
+                heap[0] = heap[--size];
+            }
+            if (size > 0) {
+                siftDown(0);
+            }
+
+            return car;
+        }
+
+        @Override
+        public boolean isWaiting(int source) {
+            return heads[source] != null;
+        }
+
+        private int compare(int first, int second) {
+            int result = order.compare(heads[first], heads[second]);
+            return result != 0 ? result : Integer.compare(first, second);
+        }
+
+        private void siftUp(int position) {
+            int source = heap[position];
+            while (position > 0) {
+                int parent = (position - 1) >>> 1;
+                if (compare(heap[parent], source) <= 0) {
+                    break;
+                }
+                heap[position] = heap[parent];
+                position = parent;
+            }
+            heap[position] = source;
+        }
+
+        private void siftDown(int position) {
+            int source = heap[position];
+            int half = size >>> 1;
+            while (position < half) {
+                int child = 2 * position + 1;
+                if (child + 1 < size && compare(heap[child + 1], heap[child]) < 0) {
+                    child++;
+                }
+                if (compare(source, heap[child]) <= 0) {
+                    break;
+                }
+                heap[position] = heap[child];
+                position = child;
+            }
+            heap[position] = source;
+        }
+    }
+
+    /**
+     * Cars of all iterators one after another.
+     */
+    private static class ConcatenatedCars implements TakingCars {
+
+        private final List<Iterator<Car>> iterators;
+        private int source;
+
+        private ConcatenatedCars(List<Iterator<Car>> iterators) {
+            this.iterators = iterators;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (source < iterators.size() && !iterators.get(source).hasNext()) {
+                source++;
+            }
+            return source < iterators.size();
+        }
+
+        @Override
+        public Car next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return iterators.get(source).next();
+        }
+
+        @Override
+        public boolean isWaiting(int source) {
+            return false;
+        }
+    }
+}
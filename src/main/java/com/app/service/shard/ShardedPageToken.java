@@ -0,0 +1,104 @@
+package com.app.service.shard;
+
+import com.app.domain.car.CarQuery;
+import com.app.service.exception.CarsServiceException;
+import com.app.service.stream.PageToken;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Position of cursor over merged result of shards, it keeps page token of every shard after the last car taken from
+ * it. Token of shard from which no car was taken yet is null, so shard starts from its first car, shard with all cars
+ * taken is not queried.
+ */
+class ShardedPageToken {
+
+    /**
+     * Token of shard with all cars taken.
+     */
+    static final String DONE = "";
+
+    private static final int FORMAT_VERSION = 1;
+
+    private final long fingerprint;
+    private final String[] shardTokens;
+
+    private ShardedPageToken(long fingerprint, String[] shardTokens) {
+        this.fingerprint = fingerprint;
+        this.shardTokens = shardTokens;
+    }
+
+    static ShardedPageToken of(CarQuery query, String[] shardTokens) {
+        return new ShardedPageToken(PageToken.fingerprint(query), shardTokens);
+    }
+
+    /**
+     * @return decoded token or CarsServiceException when token is malformed.
+     */
+    static ShardedPageToken decode(String token) {
+        try {
+            var buffer = ByteBuffer.wrap(Base64.getUrlDecoder().decode(token));
+            if (buffer.getInt() != FORMAT_VERSION) {
+                throw new CarsServiceException("Invalid page token");
+            }
+            long fingerprint = buffer.getLong();
+            int shards = buffer.getInt();
+            if (shards < 1 || shards > buffer.remaining() / Integer.BYTES) {
+                throw new CarsServiceException("Invalid page token");
+            }
+            var shardTokens = new String[shards];
+            for (int shard = 0; shard < shards; shard++) {
+                int length = buffer.getInt();
+                if (length < -1 || length > buffer.remaining()) {
+                    throw new CarsServiceException("Invalid page token");
+                }
+                if (length >= 0) {
+                    var bytes = new byte[length];
+                    buffer.get(bytes);
+                    shardTokens[shard] = new String(bytes, StandardCharsets.US_ASCII);
+                }
+            }
+            if (buffer.hasRemaining()) {
+                throw new CarsServiceException("Invalid page token");
+            }
+            return new ShardedPageToken(fingerprint, shardTokens);
+        } catch (IllegalArgumentException | BufferUnderflowException e) {
+            throw new CarsServiceException("Invalid page token");
+        }
+    }
+
+    String encode() {
+        int size = Integer.BYTES + Long.BYTES + Integer.BYTES;
+        for (var shardToken : shardTokens) {
+            size += Integer.BYTES + (shardToken == null ? 0 : shardToken.length());
+        }
+        var buffer = ByteBuffer
+                .allocate(size)
+                .putInt(FORMAT_VERSION)
+                .putLong(fingerprint)
+                .putInt(shardTokens.length);
+        for (var shardToken : shardTokens) {
+            buffer.putInt(shardToken == null ? -1 : shardToken.length());
+            if (shardToken != null) {
+                buffer.put(shardToken.getBytes(StandardCharsets.US_ASCII));
+            }
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    /**
+     * @return tokens of shards or CarsServiceException when token was created for other query or amount of shards.
+     */
+    String[] shardTokensFor(CarQuery query, int shards) {
+
+        if (fingerprint != PageToken.fingerprint(query) || shardTokens.length != shards) {
+            throw new CarsServiceException("Page token was created for other query");
+        }
+
+        return Arrays.copyOf(shardTokens, shards);
+    }
+}
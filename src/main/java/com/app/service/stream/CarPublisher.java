@@ -0,0 +1,133 @@
+package com.app.service.stream;
+
+import com.app.domain.car.Car;
+
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Publisher of cars read lazily from iterator. Every subscriber gets its own iterator and receives only as many
+ * cars as it requested, cars are delivered on given executor by one task at a time, so subscriber is never called
+ * concurrently and the next car is read only when there is demand for it.
+ */
+public class CarPublisher implements Flow.Publisher<Car> {
+
+    private final Supplier<Iterator<Car>> cars;
+    private final Executor executor;
+
+    /**
+     * @param cars creates iterator over published cars for every subscriber.
+     * @param executor runs delivery of cars.
+     */
+    public CarPublisher(Supplier<Iterator<Car>> cars, Executor executor) {
+        this.cars = Objects.requireNonNull(cars, "Cars can't be null");
+        this.executor = Objects.requireNonNull(executor, "Executor can't be null");
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super Car> subscriber) {
+        Objects.requireNonNull(subscriber, "Subscriber can't be null");
+        var subscription = new CarSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+        subscription.schedule();
+    }
+
+    private class CarSubscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super Car> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger pending = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile Throwable invalidRequest;
+        private Iterator<Car> iterator;
+
+        private CarSubscription(Flow.Subscriber<? super Car> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("Requested amount must be positive, was " + n);
+            } else {
+                demand.getAndAccumulate(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+
+        private void schedule() {
+            if (pending.getAndIncrement() == 0) {
+                try {
+                    executor.execute(this::deliver);
+                } catch (RuntimeException e) {
+                    cancelled = true;
+                    subscriber.onError(e);
+                }
+            }
+        }
+
+        /**
+         * Only one delivery runs at a time, requests made while it runs are handled by the same delivery.
+         */
+        private void deliver() {
+            int missed = 1;
+            do {
+                try {
+                    if (!cancelled && !deliverRequested()) {
+                        return;
+                    }
+                } catch (RuntimeException e) {
+                    cancelled = true;
+                    subscriber.onError(e);
+                    return;
+                }
+                missed = pending.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        /**
+         * @return false when subscription was finished by this delivery.
+         */
+        private boolean deliverRequested() {
+
+            if (invalidRequest != null) {
+                cancelled = true;
+                subscriber.onError(invalidRequest);
+                return false;
+            }
+            if (iterator == null) {
+                iterator = cars.get();
+            }
+
+            while (demand.get() > 0 && !cancelled) {
+                if (!iterator.hasNext()) {
+                    cancelled = true;
+                    subscriber.onComplete();
+                    return false;
+                }
+                subscriber.onNext(iterator.next());
+                if (demand.get() != Long.MAX_VALUE) {
+                    demand.decrementAndGet();
+                }
+            }
+
+            if (!cancelled && !iterator.hasNext()) {
+                cancelled = true;
+                subscriber.onComplete();
+                return false;
+            }
+
+            return true;
+        }
+    }
+}
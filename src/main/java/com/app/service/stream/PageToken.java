@@ -0,0 +1,135 @@
+package com.app.service.stream;
+
+import com.app.domain.car.CarKeyset;
+import com.app.domain.car.CarQuery;
+import com.app.service.exception.CarsServiceException;
+
+import java.math.BigDecimal;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.stream.Collectors;
+
+/**
+ * Position of cursor over result of query. Token keeps fingerprint of query without paging and {@link CarKeyset} of
+ * the last returned car, so next page continues after the same car also when cars were changed meanwhile, and token
+ * can't be used with other query. Fingerprint is hash of canonical text of query, it is the same in every JVM and
+ * for equal prices with other scale.
+ */
+public class PageToken {
+
+    private static final int FORMAT_VERSION = 2;
+
+    private final long fingerprint;
+    private final CarKeyset position;
+
+    private PageToken(long fingerprint, CarKeyset position) {
+        this.fingerprint = fingerprint;
+        this.position = position;
+    }
+
+    /**
+     * @param position position of the last car of page.
+     */
+    public static PageToken of(CarQuery query, CarKeyset position) {
+        return new PageToken(fingerprint(query), position);
+    }
+
+    /**
+     * @param token encoded token.
+     * @return decoded token or CarsServiceException when token is malformed.
+     */
+    public static PageToken decode(String token) {
+        try {
+            var buffer = ByteBuffer.wrap(Base64.getUrlDecoder().decode(token));
+            if (buffer.getInt() != FORMAT_VERSION) {
+                throw new CarsServiceException("Invalid page token");
+            }
+            long fingerprint = buffer.getLong();
+            long value = buffer.getLong();
+            long id = buffer.getLong();
+            int modelLength = buffer.getInt();
+            if (modelLength < -1 || Math.max(modelLength, 0) != buffer.remaining()) {
+                throw new CarsServiceException("Invalid page token");
+            }
+            String model = null;
+            if (modelLength >= 0) {
+                var bytes = new byte[modelLength];
+                buffer.get(bytes);
+                model = new String(bytes, StandardCharsets.UTF_8);
+            }
+            return new PageToken(fingerprint, new CarKeyset(value, model, id));
+        } catch (IllegalArgumentException | BufferUnderflowException e) {
+            throw new CarsServiceException("Invalid page token");
+        }
+    }
+
+    public String encode() {
+        var model = position.getModel() == null ? null : position.getModel().getBytes(StandardCharsets.UTF_8);
+        var buffer = ByteBuffer
+                .allocate(Integer.BYTES + 3 * Long.BYTES + Integer.BYTES + (model == null ? 0 : model.length))
+                .putInt(FORMAT_VERSION)
+                .putLong(fingerprint)
+                .putLong(position.getValue())
+                .putLong(position.getId())
+                .putInt(model == null ? -1 : model.length);
+        if (model != null) {
+            buffer.put(model);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    /**
+     * @return position after which next page starts or CarsServiceException when token was created for other query.
+     */
+    public CarKeyset positionFor(CarQuery query) {
+
+        if (fingerprint != fingerprint(query)) {
+            throw new CarsServiceException("Page token was created for other query");
+        }
+
+        return position;
+    }
+
+    /**
+     * Method hashes query without offset and limit written as text, sets are written sorted, enums by names and
+     * prices without trailing zeros.
+     * @return the first 8 bytes of SHA-256 of query.
+     */
+    public static long fingerprint(CarQuery query) {
+
+        var text = String.join("\n",
+                "models=" + sorted(query.getModels()),
+                "colors=" + sorted(query.getColors()),
+                "minPrice=" + plain(query.getMinPrice()),
+                "maxPrice=" + plain(query.getMaxPrice()),
+                "minMileage=" + query.getMinMileage(),
+                "maxMileage=" + query.getMaxMileage(),
+                "components=" + sorted(query.getComponents()),
+                "sortBy=" + query.getSortBy(),
+                "descending=" + query.isDescending(),
+                "fields=" + sorted(query.getFields()));
+
+        try {
+            var digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(digest).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Values are separated by character which isn't used in names, so different sets don't give the same text.
+     */
+    private static String sorted(Collection<?> values) {
+        return values.stream().map(String::valueOf).sorted().collect(Collectors.joining("\u0000"));
+    }
+
+    private static String plain(BigDecimal price) {
+        return price == null ? "null" : price.stripTrailingZeros().toPlainString();
+    }
+}
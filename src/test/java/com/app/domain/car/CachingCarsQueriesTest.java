@@ -0,0 +1,75 @@
+package com.app.domain.car;
+
+import com.app.domain.car.type.StatisticAttribute;
+import com.app.service.ConcurrentCarsService;
+import com.app.service.cache.CachingCarsQueries;
+import com.app.service.exception.CarsServiceException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static com.app.domain.car.CarFixtures.threeCars;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CachingCarsQueriesTest {
+
+    @Test
+    @DisplayName("when repeated queries are answered from cache until cars are changed")
+    void testOne() {
+
+        var service = new ConcurrentCarsService(threeCars());
+        var cache = new CachingCarsQueries(service);
+
+        var first = cache.returnMostExpensiveCarForEveryModel();
+        assertThat(cache.returnMostExpensiveCarForEveryModel()).isSameAs(first);
+        assertThat(cache.getCarsWithGivenPriceRange(BigDecimal.ZERO, BigDecimal.valueOf(30000))).hasSize(2);
+        assertThat(cache.getCarsWithGivenPriceRange(BigDecimal.ZERO, BigDecimal.valueOf(30000))).hasSize(2);
+        assertThat(cache.stats().getHits()).isEqualTo(2);
+        assertThat(cache.stats().getMisses()).isEqualTo(2);
+
+        service.updatePrice(2, BigDecimal.valueOf(70000));
+
+        assertThat(cache.getCarsWithGivenPriceRange(BigDecimal.ZERO, BigDecimal.valueOf(30000))).hasSize(1);
+        assertThat(cache.returnMostExpensiveCarForEveryModel().get("Fiat").price).isEqualTo(BigDecimal.valueOf(70000));
+        assertThat(cache.stats().getInvalidations()).isEqualTo(1);
+        assertThat(cache.stats().getSize()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("when cached results can't be changed by callers")
+    void testTwo() {
+
+        var cache = new CachingCarsQueries(new ConcurrentCarsService(threeCars()));
+
+        assertThrows(UnsupportedOperationException.class, () -> cache.groupByComponent().get("ABS").clear());
+        assertThrows(UnsupportedOperationException.class, () -> cache.findAllWithAnyComponent(List.of("GPS")).clear());
+
+        cache.getStatisticForGivenAttribute(StatisticAttribute.PRICE).setPrice(null);
+        assertThat(cache.getStatisticForGivenAttribute(StatisticAttribute.PRICE).getPrice().getMax())
+                .isEqualTo(BigDecimal.valueOf(60000));
+    }
+
+    @Test
+    @DisplayName("when the least recently used result is evicted and failures are not cached")
+    void testThree() {
+
+        var cache = new CachingCarsQueries(new ConcurrentCarsService(threeCars()), 2);
+
+        cache.countWithMileageGreaterThan(100);
+        cache.countWithMileageGreaterThan(200);
+        cache.countWithMileageGreaterThan(100);
+        cache.countWithMileageGreaterThan(300);
+        cache.countWithMileageGreaterThan(100);
+        assertThrows(CarsServiceException.class, () -> cache.countWithMileageGreaterThan(-1));
+        assertThrows(CarsServiceException.class, () -> cache.countWithMileageGreaterThan(-1));
+
+        var stats = cache.stats();
+        assertThat(stats.getEvictions()).isEqualTo(1);
+        assertThat(stats.getHits()).isEqualTo(2);
+        assertThat(stats.getMisses()).isEqualTo(5);
+        assertThat(stats.getSize()).isEqualTo(2);
+    }
+}
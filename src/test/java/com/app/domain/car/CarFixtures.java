@@ -0,0 +1,53 @@
+package com.app.domain.car;
+
+import com.app.domain.car.type.Color;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Cars shared by tests of services and their decorators.
+ */
+final class CarFixtures {
+
+    private CarFixtures() {
+    }
+
+    static Car car(String model, long price, Color color, double mileage, String... components) {
+        return Car
+                .builder()
+                .model(model)
+                .price(BigDecimal.valueOf(price))
+                .color(color)
+                .mileage(mileage)
+                .components(List.of(components))
+                .build();
+    }
+
+    /**
+     * @param size amount of cars.
+     * @param values sets values of car with given index to its builder, cars are built in order of indexes.
+     * @return cars generated from their indexes.
+     */
+    static List<Car> fleet(int size, ObjIntConsumer<Car.CarBuilder> values) {
+        var cars = new ArrayList<Car>(size);
+        for (int i = 0; i < size; i++) {
+            var car = Car.builder();
+            values.accept(car, i);
+            cars.add(car.build());
+        }
+        return cars;
+    }
+
+    /**
+     * @return three cars of different models, colors and prices, two of them have ABS and two GPS.
+     */
+    static List<Car> threeCars() {
+        return List.of(
+                car("Audi", 25000, Color.WHITE, 500, "ABS", "GPS"),
+                car("BMW", 60000, Color.BLACK, 25000, "ABS"),
+                car("Fiat", 10000, Color.RED, 100, "GPS"));
+    }
+}
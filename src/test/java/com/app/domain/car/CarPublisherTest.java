@@ -0,0 +1,114 @@
+package com.app.domain.car;
+
+import com.app.domain.car.type.Color;
+import com.app.domain.car.type.SortingType;
+import com.app.service.CarsService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import static com.app.domain.car.CarFixtures.fleet;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CarPublisherTest {
+
+    private final CarsService carsService = new CarsService(CarColumnStore.of(fleet(100, (car, i) -> car
+            .model(i % 2 == 0 ? "Audi" : "BMW")
+            .price(BigDecimal.valueOf(i))
+            .color(Color.BLACK)
+            .mileage(i * 10.0))));
+
+    /**
+     * Subscriber requesting one car at start and next one only after given amount of cars is received.
+     */
+    private static class RecordingSubscriber implements Flow.Subscriber<Car> {
+
+        private final List<Car> received = new ArrayList<>();
+        private final CompletableFuture<List<Car>> completed = new CompletableFuture<>();
+        private final int requestUntil;
+        private Flow.Subscription subscription;
+
+        private RecordingSubscriber(int requestUntil) {
+            this.requestUntil = requestUntil;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(Car car) {
+            received.add(car);
+            if (received.size() < requestUntil) {
+                subscription.request(1);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            completed.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            completed.complete(received);
+        }
+    }
+
+    @Test
+    @DisplayName("when every requested car is published in order and publisher completes")
+    void testOne() throws Exception {
+
+        var query = CarQuery.builder().model("BMW").sortBy(SortingType.PRICE).descending(true).build();
+        var subscriber = new RecordingSubscriber(Integer.MAX_VALUE);
+
+        carsService.publish(query).subscribe(subscriber);
+
+        assertThat(subscriber.completed.get(10, TimeUnit.SECONDS))
+                .usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyElementsOf(carsService.find(query));
+    }
+
+    @Test
+    @DisplayName("when publisher sends no more cars than subscriber requested")
+    void testTwo() {
+
+        var subscriber = new RecordingSubscriber(3);
+
+        carsService.publish(CarQuery.builder().build(), Runnable::run).subscribe(subscriber);
+
+        assertThat(subscriber.received).hasSize(3);
+        assertThat(subscriber.completed).isNotDone();
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+        assertThat(subscriber.completed).isCompleted();
+        assertThat(subscriber.received).hasSize(100);
+    }
+
+    @Test
+    @DisplayName("when invalid request and cancel stop publishing")
+    void testThree() {
+
+        var invalid = new RecordingSubscriber(1);
+        carsService.publish(CarQuery.builder().build(), Runnable::run).subscribe(invalid);
+        invalid.subscription.request(0);
+
+        assertThat(invalid.completed).isCompletedExceptionally();
+
+        var cancelled = new RecordingSubscriber(2);
+        carsService.publish(CarQuery.builder().build(), Runnable::run).subscribe(cancelled);
+        cancelled.subscription.cancel();
+        cancelled.subscription.request(10);
+
+        assertThat(cancelled.received).hasSize(2);
+        assertThat(cancelled.completed).isNotDone();
+    }
+}
@@ -0,0 +1,313 @@
+package com.app.domain.car;
+
+import com.app.domain.car.type.Color;
+import com.app.domain.car.type.SortingType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CarQueryPlanTest {
+
+    private static final List<String> MODELS = List.of("Audi", "BMW", "Fiat", "Opel", "Skoda");
+    private static final List<String> COMPONENTS = List.of("ABS", "GPS", "AIR CONDITIONING", "ALLOY WHEELS");
+
+    private final CarColumnStore cars = fleet();
+    private final CarSortIndex sortIndex = new CarSortIndex(cars);
+    private final CarRangeIndex rangeIndex = new CarRangeIndex(cars, sortIndex);
+    private final CarComponentIndex componentIndex = CarComponentIndex.of(cars);
+
+    private static CarColumnStore fleet() {
+        var random = new Random(7);
+        return CarColumnStore.of(CarFixtures.fleet(3000, (car, i) -> car
+                .model(MODELS.get(random.nextInt(MODELS.size())))
+                .price(BigDecimal.valueOf(random.nextInt(1000000), 2))
+                .color(Color.values()[random.nextInt(Color.values().length)])
+                .mileage(random.nextInt(3000) * 100.0)
+                .components(new ArrayList<>(COMPONENTS.subList(0, random.nextInt(COMPONENTS.size() + 1))))));
+    }
+
+    private CarQueryPlan plan(CarQuery query) {
+        return CarQueryPlan.compile(query, cars, sortIndex, rangeIndex, () -> componentIndex);
+    }
+
+    /**
+     * Expected result counted the slow way, every car is checked in requested order.
+     */
+    private List<Car> expected(CarQuery query) {
+
+        IntStream rows;
+        if (query.getSortBy() == null) {
+            rows = IntStream.range(0, cars.size());
+        } else {
+            var permutation = sortIndex.rows(query.getSortBy());
+            rows = IntStream
+                    .range(0, cars.size())
+                    .map(i -> query.isDescending() ? permutation.row(cars.size() - 1 - i) : permutation.row(i));
+        }
+
+        return rows
+                .mapToObj(cars::car)
+                .filter(car -> query.getModels().isEmpty() || query.getModels().contains(car.model))
+                .filter(car -> query.getColors().isEmpty() || query.getColors().contains(car.color))
+                .filter(car -> query.getMinPrice() == null || car.price.compareTo(query.getMinPrice()) >= 0)
+                .filter(car -> query.getMaxPrice() == null || car.price.compareTo(query.getMaxPrice()) <= 0)
+                .filter(car -> query.getMinMileage() == null || car.mileage >= query.getMinMileage())
+                .filter(car -> query.getMaxMileage() == null || car.mileage <= query.getMaxMileage())
+                .filter(car -> car.components.containsAll(query.getComponents()))
+                .skip(query.getOffset())
+                .limit(query.getLimit())
+                .collect(Collectors.toList());
+    }
+
+    private void assertSameAsExpected(CarQuery query, CarQueryPlan.AccessPath accessPath) {
+        var plan = plan(query);
+        assertThat(plan.accessPath()).isEqualTo(accessPath);
+        assertThat(plan.execute(CarScan.SEQUENTIAL))
+                .usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyElementsOf(expected(query));
+    }
+
+    @Test
+    @DisplayName("when the most selective index is used to find candidates")
+    void testOne() {
+
+        assertSameAsExpected(CarQuery
+                .builder()
+                .model("Audi")
+                .color(Color.BLACK)
+                .minPrice(BigDecimal.valueOf(200))
+                .maxPrice(BigDecimal.valueOf(300))
+                .build(), CarQueryPlan.AccessPath.PRICE_RANGE);
+
+        assertSameAsExpected(CarQuery
+                .builder()
+                .minMileage(100000.0)
+                .maxMileage(101000.0)
+                .minPrice(BigDecimal.valueOf(100))
+                .sortBy(SortingType.MODEL)
+                .build(), CarQueryPlan.AccessPath.MILEAGE_RANGE);
+
+        assertSameAsExpected(CarQuery
+                .builder()
+                .component("ALLOY WHEELS")
+                .model("Fiat")
+                .limit(20)
+                .build(), CarQueryPlan.AccessPath.COMPONENTS);
+    }
+
+    @Test
+    @DisplayName("when sorted page is read until it is complete")
+    void testTwo() {
+
+        var query = CarQuery
+                .builder()
+                .color(Color.RED)
+                .sortBy(SortingType.PRICE)
+                .descending(true)
+                .offset(5)
+                .limit(10)
+                .build();
+        var plan = plan(query);
+
+        assertThat(plan.accessPath()).isEqualTo(CarQueryPlan.AccessPath.SORTED_WALK);
+        assertThat(plan.execute(CarScan.SEQUENTIAL))
+                .usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyElementsOf(expected(query));
+        assertThat(plan.rowsExamined()).isLessThan(cars.size() / 10);
+
+        assertSameAsExpected(CarQuery
+                .builder()
+                .minPrice(BigDecimal.valueOf(5000))
+                .sortBy(SortingType.PRICE)
+                .limit(3)
+                .build(), CarQueryPlan.AccessPath.PRICE_RANGE);
+    }
+
+    @Test
+    @DisplayName("when query without index is scanned in parallel or matches nothing")
+    void testThree() {
+
+        var query = CarQuery
+                .builder()
+                .model("BMW")
+                .model("Opel")
+                .color(Color.WHITE)
+                .build();
+        var pool = new ForkJoinPool(3);
+
+        try {
+            var plan = plan(query);
+            assertThat(plan.accessPath()).isEqualTo(CarQueryPlan.AccessPath.FULL_SCAN);
+            assertThat(plan.execute(CarScan.parallel(pool, 100)))
+                    .usingRecursiveFieldByFieldElementComparator()
+                    .containsExactlyElementsOf(expected(query));
+        } finally {
+            pool.shutdown();
+        }
+
+        assertSameAsExpected(CarQuery
+                .builder()
+                .color(Color.WHITE)
+                .sortBy(SortingType.MILEAGE)
+                .build(), CarQueryPlan.AccessPath.SORTED_WALK);
+
+        var nothing = plan(CarQuery.builder().model("Audi").component("SUNROOF").build());
+        assertThat(nothing.accessPath()).isEqualTo(CarQueryPlan.AccessPath.NONE);
+        assertThat(nothing.execute(CarScan.SEQUENTIAL)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("when components of narrow range are checked without component index")
+    void testFour() {
+
+        var query = CarQuery
+                .builder()
+                .minPrice(BigDecimal.valueOf(1000))
+                .maxPrice(BigDecimal.valueOf(1500))
+                .component("GPS")
+                .component("ABS")
+                .build();
+        var plan = CarQueryPlan.compile(query, cars, sortIndex, rangeIndex, () -> {
+            throw new AssertionError("Component index shouldn't be built");
+        });
+
+        assertThat(plan.accessPath()).isEqualTo(CarQueryPlan.AccessPath.PRICE_RANGE);
+        assertThat(plan.execute(CarScan.SEQUENTIAL))
+                .usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyElementsOf(expected(query))
+                .isNotEmpty();
+        assertThat(plan(CarQuery
+                .builder()
+                .minPrice(BigDecimal.valueOf(1000))
+                .maxPrice(BigDecimal.valueOf(1500))
+                .component("SUNROOF")
+                .build()).accessPath()).isEqualTo(CarQueryPlan.AccessPath.NONE);
+    }
+
+    @Test
+    @DisplayName("when wide price and mileage ranges of full scan are checked on selection of chunk")
+    void testFive() {
+
+        var query = CarQuery
+                .builder()
+                .model("Skoda")
+                .minPrice(new BigDecimal("12.34"))
+                .maxPrice(BigDecimal.valueOf(9990))
+                .minMileage(500.0)
+                .maxMileage(299000.0)
+                .build();
+        var pool = new ForkJoinPool(3);
+
+        try {
+            var plan = plan(query);
+            assertThat(plan.accessPath()).isEqualTo(CarQueryPlan.AccessPath.FULL_SCAN);
+            assertThat(plan.execute(CarScan.parallel(pool, 100)))
+                    .usingRecursiveFieldByFieldElementComparator()
+                    .containsExactlyElementsOf(expected(query))
+                    .isNotEmpty();
+            assertThat(plan.rowsExamined()).isEqualTo(cars.size());
+            assertSameAsExpected(query, CarQueryPlan.AccessPath.FULL_SCAN);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("when plan run by interrupted thread stops inside scan and sorting")
+    void testSix() {
+
+        var scanned = CarQuery
+                .builder()
+                .model("Skoda")
+                .minPrice(new BigDecimal("12.34"))
+                .build();
+        var sorted = CarQuery
+                .builder()
+                .minPrice(BigDecimal.valueOf(100))
+                .maxPrice(BigDecimal.valueOf(300))
+                .sortBy(SortingType.MILEAGE)
+                .build();
+        var pool = new ForkJoinPool(3);
+
+        try {
+            assertThat(plan(sorted).accessPath()).isEqualTo(CarQueryPlan.AccessPath.PRICE_RANGE);
+            Thread.currentThread().interrupt();
+            assertThatThrownBy(() -> plan(scanned).execute(CarScan.parallel(pool, 100)))
+                    .isInstanceOf(CancellationException.class);
+            assertThatThrownBy(() -> plan(sorted).iterator(CarScan.SEQUENTIAL).hasNext())
+                    .isInstanceOf(CancellationException.class);
+            assertThat(Thread.interrupted()).isTrue();
+            assertThat(plan(sorted).iterator(CarScan.SEQUENTIAL).hasNext()).isTrue();
+        } finally {
+            Thread.interrupted();
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("when component postings built in parallel chunks answer the same as component lists")
+    void testSeven() {
+
+        var pool = new ForkJoinPool(3);
+        CarComponentIndex parallel;
+        try {
+            parallel = CarComponentIndex.of(cars, CarScan.parallel(pool, 100));
+        } finally {
+            pool.shutdown();
+        }
+
+        for (int component = 0; component < cars.componentCount(); component++) {
+            int componentId = component;
+            var expected = IntStream
+                    .range(0, cars.size())
+                    .filter(row -> cars.hasComponent(row, componentId))
+                    .toArray();
+            assertThat(parallel.rowsWith(component)).containsExactly(expected);
+            assertThat(componentIndex.rowsWith(component)).containsExactly(expected);
+            assertThat(parallel.contains(expected[0], component)).isTrue();
+        }
+
+        var all = List.of("GPS", "ALLOY WHEELS", "ABS");
+        var any = List.of("ALLOY WHEELS", "AIR CONDITIONING", "XYZ");
+        assertThat(parallel.carsWithAll(all).stream().toArray()).containsExactly(IntStream
+                .range(0, cars.size())
+                .filter(row -> cars.car(row).components.containsAll(all))
+                .toArray());
+        assertThat(parallel.carsWithAny(any).stream().toArray()).containsExactly(IntStream
+                .range(0, cars.size())
+                .filter(row -> cars.car(row).components.stream().anyMatch(any::contains))
+                .toArray());
+        assertThat(parallel.carsWithAll(List.of("GPS", "XYZ")).isEmpty()).isTrue();
+    }
+
+    @Test
+    @DisplayName("when rows of short and wide ranges are returned in order of rows")
+    void testEight() {
+
+        for (long upperBound : new long[]{2000, 5000, 500000, Long.MAX_VALUE}) {
+            var expected = IntStream
+                    .range(0, cars.size())
+                    .filter(row -> cars.price(row) > 50 && cars.price(row) <= upperBound)
+                    .toArray();
+            assertThat(rangeIndex.rowsInPriceRange(rangeIndex.priceRange(50, upperBound))).containsExactly(expected);
+        }
+        for (double lowerBound : new double[]{299000.0, 150000.0, -1.0}) {
+            var expected = IntStream
+                    .range(0, cars.size())
+                    .filter(row -> cars.mileage(row) > lowerBound)
+                    .toArray();
+            assertThat(rangeIndex.rowsInMileageRange(rangeIndex.mileageRange(lowerBound))).containsExactly(expected);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.app.domain.car;
+
+import com.app.domain.car.sketch.CountMinSketch;
+import com.app.domain.car.sketch.HeavyHitters;
+import com.app.domain.car.sketch.HyperLogLog;
+import com.app.domain.car.sketch.SketchSettings;
+import com.app.domain.car.type.Color;
+import com.app.service.CarsService;
+import com.app.service.ConcurrentCarsService;
+import com.app.service.loader.CarsFileFormat;
+import com.app.service.loader.CarsLoader;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.withinPercentage;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CarSketchesTest {
+
+    @Test
+    @DisplayName("when distinct values are estimated within three standard errors")
+    void testOne() {
+
+        var whole = HyperLogLog.withRelativeError(0.01);
+        var left = HyperLogLog.withRelativeError(0.01);
+        var right = HyperLogLog.withRelativeError(0.01);
+        for (int i = 0; i < 200_000; i++) {
+            whole.add("value" + i);
+            (i % 3 == 0 ? left : right).add("value" + i);
+            whole.add("value" + i / 2);
+        }
+        left.merge(right);
+
+        assertThat(whole.relativeError()).isLessThanOrEqualTo(0.01);
+        assertThat(whole.estimate()).isCloseTo(200_000, withinPercentage(3));
+        assertThat(left.estimate()).isEqualTo(whole.estimate());
+        assertThat(HyperLogLog.withRelativeError(0.01).estimate()).isZero();
+
+        var small = new HyperLogLog(HyperLogLog.MIN_PRECISION);
+        List.of("a", "b", "c", "a").forEach(small::add);
+        assertThat(small.estimate()).isEqualTo(3);
+        assertThrows(IllegalArgumentException.class, () -> left.merge(small));
+    }
+
+    @Test
+    @DisplayName("when frequencies are never underestimated and the most frequent values are found")
+    void testTwo() {
+
+        var random = new Random(5);
+        var exact = new long[1000];
+        var frequencies = new CountMinSketch(0.001, 0.99);
+        var heavyHitters = new HeavyHitters(new CountMinSketch(0.001, 0.99), 5);
+        for (int i = 0; i < 100_000; i++) {
+            int value = random.nextInt(10) == 0 ? random.nextInt(3) : random.nextInt(exact.length);
+            exact[value]++;
+            frequencies.add("value" + value, 1);
+            heavyHitters.add("value" + value, 1);
+        }
+
+        for (int value = 0; value < exact.length; value++) {
+            assertThat(frequencies.estimate("value" + value)).isBetween(exact[value], exact[value] + 100);
+        }
+        assertThat(frequencies.total()).isEqualTo(100_000);
+        assertThat(heavyHitters.top(3)).containsOnlyKeys("value0", "value1", "value2");
+
+        heavyHitters.add("value0", -exact[0]);
+        assertThat(heavyHitters.estimate("value0")).isLessThanOrEqualTo(100);
+        assertThat(heavyHitters.top(2)).containsOnlyKeys("value1", "value2");
+    }
+
+    @Test
+    @DisplayName("when sketches of partitions merge into sketches of all cars and survive bytes")
+    void testThree() throws IOException {
+
+        var cars = new ArrayList<Car>();
+        var components = List.of("ABS", "GPS", "Radio", "Mirrors", "Windows");
+        for (int i = 0; i < 5000; i++) {
+            cars.add(Car
+                    .builder()
+                    .model("Model" + i % 50)
+                    .price(BigDecimal.valueOf(1000 + i))
+                    .color(Color.values()[i % Color.values().length])
+                    .mileage(i)
+                    .components(i % 10 == 0 ? List.of("GPS") : List.of("ABS", components.get(i % 5)))
+                    .build());
+        }
+
+        var whole = CarSketcher.of(CarColumnStore.of(cars)).snapshot();
+        var merged = CarSketcher.of(CarColumnStore.of(cars.subList(0, 1234))).snapshot()
+                .merge(CarSketcher.of(CarColumnStore.of(cars.subList(1234, cars.size()))).snapshot());
+        var read = CarSketches.fromBytes(merged.toBytes());
+
+        for (var sketches : List.of(whole, merged, read)) {
+            assertThat(sketches.count()).isEqualTo(5000);
+            assertThat(sketches.distinctModels()).isEqualTo(50);
+            assertThat(sketches.distinctComponents()).isEqualTo(5);
+            assertThat(sketches.carsWithModel("Model7")).isEqualTo(100);
+            assertThat(sketches.carsWithComponent("GPS")).isEqualTo(1500);
+            assertThat(sketches.carsWithComponent("XYZ")).isZero();
+            assertThat(sketches.topComponents(2)).containsExactly(
+                    Map.entry("ABS", 4500L), Map.entry("GPS", 1500L));
+            assertThat(sketches.topModels(60)).hasSize(50);
+        }
+
+        var coarse = CarSketcher.of(CarColumnStore.of(cars), SketchSettings.builder().heavyHitters(3).build()).snapshot();
+        assertThat(coarse.topModels(10)).hasSize(3);
+        assertThrows(IllegalArgumentException.class, () -> whole.merge(coarse));
+        assertThrows(IllegalArgumentException.class, () -> CarSketches.fromBytes(new byte[]{0, 0, 0, 1, 0}));
+        assertThrows(IllegalArgumentException.class, () -> CountMinSketch.readFrom(new DataInputStream(
+                new ByteArrayInputStream(new byte[]{127, -1, -1, -1, 0, 0, 0, 8}))));
+    }
+
+    @Test
+    @DisplayName("when sketches are maintained while cars are loaded and changed")
+    void testFour() {
+
+        var csv = """
+                model,price,color,mileage,components
+                Audi,25000,WHITE,500,Windows;ABS
+                BMW,5555500.50,black,0,ABS;GPS
+                Audi,100000,BLACK,25000,
+                """;
+        var loaded = new CarsLoader().load(new StringReader(csv), CarsFileFormat.CSV);
+        assertThat(loaded.getSketches().count()).isEqualTo(3);
+        assertThat(loaded.getSketches().topModels(1)).containsEntry("Audi", 2L);
+        assertThat(loaded.getSketches().carsWithComponent("ABS")).isEqualTo(2);
+
+        var service = new ConcurrentCarsService(loaded.getCars());
+        long id = service.add(Car.builder().model("Fiat").price(BigDecimal.ONE).color(Color.RED)
+                .components(List.of("GPS")).build());
+        service.update(0, Car.builder().model("BMW").price(BigDecimal.ONE).color(Color.RED).build());
+        service.remove(id);
+
+        var sketches = service.sketches();
+        var rebuilt = new CarsService(service.snapshot().store()).sketches();
+        assertThat(sketches.count()).isEqualTo(rebuilt.count()).isEqualTo(3);
+        assertThat(sketches.topModels(5)).isEqualTo(rebuilt.topModels(5)).containsOnlyKeys("Audi", "BMW");
+        assertThat(sketches.topComponents(5)).isEqualTo(rebuilt.topComponents(5));
+        assertThat(sketches.distinctModels()).isEqualTo(3);
+        assertThat(rebuilt.distinctModels()).isEqualTo(2);
+    }
+}
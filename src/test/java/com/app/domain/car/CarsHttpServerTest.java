@@ -0,0 +1,258 @@
+package com.app.domain.car;
+
+import com.app.domain.car.type.Color;
+import com.app.domain.car.type.SortingType;
+import com.app.service.CarsQueries;
+import com.app.service.CarsService;
+import com.app.service.PerTaskThreads;
+import com.app.service.loader.JsonCarReader;
+import com.app.service.loader.JsonReader;
+import com.app.service.server.CarsHttpServer;
+import com.app.service.server.ServerSettings;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.StreamSupport;
+
+import static com.app.domain.car.CarFixtures.fleet;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CarsHttpServerTest {
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final CarsService carsService = new CarsService(CarColumnStore.of(fleet(200, (car, i) -> car
+            .model(i % 3 == 0 ? "Audi" : "BMW")
+            .price(BigDecimal.valueOf(1000 + i * 7L % 113, 1))
+            .color(i % 2 == 0 ? Color.BLACK : Color.WHITE)
+            .mileage(i * 10.5)
+            .components(i % 4 == 0 ? List.of("GPS", "ABS") : List.of("ABS")))));
+    private CarsHttpServer server;
+
+    private CarsHttpServer start(CarsQueries queries, ServerSettings.ServerSettingsBuilder settings) throws IOException {
+        server = new CarsHttpServer(queries, settings.port(0).build());
+        server.start();
+        return server;
+    }
+
+    private HttpResponse<String> get(String pathAndQuery) throws Exception {
+        var request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.port() + pathAndQuery)).build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static List<Car> cars(String json) throws IOException {
+        var reader = new JsonCarReader(new StringReader(json));
+        var cars = new ArrayList<Car>();
+        for (var car = reader.next(); car != null; car = reader.next()) {
+            cars.add(car);
+        }
+        return cars;
+    }
+
+    private static Object json(String json) throws IOException {
+        return new JsonReader(new StringReader(json)).readValue();
+    }
+
+    @AfterEach
+    void stop() {
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    @Test
+    @DisplayName("when queries are answered with the same cars and values as service")
+    void testOne() throws Exception {
+
+        start(carsService, ServerSettings.builder());
+
+        var top = get("/getTopCars?sortingType=PRICE&descending=true&k=5");
+        assertThat(top.statusCode()).isEqualTo(200);
+        assertThat(top.headers().firstValue("Content-Type")).hasValue("application/json; charset=utf-8");
+        assertThat(cars(top.body()))
+                .usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyElementsOf(carsService.getTopCars(SortingType.PRICE, true, 5));
+
+        var count = get("/countWithGivenPriceRange?minPrice=100.5&maxPrice=105");
+        assertThat(json(count.body()))
+                .isEqualTo(new BigDecimal(carsService.countWithGivenPriceRange(new BigDecimal("100.5"),
+                        new BigDecimal("105"))));
+
+        var colors = (Map<?, ?>) json(get("/returnAmountOfCarsForAllColors").body());
+        assertThat(colors.get("BLACK")).isEqualTo(new BigDecimal(100));
+
+        var statistic = (Map<?, ?>) json(get("/getStatisticForAllAttributes").body());
+        var price = (Map<?, ?>) statistic.get("price");
+        assertThat(price.get("count")).isEqualTo(new BigDecimal(200));
+        assertThat(((List<?>) price.get("histogram"))).hasSize(CarStatisticScan.DEFAULT_HISTOGRAM_BUCKETS);
+
+        var byComponent = (Map<String, ?>) json(get("/groupByComponent").body());
+        assertThat(byComponent.keySet()).containsExactlyInAnyOrder("ABS", "GPS");
+    }
+
+    @Test
+    @DisplayName("when cars of query are streamed and pages are followed with tokens")
+    void testTwo() throws Exception {
+
+        start(carsService, ServerSettings.builder());
+
+        var query = CarQuery
+                .builder()
+                .model("BMW")
+                .component("ABS")
+                .minMileage(100.0)
+                .sortBy(SortingType.MILEAGE)
+                .descending(true)
+                .build();
+
+        var found = get("/find?model=BMW&component=ABS&minMileage=100&sortBy=MILEAGE&descending=true");
+        assertThat(found.statusCode()).isEqualTo(200);
+        assertThat(cars(found.body()))
+                .usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyElementsOf(carsService.find(query));
+
+        var pagedCars = new ArrayList<Car>();
+        var pageQuery = "/findPage?model=BMW&component=ABS&minMileage=100&sortBy=MILEAGE&descending=true&limit=40";
+        var page = (Map<?, ?>) json(get(pageQuery).body());
+        while (true) {
+            for (var car : (List<?>) page.get("cars")) {
+                pagedCars.add(Car.builder().mileage(((BigDecimal) ((Map<?, ?>) car).get("mileage")).doubleValue()).build());
+            }
+            if (page.get("nextPageToken") == null) {
+                break;
+            }
+            page = (Map<?, ?>) json(get(pageQuery + "&pageToken=" + page.get("nextPageToken")).body());
+        }
+
+        assertThat(pagedCars)
+                .extracting(CarUtils.toMileage)
+                .containsExactlyElementsOf(carsService.find(query).stream().map(CarUtils.toMileage).toList());
+    }
+
+    @Test
+    @DisplayName("when invalid requests are answered with error status and message")
+    void testThree() throws Exception {
+
+        start(carsService, ServerSettings.builder());
+
+        var invalid = get("/getTopCars?sortingType=WEIGHT&k=5");
+        assertThat(invalid.statusCode()).isEqualTo(400);
+        assertThat(json(invalid.body())).isEqualTo(Map.of("error", "Invalid value 'WEIGHT' of parameter sortingType"));
+
+        var rejected = get("/findAllWithMileageGreaterThan?mileage=-1");
+        assertThat(rejected.statusCode()).isEqualTo(400);
+        assertThat(json(rejected.body())).isEqualTo(Map.of("error", "Mileage must have positive value"));
+
+        assertThat(get("/findAllWithMileageGreaterThan").statusCode()).isEqualTo(400);
+        assertThat(get("/find?limit=-1").statusCode()).isEqualTo(400);
+        assertThat(get("/dropAllCars").statusCode()).isEqualTo(404);
+
+        var post = HttpRequest
+                .newBuilder(URI.create("http://127.0.0.1:" + server.port() + "/version"))
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+        assertThat(client.send(post, HttpResponse.BodyHandlers.ofString()).statusCode()).isEqualTo(405);
+    }
+
+    @Test
+    @DisplayName("when request over concurrency bound is rejected and slow query times out")
+    void testFour() throws Exception {
+
+        var entered = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var calls = new AtomicInteger();
+        var queries = Mockito.mock(CarsQueries.class);
+        // the first query ignores interruption like scan of store, so it runs until it is released
+        Mockito.when(queries.version()).thenAnswer(invocation -> {
+            if (calls.getAndIncrement() == 0) {
+                entered.countDown();
+                while (release.getCount() > 0) {
+                    try {
+                        release.await();
+                    } catch (InterruptedException ignored) {
+                    }
+                }
+            }
+            return 7L;
+        });
+
+        start(queries, ServerSettings
+                .builder()
+                .maxConcurrentRequests(1)
+                .admissionTimeout(Duration.ofMillis(10))
+                .requestTimeout(Duration.ofMillis(200)));
+
+        var slow = client.sendAsync(
+                HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.port() + "/version")).build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(get("/version").statusCode()).isEqualTo(503);
+        assertThat(slow.get(5, TimeUnit.SECONDS).statusCode()).isEqualTo(504);
+        // permit is held until timed out query really finishes
+        assertThat(get("/version").statusCode()).isEqualTo(503);
+
+        release.countDown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        var answered = get("/version");
+        while (answered.statusCode() == 503 && System.nanoTime() < deadline) {
+            answered = get("/version");
+        }
+        assertThat(answered.statusCode()).isEqualTo(200);
+        assertThat(json(answered.body())).isEqualTo(new BigDecimal(7));
+    }
+
+    @Test
+    @DisplayName("when query of find is stopped inside plan at deadline and bound fits threads of requests")
+    void testFive() throws Exception {
+
+        var interrupted = new CountDownLatch(1);
+        var queries = Mockito.mock(CarsQueries.class);
+        // plan sorting all cars before the first one checks interruption
+        Mockito.when(queries.stream(Mockito.any())).thenAnswer(invocation -> StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(new Iterator<Car>() {
+                    @Override
+                    public boolean hasNext() {
+                        while (!Thread.currentThread().isInterrupted()) {
+                            Thread.onSpinWait();
+                        }
+                        interrupted.countDown();
+                        throw new CancellationException("Query was interrupted");
+                    }
+
+                    @Override
+                    public Car next() {
+                        throw new IllegalStateException();
+                    }
+                }, Spliterator.ORDERED), false));
+
+        start(queries, ServerSettings
+                .builder()
+                .requestTimeout(Duration.ofMillis(100)));
+
+        var response = get("/find?sortBy=PRICE");
+        assertThat(response.statusCode()).isEqualTo(504);
+        assertThat(interrupted.getCount()).isZero();
+        assertThat(ServerSettings.builder().build().getMaxConcurrentRequests()).isEqualTo(PerTaskThreads.isVirtual()
+                ? ServerSettings.VIRTUAL_THREAD_REQUESTS : ServerSettings.PLATFORM_THREAD_REQUESTS);
+    }
+}
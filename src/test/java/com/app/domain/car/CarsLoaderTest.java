@@ -0,0 +1,67 @@
+package com.app.domain.car;
+
+import com.app.domain.car.type.Color;
+import com.app.service.CarsService;
+import com.app.service.exception.CarsLoaderException;
+import com.app.service.loader.CarsFileFormat;
+import com.app.service.loader.CarsLoader;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CarsLoaderTest {
+
+    @Test
+    @DisplayName("when cars are loaded from CSV and invalid rows are rejected")
+    void testOne() {
+
+        var csv = """
+                model,price,color,mileage,components
+                Audi,25000,WHITE,500,Windows;ABS;XYZ
+                BMW,5555500.50,black,0,"Mirrors;ABS;GPS"
+                Audi,not a price,BLACK,25000,
+                Fiat,1000,PINK,10,
+                Audi,100000,BLACK,25000,
+                """;
+
+        var progress = new ArrayList<Long>();
+        var result = new CarsLoader((bytesRead, totalBytes, loaded, rejected) -> progress.add(loaded))
+                .load(new StringReader(csv), CarsFileFormat.CSV);
+
+        assertThat(result.getLoaded()).isEqualTo(3);
+        assertThat(result.getRejected()).isEqualTo(2);
+        assertThat(progress).containsExactly(3L);
+
+        var cars = new CarsService(result.getCars());
+        assertThat(cars.returnAmountOfCarsForAllColors().get(Color.BLACK)).isEqualTo(2);
+        assertThat(cars.getTheMostExpensiveCar().components).containsExactly("ABS", "GPS", "Mirrors");
+    }
+
+    @Test
+    @DisplayName("when invalid JSON objects are rejected and malformed JSON fails")
+    void testTwo() {
+
+        var json = """
+                [{"model": "Audi", "price": "19.99", "color": "RED", "extra": {"a": [1, 2]}},
+                 {"model": "Audi", "color": "RED"},
+                 {"model": "BMW", "price": 10.001, "color": "RED"},
+                 "not a car"]
+                """;
+
+        var result = new CarsLoader().load(new StringReader(json), CarsFileFormat.JSON);
+
+        assertThat(result.getLoaded()).isEqualTo(1);
+        assertThat(result.getRejected()).isEqualTo(3);
+        assertThat(new CarsService(result.getCars()).getTheMostExpensiveCar().price).isEqualTo(new BigDecimal("19.99"));
+
+        assertThrows(CarsLoaderException.class,
+                () -> new CarsLoader().load(new StringReader("[{\"model\": \"Audi\""), CarsFileFormat.JSON));
+    }
+}
@@ -1,18 +1,33 @@
 package com.app.domain.car;
 
 import com.app.domain.car.extensions.CarsJsonFileExtension;
+import com.app.domain.car.type.CarField;
 import com.app.domain.car.type.Color;
+import com.app.domain.car.type.SortingType;
 import com.app.domain.car.type.StatisticAttribute;
+import com.app.domain.car.type.StorageMode;
 import com.app.service.CarsService;
+import com.app.service.ConcurrentCarsService;
 import com.app.service.exception.CarsServiceException;
+import com.app.service.loader.CarsFileFormat;
+import com.app.service.loader.CarsLoader;
+import com.app.service.loader.LoadProgressListener;
+import com.app.service.metrics.ScannedRows;
 import lombok.RequiredArgsConstructor;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.StringReader;
 import java.math.BigDecimal;
+import java.nio.file.Path;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.withinPercentage;
@@ -24,8 +39,6 @@ class CarsServiceTest {
 
     private final CarsService carsService;
 
-    //TODO wstrzykiwanie z pliku
-
 
     @Test
     @DisplayName("when select cars with higher mileage than given")
@@ -211,4 +224,352 @@ class CarsServiceTest {
 
 
 
-}
\ No newline at end of file
+    @Test
+    @DisplayName("when cars are sorted by price in descending order")
+    void testThirteen(){
+
+        var sorted = carsService.sortingByGivenOrder(SortingType.PRICE, true);
+
+        assertThat(sorted).hasSize(3);
+        assertThat(sorted.get(0).price).isEqualTo(BigDecimal.valueOf(5555500));
+        assertThat(sorted.get(2).price).isEqualTo(BigDecimal.valueOf(25000));
+    }
+
+    @Test
+    @DisplayName("when select cars having all or any of given components")
+    void testFourteen(){
+
+        var withAll = carsService.findAllWithAllComponents(List.of("ABS", "GPS"));
+        var withAny = carsService.findAllWithAnyComponent(List.of("XYZ", "GPS", "Radio"));
+
+        assertThat(withAll).hasSize(1);
+        assertThat(withAll.get(0).model).isEqualTo("BMW");
+        assertThat(withAny).hasSize(2);
+        assertThrows(CarsServiceException.class, () -> carsService.findAllWithAllComponents(List.of()));
+    }
+
+    @Test
+    @DisplayName("when page of sorted cars is selected")
+    void testFifteen(){
+
+        var page = carsService.sortingByGivenOrder(SortingType.MILEAGE, false, 1, 5);
+
+        assertThat(page).hasSize(2);
+        assertThat(page.get(0).mileage).isEqualTo(500);
+        assertThat(page.get(1).mileage).isEqualTo(25000);
+        assertThrows(CarsServiceException.class, () -> carsService.sortingByGivenOrder(SortingType.MILEAGE, false, -1, 5));
+    }
+
+    @Test
+    @DisplayName("when cars in price range and with higher mileage are counted")
+    void testSixteen(){
+
+        assertThat(carsService.countWithGivenPriceRange(BigDecimal.valueOf(25000), BigDecimal.valueOf(100000))).isEqualTo(1);
+        assertThat(carsService.countWithGivenPriceRange(BigDecimal.valueOf(0), BigDecimal.valueOf(10000000))).isEqualTo(3);
+        assertThat(carsService.countWithMileageGreaterThan(100)).isEqualTo(2);
+        assertThat(carsService.countWithMileageGreaterThan(25000)).isZero();
+    }
+
+    @Test
+    @DisplayName("when cars are read from saved snapshot")
+    void testSeventeen(@TempDir Path directory){
+
+        var file = directory.resolve("cars.snapshot");
+        carsService.saveSnapshot(file);
+
+        var snapshotService = CarsService.openSnapshot(file);
+
+        assertThat(snapshotService.sortingByGivenOrder(SortingType.PRICE, false))
+                .usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyElementsOf(carsService.sortingByGivenOrder(SortingType.PRICE, false));
+        assertThat(snapshotService.groupByComponent().get("ABS")).hasSize(2);
+        assertThat(snapshotService.countWithMileageGreaterThan(100)).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("when parallel scans give the same results as sequential ones")
+    void testEighteen(){
+
+        var random = new Random(42);
+        var models = List.of("Audi", "BMW", "Fiat", "Opel");
+        var components = List.of("ABS", "GPS", "AIR CONDITIONING", "ALLOY WHEELS");
+        var cars = new ArrayList<Car>();
+        for (int i = 0; i < 2000; i++) {
+            cars.add(Car
+                    .builder()
+                    .model(models.get(random.nextInt(models.size())))
+                    .price(BigDecimal.valueOf(random.nextInt(500), 0))
+                    .color(Color.values()[random.nextInt(Color.values().length)])
+                    .mileage(random.nextInt(100000) / 3.0)
+                    .components(new ArrayList<>(components.subList(0, random.nextInt(components.size() + 1))))
+                    .build());
+        }
+        var store = CarColumnStore.of(cars);
+        var pool = new ForkJoinPool(4);
+
+        try {
+            var sequential = new CarsService(store);
+            var parallel = new CarsService(store, 0, null, CarScan.parallel(pool, 64));
+
+            for (var sortingType : SortingType.values()) {
+                assertThat(parallel.sortingByGivenOrder(sortingType, true))
+                        .usingRecursiveFieldByFieldElementComparator()
+                        .containsExactlyElementsOf(sequential.sortingByGivenOrder(sortingType, true));
+            }
+            assertThat(parallel.getCarsWithGivenPriceRange(BigDecimal.valueOf(100), BigDecimal.valueOf(300)))
+                    .usingRecursiveFieldByFieldElementComparator()
+                    .containsExactlyElementsOf(sequential.getCarsWithGivenPriceRange(BigDecimal.valueOf(100), BigDecimal.valueOf(300)));
+            assertThat(parallel.findAllWithAllComponents(List.of("ABS", "GPS")))
+                    .usingRecursiveFieldByFieldElementComparator()
+                    .containsExactlyElementsOf(sequential.findAllWithAllComponents(List.of("ABS", "GPS")));
+            assertThat(parallel.returnAmountOfCarsForAllColors()).isEqualTo(sequential.returnAmountOfCarsForAllColors());
+            assertThat(parallel.returnMostExpensiveCarForEveryModel())
+                    .usingRecursiveComparison()
+                    .isEqualTo(sequential.returnMostExpensiveCarForEveryModel());
+            for (var attribute : StatisticAttribute.values()) {
+                assertThat(parallel.getStatisticForGivenAttribute(attribute))
+                        .usingRecursiveComparison()
+                        .isEqualTo(sequential.getStatisticForGivenAttribute(attribute));
+            }
+            var unsorted = new CarsService(store, 0, null, CarScan.parallel(pool, 64));
+            for (var sortingType : SortingType.values()) {
+                assertThat(unsorted.getTopCars(sortingType, true, 100))
+                        .usingRecursiveFieldByFieldElementComparator()
+                        .containsExactlyElementsOf(sequential.sortingByGivenOrder(sortingType, true, 0, 100));
+                assertThat(unsorted.getTopCarsForEveryModel(sortingType, false, 5))
+                        .usingRecursiveComparison()
+                        .isEqualTo(sequential.getTopCarsForEveryModel(sortingType, false, 5));
+            }
+            var parallelStatistic = parallel.getStatisticForAllAttributes();
+            var sequentialStatistic = sequential.getStatisticForAllAttributes();
+            assertThat(parallelStatistic)
+                    .usingRecursiveComparison()
+                    .ignoringFields("price.standardDeviation", "mileage.standardDeviation")
+                    .isEqualTo(sequentialStatistic);
+            assertThat(parallelStatistic.getMileage().getStandardDeviation())
+                    .isCloseTo(sequentialStatistic.getMileage().getStandardDeviation(), withinPercentage(0.0001));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("when cars are selected with query")
+    void testNineteen(){
+
+        var blackAudis = carsService.find(CarQuery
+                .builder()
+                .model("Audi")
+                .color(Color.BLACK)
+                .minMileage(10000.0)
+                .minPrice(BigDecimal.valueOf(20000))
+                .maxPrice(BigDecimal.valueOf(100000))
+                .sortBy(SortingType.PRICE)
+                .build());
+
+        assertThat(blackAudis).hasSize(1);
+        assertThat(blackAudis.get(0).price).isEqualTo(BigDecimal.valueOf(100000));
+
+        var withAbs = carsService.find(CarQuery
+                .builder()
+                .component("ABS")
+                .sortBy(SortingType.PRICE)
+                .descending(true)
+                .limit(1)
+                .field(CarField.MODEL)
+                .build());
+
+        assertThat(withAbs).hasSize(1);
+        assertThat(withAbs.get(0).model).isEqualTo("BMW");
+        assertThat(withAbs.get(0).price).isNull();
+        assertThat(carsService.find(CarQuery.builder().model("Fiat").build())).isEmpty();
+        assertThrows(CarsServiceException.class, () -> carsService.find(CarQuery
+                .builder()
+                .minPrice(BigDecimal.TEN)
+                .maxPrice(BigDecimal.ONE)
+                .build()));
+    }
+
+    @Test
+    @DisplayName("when statistic of all attributes is counted in one scan")
+    void testTwenty(){
+
+        var statistic = carsService.getStatisticForAllAttributes();
+        var price = statistic.getPrice();
+        var mileage = statistic.getMileage();
+
+        assertThat(price.getMin()).isEqualByComparingTo(BigDecimal.valueOf(25000));
+        assertThat(price.getMax()).isEqualByComparingTo(BigDecimal.valueOf(5555500));
+        assertThat(price.getSum()).isEqualByComparingTo(BigDecimal.valueOf(5680500));
+        assertThat(price.getCount()).isEqualTo(3);
+        assertThat(price.getMedian()).isCloseTo(BigDecimal.valueOf(100000), withinPercentage(1));
+        assertThat(price.getP99()).isCloseTo(BigDecimal.valueOf(5555500), withinPercentage(1));
+        assertThat(price.getStandardDeviation()).isCloseTo(2589606.05, withinPercentage(0.001));
+        assertThat(price.getHistogram()).hasSize(CarStatisticScan.DEFAULT_HISTOGRAM_BUCKETS);
+        assertThat(price.getHistogram().get(0).getCount()).isEqualTo(2);
+        assertThat(price.getHistogram().get(CarStatisticScan.DEFAULT_HISTOGRAM_BUCKETS - 1).getCount()).isEqualTo(1);
+        assertThat(mileage.getCount()).isEqualTo(3);
+        assertThat(mileage.getHistogram().stream().mapToLong(HistogramBucket::getCount).sum()).isEqualTo(3);
+        assertThat(mileage.getMedian()).isBetween(mileage.getMin(), mileage.getMax());
+
+        // the first statistic counted minimal, maximal values and sums itself, with aggregates only one scan is needed
+        carsService.getStatisticForGivenAttribute(StatisticAttribute.PRICE);
+        var outer = ScannedRows.start();
+        var warm = carsService.getStatisticForAllAttributes();
+        assertThat(ScannedRows.stop(outer)).isEqualTo(price.getCount());
+        assertThat(warm).usingRecursiveComparison().isEqualTo(statistic);
+    }
+
+    @Test
+    @DisplayName("when prices are converted to fixed-point and back exactly")
+    void testTwentyOne(){
+
+        for (var price : List.of("0", "7", "100000", "19.9", "19.90", "0.05", "-12.5", "92233720368547758.07")) {
+            var fixedPoint = CarColumnStore.toFixedPoint(new BigDecimal(price));
+
+            assertThat(CarColumnStore.toPrice(fixedPoint)).isEqualTo(new BigDecimal(price).stripTrailingZeros().scale() < 0
+                    ? new BigDecimal(price).setScale(0)
+                    : new BigDecimal(price).stripTrailingZeros());
+        }
+        assertThat(CarColumnStore.toFixedPoint(BigDecimal.valueOf(25000))).isEqualTo(2500000);
+        assertThat(CarColumnStore.toFixedPointFloor(new BigDecimal("10.005"))).isEqualTo(1000);
+        assertThat(CarColumnStore.toFixedPointCeil(new BigDecimal("10.005"))).isEqualTo(1001);
+        assertThat(CarColumnStore.toFixedPointFloor(new BigDecimal("1E+30"))).isEqualTo(Long.MAX_VALUE);
+        assertThrows(IllegalArgumentException.class, () -> CarColumnStore.toFixedPoint(new BigDecimal("92233720368547759")));
+        assertThrows(IllegalArgumentException.class, () -> CarColumnStore.toFixedPoint(new BigDecimal("0.001")));
+    }
+
+    @Test
+    @DisplayName("when top and bottom cars are selected globally and for every group")
+    void testTwentyTwo(){
+
+        var cheapest = carsService.getTopCars(SortingType.PRICE, false, 2);
+        var mostExpensiveByModel = carsService.getTopCarsForEveryModel(SortingType.PRICE, true, 1);
+        var lowestMileageByColor = carsService.getTopCarsForEveryColor(SortingType.MILEAGE, false, 5);
+
+        assertThat(cheapest).extracting(car -> car.price).containsExactly(BigDecimal.valueOf(25000), BigDecimal.valueOf(100000));
+        assertThat(mostExpensiveByModel.get("Audi")).extracting(car -> car.price).containsExactly(BigDecimal.valueOf(100000));
+        assertThat(mostExpensiveByModel.get("BMW")).extracting(car -> car.price).containsExactly(BigDecimal.valueOf(5555500));
+        assertThat(lowestMileageByColor).containsOnlyKeys(Color.BLACK, Color.WHITE);
+        assertThat(lowestMileageByColor.get(Color.BLACK)).extracting(car -> car.mileage).containsExactly(0.0, 25000.0);
+        assertThat(carsService.getTopCars(SortingType.MODEL, true, 0)).isEmpty();
+        assertThat(carsService.getTopCars(SortingType.MILEAGE, true, 10)).hasSize(3);
+        assertThrows(CarsServiceException.class, () -> carsService.getTopCars(null, true, 1));
+        assertThrows(CarsServiceException.class, () -> carsService.getTopCarsForEveryColor(SortingType.PRICE, true, -1));
+    }
+
+    @Test
+    @DisplayName("when components are canonical since car is created")
+    void testTwentyThree(){
+
+        var car = Car
+                .builder()
+                .model("Audi")
+                .price(BigDecimal.ONE)
+                .color(Color.RED)
+                .components(new ArrayList<>(List.of("GPS", "ABS", "GPS", "Mirrors")))
+                .build();
+
+        assertThat(car.components).containsExactly("ABS", "GPS", "Mirrors");
+        assertThat(car.doesContainComponent("GPS")).isTrue();
+        assertThat(car.doesContainComponent("XYZ")).isFalse();
+        assertThat(car.withSortedComponents()).isSameAs(car);
+        assertThrows(UnsupportedOperationException.class, () -> car.components.add("XYZ"));
+        assertThat(Car.builder().model("Fiat").build().components).isEmpty();
+
+        var cars = carsService.sortAlphabeticalComponentList();
+        assertThat(cars).hasSize(3);
+        assertThat(cars.get(0).components).containsExactly("ABS", "Windows", "XYZ");
+        assertThrows(UnsupportedOperationException.class, () -> cars.remove(0));
+    }
+
+    @Test
+    @DisplayName("when cars are streamed and read page by page with tokens")
+    void testTwentyFour(){
+
+        var query = CarQuery.builder().sortBy(SortingType.PRICE).descending(true).limit(2).build();
+
+        assertThat(carsService.stream(query).collect(Collectors.toList()))
+                .usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyElementsOf(carsService.find(query));
+
+        var first = carsService.findPage(query, null);
+        var second = carsService.findPage(query, first.getNextPageToken());
+
+        assertThat(first.getCars()).extracting(car -> car.price)
+                .containsExactly(BigDecimal.valueOf(5555500), BigDecimal.valueOf(100000));
+        assertThat(first.hasNextPage()).isTrue();
+        assertThat(second.getCars()).extracting(car -> car.price).containsExactly(BigDecimal.valueOf(25000));
+        assertThat(second.hasNextPage()).isFalse();
+
+        var otherQuery = CarQuery.builder().sortBy(SortingType.MILEAGE).limit(2).build();
+        assertThrows(CarsServiceException.class, () -> carsService.findPage(otherQuery, first.getNextPageToken()));
+        assertThrows(CarsServiceException.class, () -> carsService.findPage(query, "not a token"));
+        assertThat(new CarsService(carsService.store(), 1).findPage(query, first.getNextPageToken()).getCars())
+                .extracting(car -> car.price).containsExactly(BigDecimal.valueOf(25000));
+        var samePrices = query.toBuilder().minPrice(new BigDecimal("10.0")).build();
+        var otherScale = query.toBuilder().minPrice(new BigDecimal("10.00")).build();
+        assertThat(carsService.findPage(otherScale, carsService.findPage(samePrices, null).getNextPageToken())
+                .getCars()).extracting(car -> car.price).containsExactly(BigDecimal.valueOf(25000));
+        assertThrows(CarsServiceException.class, () -> carsService.findPage(CarQuery.builder().build(), null));
+    }
+
+    @Test
+    @DisplayName("when cars are stored off heap")
+    void testTwentyFive(){
+
+        var appender = CarColumnStore.builder(StorageMode.OFF_HEAP);
+        for (int i = 0; i < 2000; i++) {
+            appender.add(carsService.store().car(i % carsService.store().size()));
+        }
+        var offHeap = appender.build();
+        var heap = CarColumnStore.builder();
+        offHeap.cars().forEach(heap::add);
+        var offHeapService = new CarsService(offHeap);
+        var heapService = new CarsService(heap.build());
+
+        assertThat(offHeap.isOffHeap()).isTrue();
+        assertThat(carsService.store().isOffHeap()).isFalse();
+        assertThat(offHeap.size()).isEqualTo(2000);
+        assertThat(offHeap.id(1999)).isEqualTo(1999);
+        assertThat(offHeapService.sortingByGivenOrder(SortingType.PRICE, true))
+                .usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyElementsOf(heapService.sortingByGivenOrder(SortingType.PRICE, true));
+        assertThat(offHeapService.returnAmountOfCarsForAllColors())
+                .containsExactlyEntriesOf(heapService.returnAmountOfCarsForAllColors());
+        assertThat(offHeapService.findAllWithAllComponents(List.of("ABS")))
+                .usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyElementsOf(heapService.findAllWithAllComponents(List.of("ABS")));
+
+        var changed = CarColumnStore.Builder.from(offHeap).remove(0).build();
+        assertThat(changed.isOffHeap()).isTrue();
+        assertThat(changed.size()).isEqualTo(1999);
+        assertThat(changed.id(0)).isEqualTo(1);
+
+        var loaded = new CarsLoader(LoadProgressListener.NONE, StorageMode.OFF_HEAP).load(
+                new StringReader("model,price,color,mileage,components\nAudi,100,RED,10,ABS;GPS\n"), CarsFileFormat.CSV);
+        assertThat(loaded.getCars().isOffHeap()).isTrue();
+        assertThat(loaded.getCars().car(0).components).containsExactly("ABS", "GPS");
+        assertThrows(IllegalArgumentException.class, () -> CarColumnStore.builder(StorageMode.OFF_HEAP)
+                .add(Car.builder().model("Audi").build()));
+    }
+
+    @Test
+    @DisplayName("when prices keep their value but not scale and cars which can't be stored are rejected")
+    void testTwentySix(){
+
+        var car = Car.builder().model("Audi").price(new BigDecimal("10.50")).color(Color.RED).build();
+        var stored = new CarsService(List.of(car)).findById(0).orElseThrow();
+
+        assertThat(stored.price).isEqualTo(new BigDecimal("10.5")).isEqualByComparingTo(car.price);
+
+        var exception = assertThrows(CarsServiceException.class, () -> new CarsService(List.of(Car
+                .builder().model("Audi").price(new BigDecimal("0.001")).color(Color.RED).build())));
+        assertThat(exception).hasCauseInstanceOf(IllegalArgumentException.class);
+        assertThrows(CarsServiceException.class, () -> new CarsService(List.of(Car
+                .builder().price(BigDecimal.ONE).color(Color.RED).build())));
+        assertThrows(CarsServiceException.class, () -> new ConcurrentCarsService(List.of(Car
+                .builder().model("Audi").price(BigDecimal.ONE).build())));
+    }
+
+}
@@ -0,0 +1,125 @@
+package com.app.domain.car;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.DoubleBuffer;
+import java.nio.LongBuffer;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class ColumnKernelsTest {
+
+    private static final ColumnKernels VECTOR = new VectorColumnKernels();
+
+    private static long[] prices(int size) {
+        var random = new Random(11);
+        var prices = new long[size];
+        for (int i = 0; i < size; i++) {
+            prices[i] = i % 97 == 0 ? Long.MAX_VALUE - random.nextInt(10) : random.nextInt(2_000_000) - 1_000_000;
+        }
+        return prices;
+    }
+
+    private static double[] mileages(int size) {
+        var random = new Random(13);
+        var mileages = new double[size];
+        for (int i = 0; i < size; i++) {
+            mileages[i] = i % 101 == 50 ? Double.NaN : random.nextDouble() * 300_000;
+        }
+        return mileages;
+    }
+
+    /**
+     * The same values wrapping array, in slice of array with offset and in direct buffer.
+     */
+    private static List<LongBuffer> priceColumns(long[] prices) {
+        var padded = new long[prices.length + 3];
+        System.arraycopy(prices, 0, padded, 3, prices.length);
+        return List.of(LongBuffer.wrap(prices), LongBuffer.wrap(padded).position(3).slice(),
+                DirectColumns.of(prices).asLongBuffer());
+    }
+
+    private static List<DoubleBuffer> mileageColumns(double[] mileages) {
+        var padded = new double[mileages.length + 3];
+        System.arraycopy(mileages, 0, padded, 3, mileages.length);
+        return List.of(DoubleBuffer.wrap(mileages), DoubleBuffer.wrap(padded).position(3).slice(),
+                DirectColumns.of(mileages).asDoubleBuffer());
+    }
+
+    @Test
+    @DisplayName("when vector kernels select the same rows as scalar kernels")
+    void testOne() {
+
+        int size = 5003;
+        var prices = prices(size);
+        var mileages = mileages(size);
+
+        for (int[] range : new int[][]{{0, size}, {7, 4100}, {130, 131}, {64, 64}}) {
+            int from = range[0];
+            int to = range[1];
+
+            var expected = ColumnKernels.selectAll(to - from);
+            ColumnKernels.SCALAR.retainRange(LongBuffer.wrap(prices), from, to, -500_000, 700_000, expected);
+            ColumnKernels.SCALAR.retainRange(DoubleBuffer.wrap(mileages), from, to, 1000, 250_000, expected);
+
+            for (var priceColumn : priceColumns(prices)) {
+                for (var mileageColumn : mileageColumns(mileages)) {
+                    var selection = ColumnKernels.selectAll(to - from);
+                    VECTOR.retainRange(priceColumn, from, to, -500_000, 700_000, selection);
+                    VECTOR.retainRange(mileageColumn, from, to, 1000, 250_000, selection);
+                    assertThat(selection).containsExactly(expected);
+                }
+            }
+        }
+
+        assertThat(ColumnKernels.selectAll(70)).containsExactly(-1L, (1L << 6) - 1);
+        assertThat(ColumnKernels.selectAll(0)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("when lanes of vector kernels reduce to the same summary as scalar kernels")
+    void testTwo() {
+
+        int size = 5003;
+        var prices = prices(size);
+        var mileages = mileages(size);
+        for (int i = 0; i < size; i++) {
+            mileages[i] = Double.isNaN(mileages[i]) ? 0.125 : mileages[i];
+        }
+
+        for (int[] range : new int[][]{{0, size}, {5, 2999}, {10, 13}, {20, 20}}) {
+            int from = range[0];
+            int to = range[1];
+
+            var expectedPrices = new ColumnKernels.LongSummary();
+            var expectedMileages = new ColumnKernels.DoubleSummary();
+            ColumnKernels.SCALAR.summarize(LongBuffer.wrap(prices), from, to, expectedPrices);
+            ColumnKernels.SCALAR.summarize(DoubleBuffer.wrap(mileages), from, to, expectedMileages);
+
+            for (var priceColumn : priceColumns(prices)) {
+                var summary = new ColumnKernels.LongSummary();
+                VECTOR.summarize(priceColumn, from, to, summary);
+                assertThat(summary.min).isEqualTo(expectedPrices.min);
+                assertThat(summary.max).isEqualTo(expectedPrices.max);
+                assertThat(summary.sum.toBigInteger()).isEqualTo(expectedPrices.sum.toBigInteger());
+            }
+            for (var mileageColumn : mileageColumns(mileages)) {
+                var summary = new ColumnKernels.DoubleSummary();
+                VECTOR.summarize(mileageColumn, from, to, summary);
+                assertThat(summary.count).isEqualTo(to - from);
+                assertThat(summary.min).isEqualTo(expectedMileages.min);
+                assertThat(summary.max).isEqualTo(expectedMileages.max);
+                assertThat(summary.sum()).isCloseTo(expectedMileages.sum(), within(1e-6));
+            }
+        }
+
+        var withNaN = new ColumnKernels.DoubleSummary();
+        VECTOR.summarize(DoubleBuffer.wrap(mileages(size)), 0, size, withNaN);
+        assertThat(withNaN.min).isNaN();
+        assertThat(withNaN.sum()).isNaN();
+    }
+}
@@ -0,0 +1,421 @@
+package com.app.domain.car;
+
+import com.app.domain.car.type.Color;
+import com.app.domain.car.type.SortingType;
+import com.app.domain.car.type.StatisticAttribute;
+import com.app.service.CarsEditor;
+import com.app.service.CarsService;
+import com.app.service.ConcurrentCarsService;
+import com.app.service.exception.CarsServiceException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.app.domain.car.CarFixtures.car;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ConcurrentCarsServiceTest {
+
+    /**
+     * Service publishing versions only when given future completes, like service waiting until changes are durable.
+     */
+    private static class DeferredCarsService extends ConcurrentCarsService {
+
+        private DeferredCarsService(List<Car> cars) {
+            super(cars);
+        }
+
+        private CarsService edit(Consumer<CarsEditor> changes, CountDownLatch built, CompletableFuture<Void> durable) {
+            return edit(changes, next -> {
+                built.countDown();
+                return durable;
+            });
+        }
+    }
+
+    private static List<String> described(List<Car> cars) {
+        return cars.stream().map(Car::toString).collect(Collectors.toList());
+    }
+
+    @Test
+    @DisplayName("when cars are added, updated and removed in new versions")
+    void testOne() {
+
+        var service = new ConcurrentCarsService(List.of(car("Audi", 25000, Color.WHITE, 500, "ABS")));
+        var firstVersion = service.snapshot();
+
+        long bmw = service.add(car("BMW", 5555500, Color.BLACK, 0, "GPS"));
+        service.updatePrice(0, BigDecimal.valueOf(30000));
+        service.update(bmw, car("BMW", 60000, Color.RED, 10, "ABS", "GPS"));
+
+        assertThat(service.version()).isEqualTo(3);
+        assertThat(service.findById(0).orElseThrow().price).isEqualTo(BigDecimal.valueOf(30000));
+        assertThat(service.snapshot().groupByComponent().get("ABS")).hasSize(2);
+        assertThat(firstVersion.getTheMostExpensiveCar().price).isEqualTo(BigDecimal.valueOf(25000));
+
+        assertThat(service.remove(0)).isTrue();
+        assertThat(service.remove(0)).isFalse();
+        assertThat(service.snapshot().returnMostExpensiveCarForEveryModel()).containsOnlyKeys("BMW");
+        assertThat(service.snapshot().groupByComponent().get("ABS")).hasSize(1);
+        assertThrows(CarsServiceException.class, () -> service.updateMileage(0, 10));
+    }
+
+    @Test
+    @DisplayName("when readers always see consistent snapshot while cars are changed")
+    void testTwo() throws Exception {
+
+        var service = new ConcurrentCarsService(List.of());
+        var stop = new AtomicBoolean();
+        ExecutorService readers = Executors.newFixedThreadPool(4);
+        var results = new ArrayList<Future<Boolean>>();
+
+        for (int reader = 0; reader < 4; reader++) {
+            results.add(readers.submit(() -> {
+                boolean consistent = true;
+                while (!stop.get()) {
+                    var snapshot = service.snapshot();
+                    long colors = snapshot.returnAmountOfCarsForAllColors().values().stream().mapToLong(Long::longValue).sum();
+                    consistent &= colors == snapshot.sortingByGivenOrder(SortingType.PRICE, false).size();
+                    consistent &= colors == snapshot.version() * 2;
+                }
+                return consistent;
+            }));
+        }
+
+        for (int i = 0; i < 200; i++) {
+            service.edit(editor -> {
+                editor.add(car("Audi", 1000, Color.RED, 10));
+                editor.add(car("BMW", 2000, Color.BLUE, 20));
+            });
+        }
+        stop.set(true);
+
+        for (var result : results) {
+            assertThat(result.get()).isTrue();
+        }
+        readers.shutdown();
+        assertThat(readers.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(service.snapshot().countWithGivenPriceRange(BigDecimal.ZERO, BigDecimal.valueOf(1500))).isEqualTo(200);
+    }
+
+    @Test
+    @DisplayName("when aggregates follow removed and updated cars")
+    void testThree() {
+
+        var service = new ConcurrentCarsService(List.of(
+                car("Audi", 100, Color.RED, 10),
+                car("Audi", 300, Color.RED, 30),
+                car("BMW", 200, Color.BLACK, 20)));
+
+        service.remove(1);
+        service.updateMileage(2, 5);
+
+        var snapshot = service.snapshot();
+        var price = snapshot.getStatisticForGivenAttribute(StatisticAttribute.PRICE).getPrice();
+        var mileage = snapshot.getStatisticForGivenAttribute(StatisticAttribute.MILEAGE).getMileage();
+
+        assertThat(snapshot.returnMostExpensiveCarForEveryModel().get("Audi").price).isEqualTo(BigDecimal.valueOf(100));
+        assertThat(snapshot.getTheMostExpensiveCar().model).isEqualTo("BMW");
+        assertThat(snapshot.returnAmountOfCarsForAllColors()).containsEntry(Color.RED, 1L).containsEntry(Color.BLACK, 1L);
+        assertThat(price.getMax()).isEqualTo(BigDecimal.valueOf(200));
+        assertThat(price.getAverage()).isEqualByComparingTo(BigDecimal.valueOf(150));
+        assertThat(mileage.getMin()).isEqualTo(5);
+        assertThat(mileage.getMax()).isEqualTo(10);
+    }
+
+    @Test
+    @DisplayName("when next page continues after the last car although cars were changed meanwhile")
+    void testFour() {
+
+        var service = new ConcurrentCarsService(List.of(
+                car("Audi", 100, Color.RED, 10),
+                car("Audi", 200, Color.RED, 20),
+                car("BMW", 300, Color.BLACK, 30),
+                car("BMW", 400, Color.BLACK, 40)));
+        var query = CarQuery.builder().sortBy(SortingType.PRICE).limit(2).build();
+
+        var first = service.findPage(query, null);
+        service.remove(0);
+        service.add(car("Fiat", 150, Color.WHITE, 15));
+        service.add(car("Fiat", 350, Color.WHITE, 35));
+        var second = service.findPage(query, first.getNextPageToken());
+        var third = service.findPage(query, second.getNextPageToken());
+
+        assertThat(first.getCars()).extracting(car -> car.price)
+                .containsExactly(BigDecimal.valueOf(100), BigDecimal.valueOf(200));
+        assertThat(second.getCars()).extracting(car -> car.price)
+                .containsExactly(BigDecimal.valueOf(300), BigDecimal.valueOf(350));
+        assertThat(third.getCars()).extracting(car -> car.price).containsExactly(BigDecimal.valueOf(400));
+        assertThat(third.hasNextPage()).isFalse();
+    }
+
+    @Test
+    @DisplayName("when maintained aggregates are the same as counted ones after removing cars with equal extremes")
+    void testFive() {
+
+        var random = new Random(11);
+        var cars = new ArrayList<Car>();
+        for (int i = 0; i < 200; i++) {
+            cars.add(car("Model" + random.nextInt(5), 100 * (1 + random.nextInt(4)),
+                    Color.values()[random.nextInt(Color.values().length)], random.nextInt(4)));
+        }
+        var service = new ConcurrentCarsService(cars);
+
+        for (int i = 0; i < 300; i++) {
+            var snapshot = service.snapshot();
+            long id = snapshot.store().id(random.nextInt(snapshot.store().size()));
+            switch (random.nextInt(4)) {
+                case 0 -> service.remove(id);
+                case 1 -> service.updatePrice(id, BigDecimal.valueOf(100 * (1 + random.nextInt(4))));
+                case 2 -> service.updateMileage(id, random.nextInt(4));
+                default -> service.add(car("Model" + random.nextInt(5), 100 * (1 + random.nextInt(4)),
+                        Color.values()[random.nextInt(Color.values().length)], random.nextInt(4)));
+            }
+
+            var maintained = service.snapshot();
+            var counted = new CarsService(maintained.store());
+            assertThat(maintained.returnMostExpensiveCarForEveryModel())
+                    .usingRecursiveComparison()
+                    .isEqualTo(counted.returnMostExpensiveCarForEveryModel());
+            assertThat(maintained.returnAmountOfCarsForAllColors()).isEqualTo(counted.returnAmountOfCarsForAllColors());
+            assertThat(maintained.getStatisticForAllAttributes())
+                    .usingRecursiveComparison()
+                    .isEqualTo(counted.getStatisticForAllAttributes());
+        }
+    }
+
+    @Test
+    @DisplayName("when cars of many segments are changed and patched indexes answer the same as built ones")
+    void testSix() {
+
+        var random = new Random(13);
+        var components = List.of("ABS", "GPS", "AIR CONDITIONING");
+        var cars = new ArrayList<Car>();
+        for (int i = 0; i < 2 * CarColumnStore.SEGMENT_ROWS + 5000; i++) {
+            cars.add(car("Model" + random.nextInt(7), 100 + random.nextInt(100000), Color.values()[random.nextInt(3)],
+                    random.nextInt(50000), components.subList(0, random.nextInt(components.size() + 1))
+                            .toArray(String[]::new)));
+        }
+        var service = new ConcurrentCarsService(cars);
+        for (var sortingType : SortingType.values()) {
+            service.sortingByGivenOrder(sortingType, false);
+        }
+        service.groupByComponent();
+
+        for (int round = 0; round < 4; round++) {
+            boolean bulk = round == 3;
+            boolean removing = round > 0;
+            service.edit(editor -> {
+                var edited = service.snapshot().store();
+                var touched = new HashSet<Long>();
+                for (int row = 0; bulk && row < edited.size(); row++) {
+                    if (edited.model(row).compareTo("Model4") < 0) {
+                        editor.remove(edited.id(row));
+                        touched.add(edited.id(row));
+                    }
+                }
+                for (int i = 0; i < (bulk ? 6000 : 100); i++) {
+                    long id = edited.id(random.nextInt(edited.size()));
+                    if (!touched.add(id)) {
+                        continue;
+                    }
+                    switch (random.nextInt(4)) {
+                        case 0 -> {
+                            if (removing) {
+                                editor.remove(id);
+                            }
+                        }
+                        case 1 -> editor.updatePrice(id, BigDecimal.valueOf(100 + random.nextInt(100000)));
+                        case 2 -> editor.updateMileage(id, random.nextInt(50000));
+                        default -> editor.update(id, car("Model" + random.nextInt(9), 100 + random.nextInt(100000),
+                                Color.BLUE, random.nextInt(50000), "SUNROOF", "ABS"));
+                    }
+                }
+                editor.add(car("Model8", 500, Color.RED, 10, "SUNROOF"));
+            });
+
+            var maintained = service.snapshot();
+            var built = new CarsService(maintained.store());
+            for (var sortingType : SortingType.values()) {
+                assertThat(maintained.sortingByGivenOrder(sortingType, true)).extracting(Car::toString)
+                        .containsExactlyElementsOf(described(built.sortingByGivenOrder(sortingType, true)));
+            }
+            built.groupByComponent().forEach((component, withComponent) ->
+                    assertThat(maintained.groupByComponent().get(component)).extracting(Car::toString)
+                            .containsExactlyElementsOf(described(withComponent)));
+            assertThat(maintained.findAllWithAllComponents(List.of("ABS", "SUNROOF"))).extracting(Car::toString)
+                    .containsExactlyElementsOf(described(built.findAllWithAllComponents(List.of("ABS", "SUNROOF"))));
+            assertThat(maintained.getCarsWithGivenPriceRange(BigDecimal.valueOf(20000), BigDecimal.valueOf(30000)))
+                    .extracting(Car::toString).containsExactlyElementsOf(described(built
+                            .getCarsWithGivenPriceRange(BigDecimal.valueOf(20000), BigDecimal.valueOf(30000))));
+        }
+
+        var store = service.snapshot().store();
+        var query = CarQuery
+                .builder()
+                .minPrice(BigDecimal.valueOf(1000))
+                .maxPrice(BigDecimal.valueOf(99000))
+                .minMileage(100.0)
+                .maxMileage(49000.0)
+                .build();
+        var expected = IntStream
+                .range(0, store.size())
+                .mapToObj(store::car)
+                .filter(car -> car.price.compareTo(query.getMinPrice()) >= 0)
+                .filter(car -> car.price.compareTo(query.getMaxPrice()) <= 0)
+                .filter(car -> car.mileage >= query.getMinMileage() && car.mileage <= query.getMaxMileage())
+                .collect(Collectors.toList());
+        var pool = new ForkJoinPool(3);
+
+        try {
+            var parallel = new CarsService(store, 0, null, CarScan.parallel(pool, 1000));
+            var statistic = parallel.getStatisticForAllAttributes();
+            var counted = new CarsService(store).getStatisticForAllAttributes();
+            assertThat(parallel.find(query)).extracting(Car::toString).containsExactlyElementsOf(described(expected));
+            assertThat(statistic.getPrice()).usingRecursiveComparison().ignoringFields("standardDeviation")
+                    .isEqualTo(counted.getPrice());
+            assertThat(statistic.getMileage().getMin()).isEqualTo(counted.getMileage().getMin());
+            assertThat(statistic.getMileage().getMax()).isEqualTo(counted.getMileage().getMax());
+            assertThat(statistic.getMileage().getCount()).isEqualTo(counted.getMileage().getCount());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("when version is published after its future completes and versions built on failed one are dropped")
+    void testSeven() throws Exception {
+
+        var service = new DeferredCarsService(List.of(car("Audi", 100, Color.RED, 10)));
+        var writers = Executors.newFixedThreadPool(2);
+        var firstBuilt = new CountDownLatch(1);
+        var secondBuilt = new CountDownLatch(1);
+        var firstDurable = new CompletableFuture<Void>();
+        var secondDurable = new CompletableFuture<Void>();
+
+        try {
+            var first = writers.submit(() -> service.edit(editor -> editor.add(car("BMW", 200, Color.BLACK, 20)),
+                    firstBuilt, firstDurable));
+            assertThat(firstBuilt.await(5, TimeUnit.SECONDS)).isTrue();
+            var second = writers.submit(() -> service.edit(editor -> editor.remove(0), secondBuilt, secondDurable));
+            assertThat(secondBuilt.await(5, TimeUnit.SECONDS)).isTrue();
+
+            assertThat(service.version()).isZero();
+            assertThat(service.findById(1)).isEmpty();
+
+            var failure = new UncheckedIOException(new IOException("Disk is full"));
+            firstDurable.completeExceptionally(failure);
+            secondDurable.completeExceptionally(failure);
+            assertThat(assertThrows(Exception.class, first::get)).hasCause(failure);
+            assertThat(assertThrows(Exception.class, second::get)).hasCause(failure);
+        } finally {
+            writers.shutdown();
+        }
+
+        assertThat(service.version()).isZero();
+        assertThat(service.findById(0)).isPresent();
+        assertThat(service.add(car("Fiat", 300, Color.WHITE, 30))).isEqualTo(1);
+        assertThat(service.version()).isEqualTo(1);
+        assertThat(service.returnAmountOfCarsForAllColors()).containsEntry(Color.RED, 1L).containsEntry(Color.WHITE, 1L)
+                .doesNotContainKey(Color.BLACK);
+        assertThat(service.getTheMostExpensiveCar().model).isEqualTo("Fiat");
+    }
+
+    @Test
+    @DisplayName("when failed edit is undone and aggregates and sketches still count cars of current version")
+    void testEight() {
+
+        var service = new ConcurrentCarsService(List.of(
+                car("Audi", 100, Color.RED, 10, "ABS"),
+                car("BMW", 300, Color.BLACK, 20, "GPS"),
+                car("Fiat", 200, Color.WHITE, 30)));
+        var statistic = service.getStatisticForAllAttributes();
+
+        var failure = new IllegalStateException("Stopped");
+        assertThat(assertThrows(IllegalStateException.class, () -> service.edit(editor -> {
+            editor.remove(1);
+            editor.update(0, car("Opel", 900, Color.BLUE, 5, "SUNROOF"));
+            editor.updateMileage(2, 1000);
+            editor.add(car("Kia", 50, Color.BLUE, 1));
+            throw failure;
+        }))).isSameAs(failure);
+        var invalid = assertThrows(CarsServiceException.class, () -> service.edit(editor -> {
+            editor.remove(2);
+            editor.update(0, Car.builder().model("Opel").color(Color.BLUE).build());
+        }));
+        assertThat(invalid).hasCauseInstanceOf(IllegalArgumentException.class);
+
+        assertThat(service.version()).isZero();
+        assertThat(service.getStatisticForAllAttributes()).usingRecursiveComparison().isEqualTo(statistic);
+        assertThat(service.getTheMostExpensiveCar().model).isEqualTo("BMW");
+        assertThat(service.returnAmountOfCarsForAllColors()).containsEntry(Color.RED, 1L).containsEntry(Color.BLACK, 1L)
+                .containsEntry(Color.WHITE, 1L).doesNotContainKey(Color.BLUE);
+        assertThat(service.sketches().count()).isEqualTo(3);
+
+        service.remove(1);
+        assertThat(service.getTheMostExpensiveCar().model).isEqualTo("Fiat");
+        assertThat(service.getStatisticForAllAttributes()).usingRecursiveComparison()
+                .isEqualTo(new CarsService(service.snapshot().store()).getStatisticForAllAttributes());
+    }
+
+    @Test
+    @DisplayName("when aggregator built in parallel chunks has the same extremes as counted ones while top cars leave")
+    void testNine() {
+
+        var random = new Random(17);
+        var cars = new ArrayList<Car>();
+        for (int i = 0; i < 20000; i++) {
+            cars.add(car("Model" + random.nextInt(6), 100 * (1 + random.nextInt(50)),
+                    Color.values()[random.nextInt(Color.values().length)], random.nextInt(1000)));
+        }
+        var store = CarColumnStore.of(cars);
+        var pool = new ForkJoinPool(3);
+
+        try {
+            var aggregator = CarAggregator.of(store, CarScan.parallel(pool, 1000));
+            assertThat(aggregator.snapshot()).usingRecursiveComparison().ignoringFields("mileageSum")
+                    .isEqualTo(CarAggregates.of(store));
+
+            var builder = CarColumnStore.Builder.from(store);
+            for (int i = 0; i < 3000; i++) {
+                var mostExpensive = aggregator.snapshot().mostExpensiveByModel();
+                var id = i % 2 == 0
+                        ? mostExpensive.get("Model" + random.nextInt(6))
+                        : (Long) store.id(random.nextInt(store.size()));
+                int row = id == null ? -1 : builder.rowOf(id);
+                if (row < 0) {
+                    continue;
+                }
+                aggregator.remove(id, builder.model(row), builder.price(row), builder.color(row), builder.mileage(row));
+                builder.remove(row);
+            }
+
+            var counted = CarAggregates.of(builder.build());
+            assertThat(aggregator.snapshot()).usingRecursiveComparison().ignoringFields("mileageSum")
+                    .isEqualTo(counted);
+            assertThat(aggregator.snapshot().mileageSum()).isCloseTo(counted.mileageSum(), within(1e-6));
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.app.domain.car;
+
+import com.app.domain.car.type.Color;
+import com.app.service.CarsQueries;
+import com.app.service.exception.CarsServiceException;
+import com.app.service.log.DurableCarsService;
+import com.app.service.log.LogSettings;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DurableCarsServiceTest {
+
+    private static final LogSettings NO_BACKGROUND_COMPACTION = LogSettings
+            .builder()
+            .compactionCheckInterval(null)
+            .build();
+
+    private static Car car(int number) {
+        return Car
+                .builder()
+                .model("Model" + number % 5)
+                .price(BigDecimal.valueOf(1000 + number, 2))
+                .color(Color.values()[number % Color.values().length])
+                .mileage(number * 1.5)
+                .components(number % 2 == 0 ? List.of("ABS") : List.of("GPS", "Radio"))
+                .build();
+    }
+
+    private static void assertSameCars(CarsQueries recovered, CarsQueries expected) {
+
+        var all = CarQuery.builder().build();
+
+        assertThat(recovered.version()).isEqualTo(expected.version());
+        assertThat(recovered.find(all))
+                .usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyElementsOf(expected.find(all));
+        assertThat(recovered.findById(3).map(CarUtils.toPrice)).isEqualTo(expected.findById(3).map(CarUtils.toPrice));
+    }
+
+    @Test
+    @DisplayName("when changes of concurrent writers survive restart")
+    void testOne(@TempDir Path directory) throws Exception {
+
+        var executor = Executors.newFixedThreadPool(8);
+        try (var cars = DurableCarsService.open(directory, NO_BACKGROUND_COMPACTION)) {
+
+            var writes = IntStream
+                    .range(0, 400)
+                    .mapToObj(number -> CompletableFuture.runAsync(() -> cars.add(car(number)), executor))
+                    .toArray(CompletableFuture[]::new);
+            CompletableFuture.allOf(writes).join();
+
+            cars.updatePrice(3, new BigDecimal("99.99"));
+            cars.updateMileage(4, 7.5);
+            cars.update(5, car(1000));
+            cars.remove(6);
+            cars.edit(editor -> {
+                editor.add(car(2000));
+                editor.remove(7);
+            });
+            assertThat(cars.remove(100_000)).isFalse();
+            assertThrows(CarsServiceException.class, () -> cars.updatePrice(100_000, BigDecimal.ONE));
+
+            try (var recovered = DurableCarsService.open(directory, NO_BACKGROUND_COMPACTION)) {
+                assertThat(recovered.snapshot().store().size()).isEqualTo(399);
+                assertSameCars(recovered, cars);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("when change torn by crash at the end of log is dropped")
+    void testTwo(@TempDir Path directory) throws IOException {
+
+        List<Car> expected;
+        try (var cars = DurableCarsService.open(directory, NO_BACKGROUND_COMPACTION)) {
+            for (int number = 0; number < 10; number++) {
+                cars.add(car(number));
+            }
+            expected = cars.find(CarQuery.builder().build());
+        }
+
+        try (var log = Files.list(directory)) {
+            var file = log.filter(path -> path.toString().endsWith(".log")).findFirst().orElseThrow();
+            Files.write(file, new byte[]{0, 0, 0, 40, 1, 2, 3, 4, 5}, StandardOpenOption.APPEND);
+        }
+
+        try (var cars = DurableCarsService.open(directory, NO_BACKGROUND_COMPACTION)) {
+            assertThat(cars.version()).isEqualTo(10);
+            assertThat(cars.find(CarQuery.builder().build()))
+                    .usingRecursiveFieldByFieldElementComparator()
+                    .containsExactlyElementsOf(expected);
+            cars.add(car(10));
+        }
+
+        try (var cars = DurableCarsService.open(directory, NO_BACKGROUND_COMPACTION)) {
+            assertThat(cars.version()).isEqualTo(11);
+            assertThat(cars.findById(10)).isPresent();
+        }
+    }
+
+    @Test
+    @DisplayName("when compaction replaces log with snapshot")
+    void testThree(@TempDir Path directory) throws IOException {
+
+        var fleet = IntStream.range(0, 50).mapToObj(DurableCarsServiceTest::car).collect(Collectors.toList());
+        try (var cars = DurableCarsService.create(directory, CarColumnStore.of(fleet), NO_BACKGROUND_COMPACTION)) {
+
+            cars.updatePrice(1, BigDecimal.TEN);
+            cars.remove(2);
+            assertThat(cars.compact()).isEqualTo(2);
+            assertThat(cars.compact()).isEqualTo(2);
+            assertThat(cars.logSize()).isZero();
+            cars.add(car(50));
+
+            assertThat(fileNames(directory)).containsExactlyInAnyOrder(
+                    "snapshot-00000000000000000002.cars", "changes-00000000000000000002.log");
+
+            try (var recovered = DurableCarsService.open(directory, NO_BACKGROUND_COMPACTION)) {
+                assertThat(recovered.findById(1).map(CarUtils.toPrice)).contains(BigDecimal.TEN);
+                assertThat(recovered.findById(2)).isEmpty();
+                assertSameCars(recovered, cars);
+            }
+        }
+
+        assertThrows(IllegalStateException.class, () -> DurableCarsService.create(directory, CarColumnStore.of(fleet),
+                NO_BACKGROUND_COMPACTION));
+    }
+
+    @Test
+    @DisplayName("when log over threshold is compacted in background")
+    void testFour(@TempDir Path directory) throws Exception {
+
+        var settings = LogSettings
+                .builder()
+                .compactionThreshold(1)
+                .compactionCheckInterval(Duration.ofMillis(10))
+                .build();
+
+        try (var cars = DurableCarsService.open(directory, settings)) {
+            cars.add(car(0));
+            cars.add(car(1));
+
+            long deadline = System.nanoTime() + 5_000_000_000L;
+            while (!fileNames(directory).contains("snapshot-00000000000000000002.cars") && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+
+            assertThat(fileNames(directory)).contains("snapshot-00000000000000000002.cars");
+            assertThat(cars.compactionFailure()).isEmpty();
+            cars.add(car(2));
+        }
+
+        try (var cars = DurableCarsService.open(directory, NO_BACKGROUND_COMPACTION)) {
+            assertThat(cars.version()).isEqualTo(3);
+            assertThat(cars.snapshot().store().size()).isEqualTo(3);
+        }
+        assertThrows(IllegalStateException.class, () -> {
+            var cars = DurableCarsService.open(directory, NO_BACKGROUND_COMPACTION);
+            cars.close();
+            cars.add(car(3));
+        });
+    }
+
+    @Test
+    @DisplayName("when damaged change followed by more changes fails recovery and log is kept")
+    void testFive(@TempDir Path directory) throws IOException {
+
+        try (var cars = DurableCarsService.open(directory, NO_BACKGROUND_COMPACTION)) {
+            for (int number = 0; number < 10; number++) {
+                cars.add(car(number));
+            }
+        }
+
+        Path file;
+        try (var log = Files.list(directory)) {
+            file = log.filter(path -> path.toString().endsWith(".log")).findFirst().orElseThrow();
+        }
+        var bytes = Files.readAllBytes(file);
+        bytes[8] ^= 1;
+        Files.write(file, bytes);
+
+        assertThrows(UncheckedIOException.class, () -> DurableCarsService.open(directory, NO_BACKGROUND_COMPACTION));
+        assertThat(Files.size(file)).isEqualTo(bytes.length);
+    }
+
+    @Test
+    @DisplayName("when interrupted writer of log fails next changes instead of leaving them waiting")
+    void testSix(@TempDir Path directory) throws Exception {
+
+        try (var cars = DurableCarsService.open(directory, NO_BACKGROUND_COMPACTION)) {
+            cars.add(car(0));
+
+            var writer = Thread.getAllStackTraces().keySet().stream()
+                    .filter(thread -> thread.getName().equals("cars-change-log"))
+                    .findFirst()
+                    .orElseThrow();
+            writer.interrupt();
+            writer.join(5000);
+
+            assertThat(writer.isAlive()).isFalse();
+            var failure = assertThrows(UncheckedIOException.class, () -> cars.add(car(1)));
+            assertThat(failure).hasRootCauseInstanceOf(InterruptedIOException.class);
+            assertThat(cars.version()).isEqualTo(1);
+        }
+    }
+
+    private static List<String> fileNames(Path directory) throws IOException {
+        try (var files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString()).collect(Collectors.toCollection(ArrayList::new));
+        }
+    }
+}
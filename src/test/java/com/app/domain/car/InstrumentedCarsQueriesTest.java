@@ -0,0 +1,83 @@
+package com.app.domain.car;
+
+import com.app.domain.car.type.SortingType;
+import com.app.service.CarsService;
+import com.app.service.exception.CarsServiceException;
+import com.app.service.metrics.CarsQueriesMetrics;
+import com.app.service.metrics.InstrumentedCarsQueries;
+import com.app.service.metrics.LatencyHistogram;
+import com.app.service.metrics.QueryCall;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+
+import static com.app.domain.car.CarFixtures.threeCars;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class InstrumentedCarsQueriesTest {
+
+    @Test
+    @DisplayName("when calls of queries are measured")
+    void testOne() {
+
+        var metrics = new CarsQueriesMetrics();
+        var calls = new ArrayList<QueryCall>();
+        var queries = new InstrumentedCarsQueries(new CarsService(threeCars()), metrics.andThen(calls::add));
+
+        assertThat(queries.groupByComponent()).hasSize(2);
+        assertThat(queries.groupByComponent()).hasSize(2);
+        assertThat(queries.findAllWithMileageGreaterThan(400)).hasSize(2);
+        assertThrows(CarsServiceException.class, () -> queries.findAllWithMileageGreaterThan(-1));
+
+        var groupByComponent = metrics.metrics("groupByComponent");
+        assertThat(groupByComponent.getCalls()).isEqualTo(2);
+        assertThat(groupByComponent.getRowsReturned()).isEqualTo(8);
+        assertThat(calls.get(0).getRowsScanned()).isEqualTo(7);
+        assertThat(calls.get(1).getRowsScanned()).isEqualTo(4);
+        assertThat(calls.get(0).getLatencyNanos()).isPositive();
+        assertThat(metrics.metrics("findAllWithMileageGreaterThan").getCalls()).isEqualTo(2);
+        assertThat(metrics.metrics("findAllWithMileageGreaterThan").getFailures()).isEqualTo(1);
+        assertThat(metrics.allMetrics()).containsOnlyKeys("groupByComponent", "findAllWithMileageGreaterThan");
+    }
+
+    @Test
+    @DisplayName("when metrics are read through JMX")
+    void testTwo() throws Exception {
+
+        var metrics = new CarsQueriesMetrics();
+        var queries = new InstrumentedCarsQueries(new CarsService(threeCars()), metrics);
+        metrics.registerMBeans("test");
+
+        try {
+            queries.sortingByGivenOrder(SortingType.PRICE, true, 0, 2);
+
+            var server = ManagementFactory.getPlatformMBeanServer();
+            var objectName = new ObjectName("com.app:type=CarsQueries,name=\"test\",method=sortingByGivenOrderPage");
+            assertThat(server.getAttribute(objectName, "Calls")).isEqualTo(1L);
+            assertThat(server.getAttribute(objectName, "RowsReturned")).isEqualTo(2L);
+        } finally {
+            metrics.unregisterMBeans();
+        }
+    }
+
+    @Test
+    @DisplayName("when percentiles are read from latency histogram")
+    void testThree() {
+
+        var histogram = new LatencyHistogram();
+        for (int value = 1; value <= 100_000; value++) {
+            histogram.record(value);
+        }
+
+        assertThat(histogram.count()).isEqualTo(100_000);
+        assertThat((double) histogram.valueAt(0.5)).isCloseTo(50_000, within(50_000 / 16.0));
+        assertThat((double) histogram.valueAt(0.99)).isCloseTo(99_000, within(99_000 / 16.0));
+        assertThat(histogram.valueAt(1)).isGreaterThanOrEqualTo(100_000);
+        assertThat(new LatencyHistogram().valueAt(0.999)).isZero();
+    }
+}
@@ -0,0 +1,65 @@
+package com.app.domain.car;
+
+import com.app.domain.car.sketch.QuantileSketch;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.withinPercentage;
+
+class QuantileSketchTest {
+
+    @Test
+    @DisplayName("when quantiles differ from exact ones by at most relative accuracy")
+    void testOne() {
+
+        var random = new Random(7);
+        var values = new double[100000];
+        var sketch = new QuantileSketch();
+        for (int i = 0; i < values.length; i++) {
+            values[i] = Math.exp(random.nextGaussian() * 3);
+            sketch.add(values[i]);
+        }
+        Arrays.sort(values);
+
+        for (var quantile : new double[]{0, 0.1, 0.5, 0.9, 0.99, 1}) {
+            var exact = values[Math.max(0, (int) Math.ceil(quantile * values.length) - 1)];
+            assertThat(sketch.quantile(quantile)).isCloseTo(exact, withinPercentage(1));
+        }
+    }
+
+    @Test
+    @DisplayName("when merged sketches answer the same as one sketch of all values")
+    void testTwo() {
+
+        var random = new Random(11);
+        var whole = new QuantileSketch();
+        var left = new QuantileSketch();
+        var right = new QuantileSketch();
+        for (int i = 0; i < 10000; i++) {
+            var value = random.nextGaussian() * 1000;
+            whole.add(value);
+            (i % 3 == 0 ? left : right).add(value);
+        }
+        left.merge(right);
+
+        assertThat(left.count()).isEqualTo(whole.count());
+        for (var quantile : new double[]{0, 0.25, 0.5, 0.75, 0.99, 1}) {
+            assertThat(left.quantile(quantile)).isEqualTo(whole.quantile(quantile));
+        }
+    }
+
+    @Test
+    @DisplayName("when empty sketch has no quantiles")
+    void testThree() {
+
+        var sketch = new QuantileSketch();
+        sketch.add(Double.NaN);
+
+        assertThat(sketch.count()).isZero();
+        assertThat(sketch.quantile(0.5)).isNaN();
+    }
+}
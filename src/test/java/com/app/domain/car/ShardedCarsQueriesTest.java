@@ -0,0 +1,234 @@
+package com.app.domain.car;
+
+import com.app.domain.car.type.CarField;
+import com.app.domain.car.type.Color;
+import com.app.domain.car.type.SortingType;
+import com.app.domain.car.type.StatisticAttribute;
+import com.app.service.CarsQueries;
+import com.app.service.CarsService;
+import com.app.service.exception.CarsServiceException;
+import com.app.service.server.JsonWriter;
+import com.app.service.shard.RemoteCarsQueries;
+import com.app.service.shard.ShardedCarsQueries;
+import org.assertj.core.api.recursive.comparison.RecursiveComparisonConfiguration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static com.app.domain.car.CarFixtures.fleet;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ShardedCarsQueriesTest {
+
+    private static final RecursiveComparisonConfiguration EXACT_PRICES = RecursiveComparisonConfiguration
+            .builder()
+            .withComparatorForType(BigDecimal::compareTo, BigDecimal.class)
+            .build();
+
+    private static final List<String> COMPONENTS = List.of("ABS", "GPS", "Mirrors", "Radio");
+    private static final Color[] COLORS = {Color.WHITE, Color.WHITE, Color.WHITE, Color.WHITE, Color.BLUE, Color.BLUE,
+            Color.BLUE, Color.RED, Color.RED, Color.BLACK};
+
+    /**
+     * Every price and mileage is different, so sorted cars have only one correct order, and every color has
+     * different amount of cars.
+     */
+    private final List<Car> fleet = fleet(300, (car, i) -> car
+            .model("Model" + (i % 7))
+            .price(BigDecimal.valueOf(100_000 + i * 7919L % 10007, 2))
+            .color(COLORS[i % COLORS.length])
+            .mileage(i * 3.5)
+            .components(List.of(COMPONENTS.get(i % 4), COMPONENTS.get(i * 3 % 4))));
+    private final CarsService single = new CarsService(CarColumnStore.of(fleet));
+    private final List<Process> processes = new ArrayList<>();
+
+    @AfterEach
+    void stopProcesses() {
+        processes.forEach(Process::destroyForcibly);
+    }
+
+    private void assertSameAnswers(CarsQueries sharded) {
+
+        assertThat(sharded.sortingByGivenOrder(SortingType.PRICE, true))
+                .usingRecursiveFieldByFieldElementComparator(EXACT_PRICES)
+                .containsExactlyElementsOf(single.sortingByGivenOrder(SortingType.PRICE, true));
+        assertThat(sharded.sortingByGivenOrder(SortingType.MILEAGE, false, 40, 25))
+                .usingRecursiveFieldByFieldElementComparator(EXACT_PRICES)
+                .containsExactlyElementsOf(single.sortingByGivenOrder(SortingType.MILEAGE, false, 40, 25));
+        assertThat(sharded.getTopCars(SortingType.PRICE, false, 9))
+                .usingRecursiveFieldByFieldElementComparator(EXACT_PRICES)
+                .containsExactlyElementsOf(single.getTopCars(SortingType.PRICE, false, 9));
+        assertThat(sharded.getTopCarsForEveryColor(SortingType.MILEAGE, true, 4))
+                .usingRecursiveComparison(EXACT_PRICES)
+                .isEqualTo(single.getTopCarsForEveryColor(SortingType.MILEAGE, true, 4));
+        assertThat(sharded.getTopCarsForEveryModel(SortingType.PRICE, true, 3))
+                .usingRecursiveComparison(EXACT_PRICES)
+                .isEqualTo(single.getTopCarsForEveryModel(SortingType.PRICE, true, 3));
+        assertThat(sharded.returnMostExpensiveCarForEveryModel())
+                .usingRecursiveComparison(EXACT_PRICES)
+                .isEqualTo(single.returnMostExpensiveCarForEveryModel());
+        assertThat(sharded.getTheMostExpensiveCar())
+                .usingRecursiveComparison(EXACT_PRICES)
+                .isEqualTo(single.getTheMostExpensiveCar());
+
+        assertThat(sharded.returnAmountOfCarsForAllColors()).containsExactlyEntriesOf(single.returnAmountOfCarsForAllColors());
+        assertThat(sharded.countWithMileageGreaterThan(500)).isEqualTo(single.countWithMileageGreaterThan(500));
+        var minPrice = new BigDecimal("1010");
+        var maxPrice = new BigDecimal("1050");
+        assertThat(sharded.getCarsWithGivenPriceRange(minPrice, maxPrice))
+                .usingRecursiveFieldByFieldElementComparator(EXACT_PRICES)
+                .containsExactlyElementsOf(single.getCarsWithGivenPriceRange(minPrice, maxPrice))
+                .isNotEmpty();
+        assertThat(sharded.countWithGivenPriceRange(new BigDecimal("1010"), new BigDecimal("1050")))
+                .isEqualTo(single.countWithGivenPriceRange(new BigDecimal("1010"), new BigDecimal("1050")));
+        assertThat(sharded.findAllWithAllComponents(List.of("ABS", "Mirrors")))
+                .usingRecursiveFieldByFieldElementComparator(EXACT_PRICES)
+                .containsExactlyInAnyOrderElementsOf(single.findAllWithAllComponents(List.of("ABS", "Mirrors")));
+        assertThat(sharded.groupByComponent().entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().size())))
+                .isEqualTo(single.groupByComponent().entrySet().stream()
+                        .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().size())));
+
+        var price = sharded.getStatisticForAllAttributes().getPrice();
+        var expectedPrice = single.getStatisticForAllAttributes().getPrice();
+        assertThat(price.getMin()).isEqualByComparingTo(expectedPrice.getMin());
+        assertThat(price.getMax()).isEqualByComparingTo(expectedPrice.getMax());
+        assertThat(price.getSum()).isEqualByComparingTo(expectedPrice.getSum());
+        assertThat(price.getAverage()).isEqualByComparingTo(expectedPrice.getAverage());
+        assertThat(price.getCount()).isEqualTo(expectedPrice.getCount());
+        assertThat(price.getStandardDeviation()).isCloseTo(expectedPrice.getStandardDeviation(), within(1e-6));
+
+        var mileage = sharded.getStatisticForGivenAttribute(StatisticAttribute.MILEAGE).getMileage();
+        var expectedMileage = single.getStatisticForGivenAttribute(StatisticAttribute.MILEAGE).getMileage();
+        assertThat(mileage.getMin()).isEqualTo(expectedMileage.getMin());
+        assertThat(mileage.getMax()).isEqualTo(expectedMileage.getMax());
+        assertThat(mileage.getAverage()).isCloseTo(expectedMileage.getAverage(), within(1e-9));
+
+        var query = CarQuery
+                .builder()
+                .component("GPS")
+                .minMileage(100.0)
+                .sortBy(SortingType.PRICE)
+                .descending(true)
+                .offset(5)
+                .limit(30)
+                .field(CarField.MODEL)
+                .build();
+        assertThat(sharded.find(query))
+                .usingRecursiveFieldByFieldElementComparator(EXACT_PRICES)
+                .containsExactlyElementsOf(single.find(query));
+
+        var pagedCars = new ArrayList<Car>();
+        var page = sharded.findPage(query.toBuilder().limit(8).build(), null);
+        pagedCars.addAll(page.getCars());
+        while (page.hasNextPage()) {
+            page = sharded.findPage(query.toBuilder().limit(8).build(), page.getNextPageToken());
+            pagedCars.addAll(page.getCars());
+        }
+        assertThat(pagedCars)
+                .usingRecursiveFieldByFieldElementComparator(EXACT_PRICES)
+                .containsExactlyElementsOf(single.find(query.toBuilder().limit(Integer.MAX_VALUE).build()));
+
+        var sketches = sharded.sketches();
+        var expectedSketches = single.sketches();
+        assertThat(sketches.count()).isEqualTo(expectedSketches.count());
+        assertThat(sketches.distinctModels()).isEqualTo(expectedSketches.distinctModels());
+        assertThat(sketches.distinctComponents()).isEqualTo(expectedSketches.distinctComponents());
+        assertThat(sketches.topModels(3)).containsExactlyEntriesOf(expectedSketches.topModels(3));
+        assertThat(sketches.carsWithComponent("GPS")).isEqualTo(expectedSketches.carsWithComponent("GPS"));
+
+        assertThrows(CarsServiceException.class, () -> sharded.getTopCars(null, true, 5));
+        assertThrows(CarsServiceException.class, () -> sharded.find(query.toBuilder().limit(-1).build()));
+    }
+
+    @Test
+    @DisplayName("when shards in this JVM answer the same as one service with all cars")
+    void testOne() {
+
+        var sharded = ShardedCarsQueries.inProcess(fleet, 3);
+
+        assertSameAnswers(sharded);
+        assertThat(ShardedCarsQueries.partition(fleet, 3)).allSatisfy(shard -> assertThat(shard).isNotEmpty());
+        assertThrows(UnsupportedOperationException.class, () -> sharded.findById(4));
+
+        var withoutCount = new CarsService(CarColumnStore.of(List.of())) {
+            @Override
+            public CarStatistic getStatisticForAllAttributes() {
+                return new CarStatistic(Statistic.<BigDecimal>builder().build(), Statistic.<Double>builder().build());
+            }
+        };
+        var empty = new ShardedCarsQueries(List.of(new CarsService(CarColumnStore.of(List.of())), withoutCount));
+        var statistic = empty.getStatisticForAllAttributes();
+        for (var attribute : List.<Statistic<?>>of(statistic.getPrice(), statistic.getMileage())) {
+            assertThat(attribute.getCount()).isZero();
+            assertThat(attribute.getMin()).isNull();
+            assertThat(attribute.getMax()).isNull();
+            assertThat(attribute.getStandardDeviation()).isNull();
+        }
+        assertThat(statistic.getMileage().getAverage()).isZero();
+    }
+
+    @Test
+    @DisplayName("when shards in other processes answer the same as one service with all cars")
+    void testTwo(@TempDir Path directory) throws Exception {
+
+        var partitions = ShardedCarsQueries.partition(fleet, 3);
+        var shards = new ArrayList<CarsQueries>();
+        for (int shard = 0; shard < 2; shard++) {
+            var file = directory.resolve("shard" + shard + ".json");
+            try (var writer = Files.newBufferedWriter(file)) {
+                new JsonWriter(writer).value(partitions.get(shard));
+            }
+            shards.add(new RemoteCarsQueries(URI.create("http://localhost:" + startShard(file))));
+        }
+        shards.add(new CarsService(partitions.get(2)));
+
+        var sharded = new ShardedCarsQueries(shards);
+
+        assertSameAnswers(sharded);
+        try (var cars = sharded.stream(CarQuery.builder().sortBy(SortingType.MILEAGE).build())) {
+            assertThat(cars.limit(3).map(CarUtils.toMileage)).containsExactly(0.0, 3.5, 7.0);
+        }
+    }
+
+    /**
+     * Method starts server of one shard in new JVM with the same class path.
+     * @return port on which shard listens.
+     */
+    private int startShard(Path file) throws IOException, InterruptedException {
+
+        var java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        var process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                "com.app.service.server.CarsHttpServer", file.toString(), "JSON", "0")
+                .redirectErrorStream(true)
+                .start();
+        processes.add(process);
+
+        var output = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        for (var line = output.readLine(); line != null; line = output.readLine()) {
+            if (line.startsWith("Listening on port ")) {
+                return Integer.parseInt(line.substring("Listening on port ".length()));
+            }
+        }
+
+        process.waitFor(5, TimeUnit.SECONDS);
+        throw new IllegalStateException("Shard didn't start, exit code " + process.exitValue());
+    }
+}
@@ -1,17 +1,20 @@
 package com.app.domain.car.extensions;
 
-import com.app.domain.car.Car;
-import com.app.domain.car.type.Color;
 import com.app.service.CarsService;
+import com.app.service.loader.CarsFileFormat;
+import com.app.service.loader.CarsLoader;
 import org.junit.jupiter.api.extension.ExtensionContext;
 import org.junit.jupiter.api.extension.ParameterContext;
 import org.junit.jupiter.api.extension.ParameterResolutionException;
 import org.junit.jupiter.api.extension.ParameterResolver;
 
-import java.math.BigDecimal;
-import java.util.List;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
 
 public class CarsJsonFileExtension implements ParameterResolver {
+
+    private static final String CARS_FILE = "/cars.json";
+
     @Override
     public boolean supportsParameter(ParameterContext parameterContext, ExtensionContext extensionContext) throws ParameterResolutionException {
         return parameterContext.getParameter().getType().equals(CarsService.class);
@@ -19,31 +22,11 @@ public class CarsJsonFileExtension implements ParameterResolver {
 
     @Override
     public Object resolveParameter(ParameterContext parameterContext, ExtensionContext extensionContext) throws ParameterResolutionException {
-        Car carOne = Car
-                .builder()
-                .model("Audi")
-                .price(BigDecimal.valueOf(25000))
-                .color(Color.WHITE)
-                .mileage(500)
-                .components(List.of("Windows","ABS","XYZ"))
-                .build();
-        Car carTwo = Car
-                .builder()
-                .model("BMW")
-                .price(BigDecimal.valueOf(5555500))
-                .color(Color.BLACK)
-                .mileage(0)
-                .components(List.of("Mirrors","ABS","GPS"))
-                .build();
-
-        Car carThree = Car
-                .builder()
-                .model("Audi")
-                .price(BigDecimal.valueOf(100000))
-                .color(Color.BLACK)
-                .mileage(25000)
-                .build();
-
-        return new CarsService(List.of(carOne, carTwo, carThree));
+        try {
+            var file = Path.of(CarsJsonFileExtension.class.getResource(CARS_FILE).toURI());
+            return new CarsLoader().loadService(file, CarsFileFormat.JSON);
+        } catch (URISyntaxException e) {
+            throw new ParameterResolutionException("Can't read " + CARS_FILE, e);
+        }
     }
 }